@@ -1,15 +1,109 @@
 import exceptions.BusinessException;
 import controller.CarController;
+import controller.DAO.CarDAO;
+import controller.DAO.ShardedCarDAO;
+import metrics.CarShopMetrics;
+import metrics.MetricsReporter;
+import model.store.ColumnarCarStore;
+import model.store.CarStore;
+import model.store.MappedCarStore;
 import view.CarShopView;
+import view.binary.CarShopBinaryServer;
+import view.http.CarShopHttpServer;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
 
 public class Main {
+    private static final String SHARD_DIRECTORY = "src/main/resources/shards";
+
     public static void main(String[] args) {
         try {
-            CarController carController = new CarController();
+            // -Dcarshop.shards=N stores the cars in N manufacturer shards under src/main/resources/shards,
+            // imported from cars.csv on first use; otherwise -Dcarshop.journal=true appends changes
+            // to a journal instead of rewriting cars.csv
+            Integer shards = Integer.getInteger("carshop.shards");
+            CarDAO carDAO;
+            if (shards != null) {
+                ShardedCarDAO shardedCarDAO = new ShardedCarDAO(SHARD_DIRECTORY, shards);
+                if (!shardedCarDAO.exists()) {
+                    shardedCarDAO.writeCarStore(new CarDAO(CarDAO.DEFAULT_CSV_FILE_PATH).readCarStore());
+                }
+                carDAO = shardedCarDAO;
+            } else {
+                carDAO = new CarDAO(CarDAO.DEFAULT_CSV_FILE_PATH, Boolean.getBoolean("carshop.journal"));
+            }
+            // -Dcarshop.loadThreads=N sets how many threads parse a large cars.csv
+            carDAO.setLoadParallelism(Integer.getInteger("carshop.loadThreads",
+                    Runtime.getRuntime().availableProcessors()));
+            // -Dcarshop.binarySnapshot=true keeps a binary cars.bin next to cars.csv for fast startup
+            carDAO.setBinarySnapshots(Boolean.getBoolean("carshop.binarySnapshot"));
+            // -Dcarshop.mappedStore=<file> keeps the cars off-heap in a memory-mapped record file,
+            // imported from the DAO while the file is empty; changes are written straight to it
+            String mappedStore = System.getProperty("carshop.mappedStore");
+            CarStore cars;
+            try {
+                cars = mappedStore != null ? MappedCarStore.open(Path.of(mappedStore)) : new ColumnarCarStore();
+            } catch (IOException e) {
+                throw new BusinessException("Error opening the car store " + mappedStore + ": " + e.getMessage(), "main");
+            }
+            CarController carController = new CarController(carDAO, cars);
             carController.loadCarsFromCSV();
+            // -Dcarshop.groupCommitMillis=N persists changes in the background, batched per N ms window;
+            // a mapped store persists its own changes
+            Long groupCommitMillis = Long.getLong("carshop.groupCommitMillis");
+            if (groupCommitMillis != null && !cars.isPersistent()) {
+                carController.enableGroupCommit(groupCommitMillis);
+            }
+            // Metrics are published as the MBean carshop:type=CarShopMetrics
+            try {
+                carController.getMetrics().registerMBean(CarShopMetrics.DEFAULT_OBJECT_NAME);
+            } catch (JMException e) {
+                System.out.println("Metrics are not available over JMX: " + e.getMessage());
+            }
+            // -Dcarshop.metricsSeconds=N appends a metrics report to carshop-metrics.log
+            // (or -Dcarshop.metricsFile) every N seconds
+            MetricsReporter metricsReporter = null;
+            Long metricsSeconds = Long.getLong("carshop.metricsSeconds");
+            if (metricsSeconds != null) {
+                metricsReporter = new MetricsReporter(carController.getMetrics(),
+                        Path.of(System.getProperty("carshop.metricsFile", "carshop-metrics.log")), metricsSeconds);
+            }
+            // -Dcarshop.httpPort=N also serves the cars as JSON over HTTP on port N while the menu runs;
+            // -Dcarshop.httpThreads sets the request pool size on JDKs without virtual threads
+            CarShopHttpServer httpServer = null;
+            Integer httpPort = Integer.getInteger("carshop.httpPort");
+            if (httpPort != null) {
+                httpServer = new CarShopHttpServer(carController, new InetSocketAddress(httpPort),
+                        Integer.getInteger("carshop.httpThreads", 200));
+                httpServer.start();
+                System.out.println("Serving cars on http://localhost:" + httpServer.getPort() + "/cars"
+                        + (httpServer.usesVirtualThreads() ? " on virtual threads" : ""));
+            }
+            // -Dcarshop.binaryPort=N serves the binary protocol for programs on port N
+            CarShopBinaryServer binaryServer = null;
+            Integer binaryPort = Integer.getInteger("carshop.binaryPort");
+            if (binaryPort != null) {
+                binaryServer = new CarShopBinaryServer(carController, new InetSocketAddress(binaryPort));
+                binaryServer.start();
+                System.out.println("Serving the binary protocol on port " + binaryServer.getPort());
+            }
             CarShopView carShopView = new CarShopView(carController);
 
             carShopView.handleUserInput();
+            if (httpServer != null) {
+                httpServer.close();
+            }
+            if (binaryServer != null) {
+                binaryServer.close();
+            }
+            carController.close();
+            if (metricsReporter != null) {
+                metricsReporter.report();
+                metricsReporter.close();
+            }
         } catch (BusinessException e) {
             System.out.println(e.getMessage());
         }
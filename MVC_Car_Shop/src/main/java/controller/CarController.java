@@ -1,116 +1,1466 @@
 package controller;
 
 import exceptions.BusinessException;
+import exceptions.DuplicateCarException;
+import exceptions.StorageException;
 import controller.DAO.CarDAO;
+import controller.DAO.GroupCommitWriter;
+import controller.DAO.JournalWrite;
+import controller.cache.QueryResultCache;
+import controller.index.BitmapFilter;
+import controller.index.BitmapIndex;
+import controller.index.IntIntHashMap;
+import controller.index.ManufacturerIndex;
+import controller.index.NameSearchIndex;
+import controller.index.SortedLongIndex;
+import controller.query.CarQuery;
+import controller.query.QueryPlan;
+import controller.query.QueryPlanner;
+import controller.query.QueryStatistics;
+import controller.query.RowMatcher;
+import controller.query.TopRows;
+import controller.stats.InventoryAggregates;
+import metrics.CarMutationEvent;
+import metrics.CarQueryEvent;
+import metrics.CarShopMetrics;
+import metrics.LatencyHistogram;
+import model.DTO.BatchResultDTO;
+import model.DTO.CacheStatsDTO;
 import model.DTO.CarDTO;
 import model.DTO.CarDetailDTO;
 import model.DTO.CarManufacturerDTO;
+import model.DTO.InventoryStatsDTO;
+import model.DTO.PageDTO;
+import model.DTO.QueryResultDTO;
+import model.DTO.SearchSuggestionDTO;
+import model.DTO.RejectedCarDTO;
 import model.entity.Car;
+import model.entity.FuelType;
+import model.store.CarStore;
+import model.store.ColumnarCarStore;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 
+// Thread-safe: writers are serialized by writerLock and only hold the StampedLock's write lock
+// while the in-memory state changes, not while it is persisted. Point lookups read optimistically
+// without locking; scans take the shared read lock, so readers never wait for each other.
+// With group commit enabled, persisting moves to a background writer as well.
 public class CarController {
-    // List to store Car objects
-    private final List<Car> cars;
+    // Storage for the cars: columns on the heap by default, or an off-heap MappedCarStore
+    private final CarStore cars;
+    // False with a store that finds cars by ID itself, such as MappedCarStore. The controller then
+    // keeps no per-car index on the heap, so its heap does not grow with the inventory, and answers
+    // manufacturer, price, page and fuel type queries by scanning the store. The four indexes below
+    // are null and the bitmap index stays empty.
+    private final boolean heapIndexes;
+    // Primitive index from car ID to its row in the store
+    private final IntIntHashMap rowsById;
+    // Case-insensitive index from manufacturer to car IDs
+    private final ManufacturerIndex manufacturerIndex;
+    // Car IDs ordered by price
+    private final SortedLongIndex priceIndex;
+    // Car IDs in ascending order, for listing pages
+    private final SortedLongIndex idIndex;
+    // Row positions by fuel type and production year; also converts dates to years
+    private final BitmapIndex bitmapIndex;
+    // Running count, price and horsepower figures per manufacturer and fuel type
+    private final InventoryAggregates aggregates;
+    // Manufacturer and model words for prefix and typo-tolerant search
+    private final NameSearchIndex nameSearchIndex;
+    // Index cardinalities for QueryPlanner; read under the read lock
+    private final QueryStatistics queryStatistics = new QueryStatistics() {
+        @Override
+        public int size() {
+            return cars.size();
+        }
+
+        @Override
+        public int manufacturerCount(String manufacturer) {
+            return heapIndexes ? manufacturerIndex.count(manufacturer) : -1;
+        }
+
+        @Override
+        public int priceCount(long minPrice, long maxPrice) {
+            return heapIndexes ? priceIndex.countInRange(minPrice, maxPrice) : -1;
+        }
+
+        @Override
+        public int bitmapCount(BitmapFilter filter) {
+            return heapIndexes ? bitmapIndex.count(filter) : -1;
+        }
+
+        @Override
+        public boolean hasIdIndex() {
+            return heapIndexes;
+        }
+
+        @Override
+        public int yearOf(long productionDate) {
+            return bitmapIndex.yearOf(productionDate);
+        }
+    };
     private final CarDAO carDAO;
+    // Default bounds of the query result cache
+    public static final int DEFAULT_QUERY_CACHE_ENTRIES = 1024;
+    public static final long DEFAULT_QUERY_CACHE_CARS = 250_000;
+    // Number of cars read per lock acquisition when streaming a listing
+    private static final int STREAM_PAGE_SIZE = 1024;
+    // Without heap indexes every page is a scan of the store, so listings take larger pages
+    private static final int SCAN_STREAM_PAGE_SIZE = 1 << 16;
+    // Guards the store and the indexes
+    private final StampedLock lock = new StampedLock();
+    // Serializes writers, including persisting their change
+    private final ReentrantLock writerLock = new ReentrantLock();
+    // Results of manufacturer and price queries, invalidated by indexCar/unindexCar
+    private volatile QueryResultCache queryCache =
+            new QueryResultCache(DEFAULT_QUERY_CACHE_ENTRIES, DEFAULT_QUERY_CACHE_CARS);
+    // Background writer when group commit is enabled, otherwise null
+    private volatile GroupCommitWriter groupCommitWriter;
+
+    // Shared with the DAO. Point lookups and cacheable queries are sampled, because timing every
+    // call would cost more than the lookup itself.
+    private final CarShopMetrics metrics;
+    private final LatencyHistogram loadTimer;
+    private final LatencyHistogram addTimer;
+    private final LatencyHistogram updateTimer;
+    private final LatencyHistogram deleteTimer;
+    private final LatencyHistogram addBatchTimer;
+    private final LatencyHistogram upsertBatchTimer;
+    private final LatencyHistogram deleteBatchTimer;
+    private final LatencyHistogram detailsTimer;
+    private final LatencyHistogram manufacturerTimer;
+    private final LatencyHistogram priceLowerThanTimer;
+    private final LatencyHistogram priceBetweenTimer;
+    private final LatencyHistogram allCarsTimer;
+    private final LatencyHistogram allCarsPageTimer;
+    private final LatencyHistogram matchingTimer;
+    private final LatencyHistogram findTimer;
+    private final LatencyHistogram searchTimer;
 
     // Constructor to initialize the CarController and load cars from the CSV file
     public CarController(){
-        this.carDAO = new CarDAO();
-        // Load cars from the CSV file using CarDAO
-        this.cars = new ArrayList<>();
+        this(new CarDAO());
+    }
+
+    public CarController(CarDAO carDAO){
+        this(carDAO, new ColumnarCarStore());
+    }
+
+    // A persistent store, such as MappedCarStore, keeps its own cars; the DAO is then only read
+    // once, to fill the store while it is empty
+    public CarController(CarDAO carDAO, CarStore cars){
+        this.carDAO = carDAO;
+        this.cars = cars;
+        this.heapIndexes = !cars.indexesIds();
+        this.rowsById = heapIndexes ? new IntIntHashMap() : null;
+        this.manufacturerIndex = heapIndexes ? new ManufacturerIndex() : null;
+        this.priceIndex = heapIndexes ? new SortedLongIndex() : null;
+        this.idIndex = heapIndexes ? new SortedLongIndex() : null;
+        this.bitmapIndex = new BitmapIndex();
+        this.aggregates = new InventoryAggregates();
+        this.nameSearchIndex = new NameSearchIndex();
+
+        this.metrics = carDAO.getMetrics();
+        metrics.setInventorySize(cars::size);
+        this.loadTimer = metrics.histogram("CarController.loadCarsFromCSV");
+        this.addTimer = metrics.histogram("CarController.addCarLogic");
+        this.updateTimer = metrics.histogram("CarController.updateCarLogic");
+        this.deleteTimer = metrics.histogram("CarController.deleteCarByID");
+        this.addBatchTimer = metrics.histogram("CarController.addCarsLogic");
+        this.upsertBatchTimer = metrics.histogram("CarController.upsertCarsLogic");
+        this.deleteBatchTimer = metrics.histogram("CarController.deleteCarsByIDLogic");
+        this.detailsTimer = metrics.histogram("CarController.getCarDetailsById", 64);
+        this.manufacturerTimer = metrics.histogram("CarController.getCarsByManufacturerLogic", 64);
+        this.priceLowerThanTimer = metrics.histogram("CarController.getCarsWithPriceLowerThanLogic", 64);
+        this.priceBetweenTimer = metrics.histogram("CarController.getCarsWithPriceBetweenLogic");
+        this.allCarsTimer = metrics.histogram("CarController.getAllCarsLogic");
+        this.allCarsPageTimer = metrics.histogram("CarController.getAllCarsPage", 8);
+        this.matchingTimer = metrics.histogram("CarController.getCarsMatching");
+        this.findTimer = metrics.histogram("CarController.findCarsLogic");
+        this.searchTimer = metrics.histogram("CarController.searchCarsLogic");
+    }
+
+    // Latency histograms, I/O counters and inventory size of this controller and its DAO
+    public CarShopMetrics getMetrics() {
+        return metrics;
     }
 
     // Method to load cars from the CSV file
     public void loadCarsFromCSV() throws BusinessException {
-        // Reading cars from the CSV file using CarDAO
-        this.cars.addAll(carDAO.readCars());
+        long start = loadTimer.start();
+        writerLock.lock();
+        try {
+            // Reading cars from the CSV file using CarDAO
+            ColumnarCarStore loadedCars = cars.isPersistent() && cars.size() > 0 ? null : carDAO.readCarStore();
+            long stamp = lock.writeLock();
+            try {
+                replaceCars(loadedCars);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            writerLock.unlock();
+            loadTimer.stop(start);
+        }
+    }
+
+    // Replace the state with the loaded cars, or keep the stored ones if null, and rebuild the indexes
+    private void replaceCars(ColumnarCarStore loadedCars) throws BusinessException {
+        if (heapIndexes) {
+            rowsById.clear();
+            manufacturerIndex.clear();
+            priceIndex.clear();
+            idIndex.clear();
+            bitmapIndex.clear();
+        }
+        aggregates.clear();
+        nameSearchIndex.clear();
+        queryCache.clear();
+        if (loadedCars != null) {
+            cars.clear();
+            cars.addAll(loadedCars);
+        }
+        for (int row = 0; row < cars.rowLimit(); row++) {
+            if (!cars.isLive(row)) {
+                continue;
+            }
+            // A store that indexes IDs has refused duplicates already
+            if (heapIndexes && rowsById.containsKey(cars.id(row))) {
+                throw new StorageException("Duplicate car ID " + cars.id(row) + " in CSV file.", "loadCarsFromCSV");
+            }
+            indexCar(row);
+        }
     }
 
     public void addCarLogic(Car car) throws BusinessException{
-        cars.add(car);
-        carDAO.writeCars(cars);
+        CarMutationEvent event = new CarMutationEvent();
+        event.begin();
+        long start = addTimer.start();
+        writerLock.lock();
+        try {
+            // Only this thread modifies the state, so it can be checked without the stamped lock
+            if (rowOf(car.getId()) != CarStore.NO_ROW) {
+                throw new DuplicateCarException("A car with ID " + car.getId() + " already exists.", "addCarLogic");
+            }
+            long stamp = lock.writeLock();
+            try {
+                indexCar(cars.add(car));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            persist(dao -> dao.appendAdd(car));
+        } finally {
+            writerLock.unlock();
+            addTimer.stop(start);
+            event.commit("addCarLogic", car.getId(), 1);
+        }
     }
 
-    public void updateCarLogic(Car updatedCar, int oldID) throws BusinessException {
-        for (int i = 0; i < cars.size(); i++) {
+    // False if there is no car with oldID
+    public boolean updateCarLogic(Car updatedCar, int oldID) throws BusinessException {
+        CarMutationEvent event = new CarMutationEvent();
+        event.begin();
+        long start = updateTimer.start();
+        writerLock.lock();
+        try {
             // Find the car with the specified ID
-            if (cars.get(i).getId() == oldID) {
-                // Update the car with the new details
-                cars.set(i, updatedCar);
-                carDAO.writeCars(cars);
-                return;
+            int row = rowOf(oldID);
+            if (row == CarStore.NO_ROW) {
+                return false;
+            }
+            // The new ID must not belong to another car
+            if (updatedCar.getId() != oldID && rowOf(updatedCar.getId()) != CarStore.NO_ROW) {
+                throw new DuplicateCarException("A car with ID " + updatedCar.getId() + " already exists.",
+                        "updateCarLogic");
+            }
+            // Update the car with the new details
+            long stamp = lock.writeLock();
+            try {
+                unindexCar(row);
+                cars.set(row, updatedCar);
+                indexCar(row);
+            } finally {
+                lock.unlockWrite(stamp);
             }
+            persist(dao -> dao.appendUpdate(oldID, updatedCar));
+            return true;
+        } finally {
+            writerLock.unlock();
+            updateTimer.stop(start);
+            event.commit("updateCarLogic", oldID, 1);
         }
     }
 
-    // Delete a car
-    public void deleteCarByID(int carId) throws BusinessException{
-        cars.removeIf(car -> car.getId() == carId);
-        carDAO.writeCars(cars);
+    // Delete a car; false if there is none with the ID
+    public boolean deleteCarByID(int carId) throws BusinessException{
+        CarMutationEvent event = new CarMutationEvent();
+        event.begin();
+        long start = deleteTimer.start();
+        writerLock.lock();
+        try {
+            int row = rowOf(carId);
+            if (row == CarStore.NO_ROW) {
+                return false;
+            }
+            long stamp = lock.writeLock();
+            try {
+                unindexCar(row);
+                // The last car may move into the freed row so the removal is O(1)
+                moveRow(cars.remove(row), row);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            persist(dao -> dao.appendDelete(carId));
+            return true;
+        } finally {
+            writerLock.unlock();
+            deleteTimer.stop(start);
+            event.commit("deleteCarByID", carId, 1);
+        }
+    }
+
+    // Add a batch of new cars. Every car is validated first; the valid ones are applied together
+    // and persisted once, the others are reported with the reason they were rejected.
+    public BatchResultDTO addCarsLogic(List<Car> newCars) throws BusinessException {
+        CarMutationEvent event = new CarMutationEvent();
+        event.begin();
+        long start = addBatchTimer.start();
+        writerLock.lock();
+        try {
+            List<RejectedCarDTO> rejectedCars = new ArrayList<>();
+            List<Car> accepted = new ArrayList<>(newCars.size());
+            IntIntHashMap batchIds = new IntIntHashMap(newCars.size());
+            for (int i = 0; i < newCars.size(); i++) {
+                Car car = newCars.get(i);
+                String reason = validateCar(car);
+                if (reason == null && rowOf(car.getId()) != CarStore.NO_ROW) {
+                    reason = "A car with ID " + car.getId() + " already exists.";
+                }
+                if (reason == null && batchIds.put(car.getId(), i) != IntIntHashMap.NO_VALUE) {
+                    reason = "Car ID " + car.getId() + " appears more than once in the batch.";
+                }
+                if (reason != null) {
+                    rejectedCars.add(new RejectedCarDTO(i, car == null ? 0 : car.getId(), reason));
+                } else {
+                    accepted.add(car);
+                }
+            }
+            long stamp = lock.writeLock();
+            try {
+                for (Car car : accepted) {
+                    indexCar(cars.add(car));
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (!accepted.isEmpty()) {
+                persist(dao -> dao.appendAdds(accepted));
+            }
+            return new BatchResultDTO(accepted.size(), rejectedCars);
+        } finally {
+            writerLock.unlock();
+            addBatchTimer.stop(start);
+            event.commit("addCarsLogic", 0, newCars.size());
+        }
+    }
+
+    // Add or replace a batch of cars by ID, validated, applied and persisted like addCarsLogic
+    public BatchResultDTO upsertCarsLogic(List<Car> upsertedCars) throws BusinessException {
+        CarMutationEvent event = new CarMutationEvent();
+        event.begin();
+        long start = upsertBatchTimer.start();
+        writerLock.lock();
+        try {
+            List<RejectedCarDTO> rejectedCars = new ArrayList<>();
+            List<Car> accepted = new ArrayList<>(upsertedCars.size());
+            IntIntHashMap batchIds = new IntIntHashMap(upsertedCars.size());
+            for (int i = 0; i < upsertedCars.size(); i++) {
+                Car car = upsertedCars.get(i);
+                String reason = validateCar(car);
+                if (reason == null && batchIds.put(car.getId(), i) != IntIntHashMap.NO_VALUE) {
+                    reason = "Car ID " + car.getId() + " appears more than once in the batch.";
+                }
+                if (reason != null) {
+                    rejectedCars.add(new RejectedCarDTO(i, car == null ? 0 : car.getId(), reason));
+                } else {
+                    accepted.add(car);
+                }
+            }
+            long stamp = lock.writeLock();
+            try {
+                for (Car car : accepted) {
+                    int row = rowOf(car.getId());
+                    if (row == CarStore.NO_ROW) {
+                        indexCar(cars.add(car));
+                    } else {
+                        unindexCar(row);
+                        cars.set(row, car);
+                        indexCar(row);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            // Journal add records replace a car with the same ID on replay
+            if (!accepted.isEmpty()) {
+                persist(dao -> dao.appendAdds(accepted));
+            }
+            return new BatchResultDTO(accepted.size(), rejectedCars);
+        } finally {
+            writerLock.unlock();
+            upsertBatchTimer.stop(start);
+            event.commit("upsertCarsLogic", 0, upsertedCars.size());
+        }
+    }
+
+    // Delete a batch of cars by ID; unknown IDs are reported as rejected
+    public BatchResultDTO deleteCarsByIDLogic(Collection<Integer> carIds) throws BusinessException {
+        CarMutationEvent event = new CarMutationEvent();
+        event.begin();
+        long start = deleteBatchTimer.start();
+        writerLock.lock();
+        try {
+            List<RejectedCarDTO> rejectedCars = new ArrayList<>();
+            int[] accepted = new int[carIds.size()];
+            int acceptedCount = 0;
+            IntIntHashMap batchIds = new IntIntHashMap(carIds.size());
+            int i = 0;
+            for (Integer carId : carIds) {
+                if (carId == null) {
+                    rejectedCars.add(new RejectedCarDTO(i, 0, "Car ID is missing."));
+                } else if (rowOf(carId) == CarStore.NO_ROW) {
+                    rejectedCars.add(new RejectedCarDTO(i, carId, "No car with ID " + carId + " exists."));
+                } else if (batchIds.put(carId, i) != IntIntHashMap.NO_VALUE) {
+                    rejectedCars.add(new RejectedCarDTO(i, carId,
+                            "Car ID " + carId + " appears more than once in the batch."));
+                } else {
+                    accepted[acceptedCount++] = carId;
+                }
+                i++;
+            }
+            accepted = Arrays.copyOf(accepted, acceptedCount);
+            long stamp = lock.writeLock();
+            try {
+                for (int carId : accepted) {
+                    int row = rowOf(carId);
+                    unindexCar(row);
+                    moveRow(cars.remove(row), row);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (acceptedCount > 0) {
+                int[] deletedIds = accepted;
+                persist(dao -> dao.appendDeletes(deletedIds));
+            }
+            return new BatchResultDTO(acceptedCount, rejectedCars);
+        } finally {
+            writerLock.unlock();
+            deleteBatchTimer.stop(start);
+            event.commit("deleteCarsByIDLogic", 0, carIds.size());
+        }
+    }
+
+    // Persist an applied change: hand it to the group commit writer, or write it now by appending
+    // its journal records or rewriting the snapshot. Called by writers holding writerLock.
+    private void persist(JournalWrite journalWrite) throws BusinessException {
+        if (cars.isPersistent()) {
+            // The store wrote the change through to its file
+            return;
+        }
+        if (groupCommitWriter != null) {
+            groupCommitWriter.submit(journalWrite);
+        } else if (carDAO.isJournaled()) {
+            journalWrite.appendTo(carDAO);
+            compactIfDue();
+        } else {
+            // Only persistent stores differ from the heap columns, and they returned above
+            carDAO.writeChanges(journalWrite, (ColumnarCarStore) cars);
+        }
+    }
+
+    // Reason a car cannot be stored, or null if it is valid
+    private static String validateCar(Car car) {
+        if (car == null) {
+            return "Car is missing.";
+        }
+        if (car.getManufacturer() == null || car.getManufacturer().isBlank()) {
+            return "Manufacturer is missing.";
+        }
+        if (car.getModel() == null || car.getModel().isBlank()) {
+            return "Model is missing.";
+        }
+        // The CSV file separates columns with commas and cars with line breaks
+        if (!isCsvSafe(car.getManufacturer()) || !isCsvSafe(car.getModel())) {
+            return "Manufacturer and model must not contain commas or line breaks.";
+        }
+        if (car.getProductionDate() == null) {
+            return "Production date is missing.";
+        }
+        if (car.getFuelType() == null) {
+            return "Fuel type is missing.";
+        }
+        if (car.getPrice() < 0) {
+            return "Price must not be negative.";
+        }
+        if (car.getHorsepower() < 0) {
+            return "Horsepower must not be negative.";
+        }
+        return null;
+    }
+
+    private static boolean isCsvSafe(String value) {
+        return value.indexOf(',') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+
+    // Add the car stored in the given row to every index
+    private void indexCar(int row) {
+        if (heapIndexes) {
+            int carId = cars.id(row);
+            rowsById.put(carId, row);
+            manufacturerIndex.add(carId, cars.manufacturer(row));
+            priceIndex.add(cars.price(row), carId);
+            idIndex.add(carId, carId);
+            bitmapIndex.add(row, cars.fuelType(row), cars.productionDate(row));
+        }
+        aggregates.add(cars.manufacturer(row), cars.fuelType(row), cars.price(row), cars.horsepower(row));
+        nameSearchIndex.add(cars.manufacturer(row), cars.model(row));
+        queryCache.invalidateCar(cars.manufacturer(row), cars.price(row));
+    }
+
+    // Remove the car stored in the given row from every index
+    private void unindexCar(int row) {
+        if (heapIndexes) {
+            int carId = cars.id(row);
+            rowsById.remove(carId);
+            manufacturerIndex.remove(carId, cars.manufacturer(row));
+            priceIndex.remove(cars.price(row), carId);
+            idIndex.remove(carId, carId);
+            bitmapIndex.remove(row, cars.fuelType(row), cars.productionDate(row));
+        }
+        aggregates.remove(cars.manufacturer(row), cars.fuelType(row), cars.price(row), cars.horsepower(row));
+        nameSearchIndex.remove(cars.manufacturer(row), cars.model(row));
+        queryCache.invalidateCar(cars.manufacturer(row), cars.price(row));
+    }
+
+    // Point the row-based indexes at the car the store moved from one row into another
+    private void moveRow(int from, int to) {
+        if (from == CarStore.NO_ROW || !heapIndexes) {
+            return;
+        }
+        rowsById.put(cars.id(to), to);
+        bitmapIndex.move(from, to, cars.fuelType(to), cars.productionDate(to));
+    }
+
+    // Row of the car with the given ID, or NO_ROW
+    private int rowOf(int carId) {
+        return heapIndexes ? rowsById.get(carId) : cars.rowOf(carId);
+    }
+
+    // Fold the journal into a new snapshot once it has grown past the DAO's threshold
+    private void compactIfDue() throws BusinessException {
+        if (carDAO.isCompactionDue()) {
+            carDAO.compactInBackground(cars.copy());
+        }
+    }
+
+    // Return from mutations as soon as memory is updated and persist changes in the background,
+    // one write per window of the given length
+    public void enableGroupCommit(long windowMillis) {
+        if (cars.isPersistent()) {
+            throw new IllegalStateException("The car store persists its own changes.");
+        }
+        writerLock.lock();
+        try {
+            if (groupCommitWriter == null) {
+                groupCommitWriter = new GroupCommitWriter(carDAO, () -> lockedRead(cars::copy), windowMillis);
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    // Future that completes once every change made so far is durable
+    public CompletableFuture<Void> durability() {
+        GroupCommitWriter writer = groupCommitWriter;
+        return writer == null ? CompletableFuture.completedFuture(null) : writer.durability();
+    }
+
+    // After group commit failed to write a batch, write the whole inventory as a new snapshot
+    // and accept changes again
+    public void recoverPersistence() throws BusinessException {
+        GroupCommitWriter writer = groupCommitWriter;
+        if (writer != null) {
+            writer.recover();
+        }
+    }
+
+    // Flush and release the storage
+    public void close() throws BusinessException {
+        writerLock.lock();
+        try {
+            if (groupCommitWriter != null) {
+                groupCommitWriter.close();
+                groupCommitWriter = null;
+            }
+            carDAO.close();
+            cars.close();
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    // Run a short read without locking and keep the result if no writer got in between;
+    // otherwise run it again under the read lock. A read racing a writer may see torn state
+    // and throw, which is treated like a failed validation.
+    private <T> T optimisticRead(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Retried under the read lock below
+            }
+        }
+        return lockedRead(read);
+    }
+
+    // Run a read under the shared read lock; used for scans, which would rarely validate optimistically
+    private <T> T lockedRead(Supplier<T> read) {
+        long stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Check whether a car with the given ID exists
+    public boolean containsCar(int carId) {
+        return optimisticRead(() -> rowOf(carId) != CarStore.NO_ROW);
     }
 
     public CarDetailDTO getCarDetailsById(int carId) {
-        for (Car car : cars) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = detailsTimer.start();
+        CarDetailDTO details = optimisticRead(() -> {
             // Find the car with the specified ID
-            if (car.getId() == carId) {
-                // Convert car entity to CarDetailDTO and return
-                return car.toCarDetailDTO();
+            int row = rowOf(carId);
+            if (row == CarStore.NO_ROW) {
+                // Return null if no car with the specified ID is found
+                return null;
             }
+            // Build the CarDetailDTO from the car's columns
+            return cars.toCarDetailDTO(row);
+        });
+        detailsTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getCarDetailsById", "carId=" + carId, details == null ? 0 : 1, 1);
         }
-        // Return null if no car with the specified ID is found
-        return null;
+        return details;
     }
 
-    // Get cars from a given manufacturer
-    public List<CarManufacturerDTO> getCarsByManufacturerLogic(String manufacturer) {
-        List<CarManufacturerDTO> result = new ArrayList<>();
+    // Replace the query result cache with an empty one of the given bounds; 0 entries disables it
+    public void configureQueryCache(int maxEntries, long maxCachedCars) {
+        long stamp = lock.writeLock();
+        try {
+            queryCache = new QueryResultCache(maxEntries, maxCachedCars);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public CacheStatsDTO getQueryCacheStats() {
+        return queryCache.getStats();
+    }
 
-        for (Car car : cars) {
-            // Check if manufacturer matches
-            if (car.getManufacturer().equalsIgnoreCase(manufacturer)) {
-                // Convert car entity to CarManufacturerDTO and add to result list
-                result.add(car.toCarManufacturerDTO());
+    // Get cars from a given manufacturer. The list is shared with the cache and unmodifiable.
+    public List<CarManufacturerDTO> getCarsByManufacturerLogic(String manufacturer) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = manufacturerTimer.start();
+        QueryResultCache cache = queryCache;
+        List<CarManufacturerDTO> cached = cache.getByManufacturer(manufacturer);
+        if (cached != null) {
+            manufacturerTimer.stop(start);
+            if (event.shouldCommit()) {
+                event.commit("getCarsByManufacturerLogic", "manufacturer=" + manufacturer, cached.size(), 0);
             }
+            return cached;
         }
-        return result;
+        long[] version = new long[1];
+        List<CarManufacturerDTO> result = lockedRead(() -> {
+            version[0] = cache.version();
+            if (!heapIndexes) {
+                List<CarManufacturerDTO> found = new ArrayList<>();
+                scanIds(manufacturerFilter(manufacturer), CarQuery.SortField.ID, 0, Integer.MAX_VALUE,
+                        carId -> found.add(cars.toCarManufacturerDTO(rowOf(carId))));
+                return found;
+            }
+            List<CarManufacturerDTO> found = new ArrayList<>(manufacturerIndex.count(manufacturer));
+
+            // Only visit the cars of the matching manufacturer
+            manufacturerIndex.forEach(manufacturer, carId -> {
+                // Build the CarManufacturerDTO and add it to the result list
+                found.add(cars.toCarManufacturerDTO(rowsById.get(carId)));
+            });
+            return found;
+        });
+        List<CarManufacturerDTO> shared = cache.putByManufacturer(manufacturer, result, version[0]);
+        manufacturerTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getCarsByManufacturerLogic", "manufacturer=" + manufacturer, result.size(), result.size());
+        }
+        return shared;
     }
 
-    // Get cars with price lower than a given value
+    // Get cars with price lower than a given value, cheapest first.
+    // The list is shared with the cache and unmodifiable.
     public List<CarDTO> getCarsWithPriceLowerThanLogic(long price) {
-        List<CarDTO> result = new ArrayList<>();
+        if (price == Long.MIN_VALUE) {
+            return List.of();
+        }
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = priceLowerThanTimer.start();
+        QueryResultCache cache = queryCache;
+        List<CarDTO> cached = cache.getPriceBelow(price);
+        if (cached != null) {
+            priceLowerThanTimer.stop(start);
+            if (event.shouldCommit()) {
+                event.commit("getCarsWithPriceLowerThanLogic", "price=" + price, cached.size(), 0);
+            }
+            return cached;
+        }
+        long[] version = new long[1];
+        List<CarDTO> result = lockedRead(() -> {
+            version[0] = cache.version();
+            List<CarDTO> found = new ArrayList<>();
+            forEachByPrice(Long.MIN_VALUE, price - 1, Integer.MAX_VALUE, carId -> found.add(toCarDTO(carId)));
+            return found;
+        });
+        List<CarDTO> shared = cache.putPriceBelow(price, result, version[0]);
+        priceLowerThanTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getCarsWithPriceLowerThanLogic", "price=" + price, result.size(), result.size());
+        }
+        return shared;
+    }
+
+    // Get cars with price lower than or equal to a given value, cheapest first
+    public List<CarDTO> getCarsWithPriceAtMostLogic(long price) {
+        return getCarsWithPriceBetweenLogic(Long.MIN_VALUE, price);
+    }
+
+    // Get cars with minPrice <= price <= maxPrice, cheapest first
+    public List<CarDTO> getCarsWithPriceBetweenLogic(long minPrice, long maxPrice) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = priceBetweenTimer.start();
+        List<CarDTO> inRange = lockedRead(() -> {
+            List<CarDTO> result = new ArrayList<>();
+            forEachByPrice(minPrice, maxPrice, Integer.MAX_VALUE, carId -> result.add(toCarDTO(carId)));
+            return result;
+        });
+        priceBetweenTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getCarsWithPriceBetweenLogic", "minPrice=" + minPrice + ", maxPrice=" + maxPrice,
+                    inRange.size(), inRange.size());
+        }
+        return inRange;
+    }
+
+    // Get the given number of cheapest cars priced above a given value
+    public List<CarDTO> getCheapestCarsAboveLogic(long price, int limit) {
+        if (price == Long.MAX_VALUE) {
+            return new ArrayList<>();
+        }
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        List<CarDTO> cheapest = lockedRead(() -> {
+            List<CarDTO> result = new ArrayList<>();
+            forEachByPrice(price + 1, Long.MAX_VALUE, limit, carId -> result.add(toCarDTO(carId)));
+            return result;
+        });
+        if (event.shouldCommit()) {
+            event.commit("getCheapestCarsAboveLogic", "price=" + price + ", limit=" + limit,
+                    cheapest.size(), cheapest.size());
+        }
+        return cheapest;
+    }
 
-        for (Car car : cars) {
-            if (car.getPrice() < price) {
-                // Convert car entity to CarDTO and add to result list
-                result.add(car.toCarDTO());
+    // Get the most expensive car priced at or below a given value, or null if there is none
+    public CarDTO getPriceFloorLogic(long price) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        CarDTO car = lockedRead(() -> {
+            if (!heapIndexes) {
+                // The most expensive car, the highest ID among equal prices, as the index walks them
+                int floor = CarStore.NO_ROW;
+                for (int row = 0; row < cars.rowLimit(); row++) {
+                    if (cars.isLive(row) && cars.price(row) <= price && (floor == CarStore.NO_ROW
+                            || cars.price(row) > cars.price(floor)
+                            || cars.price(row) == cars.price(floor) && cars.id(row) > cars.id(floor))) {
+                        floor = row;
+                    }
+                }
+                return floor == CarStore.NO_ROW ? null : cars.toCarDTO(floor);
             }
+            List<CarDTO> result = new ArrayList<>(1);
+            priceIndex.forEachDescending(price, 1, carId -> result.add(toCarDTO(carId)));
+            return result.isEmpty() ? null : result.get(0);
+        });
+        if (event.shouldCommit()) {
+            event.commit("getPriceFloorLogic", "price=" + price, car == null ? 0 : 1, car == null ? 0 : 1);
         }
-        return result;
+        return car;
+    }
+
+    // Get the cheapest car priced at or above a given value, or null if there is none
+    public CarDTO getPriceCeilingLogic(long price) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        CarDTO car = lockedRead(() -> {
+            List<CarDTO> result = new ArrayList<>(1);
+            forEachByPrice(price, Long.MAX_VALUE, 1, carId -> result.add(toCarDTO(carId)));
+            return result.isEmpty() ? null : result.get(0);
+        });
+        if (event.shouldCommit()) {
+            event.commit("getPriceCeilingLogic", "price=" + price, car == null ? 0 : 1, car == null ? 0 : 1);
+        }
+        return car;
+    }
+
+    private CarDTO toCarDTO(int carId) {
+        return cars.toCarDTO(rowOf(carId));
+    }
+
+    // Visit the IDs of the cars priced minPrice..maxPrice, both inclusive, cheapest first and
+    // by ID among equal prices, stopping after limit cars
+    private void forEachByPrice(long minPrice, long maxPrice, int limit, IntConsumer action) {
+        if (heapIndexes) {
+            priceIndex.forEachFrom(minPrice, Integer.MIN_VALUE, maxPrice, limit, action);
+        } else if (minPrice <= maxPrice) {
+            scanIds(row -> cars.price(row) >= minPrice && cars.price(row) <= maxPrice, CarQuery.SortField.PRICE,
+                    0, limit, action);
+        }
+    }
+
+    // Without heap indexes: visit the IDs of the live rows the filter accepts, in ID or in price
+    // then ID order, skipping the first skip and stopping after maxIds. One scan of the store
+    // feeds a heap of skip + maxIds rows.
+    private void scanIds(IntPredicate filter, CarQuery.SortField order, int skip, int maxIds, IntConsumer action) {
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) skip + maxIds);
+        TopRows top = new TopRows(new CarQuery().sortBy(order, false).limit(wanted), cars);
+        for (int row = 0; row < cars.rowLimit(); row++) {
+            if (cars.isLive(row) && filter.test(row)) {
+                top.offer(row);
+            }
+        }
+        int[] rows = top.sortedRows();
+        for (int i = skip; i < rows.length; i++) {
+            action.accept(cars.id(rows[i]));
+        }
+    }
+
+    // Accepts the rows of the manufacturer, compared like the manufacturer index compares names
+    private IntPredicate manufacturerFilter(String manufacturer) {
+        String normalized = ManufacturerIndex.normalize(manufacturer);
+        return row -> ManufacturerIndex.normalize(cars.manufacturer(row)).equals(normalized);
+    }
+
+    // Rows matching the filter, from the bitmap index or, without heap indexes, a scan
+    private BitSet matchingRows(BitmapFilter filter) {
+        if (heapIndexes) {
+            return bitmapIndex.evaluate(filter);
+        }
+        BitSet rows = new BitSet(cars.rowLimit());
+        for (int row = 0; row < cars.rowLimit(); row++) {
+            if (cars.isLive(row) && filter.matches(cars.fuelType(row), bitmapIndex.yearOf(cars.productionDate(row)))) {
+                rows.set(row);
+            }
+        }
+        return rows;
     }
 
     // Get all cars
     public List<CarDTO> getAllCarsLogic() {
-        List<CarDTO> result = new ArrayList<>();
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = allCarsTimer.start();
+        List<CarDTO> allCars = lockedRead(() -> {
+            List<CarDTO> result = new ArrayList<>(cars.size());
+
+            for (int row = 0; row < cars.rowLimit(); row++) {
+                // Build a CarDTO for each stored row and add it to the result list
+                if (cars.isLive(row)) {
+                    result.add(cars.toCarDTO(row));
+                }
+            }
+            return result;
+        });
+        allCarsTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getAllCarsLogic", "", allCars.size(), allCars.size());
+        }
+        return allCars;
+    }
+
+    // Manufacturer and model pairs matching every word of the text: words that start a name word,
+    // like "Por Cay" for Porsche Cayenne, or longer words with a typo or two, like "Porshe".
+    // Closest matches come first, then the pairs with the most cars.
+    public List<SearchSuggestionDTO> searchCarsLogic(String text, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Suggestion limit must be at least 1.");
+        }
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = searchTimer.start();
+        List<SearchSuggestionDTO> suggestions = lockedRead(() -> nameSearchIndex.search(text, limit));
+        searchTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("searchCarsLogic", String.valueOf(text), suggestions.size(), suggestions.size());
+        }
+        return suggestions;
+    }
+
+    // Count, total, minimum and maximum price and average horsepower per manufacturer, per fuel
+    // type and overall, read from running aggregates instead of scanning the cars
+    public InventoryStatsDTO getInventoryStatsLogic() {
+        InventoryStatsDTO stats = lockedRead(() -> aggregates.hasStaleExtremes() ? null : aggregates.toDTO());
+        if (stats != null) {
+            return stats;
+        }
+        // A removed car held a group's minimum or maximum price: recompute those from the group's cars
+        long stamp = lock.writeLock();
+        try {
+            refreshStaleExtremes();
+            return aggregates.toDTO();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Rebuild the aggregates from a full scan and compare them with the running ones. Returns the
+    // differences found, which the rebuild has repaired; an empty list means they were correct.
+    public List<String> rebuildAndVerifyInventoryStats() {
+        long stamp = lock.writeLock();
+        try {
+            refreshStaleExtremes();
+            InventoryAggregates rebuilt = new InventoryAggregates();
+            for (int row = 0; row < cars.rowLimit(); row++) {
+                if (cars.isLive(row)) {
+                    rebuilt.add(cars.manufacturer(row), cars.fuelType(row), cars.price(row), cars.horsepower(row));
+                }
+            }
+            List<String> differences = aggregates.differences(rebuilt);
+            if (!differences.isEmpty()) {
+                aggregates.clear();
+                for (int row = 0; row < cars.rowLimit(); row++) {
+                    if (cars.isLive(row)) {
+                        aggregates.add(cars.manufacturer(row), cars.fuelType(row), cars.price(row),
+                                cars.horsepower(row));
+                    }
+                }
+            }
+            return differences;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Recompute the price extremes of the groups that lost theirs, from the manufacturer index and
+    // the fuel type bitmaps. Called under the write lock.
+    private void refreshStaleExtremes() {
+        long[] extremes = new long[2];
+        IntConsumer includeRow = row -> {
+            extremes[0] = Math.min(extremes[0], cars.price(row));
+            extremes[1] = Math.max(extremes[1], cars.price(row));
+        };
+        for (String manufacturer : aggregates.staleManufacturers()) {
+            extremes[0] = Long.MAX_VALUE;
+            extremes[1] = Long.MIN_VALUE;
+            if (heapIndexes) {
+                manufacturerIndex.forEach(manufacturer, carId -> includeRow.accept(rowsById.get(carId)));
+            } else {
+                IntPredicate ofManufacturer = manufacturerFilter(manufacturer);
+                for (int row = 0; row < cars.rowLimit(); row++) {
+                    if (cars.isLive(row) && ofManufacturer.test(row)) {
+                        includeRow.accept(row);
+                    }
+                }
+            }
+            aggregates.manufacturer(manufacturer).setExtremes(extremes[0], extremes[1]);
+        }
+        for (FuelType fuelType : aggregates.staleFuelTypes()) {
+            extremes[0] = Long.MAX_VALUE;
+            extremes[1] = Long.MIN_VALUE;
+            BitSet rows = matchingRows(BitmapFilter.fuelTypes(fuelType));
+            rows.stream().forEach(includeRow);
+            aggregates.fuelType(fuelType).setExtremes(extremes[0], extremes[1]);
+        }
+    }
+
+    // Cars matching a fuel type and production year filter, in row order. The filter is answered
+    // by the bitmap index, so only the matching rows are read.
+    public List<CarDTO> getCarsMatching(BitmapFilter filter) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = matchingTimer.start();
+        List<CarDTO> matches = lockedRead(() -> {
+            BitSet rows = matchingRows(filter);
+            List<CarDTO> result = new ArrayList<>(rows.cardinality());
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                result.add(cars.toCarDTO(row));
+            }
+            return result;
+        });
+        matchingTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getCarsMatching", filter.toString(), matches.size(), matches.size());
+        }
+        return matches;
+    }
+
+    // Number of cars matching the filter, without reading any of them
+    public int countCarsMatching(BitmapFilter filter) {
+        return lockedRead(() -> matchingRows(filter).cardinality());
+    }
+
+    // Get a page of cars with ID > afterId in ID order; start with Long.MIN_VALUE
+    public PageDTO<CarDTO> getAllCarsPage(long afterId, int limit) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = allCarsPageTimer.start();
+        PageDTO<CarDTO> page = readPage(limit, afterId, Long.MIN_VALUE, cars::toCarDTO,
+                (maxIds, action) -> {
+                    if (heapIndexes) {
+                        idIndex.forEachAfter(afterId, Integer.MAX_VALUE, Long.MAX_VALUE, maxIds, action);
+                    } else {
+                        scanIds(row -> cars.id(row) > afterId, CarQuery.SortField.ID, 0, maxIds, action);
+                    }
+                });
+        allCarsPageTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit("getAllCarsPage", "afterId=" + afterId + ", limit=" + limit,
+                    page.getItems().size(), scannedIds(page));
+        }
+        return page;
+    }
+
+    // Get a page of cars in ID order, skipping the first offset cars
+    public PageDTO<CarDTO> getAllCarsPageAt(int offset, int limit) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        PageDTO<CarDTO> page = readPage(limit, Long.MIN_VALUE, Long.MIN_VALUE, cars::toCarDTO,
+                (maxIds, action) -> {
+                    if (heapIndexes) {
+                        idIndex.forEachFromRank(offset, Long.MAX_VALUE, maxIds, action);
+                    } else {
+                        scanIds(row -> true, CarQuery.SortField.ID, offset, maxIds, action);
+                    }
+                });
+        if (event.shouldCommit()) {
+            event.commit("getAllCarsPageAt", "offset=" + offset + ", limit=" + limit,
+                    page.getItems().size(), scannedIds(page));
+        }
+        return page;
+    }
+
+    // Get a page of the manufacturer's cars with ID > afterId in ID order; start with Long.MIN_VALUE
+    public PageDTO<CarManufacturerDTO> getCarsByManufacturerPage(String manufacturer, long afterId, int limit) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        PageDTO<CarManufacturerDTO> page = readPage(limit, afterId, Long.MIN_VALUE, cars::toCarManufacturerDTO,
+                (maxIds, action) -> {
+                    if (heapIndexes) {
+                        manufacturerIndex.forEachAfter(manufacturer, afterId, maxIds, action);
+                    } else {
+                        IntPredicate ofManufacturer = manufacturerFilter(manufacturer);
+                        scanIds(row -> cars.id(row) > afterId && ofManufacturer.test(row), CarQuery.SortField.ID,
+                                0, maxIds, action);
+                    }
+                });
+        if (event.shouldCommit()) {
+            event.commit("getCarsByManufacturerPage", "manufacturer=" + manufacturer
+                    + ", afterId=" + afterId + ", limit=" + limit, page.getItems().size(), scannedIds(page));
+        }
+        return page;
+    }
+
+    // Get a page of the manufacturer's cars in ID order, skipping the first offset cars
+    public PageDTO<CarManufacturerDTO> getCarsByManufacturerPageAt(String manufacturer, int offset, int limit) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        PageDTO<CarManufacturerDTO> page = readPage(limit, Long.MIN_VALUE, Long.MIN_VALUE, cars::toCarManufacturerDTO,
+                (maxIds, action) -> {
+                    if (heapIndexes) {
+                        manufacturerIndex.forEachFromOffset(manufacturer, offset, maxIds, action);
+                    } else {
+                        scanIds(manufacturerFilter(manufacturer), CarQuery.SortField.ID, offset, maxIds, action);
+                    }
+                });
+        if (event.shouldCommit()) {
+            event.commit("getCarsByManufacturerPageAt", "manufacturer=" + manufacturer
+                    + ", offset=" + offset + ", limit=" + limit, page.getItems().size(), scannedIds(page));
+        }
+        return page;
+    }
+
+    // Get a page of cars cheaper than price, ordered by price then ID, following the car
+    // (afterPrice, afterId); start with Long.MIN_VALUE for both
+    public PageDTO<CarDTO> getCarsWithPriceLowerThanPage(long price, long afterPrice, long afterId, int limit) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        PageDTO<CarDTO> page = readPage(limit, afterId, afterPrice, cars::toCarDTO, (maxIds, action) -> {
+            if (price == Long.MIN_VALUE) {
+                return;
+            }
+            if (!heapIndexes) {
+                scanIds(row -> cars.price(row) < price && (cars.price(row) > afterPrice
+                        || cars.price(row) == afterPrice && cars.id(row) > afterId), CarQuery.SortField.PRICE,
+                        0, maxIds, action);
+            } else if (afterId >= Integer.MAX_VALUE) {
+                priceIndex.forEachAfter(afterPrice, Integer.MAX_VALUE, price - 1, maxIds, action);
+            } else if (afterId < Integer.MIN_VALUE) {
+                priceIndex.forEachFrom(afterPrice, Integer.MIN_VALUE, price - 1, maxIds, action);
+            } else {
+                priceIndex.forEachAfter(afterPrice, (int) afterId, price - 1, maxIds, action);
+            }
+        });
+        if (event.shouldCommit()) {
+            event.commit("getCarsWithPriceLowerThanPage", "price=" + price + ", afterPrice=" + afterPrice
+                    + ", afterId=" + afterId + ", limit=" + limit,
+                    page.getItems().size(), scannedIds(page));
+        }
+        return page;
+    }
 
-        for (Car car : cars) {
-            // Convert each car entity to CarDTO and add to result list
-            result.add(car.toCarDTO());
+    // Get a page of cars cheaper than price, ordered by price then ID, skipping the first offset cars
+    public PageDTO<CarDTO> getCarsWithPriceLowerThanPageAt(long price, int offset, int limit) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        PageDTO<CarDTO> page = readPage(limit, Long.MIN_VALUE, Long.MIN_VALUE, cars::toCarDTO, (maxIds, action) -> {
+            if (price == Long.MIN_VALUE) {
+                return;
+            }
+            if (heapIndexes) {
+                priceIndex.forEachFromRank(offset, price - 1, maxIds, action);
+            } else {
+                scanIds(row -> cars.price(row) < price, CarQuery.SortField.PRICE, offset, maxIds, action);
+            }
+        });
+        if (event.shouldCommit()) {
+            event.commit("getCarsWithPriceLowerThanPageAt", "price=" + price
+                    + ", offset=" + offset + ", limit=" + limit, page.getItems().size(), scannedIds(page));
+        }
+        return page;
+    }
+
+    // IDs visited for a page: its items plus the one that showed whether more follow
+    private static int scannedIds(PageDTO<?> page) {
+        return page.getItems().size() + (page.hasMore() ? 1 : 0);
+    }
+
+    // Visits at most maxIds car IDs in page order
+    private interface IdScan {
+        void scan(int maxIds, IntConsumer action);
+    }
+
+    // Read one page under the read lock. One ID beyond the limit is scanned to tell whether more follow.
+    private <T> PageDTO<T> readPage(int limit, long afterId, long afterPrice, IntFunction<T> toItem, IdScan scan) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1.");
+        }
+        return lockedRead(() -> {
+            List<T> items = new ArrayList<>(Math.min(limit, STREAM_PAGE_SIZE));
+            long[] last = {afterId, afterPrice};
+            boolean[] hasMore = {false};
+            scan.scan(limit == Integer.MAX_VALUE ? limit : limit + 1, carId -> {
+                if (items.size() == limit) {
+                    hasMore[0] = true;
+                    return;
+                }
+                int row = rowOf(carId);
+                items.add(toItem.apply(row));
+                last[0] = carId;
+                last[1] = cars.price(row);
+            });
+            return new PageDTO<>(items, hasMore[0], last[0], last[1]);
+        });
+    }
+
+    // Reads the page following the given cursor
+    private interface PageReader<T> {
+        PageDTO<T> read(long afterId, long afterPrice, int limit);
+    }
+
+    // Write every car to the sink, one line each, and return the number of cars written.
+    // The listing is read a page at a time, so memory stays constant and writers only wait for
+    // one page; it is therefore not a point-in-time snapshot. The sink is not flushed.
+    public int writeAllCars(Writer out) throws IOException {
+        return writePages(out, (afterId, afterPrice, limit) -> getAllCarsPage(afterId, limit));
+    }
+
+    // Write the manufacturer's cars to the sink like writeAllCars
+    public int writeCarsByManufacturer(String manufacturer, Writer out) throws IOException {
+        return writePages(out, (afterId, afterPrice, limit) -> getCarsByManufacturerPage(manufacturer, afterId, limit));
+    }
+
+    // Write the cars cheaper than price to the sink like writeAllCars, cheapest first
+    public int writeCarsWithPriceLowerThan(long price, Writer out) throws IOException {
+        return writePages(out,
+                (afterId, afterPrice, limit) -> getCarsWithPriceLowerThanPage(price, afterPrice, afterId, limit));
+    }
+
+    private <T> int writePages(Writer out, PageReader<T> reader) throws IOException {
+        String lineSeparator = System.lineSeparator();
+        long afterId = Long.MIN_VALUE;
+        long afterPrice = Long.MIN_VALUE;
+        int written = 0;
+        PageDTO<T> page;
+        do {
+            page = reader.read(afterId, afterPrice, heapIndexes ? STREAM_PAGE_SIZE : SCAN_STREAM_PAGE_SIZE);
+            for (T item : page.getItems()) {
+                out.write(item.toString());
+                out.write(lineSeparator);
+            }
+            written += page.getItems().size();
+            afterId = page.getLastId();
+            afterPrice = page.getLastPrice();
+        } while (page.hasMore());
+        return written;
+    }
+
+    // Cars matching the query, in its sort order. QueryPlanner picks the cheapest access path
+    // among the ID, manufacturer, price and bitmap indexes and a full scan.
+    public List<CarDetailDTO> findCarsLogic(CarQuery query) {
+        return runQuery(query, "findCarsLogic").getCars();
+    }
+
+    // Run the query like findCarsLogic and also report the plan and the rows it examined
+    public QueryResultDTO explainFindCarsLogic(CarQuery query) {
+        return runQuery(query, "explainFindCarsLogic");
+    }
+
+    // The k cheapest cars, ties by ascending ID. A null manufacturer or fuel type matches any.
+    public List<CarDetailDTO> getCheapestCarsLogic(int k, String manufacturer, FuelType fuelType) {
+        return topCars(k, manufacturer, fuelType, CarQuery.SortField.PRICE, false, "getCheapestCarsLogic");
+    }
+
+    // The k cars with the most horsepower, ties by ascending ID
+    public List<CarDetailDTO> getMostPowerfulCarsLogic(int k, String manufacturer, FuelType fuelType) {
+        return topCars(k, manufacturer, fuelType, CarQuery.SortField.HORSEPOWER, true, "getMostPowerfulCarsLogic");
+    }
+
+    // The k most recently produced cars, ties by ascending ID
+    public List<CarDetailDTO> getNewestCarsLogic(int k, String manufacturer, FuelType fuelType) {
+        return topCars(k, manufacturer, fuelType, CarQuery.SortField.PRODUCTION_DATE, true, "getNewestCarsLogic");
+    }
+
+    // Planned like any query: the price index yields the cheapest cars in order, every other
+    // path feeds its matches through a heap of k rows
+    private List<CarDetailDTO> topCars(int k, String manufacturer, FuelType fuelType, CarQuery.SortField sortField,
+                                       boolean descending, String operation) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of cars must not be negative.");
+        }
+        CarQuery query = new CarQuery().sortBy(sortField, descending).limit(k);
+        if (manufacturer != null) {
+            query.manufacturer(manufacturer);
+        }
+        if (fuelType != null) {
+            query.fuelTypes(fuelType);
+        }
+        return runQuery(query, operation).getCars();
+    }
+
+    private QueryResultDTO runQuery(CarQuery query, String operation) {
+        CarQueryEvent event = new CarQueryEvent();
+        event.begin();
+        long start = findTimer.start();
+        QueryResultDTO result = lockedRead(() -> {
+            QueryPlan plan = QueryPlanner.plan(query, queryStatistics);
+            // An ordered path stops once the limit is reached; otherwise a limited query keeps only
+            // the best matches in a bounded heap, and an unlimited one sorts every match
+            boolean topRows = !plan.isOrdered() && query.getLimit() != Integer.MAX_VALUE;
+            QueryRun run = new QueryRun(query.matcher(plan.getCoveredFields()),
+                    plan.isOrdered() ? query.getLimit() : Integer.MAX_VALUE, topRows ? new TopRows(query, cars) : null);
+            scanAccessPath(plan, query, run);
+            int[] rows = plan.isOrdered() || topRows ? run.rows() : sortRows(query, run.rows());
+            List<CarDetailDTO> details = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                details.add(cars.toCarDetailDTO(row));
+            }
+            return new QueryResultDTO(details, plan.toString(), run.examined);
+        });
+        findTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.commit(operation, query.toString(), result.getCars().size(), result.getRowsExamined());
         }
         return result;
     }
 
-    public void getAllCars(){
-        List<CarDTO> allCars = getAllCarsLogic();
+    // Rows a query has matched so far. Once it holds the wanted number of rows it is full and
+    // ignores further rows, so ordered scans stop there. With top rows given, matches go to that
+    // heap instead and only the best of them are kept.
+    private final class QueryRun {
+        private final RowMatcher matcher;
+        private final int wanted;
+        private final TopRows topRows;
+        private int[] rows = new int[16];
+        private int matched;
+        private int examined;
 
-        // Print details of all cars
-        if (allCars.isEmpty()) {
-            System.out.println("No cars found.");
-        } else {
-            for (CarDTO car : allCars) {
-                System.out.println(car.toString());
+        private QueryRun(RowMatcher matcher, int wanted, TopRows topRows) {
+            this.matcher = matcher;
+            this.wanted = wanted;
+            this.topRows = topRows;
+        }
+
+        private boolean isFull() {
+            return matched >= wanted;
+        }
+
+        private void visitRow(int row) {
+            if (isFull()) {
+                return;
+            }
+            examined++;
+            if (matcher.matches(cars, row)) {
+                if (topRows != null) {
+                    matched++;
+                    topRows.offer(row);
+                    return;
+                }
+                if (matched == rows.length) {
+                    rows = Arrays.copyOf(rows, matched * 2);
+                }
+                rows[matched++] = row;
+            }
+        }
+
+        private void visitId(int carId) {
+            int row = rowOf(carId);
+            if (row != CarStore.NO_ROW) {
+                visitRow(row);
+            }
+        }
+
+        private int[] rows() {
+            if (topRows != null) {
+                return topRows.sortedRows();
+            }
+            return Arrays.copyOf(rows, matched);
+        }
+    }
+
+    // Feed the rows of the plan's access path to the run. Sorted indexes are walked in batches
+    // with a keyset cursor, so an ordered run stops within a batch of reaching its limit.
+    private void scanAccessPath(QueryPlan plan, CarQuery query, QueryRun run) {
+        // Cars visited in the current batch, and the last car's ID and price as the cursor
+        int[] visited = {0};
+        long[] last = {0, 0};
+        IntConsumer visit = carId -> {
+            visited[0]++;
+            last[0] = carId;
+            run.visitId(carId);
+        };
+        switch (plan.getAccessPath()) {
+            case ID_LOOKUP:
+                run.visitId(query.getId());
+                break;
+            case MANUFACTURER_INDEX:
+                manufacturerIndex.forEachAfter(query.getManufacturer(), Long.MIN_VALUE, STREAM_PAGE_SIZE, visit);
+                while (visited[0] == STREAM_PAGE_SIZE && !run.isFull()) {
+                    visited[0] = 0;
+                    manufacturerIndex.forEachAfter(query.getManufacturer(), last[0], STREAM_PAGE_SIZE, visit);
+                }
+                break;
+            case PRICE_INDEX:
+                IntConsumer visitPriced = carId -> {
+                    visit.accept(carId);
+                    last[1] = cars.price(rowOf(carId));
+                };
+                priceIndex.forEachFrom(query.getMinPrice(), Integer.MIN_VALUE, query.getMaxPrice(),
+                        STREAM_PAGE_SIZE, visitPriced);
+                while (visited[0] == STREAM_PAGE_SIZE && !run.isFull()) {
+                    visited[0] = 0;
+                    priceIndex.forEachAfter(last[1], (int) last[0], query.getMaxPrice(), STREAM_PAGE_SIZE,
+                            visitPriced);
+                }
+                break;
+            case BITMAP_INDEX:
+                BitSet rows = matchingRows(plan.getBitmapFilter());
+                for (int row = rows.nextSetBit(0); row >= 0 && !run.isFull(); row = rows.nextSetBit(row + 1)) {
+                    run.visitRow(row);
+                }
+                break;
+            default:
+                if (!plan.isOrdered()) {
+                    for (int row = 0; row < cars.rowLimit() && !run.isFull(); row++) {
+                        if (cars.isLive(row)) {
+                            run.visitRow(row);
+                        }
+                    }
+                } else if (!query.isDescending()) {
+                    // ID order over the ID index, whose keys are the IDs themselves
+                    idIndex.forEachAscending(Long.MIN_VALUE, STREAM_PAGE_SIZE, visit);
+                    while (visited[0] == STREAM_PAGE_SIZE && !run.isFull()) {
+                        visited[0] = 0;
+                        idIndex.forEachAfter(last[0], (int) last[0], Long.MAX_VALUE, STREAM_PAGE_SIZE, visit);
+                    }
+                } else {
+                    idIndex.forEachDescending(Long.MAX_VALUE, STREAM_PAGE_SIZE, visit);
+                    while (visited[0] == STREAM_PAGE_SIZE && !run.isFull()) {
+                        visited[0] = 0;
+                        idIndex.forEachDescending(last[0] - 1, STREAM_PAGE_SIZE, visit);
+                    }
+                }
+                break;
+        }
+    }
+
+    // The rows in the query's sort order, cut to its limit
+    private int[] sortRows(CarQuery query, int[] rows) {
+        Integer[] sorted = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            sorted[i] = rows[i];
+        }
+        Arrays.sort(sorted, (row1, row2) -> query.compareRows(cars, row1, row2));
+        int[] result = new int[Math.min(rows.length, query.getLimit())];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sorted[i];
+        }
+        return result;
+    }
+
+    public void getAllCars(){
+        // Stream the cars through one buffer instead of printing a materialized list line by line
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        try {
+            if (writeAllCars(out) == 0) {
+                out.write("No cars found." + System.lineSeparator());
             }
+            out.flush();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,364 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import model.entity.FuelType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+// Streaming parser for the cars.csv format ("id, manufacturer, model, price, dd.MM.yyyy, fuel, horsepower").
+// Rows are decoded straight from a reusable byte buffer: numbers and dates are
+// accumulated digit by digit, fuel types are matched against their ASCII names
+// and manufacturer/model strings go through a small dictionary so repeated
+// names are not allocated again. The only per-row allocations are the ones the
+// RowHandler makes. A parser instance is not thread-safe; use one per thread.
+public class CarCsvParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+    private static final byte[][] FUEL_TYPE_NAMES = new byte[FUEL_TYPES.length][];
+
+    static {
+        for (int i = 0; i < FUEL_TYPES.length; i++) {
+            FUEL_TYPE_NAMES[i] = FUEL_TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    // Receives each decoded row
+    public interface RowHandler {
+        void row(int id, String manufacturer, String model, long price, int productionEpochDay,
+                 FuelType fuelType, int horsepower) throws BusinessException;
+    }
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private final StringCache strings = new StringCache();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Direct-mapped cache of epoch day -> local midnight in epoch millis
+    private final long[] cachedDays = new long[1024];
+    private final long[] cachedMillis = new long[1024];
+
+    // Cursor over the line being parsed
+    private byte[] data;
+    private int pos;
+    private int lineEnd;
+    private int lineNumber;
+
+    public CarCsvParser() {
+        Arrays.fill(cachedDays, Long.MIN_VALUE);
+    }
+
+    // Parse every line of the stream; returns the number of rows handed to the handler
+    public int parse(InputStream in, RowHandler handler) throws IOException, BusinessException {
+        int rows = 0;
+        int filled = 0;
+        int firstLine = 1;
+        while (true) {
+            if (filled == buffer.length) {
+                // A single line does not fit: grow the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+            int lastNewline = lastIndexOf(buffer, (byte) '\n', filled);
+            if (lastNewline < 0) {
+                continue;
+            }
+            rows += parse(buffer, 0, lastNewline + 1, firstLine, handler);
+            firstLine = lineNumber + 1;
+            // Keep the incomplete tail for the next read
+            filled -= lastNewline + 1;
+            System.arraycopy(buffer, lastNewline + 1, buffer, 0, filled);
+        }
+        if (filled > 0) {
+            rows += parse(buffer, 0, filled, firstLine, handler);
+        }
+        return rows;
+    }
+
+    // Parse the lines in bytes[from, to); firstLineNumber is used for error messages
+    public int parse(byte[] bytes, int from, int to, int firstLineNumber, RowHandler handler) throws BusinessException {
+        data = bytes;
+        lineNumber = firstLineNumber - 1;
+        int rows = 0;
+        int lineStart = from;
+        while (lineStart < to) {
+            lineNumber++;
+            int newline = indexOf(bytes, (byte) '\n', lineStart, to);
+            int nextLine = newline < 0 ? to : newline + 1;
+            lineEnd = newline < 0 ? to : newline;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            pos = lineStart;
+            skipSpaces();
+            if (pos < lineEnd) {
+                parseRow(handler);
+                rows++;
+            }
+            lineStart = nextLine;
+        }
+        data = null;
+        return rows;
+    }
+
+    // Number of the last line parsed
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    // Timestamp of local midnight on the given day, matching what SimpleDateFormat("dd.MM.yyyy") produced
+    public Timestamp toTimestamp(int epochDay) {
+        return new Timestamp(toEpochMillis(epochDay));
+    }
+
+    // Local midnight on the given day in epoch millis
+    public long toEpochMillis(int epochDay) {
+        int slot = epochDay & (cachedDays.length - 1);
+        if (cachedDays[slot] != epochDay) {
+            cachedMillis[slot] = LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+            cachedDays[slot] = epochDay;
+        }
+        return cachedMillis[slot];
+    }
+
+    private void parseRow(RowHandler handler) throws BusinessException {
+        int id = (int) parseNumber("ID", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        skipSeparator();
+        String manufacturer = parseString("manufacturer");
+        skipSeparator();
+        String model = parseString("model");
+        skipSeparator();
+        long price = parseNumber("price", Long.MIN_VALUE, Long.MAX_VALUE);
+        skipSeparator();
+        int productionEpochDay = parseDate();
+        skipSeparator();
+        FuelType fuelType = parseFuelType();
+        skipSeparator();
+        int horsepower = (int) parseNumber("horsepower", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        skipSpaces();
+        if (pos != lineEnd) {
+            throw malformed("unexpected data after horsepower");
+        }
+        handler.row(id, manufacturer, model, price, productionEpochDay, fuelType, horsepower);
+    }
+
+    private long parseNumber(String field, long min, long max) throws BusinessException {
+        boolean negative = pos < lineEnd && data[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        int start = pos;
+        long value = 0;
+        while (pos < lineEnd) {
+            int digit = data[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            // Accumulate negatively so Long.MIN_VALUE is representable
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw malformed(field + " is out of range");
+            }
+            value = value * 10 - digit;
+            pos++;
+        }
+        if (pos == start) {
+            throw malformed(field + " is not a number");
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw malformed(field + " is out of range");
+            }
+            value = -value;
+        }
+        if (value < min || value > max) {
+            throw malformed(field + " is out of range");
+        }
+        skipSpaces();
+        return value;
+    }
+
+    private String parseString(String field) throws BusinessException {
+        int start = pos;
+        int end = indexOf(data, (byte) ',', pos, lineEnd);
+        if (end < 0) {
+            throw malformed("missing " + field);
+        }
+        pos = end;
+        while (end > start && data[end - 1] == ' ') {
+            end--;
+        }
+        if (end == start) {
+            throw malformed(field + " is empty");
+        }
+        return strings.get(data, start, end - start);
+    }
+
+    // Decode dd.MM.yyyy into days since 1970-01-01
+    private int parseDate() throws BusinessException {
+        if (lineEnd - pos < 10 || data[pos + 2] != '.' || data[pos + 5] != '.') {
+            throw malformed("production date must use the format dd.MM.yyyy");
+        }
+        int day = digits(pos, 2);
+        int month = digits(pos + 3, 2);
+        int year = digits(pos + 6, 4);
+        pos += 10;
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw malformed("production date is not a valid date");
+        }
+        skipSpaces();
+        return epochDay(year, month, day);
+    }
+
+    private FuelType parseFuelType() throws BusinessException {
+        int start = pos;
+        while (pos < lineEnd && data[pos] != ',' && data[pos] != ' ') {
+            pos++;
+        }
+        int length = pos - start;
+        for (int i = 0; i < FUEL_TYPES.length; i++) {
+            if (equalsIgnoreAsciiCase(FUEL_TYPE_NAMES[i], data, start, length)) {
+                skipSpaces();
+                return FUEL_TYPES[i];
+            }
+        }
+        throw malformed("unknown fuel type '" + new String(data, start, length, StandardCharsets.UTF_8) + "'");
+    }
+
+    private int digits(int start, int count) throws BusinessException {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed("production date must use the format dd.MM.yyyy");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void skipSeparator() throws BusinessException {
+        if (pos >= lineEnd || data[pos] != ',') {
+            throw malformed("expected 7 comma-separated fields");
+        }
+        pos++;
+        skipSpaces();
+    }
+
+    private void skipSpaces() {
+        while (pos < lineEnd && (data[pos] == ' ' || data[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    private BusinessException malformed(String reason) {
+        return new StorageException("Malformed car on line " + lineNumber + ": " + reason + ".", "readCars");
+    }
+
+    private static boolean equalsIgnoreAsciiCase(byte[] upperName, byte[] bytes, int start, int length) {
+        if (upperName.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = bytes[start + i];
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != upperName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay, without creating a LocalDate
+    static int epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            if (!leap) {
+                total--;
+            }
+        }
+        // Days from year 0 to 1970
+        return (int) (total - 719528);
+    }
+
+    static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte value, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Open-addressing cache of decoded strings keyed by their UTF-8 bytes
+    private static final class StringCache {
+        private static final int CAPACITY = 1 << 14;
+        private static final int MAX_ENTRIES = CAPACITY / 2;
+
+        private final byte[][] keys = new byte[CAPACITY][];
+        private final String[] values = new String[CAPACITY];
+        private int size;
+
+        private String get(byte[] bytes, int start, int length) {
+            int hash = 1;
+            for (int i = start; i < start + length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, start, start + length)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            String value = new String(bytes, start, length, StandardCharsets.UTF_8);
+            // Stop caching once the table is half full; unique names are then just decoded
+            if (size < MAX_ENTRIES) {
+                keys[slot] = Arrays.copyOfRange(bytes, start, start + length);
+                values[slot] = value;
+                size++;
+            }
+            return value;
+        }
+    }
+}
@@ -1,61 +1,487 @@
 package controller.DAO;
 
+import controller.index.IntIntHashMap;
 import exceptions.BusinessException;
+import exceptions.StorageException;
+import metrics.CarFileReadEvent;
+import metrics.CarFileWriteEvent;
+import metrics.CarShopMetrics;
+import metrics.LatencyHistogram;
 import model.entity.Car;
 import model.entity.FuelType;
+import model.store.ColumnarCarStore;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Date;
-import java.text.ParseException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class CarDAO {
-    private static final String CSV_FILE_PATH = "src/main/resources/cars.csv";
+    public static final String DEFAULT_CSV_FILE_PATH = "src/main/resources/cars.csv";
 
-    // Date format for parsing and formatting production dates
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy");
+    // Number of journal records after which the journal is folded back into the CSV snapshot
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+
+    // Journal record types
+    private static final String ADD_RECORD = "A";
+    private static final String UPDATE_RECORD = "U";
+    private static final String DELETE_RECORD = "D";
+
+    // Date format for parsing and formatting production dates (thread-safe, shared with the compaction thread)
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final File csvFile;
+    // Journal that receives new records
+    private final File journalFile;
+    // Journal sealed by a compaction that has not finished yet
+    private final File sealedJournalFile;
+    // Binary copy of the snapshot, preferred at startup while it is at least as new as the CSV file
+    private final File binarySnapshotFile;
+    private final boolean journaled;
+    private final int compactionThreshold;
+
+    private final CarShopMetrics metrics = new CarShopMetrics();
+    private final LatencyHistogram readTimer = metrics.histogram("CarDAO.readCarStore");
+    private final LatencyHistogram writeTimer = metrics.histogram("CarDAO.writeCarStore");
+    private final LatencyHistogram journalTimer = metrics.histogram("CarDAO.appendJournal");
+    private final LatencyHistogram compactionTimer = metrics.histogram("CarDAO.compaction");
+
+    // Number of threads used to parse large CSV files
+    private int loadParallelism = Runtime.getRuntime().availableProcessors();
+    private boolean binarySnapshots;
+    // When set, appended journal records are only flushed by flushJournal()
+    private boolean deferredJournalFlush;
+
+    private Writer journalWriter;
+    private int journalRecords;
+    private ExecutorService compactionExecutor;
+    private Future<?> runningCompaction;
+    private volatile Exception compactionFailure;
+
+    public CarDAO() {
+        this(DEFAULT_CSV_FILE_PATH, false);
+    }
+
+    public CarDAO(String csvFilePath) {
+        this(csvFilePath, false);
+    }
+
+    // In journaled mode mutations are appended to <csv>.journal instead of rewriting the CSV file
+    public CarDAO(String csvFilePath, boolean journaled) {
+        this(csvFilePath, journaled, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public CarDAO(String csvFilePath, boolean journaled, int compactionThreshold) {
+        this.csvFile = new File(csvFilePath);
+        this.journalFile = new File(csvFilePath + ".journal");
+        this.sealedJournalFile = new File(csvFilePath + ".journal.sealed");
+        this.binarySnapshotFile = new File(csvFilePath.endsWith(".csv")
+                ? csvFilePath.substring(0, csvFilePath.length() - 4) + ".bin" : csvFilePath + ".bin");
+        this.journaled = journaled;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public void setLoadParallelism(int loadParallelism) {
+        if (loadParallelism < 1) {
+            throw new IllegalArgumentException("Load parallelism must be at least 1.");
+        }
+        this.loadParallelism = loadParallelism;
+    }
+
+    // When enabled every snapshot is also written as <name>.bin and loaded from there on startup
+    public void setBinarySnapshots(boolean binarySnapshots) {
+        this.binarySnapshots = binarySnapshots;
+    }
+
+    // Used by GroupCommitWriter to flush a whole batch of records at once
+    public synchronized void setDeferredJournalFlush(boolean deferredJournalFlush) {
+        this.deferredJournalFlush = deferredJournalFlush;
+    }
+
+    public synchronized void flushJournal() throws BusinessException {
+        if (journalWriter == null) {
+            return;
+        }
+        try {
+            journalWriter.flush();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "flushJournal");
+        }
+    }
+
+    // Shared with the controller that uses this DAO
+    public CarShopMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isJournaled() {
+        return journaled;
+    }
 
     // Read cars from CSV file
     public List<Car> readCars() throws BusinessException {
-        List<Car> cars = new ArrayList<>();
-        File file = new File(CSV_FILE_PATH);
+        return new ArrayList<>(readCarStore().asCarList());
+    }
 
-        // If the file does not exist, return an empty list
-        if (!file.exists()) {
+    // Read cars from CSV file into columns, replaying any journal records written since the last snapshot
+    public synchronized ColumnarCarStore readCarStore() throws BusinessException {
+        CarFileReadEvent event = new CarFileReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            ColumnarCarStore cars = readSnapshotAndJournal(event);
+            if (event.shouldCommit()) {
+                event.path = csvFile.getPath();
+                event.rows = cars.size();
+                event.commit();
+            }
             return cars;
+        } finally {
+            readTimer.record(System.nanoTime() - start);
         }
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-
-                // Split the CSV line into parts
-                String[] parts = line.split(", ");
-                int id = Integer.parseInt(parts[0]);
-                String manufacturer = parts[1];
-                String model = parts[2];
-                long price = Long.parseLong(parts[3]);
-                // Parse date string
-                Date productionDate = DATE_FORMAT.parse(parts[4]);
-                Timestamp timestamp = new Timestamp(productionDate.getTime());
-                FuelType fuelType = FuelType.valueOf(parts[5].toUpperCase());
-                int horsepower = Integer.parseInt(parts[6]);
-                // Create a new Car object and add it to the list
-                cars.add(new Car(id, manufacturer, model, price, timestamp, fuelType, horsepower));
-            }
-        } catch (IOException | ParseException e) {
-            throw new BusinessException(e.getMessage(), "readCars");
+    private ColumnarCarStore readSnapshotAndJournal(CarFileReadEvent event) throws BusinessException {
+        ColumnarCarStore cars = readSnapshot(event);
+        metrics.addRowsRead(cars.size());
+
+        if (!journaled || (!sealedJournalFile.exists() && !journalFile.exists())) {
+            return cars;
         }
+
+        // Replay the sealed journal first, then the active one
+        IntIntHashMap rowsById = new IntIntHashMap(cars.size());
+        for (int row = 0; row < cars.size(); row++) {
+            rowsById.put(cars.id(row), row);
+        }
+        int sealedRecords = replayJournal(sealedJournalFile, cars, rowsById);
+        journalRecords = replayJournal(journalFile, cars, rowsById);
+        event.journalRecords = sealedRecords + journalRecords;
         return cars;
     }
 
     // Write cars to CSV file
     public void writeCars(List<Car> cars) throws BusinessException {
-        File file = new File(CSV_FILE_PATH);
-        File parentDirectory = file.getParentFile();
+        writeCarStore(toCarStore(cars));
+    }
+
+    // Write the store as the new snapshot
+    public synchronized void writeCarStore(ColumnarCarStore cars) throws BusinessException {
+        long start = System.nanoTime();
+        try {
+            if (!journaled) {
+                writeSnapshot(cars, "writeCars");
+                return;
+            }
+            // The full snapshot supersedes every journal record written so far
+            awaitCompaction();
+            writeSnapshot(cars, "writeCars");
+            closeJournal();
+            deleteJournal(journalFile);
+            deleteJournal(sealedJournalFile);
+            journalRecords = 0;
+        } finally {
+            writeTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    // Persist changes that were already applied to the given state. This DAO rewrites the whole
+    // snapshot; ShardedCarDAO replays the changes to find the shards it has to rewrite.
+    public void writeChanges(JournalWrite changes, ColumnarCarStore cars) throws BusinessException {
+        writeCarStore(cars);
+    }
+
+    // Journal an added car
+    public synchronized void appendAdd(Car car) throws BusinessException {
+        appendRecord(ADD_RECORD + ", " + formatCar(car));
+    }
+
+    // Journal an update of the car previously stored under oldId
+    public synchronized void appendUpdate(int oldId, Car car) throws BusinessException {
+        appendRecord(UPDATE_RECORD + ", " + oldId + ", " + formatCar(car));
+    }
+
+    // Journal a deleted car
+    public synchronized void appendDelete(int carId) throws BusinessException {
+        appendRecord(DELETE_RECORD + ", " + carId);
+    }
+
+    // Journal a batch of added or replaced cars with a single flush
+    public synchronized void appendAdds(Collection<Car> cars) throws BusinessException {
+        List<String> records = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            records.add(ADD_RECORD + ", " + formatCar(car));
+        }
+        appendRecords(records);
+    }
+
+    // Journal a batch of deleted cars with a single flush
+    public synchronized void appendDeletes(int[] carIds) throws BusinessException {
+        List<String> records = new ArrayList<>(carIds.length);
+        for (int carId : carIds) {
+            records.add(DELETE_RECORD + ", " + carId);
+        }
+        appendRecords(records);
+    }
+
+    // Check whether the journal has grown enough to be folded into a new snapshot
+    public synchronized boolean isCompactionDue() {
+        return journaled && journalRecords >= compactionThreshold
+                && (runningCompaction == null || runningCompaction.isDone());
+    }
+
+    // Seal the active journal and write the given state as the new snapshot on a background thread.
+    // The state must reflect every record journaled so far.
+    public void compactInBackground(List<Car> cars) throws BusinessException {
+        compactInBackground(toCarStore(cars));
+    }
+
+    // The store must not be modified afterwards; pass a copy
+    public synchronized void compactInBackground(ColumnarCarStore cars) throws BusinessException {
+        if (!journaled || (runningCompaction != null && !runningCompaction.isDone())) {
+            return;
+        }
+        closeJournal();
+        sealJournal();
+        journalRecords = 0;
+
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "car-journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        runningCompaction = compactionExecutor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                writeSnapshot(cars, "compaction");
+                deleteJournal(sealedJournalFile);
+                compactionFailure = null;
+            } catch (BusinessException e) {
+                // Keep the sealed journal so nothing is lost; the next compaction retries
+                compactionFailure = e;
+            } finally {
+                compactionTimer.record(System.nanoTime() - start);
+            }
+        });
+    }
+
+    // Wait for a running compaction and close the journal
+    public synchronized void close() throws BusinessException {
+        awaitCompaction();
+        closeJournal();
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdown();
+            compactionExecutor = null;
+        }
+    }
+
+    private void appendRecord(String record) throws BusinessException {
+        appendRecords(List.of(record));
+    }
+
+    private void appendRecords(List<String> records) throws BusinessException {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!journaled) {
+            throw new StorageException("Journal is disabled for " + csvFile + ".", "appendRecord");
+        }
+        CarFileWriteEvent event = new CarFileWriteEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long bytes = 0;
+        try {
+            if (journalWriter == null) {
+                createParentDirectories();
+                journalWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(journalFile, true), StandardCharsets.UTF_8));
+            }
+            for (String record : records) {
+                journalWriter.write(record);
+                journalWriter.write('\n');
+                // Counted in characters, which equals bytes for ASCII records
+                bytes += record.length() + 1;
+            }
+            if (!deferredJournalFlush) {
+                journalWriter.flush();
+            }
+            journalRecords += records.size();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "appendRecord");
+        } finally {
+            journalTimer.record(System.nanoTime() - start);
+        }
+        metrics.addRowsWritten(records.size());
+        metrics.addBytesWritten(bytes);
+        if (event.shouldCommit()) {
+            event.operation = "appendJournal";
+            event.path = journalFile.getPath();
+            event.bytes = bytes;
+            event.rows = records.size();
+            event.commit();
+        }
+    }
+
+    // Apply journal records to the given state; returns the number of records read
+    private int replayJournal(File journal, ColumnarCarStore cars, IntIntHashMap rowsById) throws BusinessException {
+        if (!journal.exists()) {
+            return 0;
+        }
+        metrics.addBytesRead(journal.length());
+        int records = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(journal, StandardCharsets.UTF_8))) {
+            String line = br.readLine();
+            while (line != null) {
+                String next = br.readLine();
+                try {
+                    applyRecord(line, cars, rowsById);
+                    records++;
+                } catch (DateTimeParseException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    // A torn record can only be the last one; anything earlier is real corruption
+                    if (next != null) {
+                        throw new StorageException("Corrupt record in " + journal + ": " + line, "readCars");
+                    }
+                }
+                line = next;
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "readCars");
+        }
+        metrics.addRowsRead(records);
+        return records;
+    }
+
+    private static void applyRecord(String record, ColumnarCarStore cars, IntIntHashMap rowsById) {
+        String[] parts = record.split(", ");
+        switch (parts[0]) {
+            case ADD_RECORD:
+                putCar(parseCar(parts, 1), cars, rowsById);
+                break;
+            case UPDATE_RECORD:
+                Car updated = parseCar(parts, 2);
+                removeCar(Integer.parseInt(parts[1]), cars, rowsById);
+                putCar(updated, cars, rowsById);
+                break;
+            case DELETE_RECORD:
+                removeCar(Integer.parseInt(parts[1]), cars, rowsById);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record type " + parts[0]);
+        }
+    }
+
+    // Insert the car, replacing a car with the same ID
+    private static void putCar(Car car, ColumnarCarStore cars, IntIntHashMap rowsById) {
+        int row = rowsById.get(car.getId());
+        if (row == IntIntHashMap.NO_VALUE) {
+            rowsById.put(car.getId(), cars.add(car));
+        } else {
+            cars.set(row, car);
+        }
+    }
+
+    private static void removeCar(int carId, ColumnarCarStore cars, IntIntHashMap rowsById) {
+        int row = rowsById.remove(carId);
+        if (row == IntIntHashMap.NO_VALUE) {
+            return;
+        }
+        // The last row moves into the freed position
+        cars.remove(row);
+        if (row < cars.size()) {
+            rowsById.put(cars.id(row), row);
+        }
+    }
+
+    // Load the binary snapshot when it is current, otherwise parse the CSV file
+    private ColumnarCarStore readSnapshot(CarFileReadEvent event) throws BusinessException {
+        if (binarySnapshots && binarySnapshotFile.exists()
+                && (!csvFile.exists() || binarySnapshotFile.lastModified() >= csvFile.lastModified())) {
+            try {
+                ColumnarCarStore cars = CarSnapshotFile.read(binarySnapshotFile);
+                event.format = "binary";
+                event.fileSize = binarySnapshotFile.length();
+                metrics.addBytesRead(event.fileSize);
+                return cars;
+            } catch (BusinessException e) {
+                // A damaged binary snapshot is only a cache; the CSV file is still authoritative
+                if (!csvFile.exists()) {
+                    throw e;
+                }
+            }
+        }
+        // If the file does not exist, start from an empty snapshot
+        if (!csvFile.exists()) {
+            event.format = "none";
+            return new ColumnarCarStore();
+        }
+        event.format = "csv";
+        event.fileSize = csvFile.length();
+        metrics.addBytesRead(event.fileSize);
+        return new ParallelCarLoader(loadParallelism).load(csvFile);
+    }
+
+    // Write the full state as CSV and, if enabled, as a binary snapshot written afterwards so it is never older
+    private void writeSnapshot(ColumnarCarStore cars, String operation) throws BusinessException {
+        CarFileWriteEvent event = new CarFileWriteEvent();
+        event.begin();
+        writeCsv(cars.asCarList());
+        long bytes = csvFile.length();
+        if (binarySnapshots) {
+            CarSnapshotFile.write(cars, binarySnapshotFile);
+            bytes += binarySnapshotFile.length();
+        }
+        metrics.addRowsWritten(cars.size());
+        metrics.addBytesWritten(bytes);
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = csvFile.getPath();
+            event.bytes = bytes;
+            event.rows = cars.size();
+            event.commit();
+        }
+    }
+
+    // Write the full state to a temporary file and move it over the CSV file
+    private void writeCsv(List<Car> cars) throws BusinessException {
+        createParentDirectories();
+        File tempFile = new File(csvFile.getPath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            for (Car car : cars) {
+                // Write the car data to the file
+                bw.write(formatCar(car));
+                bw.write('\n');
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeCars");
+        }
+        try {
+            Files.move(tempFile.toPath(), csvFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeCars");
+        }
+    }
+
+    private void createParentDirectories() throws BusinessException {
+        File parentDirectory = csvFile.getAbsoluteFile().getParentFile();
 
         // Check if the parent directory does not exist
         if (!parentDirectory.exists()) {
@@ -66,19 +492,100 @@ public class CarDAO {
             // Check if directories were created successfully
             if (!directoriesCreated) {
                 // Handle failure to create directories
-                throw new BusinessException("Failed to create parent directories.", "writeToFile");
+                throw new StorageException("Failed to create parent directories.", "writeToFile");
             }
         }
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(CSV_FILE_PATH))) {
-            for (Car car : cars) {
-                // Format the production date as a string
-                String productionDateString = DATE_FORMAT.format(new Date(car.getProductionDate().getTime()));
-                // Write the car data to the file
-                bw.write(String.format("%d, %s, %s, %d, %s, %s, %d\n", car.getId(), car.getManufacturer(), car.getModel(),
-                        car.getPrice(), productionDateString, car.getFuelType().toString(), car.getHorsepower()));
+    }
+
+    private void awaitCompaction() throws BusinessException {
+        if (runningCompaction == null) {
+            return;
+        }
+        try {
+            runningCompaction.get();
+        } catch (Exception e) {
+            throw new StorageException(e.getMessage(), "compactInBackground");
+        } finally {
+            runningCompaction = null;
+        }
+        if (compactionFailure != null) {
+            Exception failure = compactionFailure;
+            compactionFailure = null;
+            throw new StorageException(failure.getMessage(), "compactInBackground");
+        }
+    }
+
+    private void closeJournal() throws BusinessException {
+        if (journalWriter == null) {
+            return;
+        }
+        try {
+            journalWriter.close();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "closeJournal");
+        } finally {
+            journalWriter = null;
+        }
+    }
+
+    // Move the active journal aside; a journal left sealed by a failed compaction is extended instead
+    private void sealJournal() throws BusinessException {
+        if (!journalFile.exists()) {
+            return;
+        }
+        try {
+            if (sealedJournalFile.exists()) {
+                Files.write(sealedJournalFile.toPath(), Files.readAllBytes(journalFile.toPath()),
+                        StandardOpenOption.APPEND);
+                Files.delete(journalFile.toPath());
+            } else {
+                Files.move(journalFile.toPath(), sealedJournalFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
             }
         } catch (IOException e) {
-            throw new BusinessException(e.getMessage(), "writeCars");
+            throw new StorageException(e.getMessage(), "compactInBackground");
+        }
+    }
+
+    private void deleteJournal(File journal) throws BusinessException {
+        if (journal.exists() && !journal.delete()) {
+            throw new StorageException("Failed to delete journal " + journal + ".", "writeCars");
+        }
+    }
+
+    private static ColumnarCarStore toCarStore(List<Car> cars) {
+        ColumnarCarStore store = new ColumnarCarStore(cars.size());
+        for (Car car : cars) {
+            store.add(car);
         }
+        return store;
+    }
+
+    // Parse the seven CSV columns starting at the given offset
+    private static Car parseCar(String[] parts, int offset) {
+        int id = Integer.parseInt(parts[offset]);
+        String manufacturer = parts[offset + 1];
+        String model = parts[offset + 2];
+        long price = Long.parseLong(parts[offset + 3]);
+        // Parse date string
+        LocalDate productionDate = LocalDate.parse(parts[offset + 4], DATE_FORMAT);
+        Timestamp timestamp = Timestamp.valueOf(productionDate.atStartOfDay());
+        FuelType fuelType = FuelType.valueOf(parts[offset + 5].trim().toUpperCase());
+        int horsepower = Integer.parseInt(parts[offset + 6].trim());
+        // Create a new Car object
+        return new Car(id, manufacturer, model, price, timestamp, fuelType, horsepower);
+    }
+
+    static String formatCar(Car car) {
+        // Format the production date as a string
+        String productionDateString = car.getProductionDate().toLocalDateTime().toLocalDate().format(DATE_FORMAT);
+        return new StringBuilder(64)
+                .append(car.getId()).append(", ")
+                .append(car.getManufacturer()).append(", ")
+                .append(car.getModel()).append(", ")
+                .append(car.getPrice()).append(", ")
+                .append(productionDateString).append(", ")
+                .append(car.getFuelType()).append(", ")
+                .append(car.getHorsepower())
+                .toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import model.store.ColumnarCarStore;
+import model.store.StringDictionary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// Versioned binary snapshot of a ColumnarCarStore.
+//
+// Layout (big-endian):
+//   header   magic "CARS", version, row count, manufacturer count, model count, reserved, CRC32C of the body
+//   body     manufacturer strings, then model strings, each as (int length, UTF-8 bytes),
+//            then one fixed-width record per row:
+//            id int, price long, production date long, horsepower int, fuel ordinal byte,
+//            manufacturer code int, model code int
+//
+// Reading memory-maps the file, verifies the checksum and copies the records into columns.
+public class CarSnapshotFile {
+    static final int MAGIC = 0x43415253;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 4 + 8 + 8 + 4 + 1 + 4 + 4;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private CarSnapshotFile() {
+    }
+
+    // Write the store to a temporary file and move it over the snapshot
+    public static void write(ColumnarCarStore cars, File file) throws BusinessException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        StringDictionary manufacturers = cars.getManufacturers();
+        StringDictionary models = cars.getModels();
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32C checksum = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            channel.position(HEADER_SIZE);
+
+            for (StringDictionary dictionary : new StringDictionary[]{manufacturers, models}) {
+                for (int code = 0; code < dictionary.size(); code++) {
+                    byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+                    ensureRoom(channel, buffer, checksum, 4);
+                    buffer.putInt(bytes.length);
+                    for (int offset = 0; offset < bytes.length; ) {
+                        ensureRoom(channel, buffer, checksum, 1);
+                        int length = Math.min(bytes.length - offset, buffer.remaining());
+                        buffer.put(bytes, offset, length);
+                        offset += length;
+                    }
+                }
+            }
+            for (int row = 0; row < cars.size(); row++) {
+                ensureRoom(channel, buffer, checksum, RECORD_SIZE);
+                buffer.putInt(cars.id(row));
+                buffer.putLong(cars.price(row));
+                buffer.putLong(cars.productionDate(row));
+                buffer.putInt(cars.horsepower(row));
+                buffer.put((byte) cars.fuelType(row).ordinal());
+                buffer.putInt(cars.manufacturerCode(row));
+                buffer.putInt(cars.modelCode(row));
+            }
+            drain(channel, buffer, checksum);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(cars.size())
+                    .putInt(manufacturers.size()).putInt(models.size()).putInt(0)
+                    .putLong(checksum.getValue());
+            header.flip();
+            channel.write(header, 0);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeSnapshot");
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeSnapshot");
+        }
+    }
+
+    // Map the snapshot and decode it into a new store
+    public static ColumnarCarStore read(File file) throws BusinessException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw corrupt(file, "unexpected size " + channel.size());
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC) {
+                throw corrupt(file, "not a car snapshot");
+            }
+            if (mapped.getInt(4) != VERSION) {
+                throw corrupt(file, "unsupported version " + mapped.getInt(4));
+            }
+            int rowCount = mapped.getInt(8);
+            int manufacturerCount = mapped.getInt(12);
+            int modelCount = mapped.getInt(16);
+            long expectedChecksum = mapped.getLong(24);
+
+            CRC32C checksum = new CRC32C();
+            checksum.update(mapped.slice(HEADER_SIZE, mapped.capacity() - HEADER_SIZE));
+            if (checksum.getValue() != expectedChecksum) {
+                throw corrupt(file, "checksum mismatch");
+            }
+
+            ByteBuffer body = mapped.slice(HEADER_SIZE, mapped.capacity() - HEADER_SIZE);
+            ColumnarCarStore cars = new ColumnarCarStore(rowCount);
+            readDictionary(body, manufacturerCount, cars.getManufacturers());
+            readDictionary(body, modelCount, cars.getModels());
+            if (body.remaining() != (long) rowCount * RECORD_SIZE) {
+                throw corrupt(file, "expected " + rowCount + " records");
+            }
+            for (int row = 0; row < rowCount; row++) {
+                int id = body.getInt();
+                long price = body.getLong();
+                long productionDate = body.getLong();
+                int horsepower = body.getInt();
+                int fuelTypeOrdinal = body.get();
+                int manufacturerCode = body.getInt();
+                int modelCode = body.getInt();
+                cars.addEncoded(id, manufacturerCode, modelCode, price, productionDate, fuelTypeOrdinal, horsepower);
+            }
+            return cars;
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "readSnapshot");
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw corrupt(file, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static void readDictionary(ByteBuffer body, int count, StringDictionary dictionary) {
+        byte[] bytes = new byte[64];
+        for (int code = 0; code < count; code++) {
+            int length = body.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[length];
+            }
+            body.get(bytes, 0, length);
+            // Codes are assigned in order, so they match the codes stored in the records
+            dictionary.encode(new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void ensureRoom(FileChannel channel, ByteBuffer buffer, CRC32C checksum, int bytes)
+            throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer, checksum);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32C checksum) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static BusinessException corrupt(File file, String reason) {
+        return new StorageException("Invalid snapshot " + file + ": " + reason + ".", "readSnapshot");
+    }
+}
@@ -0,0 +1,196 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import model.store.ColumnarCarStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Persists changes in the background, coalescing everything submitted within one window
+// into a single write: one journal flush in journaled mode, otherwise one snapshot rewrite.
+// Every submission returns a future that completes once the change is durable.
+// A batch that fails to write is not retried: replaying part of a batch twice could reorder
+// changes in the journal. Instead the writer fails every later submission, so callers cannot
+// mistake later successes for durability, until recover() writes a full snapshot of the state.
+public class GroupCommitWriter {
+    private final CarDAO carDAO;
+    // Returns a consistent copy of the current state, taken when a snapshot is written
+    private final Supplier<ColumnarCarStore> snapshotSource;
+    private final long windowMillis;
+    private final ScheduledExecutorService executor;
+    private final Thread shutdownHook;
+
+    // Changes waiting for the next flush and the future they complete
+    private List<JournalWrite> pendingWrites = new ArrayList<>();
+    private CompletableFuture<Void> pendingFuture;
+    // Future of the most recent submission; batches complete in submission order
+    private CompletableFuture<Void> lastFuture = CompletableFuture.completedFuture(null);
+    // Why the first failed batch failed; set until recover() succeeds
+    private BusinessException failure;
+    private boolean closed;
+
+    public GroupCommitWriter(CarDAO carDAO, Supplier<ColumnarCarStore> snapshotSource, long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Group commit window must not be negative.");
+        }
+        this.carDAO = carDAO;
+        this.snapshotSource = snapshotSource;
+        this.windowMillis = windowMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "car-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        carDAO.setDeferredJournalFlush(true);
+        // Persist whatever is still pending when the JVM exits without close()
+        this.shutdownHook = new Thread(this::flushPending, "car-group-commit-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // Queue a change; the first change of a window schedules the flush
+    public synchronized CompletableFuture<Void> submit(JournalWrite write) throws BusinessException {
+        if (closed) {
+            throw new StorageException("Group commit writer is closed.", "submit");
+        }
+        if (failure != null) {
+            throw failedState("submit");
+        }
+        pendingWrites.add(write);
+        if (pendingFuture == null) {
+            pendingFuture = new CompletableFuture<>();
+            executor.schedule(this::flushPending, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        lastFuture = pendingFuture;
+        return pendingFuture;
+    }
+
+    // Future that completes once every change submitted so far is durable; failed while the
+    // writer is in the failed state
+    public synchronized CompletableFuture<Void> durability() {
+        return failure != null ? CompletableFuture.failedFuture(failedState("durability")) : lastFuture;
+    }
+
+    public synchronized boolean isFailed() {
+        return failure != null;
+    }
+
+    // Leave the failed state by writing the whole current state as a new snapshot, which makes
+    // every change made so far durable, including those of the failed and rejected batches
+    public void recover() throws BusinessException {
+        synchronized (carDAO) {
+            CompletableFuture<Void> future;
+            synchronized (this) {
+                if (failure == null) {
+                    return;
+                }
+                // Changes still queued are covered by the snapshot too
+                future = pendingFuture;
+                pendingWrites = new ArrayList<>();
+                pendingFuture = null;
+            }
+            carDAO.writeCarStore(snapshotSource.get());
+            synchronized (this) {
+                failure = null;
+                lastFuture = CompletableFuture.completedFuture(null);
+            }
+            if (future != null) {
+                future.complete(null);
+            }
+        }
+    }
+
+    // Write everything pending now and wait for it
+    public void flush() throws BusinessException {
+        try {
+            executor.submit(this::flushPending).get();
+            durability().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted while flushing.", "flush");
+        } catch (ExecutionException | CompletionException e) {
+            throw new StorageException(String.valueOf(e.getCause().getMessage()), "flush");
+        }
+    }
+
+    // Flush, stop the background thread and remove the shutdown hook
+    public void close() throws BusinessException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            flush();
+        } finally {
+            executor.shutdown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down; the hook is running or has run
+            }
+            carDAO.setDeferredJournalFlush(false);
+        }
+    }
+
+    // Runs on the writer thread, or in the shutdown hook. Holding the DAO's lock from taking the
+    // batch until it is written keeps batches in submission order.
+    private void flushPending() {
+        synchronized (carDAO) {
+            List<JournalWrite> writes;
+            CompletableFuture<Void> future;
+            BusinessException failed;
+            synchronized (this) {
+                if (pendingFuture == null) {
+                    return;
+                }
+                writes = pendingWrites;
+                future = pendingFuture;
+                pendingWrites = new ArrayList<>();
+                pendingFuture = null;
+                failed = failure;
+            }
+            if (failed != null) {
+                // Queued before the failure was known; writing it now would leave a gap
+                future.completeExceptionally(failed);
+                return;
+            }
+            try {
+                if (carDAO.isJournaled()) {
+                    for (JournalWrite write : writes) {
+                        write.appendTo(carDAO);
+                    }
+                    carDAO.flushJournal();
+                    // Replaying journal records onto a newer snapshot is harmless: each record
+                    // sets or removes one car, so the snapshot may include later changes
+                    if (carDAO.isCompactionDue()) {
+                        carDAO.compactInBackground(snapshotSource.get());
+                    }
+                } else {
+                    // One rewrite covers every change made so far
+                    carDAO.writeChanges(dao -> {
+                        for (JournalWrite write : writes) {
+                            write.appendTo(dao);
+                        }
+                    }, snapshotSource.get());
+                }
+                future.complete(null);
+            } catch (BusinessException | RuntimeException e) {
+                BusinessException error = e instanceof StorageException ? (StorageException) e
+                        : new StorageException(String.valueOf(e.getMessage()), "groupCommit");
+                synchronized (this) {
+                    failure = error;
+                }
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private BusinessException failedState(String operation) {
+        return new StorageException("Persisting changes failed (" + failure.getMessage()
+                + "); they stay in memory only until recover() succeeds.", operation);
+    }
+}
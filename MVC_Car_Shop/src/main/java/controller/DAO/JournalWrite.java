@@ -0,0 +1,8 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+
+// A change to persist, expressed as the journal records it appends
+public interface JournalWrite {
+    void appendTo(CarDAO carDAO) throws BusinessException;
+}
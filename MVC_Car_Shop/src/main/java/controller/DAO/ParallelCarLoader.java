@@ -0,0 +1,220 @@
+package controller.DAO;
+
+import controller.index.IntIntHashMap;
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import model.store.ColumnarCarStore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Loads a cars CSV file by splitting it into newline-aligned byte ranges and
+// parsing the ranges concurrently on a fork-join pool. Results are merged in
+// file order and IDs are checked for duplicates across ranges. Files below
+// the threshold are parsed on the calling thread.
+public class ParallelCarLoader {
+    // Files smaller than this are not worth splitting
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 16L << 20;
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int BOUNDARY_PROBE_SIZE = 4096;
+
+    private final int parallelism;
+    private final long parallelThreshold;
+
+    public ParallelCarLoader(int parallelism) {
+        this(parallelism, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public ParallelCarLoader(int parallelism, long parallelThreshold) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        this.parallelism = parallelism;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public ColumnarCarStore load(File file) throws BusinessException {
+        if (parallelism == 1 || file.length() < parallelThreshold) {
+            return loadSequentially(file);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = split(channel);
+            int chunkCount = boundaries.length - 1;
+
+            List<Future<ColumnarCarStore>> chunks = new ArrayList<>(chunkCount);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int i = 0; i < chunkCount; i++) {
+                    long start = boundaries[i];
+                    long end = boundaries[i + 1];
+                    chunks.add(pool.submit(() -> parseChunk(channel, start, end, 1)));
+                }
+
+                // Merge in file order
+                List<ColumnarCarStore> parsed = new ArrayList<>(chunkCount);
+                int total = 0;
+                for (int i = 0; i < chunkCount; i++) {
+                    try {
+                        ColumnarCarStore chunk = chunks.get(i).get();
+                        parsed.add(chunk);
+                        total += chunk.size();
+                    } catch (ExecutionException e) {
+                        throw chunkFailure(channel, boundaries, i, e.getCause());
+                    }
+                }
+                ColumnarCarStore cars = new ColumnarCarStore(total);
+                IntIntHashMap seenIds = new IntIntHashMap(total);
+                for (ColumnarCarStore chunk : parsed) {
+                    for (int row = 0; row < chunk.size(); row++) {
+                        if (seenIds.put(chunk.id(row), 0) != IntIntHashMap.NO_VALUE) {
+                            throw new StorageException("Duplicate car ID " + chunk.id(row) + " in " + file + ".",
+                                    "readCars");
+                        }
+                    }
+                    cars.addAll(chunk);
+                }
+                return cars;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageException("Interrupted while loading " + file + ".", "readCars");
+            } finally {
+                pool.shutdownNow();
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "readCars");
+        }
+    }
+
+    private ColumnarCarStore loadSequentially(File file) throws BusinessException {
+        ColumnarCarStore cars = new ColumnarCarStore();
+        IntIntHashMap seenIds = new IntIntHashMap();
+        CarCsvParser parser = new CarCsvParser();
+        try (InputStream in = new FileInputStream(file)) {
+            parser.parse(in, (id, manufacturer, model, price, productionEpochDay, fuelType, horsepower) -> {
+                if (seenIds.put(id, 0) != IntIntHashMap.NO_VALUE) {
+                    throw new StorageException("Duplicate car ID " + id + " on line " + parser.getLineNumber()
+                            + " of " + file + ".", "readCars");
+                }
+                cars.add(id, manufacturer, model, price, parser.toEpochMillis(productionEpochDay), fuelType, horsepower);
+            });
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "readCars");
+        }
+        return cars;
+    }
+
+    // Byte offsets of the chunk boundaries; every boundary except the first follows a newline
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4L)));
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long boundary = nextLineStart(channel, position, size);
+            if (boundary >= size) {
+                break;
+            }
+            boundaries.add(boundary);
+            position = boundary + chunkSize;
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            int newline = CarCsvParser.indexOf(probe.array(), (byte) '\n', 0, read);
+            if (newline >= 0) {
+                return position + newline + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static ColumnarCarStore parseChunk(FileChannel channel, long start, long end, int firstLineNumber)
+            throws IOException, BusinessException {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            // Positional reads are safe to issue from several threads
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file while loading cars.");
+            }
+        }
+        CarCsvParser parser = new CarCsvParser();
+        // Roughly 50 bytes per row
+        ColumnarCarStore cars = new ColumnarCarStore(bytes.length / 48 + 1);
+        parser.parse(bytes, 0, bytes.length, firstLineNumber,
+                (id, manufacturer, model, price, productionEpochDay, fuelType, horsepower) ->
+                        cars.add(id, manufacturer, model, price, parser.toEpochMillis(productionEpochDay),
+                                fuelType, horsepower));
+        return cars;
+    }
+
+    // Re-parse a failed chunk with absolute line numbers so the error points at the right line
+    private static BusinessException chunkFailure(FileChannel channel, long[] boundaries, int chunk, Throwable cause) {
+        // The pool wraps checked exceptions thrown by a Callable
+        while (cause instanceof RuntimeException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (!(cause instanceof BusinessException)) {
+            return new StorageException(String.valueOf(cause.getMessage()), "readCars");
+        }
+        try {
+            int linesBefore = countLines(channel, boundaries[chunk]);
+            parseChunk(channel, boundaries[chunk], boundaries[chunk + 1], linesBefore + 1);
+        } catch (BusinessException e) {
+            return e;
+        } catch (IOException e) {
+            return new StorageException(e.getMessage(), "readCars");
+        }
+        return (BusinessException) cause;
+    }
+
+    private static int countLines(FileChannel channel, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        int lines = 0;
+        long position = 0;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                }
+            }
+            position += read;
+        }
+        return lines;
+    }
+}
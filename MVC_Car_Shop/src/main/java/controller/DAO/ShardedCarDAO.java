@@ -0,0 +1,602 @@
+package controller.DAO;
+
+import controller.index.IntIntHashMap;
+import controller.index.ManufacturerIndex;
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import metrics.CarFileReadEvent;
+import metrics.CarFileWriteEvent;
+import metrics.LatencyHistogram;
+import model.entity.Car;
+import model.store.ColumnarCarStore;
+import model.store.StringDictionary;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Stores the cars in a directory of shard files, one per hash bucket of the normalized manufacturer,
+// listed in a small manifest. Changes are collected per shard as they happen, so a mutation
+// rewrites one or two shard files, each by copying its old file and applying the shard's changes,
+// instead of the whole inventory. Shards are loaded in parallel. Only the shard of every car ID
+// is kept in memory, to find the shard of deleted and updated cars.
+//
+// Every shard file written gets a new generation in its name. A car moving to another shard is
+// written to its new shard before it is removed from the old one, so a write that stops in
+// between leaves it in both rather than in neither; on load the copy in the newer file wins. A
+// shard that gains cars while losing others is rewritten with the leaving cars still in it
+// until their new shards are written, then once more without them. The manifest is written last.
+public class ShardedCarDAO extends CarDAO {
+    public static final int DEFAULT_SHARD_COUNT = 16;
+
+    private static final String MANIFEST_NAME = "cars.manifest";
+    private static final String SHARD_COUNT_KEY = "shards";
+    // "shard-003.csv" from before generations were kept counts as generation 0
+    private static final Pattern SHARD_FILE = Pattern.compile("shard-(\\d{3,})(?:-g(\\d+))?\\.csv");
+    private static final long NO_FILE = -1;
+
+    // How a shard file's content is written; returns the number of cars written
+    private interface ShardContent {
+        int writeTo(BufferedWriter out) throws IOException;
+    }
+
+    private final File directory;
+    private final File manifestFile;
+    private final LatencyHistogram readTimer = getMetrics().histogram("CarDAO.readCarStore");
+    private final LatencyHistogram writeTimer = getMetrics().histogram("ShardedCarDAO.writeShards");
+
+    // Taken from the manifest when one exists, so shards written with another count still load
+    private int shardCount;
+    private int[] shardRows;
+    // Generation of each shard's current file, or NO_FILE
+    private long[] shardGenerations;
+    // Newest generation written or found
+    private long generation;
+    // Changes not written yet, per shard: the car to store under each added or updated ID, or
+    // null for an ID to drop from the shard
+    private List<Map<Integer, Car>> pendingByShard;
+    private final IntIntHashMap shardsById = new IntIntHashMap();
+
+    public ShardedCarDAO(String directory) {
+        this(directory, DEFAULT_SHARD_COUNT);
+    }
+
+    public ShardedCarDAO(String directory, int shardCount) {
+        super(new File(directory, "cars.csv").getPath(), false);
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1.");
+        }
+        this.directory = new File(directory);
+        this.manifestFile = new File(directory, MANIFEST_NAME);
+        resize(shardCount);
+    }
+
+    // Whether a sharded inventory has been written to the directory
+    public boolean exists() {
+        return manifestFile.exists();
+    }
+
+    public synchronized int getShardCount() {
+        return shardCount;
+    }
+
+    public synchronized int shardOf(String manufacturer) {
+        return Math.floorMod(ManufacturerIndex.normalize(manufacturer).hashCode(), shardCount);
+    }
+
+    @Override
+    public synchronized ColumnarCarStore readCarStore() throws BusinessException {
+        CarFileReadEvent event = new CarFileReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            readManifest();
+            findShardFiles();
+            ColumnarCarStore[] shards = loadShards();
+
+            // The shard each car is loaded from. A car found in two shards was moving between
+            // them when a write stopped; the copy in the newer file wins and the other is dropped
+            // on the next write.
+            shardsById.clear();
+            for (Map<Integer, Car> pending : pendingByShard) {
+                pending.clear();
+            }
+            boolean duplicates = false;
+            int total = 0;
+            for (int shard = 0; shard < shardCount; shard++) {
+                ColumnarCarStore shardCars = shards[shard];
+                for (int row = 0; row < shardCars.size(); row++) {
+                    int id = shardCars.id(row);
+                    int other = shardsById.put(id, shard);
+                    if (other == IntIntHashMap.NO_VALUE) {
+                        total++;
+                        continue;
+                    }
+                    if (shardGenerations[other] == shardGenerations[shard]) {
+                        throw new StorageException("Duplicate car ID " + id + " in " + currentShardFile(shard)
+                                + ".", "readCars");
+                    }
+                    duplicates = true;
+                    int older = shardGenerations[other] < shardGenerations[shard] ? other : shard;
+                    shardsById.put(id, older == other ? shard : other);
+                    pendingByShard.get(older).put(id, null);
+                }
+            }
+
+            ColumnarCarStore cars = new ColumnarCarStore(total);
+            List<Car> misplaced = new ArrayList<>();
+            long bytes = 0;
+            for (int shard = 0; shard < shardCount; shard++) {
+                ColumnarCarStore shardCars = shards[shard];
+                if (!duplicates) {
+                    cars.addAll(shardCars);
+                }
+                for (int row = 0; row < shardCars.size(); row++) {
+                    if (duplicates) {
+                        if (shardsById.get(shardCars.id(row)) != shard) {
+                            continue;
+                        }
+                        cars.add(shardCars.toCar(row));
+                    }
+                    // A car in the wrong shard, e.g. after the manifest was edited, moves on the next write
+                    if (shardOf(shardCars.manufacturer(row)) != shard) {
+                        misplaced.add(shardCars.toCar(row));
+                    }
+                }
+                shardRows[shard] = shardCars.size();
+                if (shardGenerations[shard] != NO_FILE) {
+                    bytes += currentShardFile(shard).length();
+                }
+            }
+            for (Car car : misplaced) {
+                markCar(car);
+            }
+            getMetrics().addRowsRead(cars.size());
+            getMetrics().addBytesRead(bytes);
+            if (event.shouldCommit()) {
+                event.path = directory.getPath();
+                event.format = "shards";
+                event.fileSize = bytes;
+                event.rows = cars.size();
+                event.commit();
+            }
+            return cars;
+        } finally {
+            readTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    // Read only the shard holding the manufacturer and return that manufacturer's cars
+    public synchronized List<Car> readCarsByManufacturer(String manufacturer) throws BusinessException {
+        readManifest();
+        findShardFiles();
+        String normalized = ManufacturerIndex.normalize(manufacturer);
+        ColumnarCarStore shardCars = loadShard(shardOf(manufacturer));
+        List<Car> cars = new ArrayList<>();
+        for (int row = 0; row < shardCars.size(); row++) {
+            if (ManufacturerIndex.normalize(shardCars.manufacturer(row)).equals(normalized)) {
+                cars.add(shardCars.toCar(row));
+            }
+        }
+        return cars;
+    }
+
+    // Rewrite every shard from the given state
+    @Override
+    public synchronized void writeCarStore(ColumnarCarStore cars) throws BusinessException {
+        long start = System.nanoTime();
+        try {
+            shardsById.clear();
+            for (int row = 0; row < cars.size(); row++) {
+                shardsById.put(cars.id(row), shardOf(cars.manufacturer(row)));
+            }
+            int[][] rowsByShard = rowsByShard(cars);
+            createDirectory();
+            long next = ++generation;
+            List<File> superseded = new ArrayList<>();
+            for (int shard = 0; shard < shardCount; shard++) {
+                int[] rows = rowsByShard[shard];
+                writeShard(shard, next, out -> {
+                    for (int row : rows) {
+                        out.write(formatCar(cars.toCar(row)));
+                        out.write('\n');
+                    }
+                    return rows.length;
+                }, superseded);
+                pendingByShard.get(shard).clear();
+            }
+            writeManifest();
+            deleteFiles(superseded);
+        } finally {
+            writeTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    // Collect the changes per shard and rewrite only the shards they touch. The shards are
+    // rewritten from their files, so cars is not scanned.
+    @Override
+    public synchronized void writeChanges(JournalWrite changes, ColumnarCarStore cars) throws BusinessException {
+        changes.appendTo(this);
+        writeDirtyShards();
+    }
+
+    // The append methods only collect the changes; writeChanges writes them
+
+    @Override
+    public synchronized void appendAdd(Car car) {
+        markCar(car);
+    }
+
+    @Override
+    public synchronized void appendUpdate(int oldId, Car car) {
+        markRemoved(oldId);
+        markCar(car);
+    }
+
+    @Override
+    public synchronized void appendDelete(int carId) {
+        markRemoved(carId);
+    }
+
+    @Override
+    public synchronized void appendAdds(Collection<Car> cars) {
+        for (Car car : cars) {
+            markCar(car);
+        }
+    }
+
+    @Override
+    public synchronized void appendDeletes(int[] carIds) {
+        for (int carId : carIds) {
+            markRemoved(carId);
+        }
+    }
+
+    private void markCar(Car car) {
+        int shard = shardOf(car.getManufacturer());
+        int previousShard = shardsById.put(car.getId(), shard);
+        if (previousShard != IntIntHashMap.NO_VALUE && previousShard != shard) {
+            pendingByShard.get(previousShard).put(car.getId(), null);
+        }
+        pendingByShard.get(shard).put(car.getId(), car);
+    }
+
+    private void markRemoved(int carId) {
+        int shard = shardsById.remove(carId);
+        if (shard != IntIntHashMap.NO_VALUE) {
+            pendingByShard.get(shard).put(carId, null);
+        }
+    }
+
+    private void writeDirtyShards() throws BusinessException {
+        long start = System.nanoTime();
+        try {
+            boolean dirty = false;
+            for (Map<Integer, Car> pending : pendingByShard) {
+                dirty |= !pending.isEmpty();
+            }
+            if (!dirty) {
+                return;
+            }
+            createDirectory();
+            List<File> superseded = new ArrayList<>();
+            boolean[] written = new boolean[shardCount];
+            // Shards that gain or change cars first, then those still losing cars, so a car moving
+            // between shards is never missing from both
+            for (boolean gainingOnly : new boolean[] {true, false}) {
+                for (int shard = 0; shard < shardCount; shard++) {
+                    Map<Integer, Car> pending = pendingByShard.get(shard);
+                    if (pending.isEmpty() || gainingOnly && !gainsCars(pending)) {
+                        continue;
+                    }
+                    int dirtyShard = shard;
+                    writeShard(shard, ++generation, out -> copyWithChanges(dirtyShard, pending, written, out),
+                            superseded);
+                    pending.entrySet().removeIf(change -> !movesToUnwritten(change.getKey(), change.getValue(),
+                            written));
+                    written[shard] = true;
+                    afterShardWritten(shard);
+                }
+            }
+            writeManifest();
+            deleteFiles(superseded);
+        } finally {
+            writeTimer.record(System.nanoTime() - start);
+        }
+    }
+    private ColumnarCarStore[] loadShards() throws BusinessException {
+        ColumnarCarStore[] shards = new ColumnarCarStore[shardCount];
+        int parallelism = Math.min(getLoadParallelism(), shardCount);
+        if (parallelism == 1) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                shards[shard] = loadShard(shard);
+            }
+            return shards;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<ColumnarCarStore>> loads = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                int shardToLoad = shard;
+                loads.add(pool.submit(() -> loadShard(shardToLoad)));
+            }
+            for (int shard = 0; shard < shardCount; shard++) {
+                try {
+                    shards[shard] = loads.get(shard).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof BusinessException) {
+                        throw (BusinessException) e.getCause();
+                    }
+                    throw new StorageException(String.valueOf(e.getCause()), "readCars");
+                }
+            }
+            return shards;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted while loading " + directory + ".", "readCars");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ColumnarCarStore loadShard(int shard) throws BusinessException {
+        return shardGenerations[shard] == NO_FILE ? new ColumnarCarStore()
+                : new ParallelCarLoader(1).load(currentShardFile(shard));
+    }
+
+    private static boolean gainsCars(Map<Integer, Car> pending) {
+        for (Car car : pending.values()) {
+            if (car != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether the change drops a car that moved to a shard still to be written in this write; the
+    // car stays where it was until then
+    private boolean movesToUnwritten(int carId, Car car, boolean[] written) {
+        if (car != null) {
+            return false;
+        }
+        int shard = shardsById.get(carId);
+        return shard != IntIntHashMap.NO_VALUE && !written[shard] && !pendingByShard.get(shard).isEmpty();
+    }
+
+    // Called after each shard file is in place; lets tests stop a write halfway
+    void afterShardWritten(int shard) throws BusinessException {
+    }
+
+    // Copy the shard's current file without the changed IDs, then write the changed cars. Cars
+    // moving to a shard not written yet are copied as they are.
+    private int copyWithChanges(int shard, Map<Integer, Car> pending, boolean[] written, BufferedWriter out)
+            throws IOException {
+        int rows = 0;
+        if (shardGenerations[shard] != NO_FILE) {
+            try (BufferedReader br = new BufferedReader(new FileReader(currentShardFile(shard),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    if (comma < 0) {
+                        continue;
+                    }
+                    int carId = Integer.parseInt(line.substring(0, comma).trim());
+                    if (pending.containsKey(carId) && !movesToUnwritten(carId, pending.get(carId), written)) {
+                        continue;
+                    }
+                    out.write(line);
+                    out.write('\n');
+                    rows++;
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid car ID in " + currentShardFile(shard) + ": " + e.getMessage());
+            }
+        }
+        for (Car car : pending.values()) {
+            if (car != null) {
+                out.write(formatCar(car));
+                out.write('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Rows of each shard, found in one pass over the manufacturer codes
+    private int[][] rowsByShard(ColumnarCarStore cars) {
+        StringDictionary manufacturers = cars.getManufacturers();
+        int[] shardOfCode = new int[manufacturers.size()];
+        for (int code = 0; code < shardOfCode.length; code++) {
+            shardOfCode[code] = shardOf(manufacturers.decode(code));
+        }
+        int[] counts = new int[shardCount];
+        for (int row = 0; row < cars.size(); row++) {
+            counts[shardOfCode[cars.manufacturerCode(row)]]++;
+        }
+        int[][] rowsByShard = new int[shardCount][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            rowsByShard[shard] = new int[counts[shard]];
+        }
+        Arrays.fill(counts, 0);
+        for (int row = 0; row < cars.size(); row++) {
+            int shard = shardOfCode[cars.manufacturerCode(row)];
+            rowsByShard[shard][counts[shard]++] = row;
+        }
+        return rowsByShard;
+    }
+
+    // Write the shard as a new file of the given generation, through a temporary file. The file
+    // it replaces is added to superseded, to be deleted once the manifest is written. A shard
+    // left empty has no file.
+    private void writeShard(int shard, long fileGeneration, ShardContent content, List<File> superseded)
+            throws BusinessException {
+        CarFileWriteEvent event = new CarFileWriteEvent();
+        event.begin();
+        File shardFile = shardFile(shard, fileGeneration);
+        File tempFile = new File(shardFile.getPath() + ".tmp");
+        int rows;
+        try {
+            try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                rows = content.writeTo(bw);
+            }
+            File previous = shardGenerations[shard] == NO_FILE ? null : currentShardFile(shard);
+            if (rows == 0) {
+                Files.delete(tempFile.toPath());
+                if (previous != null) {
+                    // Only cars leaving the shard are lost with it, and those are written elsewhere already
+                    Files.delete(previous.toPath());
+                }
+                shardGenerations[shard] = NO_FILE;
+            } else {
+                Files.move(tempFile.toPath(), shardFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                shardGenerations[shard] = fileGeneration;
+                if (previous != null) {
+                    superseded.add(previous);
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeCars");
+        }
+        shardRows[shard] = rows;
+        if (rows == 0) {
+            return;
+        }
+        getMetrics().addRowsWritten(rows);
+        getMetrics().addBytesWritten(shardFile.length());
+        if (event.shouldCommit()) {
+            event.operation = "writeShard";
+            event.path = shardFile.getPath();
+            event.bytes = shardFile.length();
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    private void createDirectory() throws BusinessException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new StorageException("Failed to create " + directory + ".", "writeCars");
+        }
+    }
+
+    private void deleteFiles(List<File> files) throws BusinessException {
+        try {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeCars");
+        }
+    }
+
+    private File shardFile(int shard, long fileGeneration) {
+        return new File(directory, fileGeneration == 0 ? String.format("shard-%03d.csv", shard)
+                : String.format("shard-%03d-g%d.csv", shard, fileGeneration));
+    }
+
+    private File currentShardFile(int shard) {
+        return shardFile(shard, shardGenerations[shard]);
+    }
+
+    // Find the newest file of every shard and delete the older ones, which a write that
+    // stopped before cleaning up leaves behind
+    private void findShardFiles() throws BusinessException {
+        Arrays.fill(shardGenerations, NO_FILE);
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> stale = new ArrayList<>();
+        for (File file : files) {
+            Matcher matcher = SHARD_FILE.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            int shard = Integer.parseInt(matcher.group(1));
+            long fileGeneration = matcher.group(2) == null ? 0 : Long.parseLong(matcher.group(2));
+            if (shard >= shardCount) {
+                continue;
+            }
+            generation = Math.max(generation, fileGeneration);
+            if (fileGeneration > shardGenerations[shard]) {
+                if (shardGenerations[shard] != NO_FILE) {
+                    stale.add(currentShardFile(shard));
+                }
+                shardGenerations[shard] = fileGeneration;
+            } else {
+                stale.add(file);
+            }
+        }
+        deleteFiles(stale);
+    }
+
+    private void resize(int count) {
+        shardCount = count;
+        shardRows = new int[count];
+        shardGenerations = new long[count];
+        Arrays.fill(shardGenerations, NO_FILE);
+        pendingByShard = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            pendingByShard.add(new HashMap<>());
+        }
+    }
+
+    // The manifest holds the shard count and the current file and number of cars of each shard:
+    // "shards=16" followed by one "shard-000-g7.csv=123" line per shard
+    private void readManifest() throws BusinessException {
+        if (!manifestFile.exists()) {
+            return;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(manifestFile, StandardCharsets.UTF_8))) {
+            String line = br.readLine();
+            if (line == null || !line.startsWith(SHARD_COUNT_KEY + "=")) {
+                throw new StorageException("Invalid manifest " + manifestFile + ": missing shard count.", "readCars");
+            }
+            int count = Integer.parseInt(line.substring(SHARD_COUNT_KEY.length() + 1).trim());
+            if (count < 1) {
+                throw new StorageException("Invalid manifest " + manifestFile + ": shard count " + count + ".",
+                        "readCars");
+            }
+            if (count != shardCount) {
+                resize(count);
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new StorageException("Invalid manifest " + manifestFile + ": " + e.getMessage(), "readCars");
+        }
+    }
+
+    private void writeManifest() throws BusinessException {
+        File tempFile = new File(manifestFile.getPath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            bw.write(SHARD_COUNT_KEY + "=" + shardCount + "\n");
+            for (int shard = 0; shard < shardCount; shard++) {
+                if (shardGenerations[shard] != NO_FILE) {
+                    bw.write(currentShardFile(shard).getName() + "=" + shardRows[shard] + "\n");
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeCars");
+        }
+        try {
+            Files.move(tempFile.toPath(), manifestFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), "writeCars");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package controller.cache;
+
+import controller.index.ManufacturerIndex;
+import model.DTO.CacheStatsDTO;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache for the results of manufacturer and "price lower than" queries.
+// The bound is both a number of entries and a total number of cached cars, so a few
+// huge results cannot pin the memory of many small ones.
+//
+// Invalidation is precise: a change to a car drops the entry of its manufacturer and
+// every price entry whose threshold is above the car's price; other entries survive.
+// Every invalidation also bumps a version. A result computed before a concurrent
+// invalidation carries the older version and is not stored.
+//
+// Lookups take no lock, so cached reads scale with threads like the controller's optimistic
+// reads: the entries are in a concurrent map, and a hit only stamps its entry with the use clock
+// and counts itself in a LongAdder. Puts, invalidations and evictions lock the cache. The clock
+// only advances on puts, so entries used since the same put tie, and eviction drops the entries
+// with the oldest stamps first.
+public class QueryResultCache {
+    private record ManufacturerKey(String manufacturer) {
+    }
+
+    private record PriceBelowKey(long price) {
+    }
+
+    private static final class Entry {
+        private final Object key;
+        private final List<?> result;
+        private final long weight;
+        // Value of the use clock when the entry was last stored or hit
+        private volatile long lastUsed;
+
+        private Entry(Object key, List<?> result, long lastUsed) {
+            this.key = key;
+            this.result = result;
+            // Count the entry itself, so empty results are not free
+            this.weight = result.size() + 1L;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxCachedCars;
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    // Thresholds of the cached price entries, to find the ones above a changed price
+    private final TreeSet<Long> cachedPrices = new TreeSet<>();
+    private long cachedCars;
+    // Written under the lock, read by lookups without it
+    private volatile long version;
+    private volatile long useClock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long evictions;
+    private long invalidations;
+
+    public QueryResultCache(int maxEntries, long maxCachedCars) {
+        if (maxEntries < 0 || maxCachedCars < 0) {
+            throw new IllegalArgumentException("Cache bounds must not be negative.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxCachedCars = maxCachedCars;
+    }
+
+    // Version to pass to a put of a result computed from the current state
+    public long version() {
+        return version;
+    }
+
+    // Cached result, or null on a miss
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getByManufacturer(String manufacturer) {
+        return (List<T>) get(new ManufacturerKey(ManufacturerIndex.normalize(manufacturer)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getPriceBelow(long price) {
+        return (List<T>) get(new PriceBelowKey(price));
+    }
+
+    // Store an unmodifiable copy of the result and return it
+    public synchronized <T> List<T> putByManufacturer(String manufacturer, List<T> result, long version) {
+        return put(new ManufacturerKey(ManufacturerIndex.normalize(manufacturer)), result, version);
+    }
+
+    public synchronized <T> List<T> putPriceBelow(long price, List<T> result, long version) {
+        List<T> stored = put(new PriceBelowKey(price), result, version);
+        if (entries.containsKey(new PriceBelowKey(price))) {
+            cachedPrices.add(price);
+        }
+        return stored;
+    }
+
+    // Drop the entries that may contain a car with the given manufacturer and price
+    public synchronized void invalidateCar(String manufacturer, long price) {
+        version++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        remove(new ManufacturerKey(ManufacturerIndex.normalize(manufacturer)));
+        // "price lower than P" contains the car exactly when P > price
+        Iterator<Long> above = cachedPrices.tailSet(price, false).iterator();
+        while (above.hasNext()) {
+            remove(new PriceBelowKey(above.next()));
+            above.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        invalidations += entries.size();
+        entries.clear();
+        cachedPrices.clear();
+        cachedCars = 0;
+    }
+
+    public synchronized CacheStatsDTO getStats() {
+        return new CacheStatsDTO(hits.sum(), misses.sum(), evictions, invalidations, entries.size(), cachedCars);
+    }
+
+    private List<?> get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        long now = useClock;
+        if (entry.lastUsed != now) {
+            // Only written when it changes, so hits on a hot entry do not keep its cache line busy
+            entry.lastUsed = now;
+        }
+        hits.increment();
+        return entry.result;
+    }
+
+    private <T> List<T> put(Object key, List<T> result, long version) {
+        List<T> stored = Collections.unmodifiableList(result);
+        Entry entry = new Entry(key, stored, ++useClock);
+        // Stale, or too large to ever fit
+        if (version != this.version || entry.weight > maxCachedCars || maxEntries == 0) {
+            return stored;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            cachedCars -= previous.weight;
+        }
+        cachedCars += entry.weight;
+        evictOverflow();
+        return stored;
+    }
+
+    private void remove(Object key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            cachedCars -= entry.weight;
+            invalidations++;
+        }
+    }
+
+    private void evictOverflow() {
+        if (entries.size() <= maxEntries && cachedCars <= maxCachedCars) {
+            return;
+        }
+        List<Entry> byLastUse = new ArrayList<>(entries.values());
+        byLastUse.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        Iterator<Entry> eldest = byLastUse.iterator();
+        while ((entries.size() > maxEntries || cachedCars > maxCachedCars) && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            entries.remove(evicted.key);
+            cachedCars -= evicted.weight;
+            if (evicted.key instanceof PriceBelowKey priceKey) {
+                cachedPrices.remove(priceKey.price());
+            }
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package controller.index;
+
+import model.entity.FuelType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.function.Function;
+
+// Filter on fuel type and production year, answered by a BitmapIndex. Filters combine with
+// and/or/not, e.g. fuelTypes(HYBRID, ELECTRIC).and(productionYears(2023, 2024)), and the
+// whole tree is evaluated on the bitmaps before any car is read. Without a bitmap index, a
+// filter can also be tested against the fields of one car.
+public final class BitmapFilter {
+    private interface CarTest {
+        boolean test(FuelType fuelType, int productionYear);
+    }
+
+    private final String description;
+    private final Function<BitmapIndex, BitSet> evaluator;
+    private final CarTest carTest;
+
+    private BitmapFilter(String description, Function<BitmapIndex, BitSet> evaluator, CarTest carTest) {
+        this.description = description;
+        this.evaluator = evaluator;
+        this.carTest = carTest;
+    }
+
+    // Cars with any of the fuel types
+    public static BitmapFilter fuelTypes(FuelType... fuelTypes) {
+        FuelType[] copy = fuelTypes.clone();
+        EnumSet<FuelType> set = EnumSet.noneOf(FuelType.class);
+        set.addAll(Arrays.asList(copy));
+        return new BitmapFilter("fuelType in " + Arrays.toString(copy), index -> index.fuelTypeRows(copy),
+                (fuelType, year) -> set.contains(fuelType));
+    }
+
+    // Cars produced in fromYear..toYear, both inclusive
+    public static BitmapFilter productionYears(int fromYear, int toYear) {
+        return new BitmapFilter("year in [" + fromYear + ", " + toYear + "]",
+                index -> index.yearRows(fromYear, toYear), (fuelType, year) -> year >= fromYear && year <= toYear);
+    }
+
+    public static BitmapFilter all() {
+        return new BitmapFilter("all", BitmapIndex::liveRows, (fuelType, year) -> true);
+    }
+
+    public BitmapFilter and(BitmapFilter other) {
+        return new BitmapFilter("(" + this + " AND " + other + ")", index -> {
+            BitSet rows = evaluate(index);
+            if (!rows.isEmpty()) {
+                rows.and(other.evaluate(index));
+            }
+            return rows;
+        }, (fuelType, year) -> matches(fuelType, year) && other.matches(fuelType, year));
+    }
+
+    public BitmapFilter or(BitmapFilter other) {
+        return new BitmapFilter("(" + this + " OR " + other + ")", index -> {
+            BitSet rows = evaluate(index);
+            rows.or(other.evaluate(index));
+            return rows;
+        }, (fuelType, year) -> matches(fuelType, year) || other.matches(fuelType, year));
+    }
+
+    public BitmapFilter not() {
+        return new BitmapFilter("NOT " + this, index -> {
+            BitSet rows = index.liveRows();
+            rows.andNot(evaluate(index));
+            return rows;
+        }, (fuelType, year) -> !matches(fuelType, year));
+    }
+
+    // Whether a car with the fuel type, produced in the year, passes the filter
+    public boolean matches(FuelType fuelType, int productionYear) {
+        return carTest.test(fuelType, productionYear);
+    }
+
+    // Rows matching the filter; the caller owns the returned set
+    BitSet evaluate(BitmapIndex index) {
+        return evaluator.apply(index);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,93 @@
+package controller.index;
+
+import model.entity.FuelType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.TreeMap;
+
+// Bitmap indexes over row positions: one bitmap per fuel type, one per production year and one
+// of the live rows. A BitmapFilter is answered by combining bitmaps a word at a time, so no row
+// is read until the matching rows are known.
+public class BitmapIndex {
+    private final EnumMap<FuelType, BitSet> fuelTypes = new EnumMap<>(FuelType.class);
+    private final TreeMap<Integer, BitSet> years = new TreeMap<>();
+    private final BitSet live = new BitSet();
+    // Years are taken in the zone the dates were parsed in; fixed so add and remove always agree
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public BitmapIndex() {
+        for (FuelType fuelType : FuelType.values()) {
+            fuelTypes.put(fuelType, new BitSet());
+        }
+    }
+
+    public void add(int row, FuelType fuelType, long productionDate) {
+        live.set(row);
+        fuelTypes.get(fuelType).set(row);
+        years.computeIfAbsent(yearOf(productionDate), year -> new BitSet()).set(row);
+    }
+
+    public void remove(int row, FuelType fuelType, long productionDate) {
+        live.clear(row);
+        fuelTypes.get(fuelType).clear(row);
+        BitSet year = years.get(yearOf(productionDate));
+        if (year != null) {
+            year.clear(row);
+        }
+    }
+
+    // A car with the given fields moved from one row to another
+    public void move(int from, int to, FuelType fuelType, long productionDate) {
+        remove(from, fuelType, productionDate);
+        add(to, fuelType, productionDate);
+    }
+
+    public void clear() {
+        for (BitSet rows : fuelTypes.values()) {
+            rows.clear();
+        }
+        years.clear();
+        live.clear();
+    }
+
+    // Rows matching the filter; the caller owns the returned set
+    public BitSet evaluate(BitmapFilter filter) {
+        return filter.evaluate(this);
+    }
+
+    public int count(BitmapFilter filter) {
+        return evaluate(filter).cardinality();
+    }
+
+    // Calendar year of a production date given in epoch millis
+    public int yearOf(long productionDate) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(productionDate), zone).getYear();
+    }
+
+    BitSet liveRows() {
+        return (BitSet) live.clone();
+    }
+
+    BitSet fuelTypeRows(FuelType[] fuelTypes) {
+        BitSet rows = new BitSet();
+        for (FuelType fuelType : fuelTypes) {
+            rows.or(this.fuelTypes.get(fuelType));
+        }
+        return rows;
+    }
+
+    // Rows produced in fromYear..toYear, both inclusive
+    BitSet yearRows(int fromYear, int toYear) {
+        BitSet rows = new BitSet();
+        if (fromYear <= toYear) {
+            for (BitSet year : years.subMap(fromYear, true, toYear, true).values()) {
+                rows.or(year);
+            }
+        }
+        return rows;
+    }
+}
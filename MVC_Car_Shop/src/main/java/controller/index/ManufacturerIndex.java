@@ -0,0 +1,64 @@
+package controller.index;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+// Secondary index from a case-insensitive manufacturer name to the IDs of its cars.
+// Each manufacturer's IDs are kept sorted, so its cars can be listed in ID order
+// and paged through with a keyset (the last ID seen) or an offset.
+public class ManufacturerIndex {
+    private final Map<String, SortedLongIndex> buckets = new HashMap<>();
+
+    public void add(int carId, String manufacturer) {
+        buckets.computeIfAbsent(normalize(manufacturer), key -> new SortedLongIndex()).add(carId, carId);
+    }
+
+    public void remove(int carId, String manufacturer) {
+        String key = normalize(manufacturer);
+        SortedLongIndex bucket = buckets.get(key);
+        if (bucket == null || !bucket.remove(carId, carId)) {
+            return;
+        }
+        if (bucket.size() == 0) {
+            buckets.remove(key);
+        }
+    }
+
+    // Number of cars for the manufacturer
+    public int count(String manufacturer) {
+        SortedLongIndex bucket = buckets.get(normalize(manufacturer));
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    // Visit the IDs of every car for the manufacturer in ascending order
+    public void forEach(String manufacturer, IntConsumer action) {
+        forEachAfter(manufacturer, Long.MIN_VALUE, Integer.MAX_VALUE, action);
+    }
+
+    // Visit at most limit IDs of the manufacturer's cars with ID > afterId, in ascending order
+    public void forEachAfter(String manufacturer, long afterId, int limit, IntConsumer action) {
+        SortedLongIndex bucket = buckets.get(normalize(manufacturer));
+        if (bucket != null) {
+            bucket.forEachAfter(afterId, Integer.MAX_VALUE, Long.MAX_VALUE, limit, action);
+        }
+    }
+
+    // Visit at most limit IDs of the manufacturer's cars, skipping the first offset in ID order
+    public void forEachFromOffset(String manufacturer, int offset, int limit, IntConsumer action) {
+        SortedLongIndex bucket = buckets.get(normalize(manufacturer));
+        if (bucket != null) {
+            bucket.forEachFromRank(offset, Long.MAX_VALUE, limit, action);
+        }
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+
+    // Same equivalence as String.equalsIgnoreCase for the names we store
+    public static String normalize(String manufacturer) {
+        return manufacturer.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,324 @@
+package controller.index;
+
+import model.DTO.SearchSuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Search over the distinct manufacturer and model pairs of the inventory, ignoring case.
+// Names are split into words kept in a trie. A search word matches a name word that starts with
+// it, or, for longer search words, one with a prefix within a small edit distance of it. Both are
+// found in one walk of the trie that carries a row of the Levenshtein table per node, so words
+// sharing a prefix share its rows, and a branch is left as soon as its row shows that no word
+// below can come closer. The index holds one entry per distinct pair with the number of its cars,
+// so searches cost the same on a million cars as on a thousand, and adding or removing a car of a
+// known pair only updates a count.
+public class NameSearchIndex {
+    // A distinct manufacturer and model pair, named after the first spelling seen
+    private static final class Entry {
+        private final String manufacturer;
+        private final String model;
+        private final String key;
+        private final String[] words;
+        // Spellings of the pair that point at this entry, as (manufacturer, model)
+        private final List<String[]> spellings = new ArrayList<>(1);
+        private int cars;
+
+        private Entry(String manufacturer, String model, String key) {
+            this.manufacturer = manufacturer;
+            this.model = model;
+            this.key = key;
+            this.words = words(manufacturer + " " + model);
+        }
+    }
+
+    // A word of some names, with the entries whose names contain it
+    private static final class Word {
+        private final String text;
+        private final Set<Entry> entries = new HashSet<>();
+
+        private Word(String text) {
+            this.text = text;
+        }
+    }
+
+    // Trie node; its children are sorted by their character
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        // The word ending here, if any
+        private Word word;
+
+        private Node child(char label) {
+            int pos = Arrays.binarySearch(labels, 0, childCount, label);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        private Node addChild(char label) {
+            int pos = Arrays.binarySearch(labels, 0, childCount, label);
+            if (pos >= 0) {
+                return children[pos];
+            }
+            pos = -pos - 1;
+            if (childCount == labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(2, childCount * 2));
+                children = Arrays.copyOf(children, labels.length);
+            }
+            System.arraycopy(labels, pos, labels, pos + 1, childCount - pos);
+            System.arraycopy(children, pos, children, pos + 1, childCount - pos);
+            labels[pos] = label;
+            children[pos] = new Node();
+            childCount++;
+            return children[pos];
+        }
+
+        private void removeChild(char label) {
+            int pos = Arrays.binarySearch(labels, 0, childCount, label);
+            System.arraycopy(labels, pos + 1, labels, pos, childCount - pos - 1);
+            System.arraycopy(children, pos + 1, children, pos, childCount - pos - 1);
+            children[--childCount] = null;
+        }
+    }
+
+    // An entry found by a search, with the edits its best words needed
+    private static final class Match {
+        private final Entry entry;
+        private int distance;
+
+        private Match(Entry entry, int distance) {
+            this.entry = entry;
+            this.distance = distance;
+        }
+    }
+
+    // Fewest edits first, then the most cars, then by name
+    private static final Comparator<Match> RANKING = (match1, match2) -> {
+        if (match1.distance != match2.distance) {
+            return Integer.compare(match1.distance, match2.distance);
+        }
+        if (match1.entry.cars != match2.entry.cars) {
+            return Integer.compare(match2.entry.cars, match1.entry.cars);
+        }
+        return match1.entry.key.compareTo(match2.entry.key);
+    };
+
+    // Entries by the names as stored; store dictionaries repeat the same strings, so most
+    // adds and removes find their entry without lowercasing the names
+    private final Map<String, Map<String, Entry>> bySpelling = new HashMap<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Word> words = new HashMap<>();
+    private Node root = new Node();
+
+    public void add(String manufacturer, String model) {
+        Map<String, Entry> models = bySpelling.computeIfAbsent(manufacturer, key -> new HashMap<>());
+        Entry entry = models.get(model);
+        if (entry == null) {
+            String key = ManufacturerIndex.normalize(manufacturer) + '\u0000' + ManufacturerIndex.normalize(model);
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(manufacturer, model, key);
+                entries.put(key, entry);
+                for (String word : entry.words) {
+                    addWord(word, entry);
+                }
+            }
+            models.put(model, entry);
+            entry.spellings.add(new String[]{manufacturer, model});
+        }
+        entry.cars++;
+    }
+
+    public void remove(String manufacturer, String model) {
+        Map<String, Entry> models = bySpelling.get(manufacturer);
+        Entry entry = models == null ? null : models.get(model);
+        if (entry == null || --entry.cars > 0) {
+            return;
+        }
+        entries.remove(entry.key);
+        for (String[] spelling : entry.spellings) {
+            Map<String, Entry> spelled = bySpelling.get(spelling[0]);
+            spelled.remove(spelling[1]);
+            if (spelled.isEmpty()) {
+                bySpelling.remove(spelling[0]);
+            }
+        }
+        for (String word : entry.words) {
+            removeWord(word, entry);
+        }
+    }
+
+    public void clear() {
+        bySpelling.clear();
+        entries.clear();
+        words.clear();
+        root = new Node();
+    }
+
+    // Number of distinct manufacturer and model pairs
+    public int size() {
+        return entries.size();
+    }
+
+    // At most limit pairs matching every word of the text, fewest edits first, then most cars
+    public List<SearchSuggestionDTO> search(String text, int limit) {
+        String[] searchWords = words(text);
+        if (searchWords.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        // Entries matching all search words so far, with the edits summed over the words
+        Map<Entry, Match> matches = matches(searchWords[0]);
+        for (int i = 1; i < searchWords.length && !matches.isEmpty(); i++) {
+            Map<Entry, Match> wordMatches = matches(searchWords[i]);
+            Map<Entry, Match> both = new HashMap<>();
+            for (Match match : matches.values()) {
+                Match wordMatch = wordMatches.get(match.entry);
+                if (wordMatch != null) {
+                    match.distance += wordMatch.distance;
+                    both.put(match.entry, match);
+                }
+            }
+            matches = both;
+        }
+        List<Match> ranked = new ArrayList<>(matches.values());
+        ranked.sort(RANKING);
+        List<SearchSuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Match match : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            Entry entry = match.entry;
+            suggestions.add(new SearchSuggestionDTO(entry.manufacturer, entry.model, entry.cars, match.distance));
+        }
+        return suggestions;
+    }
+
+    // Entries with a word matching the search word, with the fewest edits of any of their words
+    private Map<Entry, Match> matches(String searchWord) {
+        Map<Word, Integer> distances = new HashMap<>();
+        // Row of the table for the empty prefix: i edits turn the first i letters into it
+        int[] row = new int[searchWord.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        walk(root, searchWord.toCharArray(), maxEdits(searchWord.length()), row, Integer.MAX_VALUE, distances);
+        Map<Entry, Match> matches = new HashMap<>();
+        for (Map.Entry<Word, Integer> word : distances.entrySet()) {
+            int distance = word.getValue();
+            for (Entry entry : word.getKey().entries) {
+                Match match = matches.get(entry);
+                if (match == null) {
+                    matches.put(entry, new Match(entry, distance));
+                } else if (distance < match.distance) {
+                    match.distance = distance;
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Visit the node whose prefix has the given table row. row[i] is the edits turning the first
+    // i letters of the search word into the prefix, and best the fewest edits to any shorter prefix.
+    private static void walk(Node node, char[] searchWord, int maxEdits, int[] row, int best,
+                             Map<Word, Integer> distances) {
+        best = Math.min(best, row[searchWord.length]);
+        if (node.word != null && best <= maxEdits) {
+            distances.put(node.word, best);
+        }
+        int rowMin = row[0];
+        for (int value : row) {
+            rowMin = Math.min(rowMin, value);
+        }
+        // Rows only grow along a branch, so no word below can need fewer edits than rowMin
+        if (rowMin >= Math.min(best, maxEdits + 1)) {
+            if (best <= maxEdits) {
+                for (int i = 0; i < node.childCount; i++) {
+                    collect(node.children[i], best, distances);
+                }
+            }
+            return;
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            char label = node.labels[c];
+            int[] next = new int[row.length];
+            next[0] = row[0] + 1;
+            for (int i = 1; i < row.length; i++) {
+                int substitution = row[i - 1] + (searchWord[i - 1] == label ? 0 : 1);
+                next[i] = Math.min(substitution, Math.min(row[i], next[i - 1]) + 1);
+            }
+            walk(node.children[c], searchWord, maxEdits, next, best, distances);
+        }
+    }
+
+    // Every word below the node, at the given distance
+    private static void collect(Node node, int distance, Map<Word, Integer> distances) {
+        if (node.word != null) {
+            distances.put(node.word, distance);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], distance, distances);
+        }
+    }
+
+    // Typos tolerated in a search word: none for short words, which would match too much
+    static int maxEdits(int length) {
+        return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+    }
+
+    private void addWord(String text, Entry entry) {
+        Word word = words.get(text);
+        if (word == null) {
+            word = new Word(text);
+            words.put(text, word);
+            Node node = root;
+            for (int i = 0; i < text.length(); i++) {
+                node = node.addChild(text.charAt(i));
+            }
+            node.word = word;
+        }
+        word.entries.add(entry);
+    }
+
+    private void removeWord(String text, Entry entry) {
+        Word word = words.get(text);
+        word.entries.remove(entry);
+        if (!word.entries.isEmpty()) {
+            return;
+        }
+        words.remove(text);
+        // Unlink the nodes that no longer lead to any word, deepest first
+        Node[] path = new Node[text.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < text.length(); i++) {
+            path[i + 1] = path[i].child(text.charAt(i));
+        }
+        path[text.length()].word = null;
+        for (int i = text.length(); i > 0 && path[i].word == null && path[i].childCount == 0; i--) {
+            path[i - 1].removeChild(text.charAt(i - 1));
+        }
+    }
+
+    // The distinct lower-case runs of letters and digits in the text
+    static String[] words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text != null) {
+            String lower = text.toLowerCase(Locale.ROOT);
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    words.add(lower.substring(start, i));
+                    start = -1;
+                }
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,277 @@
+package controller.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Ordered index of (long key, int car ID) entries kept in primitive arrays.
+// Entries are sorted by key, then by ID, and stored in chunks of at most
+// CHUNK_CAPACITY entries, so an insert or delete only shifts one chunk instead
+// of the whole index. Range scans find their start with two binary searches and
+// then walk the chunks in order, giving O(log n + k) queries.
+public class SortedLongIndex {
+    private static final int CHUNK_CAPACITY = 512;
+
+    private long[][] keys = new long[4][];
+    private int[][] ids = new int[4][];
+    private int[] sizes = new int[4];
+    private int chunkCount;
+    private int size;
+
+    public void add(long key, int id) {
+        if (chunkCount == 0) {
+            long[] chunkKeys = new long[CHUNK_CAPACITY];
+            int[] chunkIds = new int[CHUNK_CAPACITY];
+            chunkKeys[0] = key;
+            chunkIds[0] = id;
+            insertChunk(0, chunkKeys, chunkIds, 1);
+            size++;
+            return;
+        }
+        int chunk = chunkFor(key, id);
+        if (chunk == chunkCount) {
+            // Larger than every entry: append to the last chunk
+            chunk = chunkCount - 1;
+        }
+        if (sizes[chunk] == CHUNK_CAPACITY) {
+            splitChunk(chunk);
+            if (compare(key, id, keys[chunk][sizes[chunk] - 1], ids[chunk][sizes[chunk] - 1]) > 0) {
+                chunk++;
+            }
+        }
+        long[] chunkKeys = keys[chunk];
+        int[] chunkIds = ids[chunk];
+        int chunkSize = sizes[chunk];
+        int pos = lowerBound(chunkKeys, chunkIds, chunkSize, key, id);
+        System.arraycopy(chunkKeys, pos, chunkKeys, pos + 1, chunkSize - pos);
+        System.arraycopy(chunkIds, pos, chunkIds, pos + 1, chunkSize - pos);
+        chunkKeys[pos] = key;
+        chunkIds[pos] = id;
+        sizes[chunk]++;
+        size++;
+    }
+
+    // Remove the entry; returns false when it is not present
+    public boolean remove(long key, int id) {
+        int chunk = chunkFor(key, id);
+        if (chunk == chunkCount) {
+            return false;
+        }
+        long[] chunkKeys = keys[chunk];
+        int[] chunkIds = ids[chunk];
+        int chunkSize = sizes[chunk];
+        int pos = lowerBound(chunkKeys, chunkIds, chunkSize, key, id);
+        if (pos == chunkSize || chunkKeys[pos] != key || chunkIds[pos] != id) {
+            return false;
+        }
+        System.arraycopy(chunkKeys, pos + 1, chunkKeys, pos, chunkSize - pos - 1);
+        System.arraycopy(chunkIds, pos + 1, chunkIds, pos, chunkSize - pos - 1);
+        size--;
+        if (--sizes[chunk] == 0) {
+            removeChunk(chunk);
+        }
+        return true;
+    }
+
+    // Visit the IDs with fromInclusive <= key <= toInclusive in ascending key order
+    public void forEachInRange(long fromInclusive, long toInclusive, IntConsumer action) {
+        if (fromInclusive > toInclusive) {
+            return;
+        }
+        forEachFrom(fromInclusive, Integer.MIN_VALUE, toInclusive, Integer.MAX_VALUE, action);
+    }
+
+    // Visit at most limit IDs with key >= fromInclusive, smallest keys first
+    public void forEachAscending(long fromInclusive, int limit, IntConsumer action) {
+        forEachFrom(fromInclusive, Integer.MIN_VALUE, Long.MAX_VALUE, limit, action);
+    }
+
+    // Visit at most limit IDs of the entries after (key, id) with key <= toInclusive, in ascending
+    // order. Used for keyset pagination: (key, id) is the last entry of the previous page.
+    public void forEachAfter(long key, int id, long toInclusive, int limit, IntConsumer action) {
+        if (id != Integer.MAX_VALUE) {
+            forEachFrom(key, id + 1, toInclusive, limit, action);
+        } else if (key != Long.MAX_VALUE) {
+            forEachFrom(key + 1, Integer.MIN_VALUE, toInclusive, limit, action);
+        }
+    }
+
+    // Visit at most limit IDs with key <= toInclusive, skipping the first rank entries
+    public void forEachFromRank(int rank, long toInclusive, int limit, IntConsumer action) {
+        if (rank < 0) {
+            return;
+        }
+        // Whole chunks are skipped by their sizes
+        int chunk = 0;
+        while (chunk < chunkCount && rank >= sizes[chunk]) {
+            rank -= sizes[chunk];
+            chunk++;
+        }
+        forEachFromPosition(chunk, rank, toInclusive, limit, action);
+    }
+
+    // Visit at most limit IDs of the entries from (key, id) on with key <= toInclusive, in ascending order
+    public void forEachFrom(long key, int id, long toInclusive, int limit, IntConsumer action) {
+        int chunk = chunkFor(key, id);
+        if (chunk == chunkCount) {
+            return;
+        }
+        int pos = lowerBound(keys[chunk], ids[chunk], sizes[chunk], key, id);
+        forEachFromPosition(chunk, pos, toInclusive, limit, action);
+    }
+
+    private void forEachFromPosition(int chunk, int pos, long toInclusive, int limit, IntConsumer action) {
+        if (limit <= 0) {
+            return;
+        }
+        int visited = 0;
+        for (; chunk < chunkCount; chunk++, pos = 0) {
+            long[] chunkKeys = keys[chunk];
+            int[] chunkIds = ids[chunk];
+            int chunkSize = sizes[chunk];
+            for (; pos < chunkSize; pos++) {
+                if (chunkKeys[pos] > toInclusive) {
+                    return;
+                }
+                action.accept(chunkIds[pos]);
+                if (++visited == limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Visit at most limit IDs with key <= toInclusive, largest keys first
+    public void forEachDescending(long toInclusive, int limit, IntConsumer action) {
+        if (chunkCount == 0 || limit <= 0) {
+            return;
+        }
+        // Start just before the first entry with a larger key
+        int chunk = toInclusive == Long.MAX_VALUE ? chunkCount : chunkFor(toInclusive + 1, Integer.MIN_VALUE);
+        int pos;
+        if (chunk == chunkCount) {
+            chunk = chunkCount - 1;
+            pos = sizes[chunk] - 1;
+        } else {
+            pos = lowerBound(keys[chunk], ids[chunk], sizes[chunk], toInclusive + 1, Integer.MIN_VALUE) - 1;
+        }
+        int visited = 0;
+        while (chunk >= 0) {
+            int[] chunkIds = ids[chunk];
+            for (; pos >= 0; pos--) {
+                action.accept(chunkIds[pos]);
+                if (++visited == limit) {
+                    return;
+                }
+            }
+            if (--chunk >= 0) {
+                pos = sizes[chunk] - 1;
+            }
+        }
+    }
+
+    // Number of entries with fromInclusive <= key <= toInclusive. Sums the sizes of the chunks
+    // before each bound, so it costs O(chunks) rather than O(entries).
+    public int countInRange(long fromInclusive, long toInclusive) {
+        if (fromInclusive > toInclusive) {
+            return 0;
+        }
+        int end = toInclusive == Long.MAX_VALUE ? size : rank(toInclusive + 1, Integer.MIN_VALUE);
+        return end - rank(fromInclusive, Integer.MIN_VALUE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0, chunkCount, null);
+        Arrays.fill(ids, 0, chunkCount, null);
+        chunkCount = 0;
+        size = 0;
+    }
+
+    // Number of entries before (key, id)
+    private int rank(long key, int id) {
+        int chunk = chunkFor(key, id);
+        int rank = 0;
+        for (int i = 0; i < chunk; i++) {
+            rank += sizes[i];
+        }
+        if (chunk < chunkCount) {
+            rank += lowerBound(keys[chunk], ids[chunk], sizes[chunk], key, id);
+        }
+        return rank;
+    }
+
+    // Index of the first chunk whose last entry is >= (key, id), or chunkCount if there is none
+    private int chunkFor(long key, int id) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int last = sizes[mid] - 1;
+            if (compare(keys[mid][last], ids[mid][last], key, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Position of the first entry >= (key, id) within a chunk
+    private static int lowerBound(long[] chunkKeys, int[] chunkIds, int chunkSize, long key, int id) {
+        int low = 0;
+        int high = chunkSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(chunkKeys[mid], chunkIds[mid], key, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long key1, int id1, long key2, int id2) {
+        int result = Long.compare(key1, key2);
+        return result != 0 ? result : Integer.compare(id1, id2);
+    }
+
+    private void splitChunk(int chunk) {
+        int half = sizes[chunk] >>> 1;
+        long[] newKeys = new long[CHUNK_CAPACITY];
+        int[] newIds = new int[CHUNK_CAPACITY];
+        System.arraycopy(keys[chunk], half, newKeys, 0, sizes[chunk] - half);
+        System.arraycopy(ids[chunk], half, newIds, 0, sizes[chunk] - half);
+        int newSize = sizes[chunk] - half;
+        sizes[chunk] = half;
+        insertChunk(chunk + 1, newKeys, newIds, newSize);
+    }
+
+    private void insertChunk(int at, long[] chunkKeys, int[] chunkIds, int chunkSize) {
+        if (chunkCount == keys.length) {
+            int capacity = chunkCount << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunkCount - at);
+        System.arraycopy(ids, at, ids, at + 1, chunkCount - at);
+        System.arraycopy(sizes, at, sizes, at + 1, chunkCount - at);
+        keys[at] = chunkKeys;
+        ids[at] = chunkIds;
+        sizes[at] = chunkSize;
+        chunkCount++;
+    }
+
+    private void removeChunk(int chunk) {
+        System.arraycopy(keys, chunk + 1, keys, chunk, chunkCount - chunk - 1);
+        System.arraycopy(ids, chunk + 1, ids, chunk, chunkCount - chunk - 1);
+        System.arraycopy(sizes, chunk + 1, sizes, chunk, chunkCount - chunk - 1);
+        chunkCount--;
+        keys[chunkCount] = null;
+        ids[chunkCount] = null;
+    }
+}
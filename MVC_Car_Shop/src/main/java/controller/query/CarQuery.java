@@ -0,0 +1,250 @@
+package controller.query;
+
+import model.entity.FuelType;
+import model.store.CarStore;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Filter on any mix of car fields with a sort order and a limit, e.g.
+// new CarQuery().manufacturer("Porsche").priceBetween(0, 90000).sortBy(SortField.PRICE, false).limit(10).
+// Unset fields match every car; ranges are inclusive and text matches ignore case.
+// Run it with CarController.findCarsLogic, or explainFindCarsLogic to see the plan.
+public class CarQuery {
+    public enum SortField {
+        ID, PRICE, HORSEPOWER, PRODUCTION_DATE
+    }
+
+    // The fields a predicate can constrain, also used by QueryPlan to name residual predicates
+    public enum Field {
+        ID, MANUFACTURER, MODEL, PRICE, PRODUCTION_DATE, FUEL_TYPE, HORSEPOWER
+    }
+
+    private Integer id;
+    private String manufacturer;
+    private String model;
+    private long minPrice = Long.MIN_VALUE;
+    private long maxPrice = Long.MAX_VALUE;
+    private long fromDate = Long.MIN_VALUE;
+    private long toDate = Long.MAX_VALUE;
+    private Set<FuelType> fuelTypes;
+    private int minHorsepower = Integer.MIN_VALUE;
+    private int maxHorsepower = Integer.MAX_VALUE;
+    private SortField sortField = SortField.ID;
+    private boolean descending;
+    private int limit = Integer.MAX_VALUE;
+
+    public CarQuery id(int id) {
+        this.id = id;
+        return this;
+    }
+
+    public CarQuery manufacturer(String manufacturer) {
+        this.manufacturer = manufacturer;
+        return this;
+    }
+
+    public CarQuery model(String model) {
+        this.model = model;
+        return this;
+    }
+
+    public CarQuery priceBetween(long minPrice, long maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public CarQuery producedBetween(Timestamp from, Timestamp to) {
+        this.fromDate = from == null ? Long.MIN_VALUE : from.getTime();
+        this.toDate = to == null ? Long.MAX_VALUE : to.getTime();
+        return this;
+    }
+
+    public CarQuery fuelTypes(FuelType... fuelTypes) {
+        this.fuelTypes = fuelTypes.length == 0 ? EnumSet.noneOf(FuelType.class) : EnumSet.copyOf(Arrays.asList(fuelTypes));
+        return this;
+    }
+
+    public CarQuery horsepowerBetween(int minHorsepower, int maxHorsepower) {
+        this.minHorsepower = minHorsepower;
+        this.maxHorsepower = maxHorsepower;
+        return this;
+    }
+
+    public CarQuery sortBy(SortField sortField, boolean descending) {
+        if (sortField == null) {
+            throw new IllegalArgumentException("Sort field is missing.");
+        }
+        this.sortField = sortField;
+        this.descending = descending;
+        return this;
+    }
+
+    public CarQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Query limit must not be negative.");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public long getMinPrice() {
+        return minPrice;
+    }
+
+    public long getMaxPrice() {
+        return maxPrice;
+    }
+
+    public long getFromDate() {
+        return fromDate;
+    }
+
+    public long getToDate() {
+        return toDate;
+    }
+
+    // Null when any fuel type matches
+    public Set<FuelType> getFuelTypes() {
+        return fuelTypes;
+    }
+
+    public int getMinHorsepower() {
+        return minHorsepower;
+    }
+
+    public int getMaxHorsepower() {
+        return maxHorsepower;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean constrains(Field field) {
+        switch (field) {
+            case ID:
+                return id != null;
+            case MANUFACTURER:
+                return manufacturer != null;
+            case MODEL:
+                return model != null;
+            case PRICE:
+                return minPrice != Long.MIN_VALUE || maxPrice != Long.MAX_VALUE;
+            case PRODUCTION_DATE:
+                return fromDate != Long.MIN_VALUE || toDate != Long.MAX_VALUE;
+            case FUEL_TYPE:
+                return fuelTypes != null;
+            case HORSEPOWER:
+                return minHorsepower != Integer.MIN_VALUE || maxHorsepower != Integer.MAX_VALUE;
+            default:
+                throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+
+    // Checks the predicates on every field except the covered ones, for one run of the query
+    public RowMatcher matcher(Set<Field> covered) {
+        return new RowMatcher(this, covered);
+    }
+
+    // Order of two rows by the sort field, ties broken by ascending ID
+    public int compareRows(CarStore cars, int row1, int row2) {
+        int result;
+        switch (sortField) {
+            case PRICE:
+                result = Long.compare(cars.price(row1), cars.price(row2));
+                break;
+            case HORSEPOWER:
+                result = Integer.compare(cars.horsepower(row1), cars.horsepower(row2));
+                break;
+            case PRODUCTION_DATE:
+                result = Long.compare(cars.productionDate(row1), cars.productionDate(row2));
+                break;
+            default:
+                result = 0;
+                break;
+        }
+        if (descending) {
+            result = -result;
+        }
+        if (result == 0) {
+            result = Integer.compare(cars.id(row1), cars.id(row2));
+            if (descending && sortField == SortField.ID) {
+                result = -result;
+            }
+        }
+        return result;
+    }
+
+    // The predicates on the given fields, joined with AND; "true" when there are none
+    public String describe(Set<Field> fields) {
+        List<String> predicates = new ArrayList<>();
+        for (Field field : fields) {
+            if (constrains(field)) {
+                predicates.add(describe(field));
+            }
+        }
+        return predicates.isEmpty() ? "true" : String.join(" AND ", predicates);
+    }
+
+    private String describe(Field field) {
+        switch (field) {
+            case ID:
+                return "id = " + id;
+            case MANUFACTURER:
+                return "manufacturer = '" + manufacturer + "'";
+            case MODEL:
+                return "model = '" + model + "'";
+            case PRICE:
+                return "price in [" + bound(minPrice) + ", " + bound(maxPrice) + "]";
+            case PRODUCTION_DATE:
+                return "productionDate in [" + date(fromDate) + ", " + date(toDate) + "]";
+            case FUEL_TYPE:
+                return "fuelType in " + fuelTypes;
+            case HORSEPOWER:
+                return "horsepower in [" + bound(minHorsepower) + ", " + bound(maxHorsepower) + "]";
+            default:
+                throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+
+    private static String bound(long value) {
+        return value == Long.MIN_VALUE || value == Integer.MIN_VALUE ? "-inf"
+                : value == Long.MAX_VALUE || value == Integer.MAX_VALUE ? "inf" : Long.toString(value);
+    }
+
+    private static String date(long value) {
+        return value == Long.MIN_VALUE ? "-inf" : value == Long.MAX_VALUE ? "inf" : new Timestamp(value).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "WHERE " + describe(EnumSet.allOf(Field.class)) + " ORDER BY " + sortField + (descending ? " DESC" : "")
+                + (limit == Integer.MAX_VALUE ? "" : " LIMIT " + limit);
+    }
+}
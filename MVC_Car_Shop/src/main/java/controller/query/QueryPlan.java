@@ -0,0 +1,117 @@
+package controller.query;
+
+import controller.index.BitmapFilter;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Access path chosen by QueryPlanner, with the estimates it was chosen on
+public class QueryPlan {
+    public enum AccessPath {
+        ID_LOOKUP, MANUFACTURER_INDEX, PRICE_INDEX, BITMAP_INDEX, FULL_SCAN
+    }
+
+    private final CarQuery query;
+    private final AccessPath accessPath;
+    private final Set<CarQuery.Field> coveredFields;
+    private final BitmapFilter bitmapFilter;
+    private final boolean ordered;
+    private final long estimatedRows;
+    private final long estimatedMatches;
+    private final double cost;
+
+    public QueryPlan(CarQuery query, AccessPath accessPath, Set<CarQuery.Field> coveredFields,
+                     BitmapFilter bitmapFilter, boolean ordered, long estimatedRows, long estimatedMatches,
+                     double cost) {
+        this.query = query;
+        this.accessPath = accessPath;
+        this.coveredFields = coveredFields;
+        this.bitmapFilter = bitmapFilter;
+        this.ordered = ordered;
+        this.estimatedRows = estimatedRows;
+        this.estimatedMatches = estimatedMatches;
+        this.cost = cost;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    // Fields whose predicates the access path already guarantees
+    public Set<CarQuery.Field> getCoveredFields() {
+        return coveredFields;
+    }
+
+    // Filter the BITMAP_INDEX path starts from, otherwise null
+    public BitmapFilter getBitmapFilter() {
+        return bitmapFilter;
+    }
+
+    // True if the access path yields cars in the query's sort order, so no sort is needed
+    // and the scan can stop at the limit
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    // Rows the access path is expected to produce before residual predicates
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public long getEstimatedMatches() {
+        return estimatedMatches;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder plan = new StringBuilder();
+        String indent = "";
+        if (!ordered && query.getLimit() != Integer.MAX_VALUE) {
+            // A bounded heap keeps the first rows in sort order
+            plan.append("Top ").append(query.getLimit()).append(" by ").append(query.getSortField())
+                    .append(query.isDescending() ? " desc" : " asc").append('\n');
+            indent += "  ";
+        } else if (query.getLimit() != Integer.MAX_VALUE) {
+            plan.append("Limit ").append(query.getLimit()).append('\n');
+            indent += "  ";
+        } else if (!ordered) {
+            plan.append("Sort by ").append(query.getSortField())
+                    .append(query.isDescending() ? " desc" : " asc").append('\n');
+            indent += "  ";
+        }
+        Set<CarQuery.Field> residual = EnumSet.allOf(CarQuery.Field.class);
+        residual.removeAll(coveredFields);
+        String residualPredicates = query.describe(residual);
+        if (!"true".equals(residualPredicates)) {
+            plan.append(indent).append("Filter ").append(residualPredicates).append('\n');
+            indent += "  ";
+        }
+        plan.append(indent).append(describeAccess())
+                .append(" (estimated rows=").append(estimatedRows)
+                .append(", matches=").append(estimatedMatches)
+                .append(", cost=").append(String.format(Locale.ROOT, "%.1f", cost)).append(')');
+        return plan.toString();
+    }
+
+    private String describeAccess() {
+        switch (accessPath) {
+            case ID_LOOKUP:
+                return "ID lookup " + query.describe(EnumSet.of(CarQuery.Field.ID));
+            case MANUFACTURER_INDEX:
+                return "Manufacturer index scan " + query.describe(EnumSet.of(CarQuery.Field.MANUFACTURER));
+            case PRICE_INDEX:
+                return query.constrains(CarQuery.Field.PRICE)
+                        ? "Price index scan " + query.describe(EnumSet.of(CarQuery.Field.PRICE))
+                        : "Price index scan in price order";
+            case BITMAP_INDEX:
+                return "Bitmap index scan " + bitmapFilter;
+            default:
+                return ordered ? "Full scan in ID order" : "Full scan";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package controller.query;
+
+import controller.index.BitmapFilter;
+import model.entity.FuelType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Cost-based choice of access path for a CarQuery. Every index that can answer one of the
+// predicates is costed by the rows it would produce, read from the index itself; the rest of the
+// predicates are applied to those rows as a residual filter. A path that already yields the sort
+// order can stop at the limit, so it is costed by the rows it needs to find enough matches, while
+// other paths pay for sorting their matches, or for a heap of limit rows when there is a limit.
+// The price index is also a candidate for a price-ordered query without a price range, walking
+// the whole index from the cheapest car. Selectivities of predicates without an index are
+// fixed guesses, and predicates are assumed independent.
+public class QueryPlanner {
+    // Cost of combining one 64-bit word of two bitmaps, relative to examining one row
+    private static final double WORD_COST = 0.25;
+    // Cost per comparison of sorting the matches
+    private static final double SORT_COST = 0.1;
+    private static final double MODEL_SELECTIVITY = 0.05;
+    private static final double RANGE_SELECTIVITY = 1.0 / 3;
+
+    private QueryPlanner() {
+    }
+
+    public static QueryPlan plan(CarQuery query, QueryStatistics statistics) {
+        int size = statistics.size();
+        long manufacturerRows = query.constrains(CarQuery.Field.MANUFACTURER)
+                ? statistics.manufacturerCount(query.getManufacturer()) : -1;
+        long priceRows = query.constrains(CarQuery.Field.PRICE)
+                ? statistics.priceCount(query.getMinPrice(), query.getMaxPrice())
+                : isSortedBy(query, CarQuery.SortField.PRICE) ? statistics.priceCount(Long.MIN_VALUE, Long.MAX_VALUE)
+                : -1;
+        BitmapFilter bitmapFilter = bitmapFilter(query, statistics);
+        long bitmapRows = bitmapFilter != null ? statistics.bitmapCount(bitmapFilter) : -1;
+
+        // Matches expected from all predicates together
+        double matches = size;
+        if (query.constrains(CarQuery.Field.ID)) {
+            matches = Math.min(matches, 1);
+        }
+        matches *= selectivity(manufacturerRows, size) * selectivity(priceRows, size) * selectivity(bitmapRows, size);
+        if (query.constrains(CarQuery.Field.MODEL)) {
+            matches *= MODEL_SELECTIVITY;
+        }
+        if (query.constrains(CarQuery.Field.HORSEPOWER)) {
+            matches *= RANGE_SELECTIVITY;
+        }
+
+        QueryPlan best = null;
+        if (query.constrains(CarQuery.Field.ID)) {
+            best = cheaper(best, candidate(query, QueryPlan.AccessPath.ID_LOOKUP, EnumSet.of(CarQuery.Field.ID),
+                    null, true, 1, matches, 0));
+        }
+        if (manufacturerRows >= 0) {
+            best = cheaper(best, candidate(query, QueryPlan.AccessPath.MANUFACTURER_INDEX,
+                    EnumSet.of(CarQuery.Field.MANUFACTURER), null, isSortedBy(query, CarQuery.SortField.ID),
+                    manufacturerRows, matches, 0));
+        }
+        if (priceRows >= 0) {
+            best = cheaper(best, candidate(query, QueryPlan.AccessPath.PRICE_INDEX, EnumSet.of(CarQuery.Field.PRICE),
+                    null, isSortedBy(query, CarQuery.SortField.PRICE), priceRows, matches, 0));
+        }
+        if (bitmapRows >= 0) {
+            best = cheaper(best, candidate(query, QueryPlan.AccessPath.BITMAP_INDEX,
+                    EnumSet.of(CarQuery.Field.FUEL_TYPE), bitmapFilter, false, bitmapRows, matches,
+                    size / 64.0 * WORD_COST));
+        }
+        // The full scan walks the ID index when the cars are wanted in ID order, in either direction
+        return cheaper(best, candidate(query, QueryPlan.AccessPath.FULL_SCAN, EnumSet.noneOf(CarQuery.Field.class),
+                null, query.getSortField() == CarQuery.SortField.ID && statistics.hasIdIndex(), size, matches, 0));
+    }
+
+    // Fuel types and the years of the production date range, or null if the query has neither
+    private static BitmapFilter bitmapFilter(CarQuery query, QueryStatistics statistics) {
+        BitmapFilter filter = null;
+        if (query.constrains(CarQuery.Field.FUEL_TYPE)) {
+            filter = BitmapFilter.fuelTypes(query.getFuelTypes().toArray(new FuelType[0]));
+        }
+        if (query.constrains(CarQuery.Field.PRODUCTION_DATE)) {
+            int fromYear = query.getFromDate() == Long.MIN_VALUE ? Integer.MIN_VALUE
+                    : statistics.yearOf(query.getFromDate());
+            int toYear = query.getToDate() == Long.MAX_VALUE ? Integer.MAX_VALUE : statistics.yearOf(query.getToDate());
+            BitmapFilter years = BitmapFilter.productionYears(fromYear, toYear);
+            filter = filter == null ? years : filter.and(years);
+        }
+        return filter;
+    }
+
+    private static boolean isSortedBy(CarQuery query, CarQuery.SortField sortField) {
+        return query.getSortField() == sortField && !query.isDescending();
+    }
+
+    private static double selectivity(long rows, int size) {
+        return rows < 0 || size == 0 ? 1 : (double) rows / size;
+    }
+
+    private static QueryPlan candidate(CarQuery query, QueryPlan.AccessPath accessPath, Set<CarQuery.Field> covered,
+                                       BitmapFilter bitmapFilter, boolean ordered, long rows, double matches,
+                                       double setupCost) {
+        double cost = setupCost;
+        if (ordered) {
+            // Matches are spread evenly over the path's rows, and the scan stops at the limit
+            double needed = query.getLimit() == Integer.MAX_VALUE || matches <= 0 ? rows
+                    : Math.min(rows, query.getLimit() * rows / matches);
+            cost += needed;
+        } else {
+            // Sorting every match, or keeping the best ones in a heap no larger than the limit
+            double sorted = Math.min(matches, query.getLimit());
+            cost += rows + SORT_COST * matches * (Math.log(sorted + 1) / Math.log(2));
+        }
+        return new QueryPlan(query, accessPath, covered, bitmapFilter, ordered, rows, Math.round(matches), cost);
+    }
+
+    // The cheaper plan, keeping the earlier one on a tie
+    private static QueryPlan cheaper(QueryPlan best, QueryPlan candidate) {
+        return best == null || candidate.getCost() < best.getCost() ? candidate : best;
+    }
+}
@@ -0,0 +1,24 @@
+package controller.query;
+
+import controller.index.BitmapFilter;
+
+// Cardinalities the planner reads from the indexes to cost each access path. A count is -1
+// when there is no such index, and the planner then leaves that path out.
+public interface QueryStatistics {
+    int size();
+
+    int manufacturerCount(String manufacturer);
+
+    int priceCount(long minPrice, long maxPrice);
+
+    int bitmapCount(BitmapFilter filter);
+
+    // Whether a full scan can walk the cars in ID order; otherwise it reads them in row order
+    // and sorts the matches
+    default boolean hasIdIndex() {
+        return true;
+    }
+
+    // Calendar year of a production date, as the bitmap index files it
+    int yearOf(long productionDate);
+}
@@ -0,0 +1,84 @@
+package controller.query;
+
+import model.entity.FuelType;
+import model.store.CarStore;
+
+import java.util.Set;
+
+// The predicates of a CarQuery that an access path leaves to be checked row by row. Created per
+// run: store dictionaries hand out one String per distinct name, so the last name compared is
+// remembered by identity and repeated names skip the case-insensitive comparison.
+public final class RowMatcher {
+    private final Integer id;
+    private final String manufacturer;
+    private final String model;
+    private final long minPrice;
+    private final long maxPrice;
+    private final long fromDate;
+    private final long toDate;
+    private final Set<FuelType> fuelTypes;
+    private final int minHorsepower;
+    private final int maxHorsepower;
+
+    private String lastManufacturer;
+    private boolean lastManufacturerMatched;
+    private String lastModel;
+    private boolean lastModelMatched;
+
+    RowMatcher(CarQuery query, Set<CarQuery.Field> covered) {
+        id = covered.contains(CarQuery.Field.ID) ? null : query.getId();
+        manufacturer = covered.contains(CarQuery.Field.MANUFACTURER) ? null : query.getManufacturer();
+        model = covered.contains(CarQuery.Field.MODEL) ? null : query.getModel();
+        boolean pricesCovered = covered.contains(CarQuery.Field.PRICE);
+        minPrice = pricesCovered ? Long.MIN_VALUE : query.getMinPrice();
+        maxPrice = pricesCovered ? Long.MAX_VALUE : query.getMaxPrice();
+        boolean datesCovered = covered.contains(CarQuery.Field.PRODUCTION_DATE);
+        fromDate = datesCovered ? Long.MIN_VALUE : query.getFromDate();
+        toDate = datesCovered ? Long.MAX_VALUE : query.getToDate();
+        fuelTypes = covered.contains(CarQuery.Field.FUEL_TYPE) ? null : query.getFuelTypes();
+        boolean horsepowerCovered = covered.contains(CarQuery.Field.HORSEPOWER);
+        minHorsepower = horsepowerCovered ? Integer.MIN_VALUE : query.getMinHorsepower();
+        maxHorsepower = horsepowerCovered ? Integer.MAX_VALUE : query.getMaxHorsepower();
+    }
+
+    public boolean matches(CarStore cars, int row) {
+        if (id != null && cars.id(row) != id) {
+            return false;
+        }
+        long price = cars.price(row);
+        if (price < minPrice || price > maxPrice) {
+            return false;
+        }
+        int horsepower = cars.horsepower(row);
+        if (horsepower < minHorsepower || horsepower > maxHorsepower) {
+            return false;
+        }
+        long productionDate = cars.productionDate(row);
+        if (productionDate < fromDate || productionDate > toDate) {
+            return false;
+        }
+        if (fuelTypes != null && !fuelTypes.contains(cars.fuelType(row))) {
+            return false;
+        }
+        if (manufacturer != null) {
+            String name = cars.manufacturer(row);
+            if (name != lastManufacturer) {
+                // Same equivalence as ManufacturerIndex.normalize
+                lastManufacturerMatched = name.equalsIgnoreCase(manufacturer);
+                lastManufacturer = name;
+            }
+            if (!lastManufacturerMatched) {
+                return false;
+            }
+        }
+        if (model != null) {
+            String name = cars.model(row);
+            if (name != lastModel) {
+                lastModelMatched = name.equalsIgnoreCase(model);
+                lastModel = name;
+            }
+            return lastModelMatched;
+        }
+        return true;
+    }
+}
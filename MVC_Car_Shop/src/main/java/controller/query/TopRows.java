@@ -0,0 +1,81 @@
+package controller.query;
+
+import model.store.CarStore;
+
+import java.util.Arrays;
+
+// The first k rows in a query's sort order out of any number offered, kept in a binary heap
+// whose root is the last of the rows kept. Offering a row costs O(log k) and the heap never
+// holds more than k rows, so a top-k over n matches takes O(n log k) time and O(k) memory
+// instead of sorting all n.
+public final class TopRows {
+    private final CarQuery query;
+    private final CarStore cars;
+    private final int k;
+    private int[] heap;
+    private int size;
+
+    public TopRows(CarQuery query, CarStore cars) {
+        this.query = query;
+        this.cars = cars;
+        this.k = query.getLimit();
+        this.heap = new int[Math.min(k, 16)];
+    }
+
+    public void offer(int row) {
+        if (size < k) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(k, size * 2L));
+            }
+            heap[size] = row;
+            siftUp(size++);
+        } else if (k > 0 && query.compareRows(cars, row, heap[0]) < 0) {
+            heap[0] = row;
+            siftDown(0, size);
+        }
+    }
+
+    // The rows kept, in the query's sort order. Sorts the heap in place, so call it once.
+    public int[] sortedRows() {
+        for (int end = size - 1; end > 0; end--) {
+            int last = heap[0];
+            heap[0] = heap[end];
+            heap[end] = last;
+            siftDown(0, end);
+        }
+        return Arrays.copyOf(heap, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int pos) {
+        int row = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (query.compareRows(cars, heap[parent], row) >= 0) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = row;
+    }
+
+    private void siftDown(int pos, int end) {
+        int row = heap[pos];
+        int child;
+        while ((child = 2 * pos + 1) < end) {
+            if (child + 1 < end && query.compareRows(cars, heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (query.compareRows(cars, row, heap[child]) >= 0) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = row;
+    }
+}
@@ -0,0 +1,101 @@
+package controller.stats;
+
+import model.DTO.GroupStatsDTO;
+
+// Running count, price sum, price extremes and horsepower sum of one group of cars. Adding and
+// removing a car are O(1). Removing the car that held the minimum or maximum price leaves the
+// extremes stale until the owner recomputes them from the group's cars.
+public class GroupAggregate {
+    private final String name;
+    private int count;
+    private long totalPrice;
+    private long totalHorsepower;
+    private long minPrice = Long.MAX_VALUE;
+    private long maxPrice = Long.MIN_VALUE;
+    private boolean extremesStale;
+
+    public GroupAggregate(String name) {
+        this.name = name;
+    }
+
+    public void add(long price, int horsepower) {
+        count++;
+        totalPrice += price;
+        totalHorsepower += horsepower;
+        if (!extremesStale) {
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+        }
+    }
+
+    public void remove(long price, int horsepower) {
+        count--;
+        totalPrice -= price;
+        totalHorsepower -= horsepower;
+        if (count == 0) {
+            minPrice = Long.MAX_VALUE;
+            maxPrice = Long.MIN_VALUE;
+            extremesStale = false;
+        } else if (price == minPrice || price == maxPrice) {
+            extremesStale = true;
+        }
+    }
+
+    // Add every car of another group with up-to-date extremes
+    public void merge(GroupAggregate other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        totalPrice += other.totalPrice;
+        totalHorsepower += other.totalHorsepower;
+        minPrice = Math.min(minPrice, other.minPrice);
+        maxPrice = Math.max(maxPrice, other.maxPrice);
+    }
+
+    // Whether both groups hold the same figures; names may differ in case
+    public boolean hasSameTotals(GroupAggregate other) {
+        return count == other.count && totalPrice == other.totalPrice && totalHorsepower == other.totalHorsepower
+                && minPrice == other.minPrice && maxPrice == other.maxPrice && extremesStale == other.extremesStale;
+    }
+
+    public boolean isExtremesStale() {
+        return extremesStale;
+    }
+
+    // Replace the extremes with ones recomputed from every car of the group
+    public void setExtremes(long minPrice, long maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.extremesStale = false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public long getTotalHorsepower() {
+        return totalHorsepower;
+    }
+
+    public long getMinPrice() {
+        return minPrice;
+    }
+
+    public long getMaxPrice() {
+        return maxPrice;
+    }
+
+    public GroupStatsDTO toDTO() {
+        return new GroupStatsDTO(name, count, totalPrice, count == 0 ? 0 : minPrice, count == 0 ? 0 : maxPrice,
+                count == 0 ? 0 : (double) totalHorsepower / count);
+    }
+}
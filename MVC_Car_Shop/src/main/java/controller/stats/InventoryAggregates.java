@@ -0,0 +1,133 @@
+package controller.stats;
+
+import controller.index.ManufacturerIndex;
+import model.DTO.GroupStatsDTO;
+import model.DTO.InventoryStatsDTO;
+import model.entity.FuelType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Inventory aggregates grouped by manufacturer (case-insensitive, named after the first spelling
+// seen) and by fuel type, kept current by CarController as cars are indexed and unindexed.
+public class InventoryAggregates {
+    private final Map<String, GroupAggregate> byManufacturer = new HashMap<>();
+    private final EnumMap<FuelType, GroupAggregate> byFuelType = new EnumMap<>(FuelType.class);
+
+    public void add(String manufacturer, FuelType fuelType, long price, int horsepower) {
+        byManufacturer.computeIfAbsent(ManufacturerIndex.normalize(manufacturer), key -> new GroupAggregate(manufacturer))
+                .add(price, horsepower);
+        byFuelType.computeIfAbsent(fuelType, key -> new GroupAggregate(key.name())).add(price, horsepower);
+    }
+
+    public void remove(String manufacturer, FuelType fuelType, long price, int horsepower) {
+        String key = ManufacturerIndex.normalize(manufacturer);
+        GroupAggregate group = byManufacturer.get(key);
+        if (group != null) {
+            group.remove(price, horsepower);
+            if (group.getCount() == 0) {
+                byManufacturer.remove(key);
+            }
+        }
+        GroupAggregate fuelGroup = byFuelType.get(fuelType);
+        if (fuelGroup != null) {
+            fuelGroup.remove(price, horsepower);
+            if (fuelGroup.getCount() == 0) {
+                byFuelType.remove(fuelType);
+            }
+        }
+    }
+
+    public void clear() {
+        byManufacturer.clear();
+        byFuelType.clear();
+    }
+
+    public boolean hasStaleExtremes() {
+        for (GroupAggregate group : byManufacturer.values()) {
+            if (group.isExtremesStale()) {
+                return true;
+            }
+        }
+        for (GroupAggregate group : byFuelType.values()) {
+            if (group.isExtremesStale()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Normalized names of the manufacturer groups with stale extremes
+    public List<String> staleManufacturers() {
+        List<String> stale = new ArrayList<>();
+        byManufacturer.forEach((key, group) -> {
+            if (group.isExtremesStale()) {
+                stale.add(key);
+            }
+        });
+        return stale;
+    }
+
+    public List<FuelType> staleFuelTypes() {
+        List<FuelType> stale = new ArrayList<>();
+        byFuelType.forEach((fuelType, group) -> {
+            if (group.isExtremesStale()) {
+                stale.add(fuelType);
+            }
+        });
+        return stale;
+    }
+
+    public GroupAggregate manufacturer(String manufacturer) {
+        return byManufacturer.get(ManufacturerIndex.normalize(manufacturer));
+    }
+
+    public GroupAggregate fuelType(FuelType fuelType) {
+        return byFuelType.get(fuelType);
+    }
+
+    // Manufacturers sorted by name, fuel types in declaration order and the whole inventory
+    public InventoryStatsDTO toDTO() {
+        List<GroupStatsDTO> manufacturers = new ArrayList<>(byManufacturer.size());
+        for (GroupAggregate group : new TreeMap<>(byManufacturer).values()) {
+            manufacturers.add(group.toDTO());
+        }
+        List<GroupStatsDTO> fuelTypes = new ArrayList<>(byFuelType.size());
+        // Fuel types partition the inventory, so their groups add up to the whole of it
+        GroupAggregate all = new GroupAggregate("ALL");
+        for (GroupAggregate group : byFuelType.values()) {
+            fuelTypes.add(group.toDTO());
+            all.merge(group);
+        }
+        return new InventoryStatsDTO(manufacturers, fuelTypes, all.toDTO());
+    }
+
+    // Differences between these aggregates and expected ones, e.g. rebuilt by a full scan
+    public List<String> differences(InventoryAggregates expected) {
+        List<String> differences = new ArrayList<>();
+        compare("manufacturer", byManufacturer, expected.byManufacturer, differences);
+        compare("fuel type", byFuelType, expected.byFuelType, differences);
+        return differences;
+    }
+
+    private static <K> void compare(String kind, Map<K, GroupAggregate> actual, Map<K, GroupAggregate> expected,
+                                    List<String> differences) {
+        for (Map.Entry<K, GroupAggregate> entry : expected.entrySet()) {
+            GroupAggregate group = actual.get(entry.getKey());
+            if (group == null) {
+                differences.add("Missing " + kind + " group: " + entry.getValue().toDTO());
+            } else if (!group.hasSameTotals(entry.getValue())) {
+                differences.add("Wrong " + kind + " group: " + group.toDTO() + ", expected " + entry.getValue().toDTO());
+            }
+        }
+        for (Map.Entry<K, GroupAggregate> entry : actual.entrySet()) {
+            if (!expected.containsKey(entry.getKey())) {
+                differences.add("Unexpected " + kind + " group: " + entry.getValue().toDTO());
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package exceptions;
+
+// A car was to be stored under an ID that another car already has
+public class DuplicateCarException extends BusinessException {
+    public DuplicateCarException(String message, String operationName) {
+        super(message, operationName);
+    }
+}
@@ -0,0 +1,8 @@
+package exceptions;
+
+// The cars could not be read or written: a fault of the server, not of the request
+public class StorageException extends BusinessException {
+    public StorageException(String message, String operationName) {
+        super(message, operationName);
+    }
+}
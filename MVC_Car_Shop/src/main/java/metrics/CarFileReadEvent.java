@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.*;
+
+// Flight recorder event for loading the cars from disk
+@Name("carshop.CarFileRead")
+@Label("Car File Read")
+@Category({"Car Shop", "Storage"})
+@Description("Loading the snapshot and replaying the journal")
+@StackTrace(false)
+public class CarFileReadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Format")
+    @Description("csv, binary, or none if there was no snapshot yet")
+    public String format;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Journal Records")
+    public int journalRecords;
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+import jdk.jfr.*;
+
+// Flight recorder event for writing a snapshot or appending journal records
+@Name("carshop.CarFileWrite")
+@Label("Car File Write")
+@Category({"Car Shop", "Storage"})
+@StackTrace(false)
+public class CarFileWriteEvent extends Event {
+    @Label("Operation")
+    @Description("writeCars, compaction or appendJournal")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Rows")
+    public int rows;
+}
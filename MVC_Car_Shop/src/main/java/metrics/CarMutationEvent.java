@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.*;
+
+// Flight recorder event for a controller mutation, including the time spent persisting it
+@Name("carshop.CarMutation")
+@Label("Car Mutation")
+@Category({"Car Shop", "Mutation"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class CarMutationEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Car ID")
+    @Description("0 for batches")
+    public int carId;
+
+    @Label("Cars")
+    @Description("Number of cars in the request")
+    public int cars;
+
+    public void commit(String operation, int carId, int cars) {
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.carId = carId;
+            this.cars = cars;
+            commit();
+        }
+    }
+}
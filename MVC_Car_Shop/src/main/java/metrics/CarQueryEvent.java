@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.*;
+
+// Flight recorder event for a controller query. Only queries slower than the threshold are
+// recorded; callers build the parameters only when shouldCommit() is true.
+@Name("carshop.CarQuery")
+@Label("Car Query")
+@Category({"Car Shop", "Query"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class CarQueryEvent extends Event {
+    @Label("Query")
+    public String query;
+
+    @Label("Parameters")
+    public String parameters;
+
+    @Label("Matches")
+    public int matches;
+
+    @Label("Rows Scanned")
+    @Description("Index entries visited; 0 when the result came from the query cache")
+    public int rowsScanned;
+
+    public void commit(String query, String parameters, int matches, int rowsScanned) {
+        this.query = query;
+        this.parameters = parameters;
+        this.matches = matches;
+        this.rowsScanned = rowsScanned;
+        commit();
+    }
+}
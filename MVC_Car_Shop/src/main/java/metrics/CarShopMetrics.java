@@ -0,0 +1,143 @@
+package metrics;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+// Latency histograms per operation plus I/O counters and the inventory size,
+// shared by a CarController and its CarDAO
+public class CarShopMetrics implements CarShopMetricsMXBean {
+    public static final String DEFAULT_OBJECT_NAME = "carshop:type=CarShopMetrics";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Insertion order is kept only for a stable report
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final List<String> operationOrder = new ArrayList<>();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private volatile IntSupplier inventorySize = () -> 0;
+
+    // Histogram for the operation, created on first use; callers keep the returned instance
+    public LatencyHistogram histogram(String operation) {
+        return histogram(operation, 1);
+    }
+
+    public synchronized LatencyHistogram histogram(String operation, int sampleRate) {
+        LatencyHistogram histogram = histograms.get(operation);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(operation, sampleRate);
+            histograms.put(operation, histogram);
+            operationOrder.add(operation);
+        }
+        return histogram;
+    }
+
+    public void setInventorySize(IntSupplier inventorySize) {
+        this.inventorySize = inventorySize;
+    }
+
+    public void addRowsRead(long rows) {
+        rowsRead.add(rows);
+    }
+
+    public void addRowsWritten(long rows) {
+        rowsWritten.add(rows);
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void addBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    @Override
+    public int getInventorySize() {
+        return inventorySize.getAsInt();
+    }
+
+    @Override
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public synchronized List<OperationStats> getOperations() {
+        List<OperationStats> operations = new ArrayList<>(operationOrder.size());
+        for (String operation : operationOrder) {
+            operations.add(OperationStats.of(histograms.get(operation)));
+        }
+        return operations;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder(1024);
+        report.append(LocalDateTime.now().format(TIME_FORMAT))
+                .append(" inventory=").append(getInventorySize())
+                .append(" rowsRead=").append(getRowsRead())
+                .append(" rowsWritten=").append(getRowsWritten())
+                .append(" bytesRead=").append(getBytesRead())
+                .append(" bytesWritten=").append(getBytesWritten())
+                .append(System.lineSeparator());
+        report.append(String.format("%-32s %12s %12s %12s %12s %12s %12s%n",
+                "operation", "count", "mean(us)", "p50(us)", "p99(us)", "p999(us)", "max(us)"));
+        for (OperationStats stats : getOperations()) {
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("%-32s %12d %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+                    stats.getOperation(), stats.getCount(), stats.getMeanMicros(), stats.getP50Micros(),
+                    stats.getP99Micros(), stats.getP999Micros(), stats.getMaxMicros()));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        rowsRead.reset();
+        rowsWritten.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+    }
+
+    // Publish through the platform MBean server; returns the name it was registered under
+    public ObjectName registerMBean(String objectName) throws JMException {
+        ObjectName name = new ObjectName(objectName);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+        return name;
+    }
+}
@@ -0,0 +1,23 @@
+package metrics;
+
+import java.util.List;
+
+// Management interface of CarShopMetrics
+public interface CarShopMetricsMXBean {
+    int getInventorySize();
+
+    long getRowsRead();
+
+    long getRowsWritten();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    List<OperationStats> getOperations();
+
+    // The same text as the periodic dump
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,46 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Appends the metrics report to a file at a fixed period on a daemon thread
+public class MetricsReporter {
+    private final CarShopMetrics metrics;
+    private final Path file;
+    private final ScheduledExecutorService executor;
+
+    public MetricsReporter(CarShopMetrics metrics, Path file, long periodSeconds) {
+        if (periodSeconds < 1) {
+            throw new IllegalArgumentException("Report period must be at least one second.");
+        }
+        this.metrics = metrics;
+        this.file = file;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "car-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // Append one report now
+    public void report() {
+        try {
+            Files.writeString(file, metrics.getReport() + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // Metrics must never break the shop; the next period tries again
+            System.err.println("Failed to write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+}
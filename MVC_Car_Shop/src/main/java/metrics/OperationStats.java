@@ -0,0 +1,63 @@
+package metrics;
+
+import java.beans.ConstructorProperties;
+
+// Summary of one operation's histogram, published as composite data through JMX
+public class OperationStats {
+    private final String operation;
+    private final long count;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    @ConstructorProperties({"operation", "count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public OperationStats(String operation, long count, double meanMicros, double p50Micros, double p99Micros,
+                          double p999Micros, double maxMicros) {
+        this.operation = operation;
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    static OperationStats of(LatencyHistogram histogram) {
+        return new OperationStats(histogram.getOperation(), histogram.getCount(),
+                histogram.getMeanNanos() / 1_000.0,
+                histogram.getPercentileNanos(0.5) / 1_000.0,
+                histogram.getPercentileNanos(0.99) / 1_000.0,
+                histogram.getPercentileNanos(0.999) / 1_000.0,
+                histogram.getMaxNanos() / 1_000.0);
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+}
@@ -0,0 +1,37 @@
+package model.DTO;
+
+import java.util.List;
+
+public class BatchResultDTO {
+    private int appliedCount;
+    private List<RejectedCarDTO> rejectedCars;
+
+    public BatchResultDTO(int appliedCount, List<RejectedCarDTO> rejectedCars) {
+        this.appliedCount = appliedCount;
+        this.rejectedCars = rejectedCars;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder()
+                .append("Applied: ").append(appliedCount)
+                .append(", Rejected: ").append(rejectedCars.size());
+        for (RejectedCarDTO rejectedCar : rejectedCars) {
+            result.append('\n').append(rejectedCar);
+        }
+        return result.toString();
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public List<RejectedCarDTO> getRejectedCars() {
+        return rejectedCars;
+    }
+
+    // True if every entry of the batch was applied
+    public boolean isComplete() {
+        return rejectedCars.isEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+package model.DTO;
+
+public class CacheStatsDTO {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private int entries;
+    private long cachedCars;
+
+    public CacheStatsDTO(long hits, long misses, long evictions, long invalidations, int entries, long cachedCars) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.entries = entries;
+        this.cachedCars = cachedCars;
+    }
+
+    @Override
+    public String toString() {
+        return "Hits: " + hits +
+                ", Misses: " + misses +
+                ", Evictions: " + evictions +
+                ", Invalidations: " + invalidations +
+                ", Entries: " + entries +
+                ", Cached cars: " + cachedCars;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getCachedCars() {
+        return cachedCars;
+    }
+}
@@ -21,4 +21,20 @@ public class CarDTO {
                 ", Model: " + model +
                 ", Price (€): " + price;
     }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public long getPrice() {
+        return price;
+    }
 }
\ No newline at end of file
@@ -18,4 +18,16 @@ public class CarManufacturerDTO {
                 ", Model: " + model +
                 ", Price (€): " + price;
     }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public long getPrice() {
+        return price;
+    }
 }
\ No newline at end of file
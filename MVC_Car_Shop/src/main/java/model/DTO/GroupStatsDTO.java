@@ -0,0 +1,61 @@
+package model.DTO;
+
+import java.util.Locale;
+
+public class GroupStatsDTO {
+    private String group;
+    private int count;
+    private long totalPrice;
+    private long minPrice;
+    private long maxPrice;
+    private double averageHorsepower;
+
+    public GroupStatsDTO(String group, int count, long totalPrice, long minPrice, long maxPrice,
+                         double averageHorsepower) {
+        this.group = group;
+        this.count = count;
+        this.totalPrice = totalPrice;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.averageHorsepower = averageHorsepower;
+    }
+
+    @Override
+    public String toString() {
+        return "Group: " + group +
+                ", Cars: " + count +
+                ", Total price: " + totalPrice +
+                ", Min price: " + minPrice +
+                ", Max price: " + maxPrice +
+                ", Average horsepower: " + String.format(Locale.ROOT, "%.1f", averageHorsepower);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    // Average price, or 0 for an empty group
+    public double getAveragePrice() {
+        return count == 0 ? 0 : (double) totalPrice / count;
+    }
+
+    public long getMinPrice() {
+        return minPrice;
+    }
+
+    public long getMaxPrice() {
+        return maxPrice;
+    }
+
+    public double getAverageHorsepower() {
+        return averageHorsepower;
+    }
+}
@@ -0,0 +1,40 @@
+package model.DTO;
+
+import java.util.List;
+
+public class InventoryStatsDTO {
+    private List<GroupStatsDTO> manufacturers;
+    private List<GroupStatsDTO> fuelTypes;
+    private GroupStatsDTO total;
+
+    public InventoryStatsDTO(List<GroupStatsDTO> manufacturers, List<GroupStatsDTO> fuelTypes, GroupStatsDTO total) {
+        this.manufacturers = manufacturers;
+        this.fuelTypes = fuelTypes;
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder().append(total);
+        for (GroupStatsDTO fuelType : fuelTypes) {
+            result.append('\n').append(fuelType);
+        }
+        for (GroupStatsDTO manufacturer : manufacturers) {
+            result.append('\n').append(manufacturer);
+        }
+        return result.toString();
+    }
+
+    // One group per manufacturer, sorted by name
+    public List<GroupStatsDTO> getManufacturers() {
+        return manufacturers;
+    }
+
+    public List<GroupStatsDTO> getFuelTypes() {
+        return fuelTypes;
+    }
+
+    public GroupStatsDTO getTotal() {
+        return total;
+    }
+}
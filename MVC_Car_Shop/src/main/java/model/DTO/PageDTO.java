@@ -0,0 +1,44 @@
+package model.DTO;
+
+import java.util.List;
+
+// One page of a listing. To fetch the next page pass lastId (and lastPrice for price
+// listings) as the "after" cursor, or advance the offset by the number of items.
+public class PageDTO<T> {
+    private List<T> items;
+    private boolean hasMore;
+    private long lastId;
+    private long lastPrice;
+
+    public PageDTO(List<T> items, boolean hasMore, long lastId, long lastPrice) {
+        this.items = items;
+        this.hasMore = hasMore;
+        this.lastId = lastId;
+        this.lastPrice = lastPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "Items: " + items.size() +
+                ", More: " + hasMore +
+                ", Last ID: " + lastId;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    // ID of the last item, or the cursor that was passed in when the page is empty
+    public long getLastId() {
+        return lastId;
+    }
+
+    // Price of the last item, or the cursor that was passed in when the page is empty
+    public long getLastPrice() {
+        return lastPrice;
+    }
+}
@@ -0,0 +1,35 @@
+package model.DTO;
+
+import java.util.List;
+
+// Cars found by a query together with the plan that found them and the rows it examined
+public class QueryResultDTO {
+    private List<CarDetailDTO> cars;
+    private String plan;
+    private int rowsExamined;
+
+    public QueryResultDTO(List<CarDetailDTO> cars, String plan, int rowsExamined) {
+        this.cars = cars;
+        this.plan = plan;
+        this.rowsExamined = rowsExamined;
+    }
+
+    @Override
+    public String toString() {
+        return plan +
+                "\nRows examined: " + rowsExamined +
+                ", Rows returned: " + cars.size();
+    }
+
+    public List<CarDetailDTO> getCars() {
+        return cars;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public int getRowsExamined() {
+        return rowsExamined;
+    }
+}
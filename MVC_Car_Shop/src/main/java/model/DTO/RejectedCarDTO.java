@@ -0,0 +1,33 @@
+package model.DTO;
+
+public class RejectedCarDTO {
+    // Position of the rejected entry in the submitted batch
+    private int index;
+    private int id;
+    private String reason;
+
+    public RejectedCarDTO(int index, int id, String reason) {
+        this.index = index;
+        this.id = id;
+        this.reason = reason;
+    }
+
+    @Override
+    public String toString() {
+        return "Row " + index +
+                ", Car ID: " + id +
+                ", Reason: " + reason;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
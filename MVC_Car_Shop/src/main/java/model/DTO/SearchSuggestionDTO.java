@@ -0,0 +1,40 @@
+package model.DTO;
+
+public class SearchSuggestionDTO {
+    private String manufacturer;
+    private String model;
+    private int carCount;
+    private int distance;
+
+    public SearchSuggestionDTO(String manufacturer, String model, int carCount, int distance) {
+        this.manufacturer = manufacturer;
+        this.model = model;
+        this.carCount = carCount;
+        this.distance = distance;
+    }
+
+    @Override
+    public String toString() {
+        return "Manufacturer: " + manufacturer +
+                ", Model: " + model +
+                ", Cars: " + carCount +
+                (distance == 0 ? "" : ", Typos: " + distance);
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public int getCarCount() {
+        return carCount;
+    }
+
+    // Edits needed to turn the search words into prefixes of the names; 0 for an exact prefix match
+    public int getDistance() {
+        return distance;
+    }
+}
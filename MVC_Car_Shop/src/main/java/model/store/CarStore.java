@@ -0,0 +1,84 @@
+package model.store;
+
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+
+// Row storage behind CarController. A row is a position chosen by the store; rows below
+// rowLimit() that are not live are free slots. Removing a row may move another row into it.
+public interface CarStore extends AutoCloseable {
+    // Returned by remove() when no row moved
+    int NO_ROW = -1;
+
+    // Store the car in a free row; returns the row
+    int add(Car car);
+
+    // Overwrite the row with the car's fields
+    void set(int row, Car car);
+
+    // Remove the row; returns the former position of the row that moved into it, or NO_ROW
+    int remove(int row);
+
+    // Append every row of a loaded snapshot
+    void addAll(ColumnarCarStore other);
+
+    void clear();
+
+    // Number of live rows
+    int size();
+
+    // Exclusive upper bound of the live rows
+    int rowLimit();
+
+    boolean isLive(int row);
+
+    int id(int row);
+
+    long price(int row);
+
+    int horsepower(int row);
+
+    long productionDate(int row);
+
+    FuelType fuelType(int row);
+
+    String manufacturer(int row);
+
+    String model(int row);
+
+    Car toCar(int row);
+
+    CarDTO toCarDTO(int row);
+
+    CarDetailDTO toCarDetailDTO(int row);
+
+    CarManufacturerDTO toCarManufacturerDTO(int row);
+
+    // Whether the store finds rows by car ID itself, so its user needs no index of its own
+    default boolean indexesIds() {
+        return false;
+    }
+
+    // Row of the car with the given ID, or NO_ROW; only for stores that index IDs
+    default int rowOf(int carId) {
+        throw new UnsupportedOperationException("The store does not index car IDs.");
+    }
+
+    // Independent heap copy of the live rows, e.g. for writing a snapshot on another thread
+    ColumnarCarStore copy();
+
+    // Whether changes are durable without a DAO writing them
+    default boolean isPersistent() {
+        return false;
+    }
+
+    // Push written rows to the storage device
+    default void flush() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,285 @@
+package model.store;
+
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+
+import java.sql.Timestamp;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Struct-of-arrays storage for cars. Every Car field lives in its own primitive
+// column indexed by row: ids, prices and horsepower as ints/longs, production
+// dates as epoch millis, fuel types as enum ordinals and manufacturer/model as
+// dictionary codes. Car objects and DTOs are only built on demand at the edges.
+// Rows are dense; removing a row moves the last row into the gap.
+public class ColumnarCarStore implements CarStore {
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    private int[] ids;
+    private long[] prices;
+    private int[] horsepower;
+    // Epoch millis rather than epoch days: a Car's Timestamp may carry a time of day
+    private long[] productionDates;
+    private byte[] fuelTypes;
+    private int[] manufacturerCodes;
+    private int[] modelCodes;
+    private int size;
+
+    private final StringDictionary manufacturers;
+    private final StringDictionary models;
+
+    public ColumnarCarStore() {
+        this(16);
+    }
+
+    public ColumnarCarStore(int initialCapacity) {
+        this(initialCapacity, new StringDictionary(), new StringDictionary());
+    }
+
+    private ColumnarCarStore(int initialCapacity, StringDictionary manufacturers, StringDictionary models) {
+        int capacity = Math.max(initialCapacity, 4);
+        ids = new int[capacity];
+        prices = new long[capacity];
+        horsepower = new int[capacity];
+        productionDates = new long[capacity];
+        fuelTypes = new byte[capacity];
+        manufacturerCodes = new int[capacity];
+        modelCodes = new int[capacity];
+        this.manufacturers = manufacturers;
+        this.models = models;
+    }
+
+    // Append a row; returns its position
+    public int add(int id, String manufacturer, String model, long price, long productionDate,
+                   FuelType fuelType, int horsepower) {
+        if (size == ids.length) {
+            grow();
+        }
+        write(size, id, manufacturer, model, price, productionDate, fuelType, horsepower);
+        return size++;
+    }
+
+    public int add(Car car) {
+        return add(car.getId(), car.getManufacturer(), car.getModel(), car.getPrice(),
+                car.getProductionDate().getTime(), car.getFuelType(), car.getHorsepower());
+    }
+
+    // Overwrite the row with the car's fields
+    public void set(int row, Car car) {
+        checkRow(row);
+        write(row, car.getId(), car.getManufacturer(), car.getModel(), car.getPrice(),
+                car.getProductionDate().getTime(), car.getFuelType(), car.getHorsepower());
+    }
+
+    // Remove the row by moving the last row into its place; returns the last row's old position
+    public int remove(int row) {
+        checkRow(row);
+        int last = --size;
+        if (row == last) {
+            return NO_ROW;
+        }
+        ids[row] = ids[last];
+        prices[row] = prices[last];
+        horsepower[row] = horsepower[last];
+        productionDates[row] = productionDates[last];
+        fuelTypes[row] = fuelTypes[last];
+        manufacturerCodes[row] = manufacturerCodes[last];
+        modelCodes[row] = modelCodes[last];
+        return last;
+    }
+
+    // Append every row of another store, translating its dictionary codes
+    public void addAll(ColumnarCarStore other) {
+        int[] manufacturerMapping = new int[other.manufacturers.size()];
+        for (int code = 0; code < manufacturerMapping.length; code++) {
+            manufacturerMapping[code] = manufacturers.encode(other.manufacturers.decode(code));
+        }
+        int[] modelMapping = new int[other.models.size()];
+        for (int code = 0; code < modelMapping.length; code++) {
+            modelMapping[code] = models.encode(other.models.decode(code));
+        }
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.ids, 0, ids, size, other.size);
+        System.arraycopy(other.prices, 0, prices, size, other.size);
+        System.arraycopy(other.horsepower, 0, horsepower, size, other.size);
+        System.arraycopy(other.productionDates, 0, productionDates, size, other.size);
+        System.arraycopy(other.fuelTypes, 0, fuelTypes, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            manufacturerCodes[size + i] = manufacturerMapping[other.manufacturerCodes[i]];
+            modelCodes[size + i] = modelMapping[other.modelCodes[i]];
+        }
+        size += other.size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Rows are dense
+    public int rowLimit() {
+        return size;
+    }
+
+    public boolean isLive(int row) {
+        return row >= 0 && row < size;
+    }
+
+    public int id(int row) {
+        return ids[row];
+    }
+
+    public long price(int row) {
+        return prices[row];
+    }
+
+    public int horsepower(int row) {
+        return horsepower[row];
+    }
+
+    public long productionDate(int row) {
+        return productionDates[row];
+    }
+
+    public FuelType fuelType(int row) {
+        return FUEL_TYPES[fuelTypes[row]];
+    }
+
+    public String manufacturer(int row) {
+        return manufacturers.decode(manufacturerCodes[row]);
+    }
+
+    public String model(int row) {
+        return models.decode(modelCodes[row]);
+    }
+
+    public int manufacturerCode(int row) {
+        return manufacturerCodes[row];
+    }
+
+    public int modelCode(int row) {
+        return modelCodes[row];
+    }
+
+    public StringDictionary getManufacturers() {
+        return manufacturers;
+    }
+
+    public StringDictionary getModels() {
+        return models;
+    }
+
+    // Append a row whose manufacturer and model are already codes of this store's dictionaries
+    public int addEncoded(int id, int manufacturerCode, int modelCode, long price, long productionDate,
+                          int fuelTypeOrdinal, int horsepower) {
+        if (manufacturerCode < 0 || manufacturerCode >= manufacturers.size()
+                || modelCode < 0 || modelCode >= models.size()) {
+            throw new IllegalArgumentException("Unknown dictionary code in row " + size + ".");
+        }
+        if (fuelTypeOrdinal < 0 || fuelTypeOrdinal >= FUEL_TYPES.length) {
+            throw new IllegalArgumentException("Unknown fuel type ordinal " + fuelTypeOrdinal + ".");
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        prices[size] = price;
+        this.horsepower[size] = horsepower;
+        productionDates[size] = productionDate;
+        fuelTypes[size] = (byte) fuelTypeOrdinal;
+        manufacturerCodes[size] = manufacturerCode;
+        modelCodes[size] = modelCode;
+        return size++;
+    }
+
+    public Car toCar(int row) {
+        return new Car(ids[row], manufacturer(row), model(row), prices[row],
+                new Timestamp(productionDates[row]), fuelType(row), horsepower[row]);
+    }
+
+    public CarDTO toCarDTO(int row) {
+        return new CarDTO(ids[row], manufacturer(row), model(row), prices[row]);
+    }
+
+    public CarDetailDTO toCarDetailDTO(int row) {
+        return new CarDetailDTO(ids[row], manufacturer(row), model(row), prices[row],
+                new Timestamp(productionDates[row]), fuelType(row), horsepower[row]);
+    }
+
+    public CarManufacturerDTO toCarManufacturerDTO(int row) {
+        return new CarManufacturerDTO(ids[row], model(row), prices[row]);
+    }
+
+    // Read-only view that builds a Car for each row as it is accessed
+    public List<Car> asCarList() {
+        return new AbstractList<>() {
+            @Override
+            public Car get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+                }
+                return toCar(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Independent copy of the rows, e.g. for writing a snapshot on another thread
+    public ColumnarCarStore copy() {
+        ColumnarCarStore copy = new ColumnarCarStore(size, manufacturers.copy(), models.copy());
+        System.arraycopy(ids, 0, copy.ids, 0, size);
+        System.arraycopy(prices, 0, copy.prices, 0, size);
+        System.arraycopy(horsepower, 0, copy.horsepower, 0, size);
+        System.arraycopy(productionDates, 0, copy.productionDates, 0, size);
+        System.arraycopy(fuelTypes, 0, copy.fuelTypes, 0, size);
+        System.arraycopy(manufacturerCodes, 0, copy.manufacturerCodes, 0, size);
+        System.arraycopy(modelCodes, 0, copy.modelCodes, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    private void write(int row, int id, String manufacturer, String model, long price, long productionDate,
+                       FuelType fuelType, int horsepower) {
+        ids[row] = id;
+        prices[row] = price;
+        this.horsepower[row] = horsepower;
+        productionDates[row] = productionDate;
+        fuelTypes[row] = (byte) fuelType.ordinal();
+        manufacturerCodes[row] = manufacturers.encode(manufacturer);
+        modelCodes[row] = models.encode(model);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    private void grow() {
+        ensureCapacity(ids.length + (ids.length >> 1) + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        horsepower = Arrays.copyOf(horsepower, capacity);
+        productionDates = Arrays.copyOf(productionDates, capacity);
+        fuelTypes = Arrays.copyOf(fuelTypes, capacity);
+        manufacturerCodes = Arrays.copyOf(manufacturerCodes, capacity);
+        modelCodes = Arrays.copyOf(modelCodes, capacity);
+    }
+}
@@ -0,0 +1,469 @@
+package model.store;
+
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+
+// Off-heap car storage: every car is a fixed-width record in a memory-mapped file, so the
+// inventory lives in the page cache rather than on the heap and survives a restart.
+//
+// <file>          4 KB header, then 40-byte records; a row is a record slot
+// <file>.strings  append-only log of manufacturer and model names, in dictionary code order
+// <file>.index    open-addressing hash table from car ID to slot, rebuilt on open
+//
+// Deleted slots are chained into a free list through their records and reused by add(), so rows
+// never move. Writes go straight to the mapping: they survive a crash of the process once made,
+// and flush() forces them to the device. Only the name dictionaries are kept on the heap.
+public class MappedCarStore implements CarStore {
+    // Records per mapped segment of the record file by default (160 MB)
+    public static final int DEFAULT_SEGMENT_SHIFT = 22;
+
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    private static final int MAGIC = 0x4D434152;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4096;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_RECORD_SIZE = 8;
+    private static final int HEADER_ROW_LIMIT = 16;
+    private static final int HEADER_SIZE_FIELD = 24;
+    // Slot + 1 of the first free record, 0 when the free list is empty
+    private static final int HEADER_FREE_HEAD = 32;
+
+    // Record layout; a free record keeps the next free slot + 1 in the ID field
+    private static final int RECORD_SIZE = 40;
+    private static final int ID = 0;
+    private static final int MANUFACTURER = 4;
+    private static final int MODEL = 8;
+    private static final int HORSEPOWER = 12;
+    private static final int PRICE = 16;
+    private static final int PRODUCTION_DATE = 24;
+    private static final int STATE = 32;
+    private static final int FUEL_TYPE = 33;
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+
+    // Index entries: car ID and slot + 1, where 0 marks an empty entry
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int INDEX_KEY = 0;
+    private static final int INDEX_VALUE = 4;
+    private static final int INDEX_SEGMENT_SHIFT = 24;
+    private static final int MIN_INDEX_CAPACITY = 1 << 10;
+
+    // Tags of the string log records
+    private static final byte MANUFACTURER_NAME = 0;
+    private static final byte MODEL_NAME = 1;
+
+    private final Path indexPath;
+    private final FileChannel recordChannel;
+    private final MappedByteBuffer header;
+    private final MappedRegion records;
+    private final DataOutputStream stringLog;
+    private final StringDictionary manufacturers = new StringDictionary();
+    private final StringDictionary models = new StringDictionary();
+
+    private FileChannel indexChannel;
+    private MappedRegion index;
+    private long indexMask;
+    private int rowLimit;
+    private int size;
+    private int freeHead;
+
+    private MappedCarStore(Path file, int segmentShift) throws IOException {
+        this.indexPath = Path.of(file + ".index");
+        this.recordChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = recordChannel.size() == 0;
+        this.header = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (created) {
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+            header.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+        } else if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != VERSION
+                || header.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE) {
+            recordChannel.close();
+            throw new IOException("Invalid car store " + file + ": unknown header.");
+        }
+        this.rowLimit = (int) header.getLong(HEADER_ROW_LIMIT);
+        this.size = (int) header.getLong(HEADER_SIZE_FIELD);
+        this.freeHead = (int) header.getLong(HEADER_FREE_HEAD);
+        this.records = new MappedRegion(recordChannel, HEADER_SIZE, RECORD_SIZE, segmentShift);
+        records.ensureCapacity(Math.max(rowLimit, 1));
+
+        Path stringsPath = Path.of(file + ".strings");
+        if (Files.exists(stringsPath)) {
+            readStrings(stringsPath);
+        }
+        this.stringLog = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(stringsPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        rebuildIndex(size);
+    }
+
+    // Open the store in the file, creating it if it does not exist
+    public static MappedCarStore open(Path file) throws IOException {
+        return open(file, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    public static MappedCarStore open(Path file, int segmentShift) throws IOException {
+        if (segmentShift < 1 || segmentShift > 24) {
+            throw new IllegalArgumentException("Segment shift must be between 1 and 24.");
+        }
+        return new MappedCarStore(file, segmentShift);
+    }
+
+    @Override
+    public int add(Car car) {
+        if (rowOf(car.getId()) != NO_ROW) {
+            throw new IllegalArgumentException("A car with ID " + car.getId() + " is already stored.");
+        }
+        int row;
+        if (freeHead != 0) {
+            row = freeHead - 1;
+            freeHead = records.getInt(row, ID);
+        } else {
+            if (rowLimit == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Car store is full.");
+            }
+            row = rowLimit;
+            ensureRecords(row + 1L);
+            rowLimit++;
+        }
+        write(row, car);
+        records.putByte(row, STATE, LIVE);
+        size++;
+        indexPut(car.getId(), row);
+        writeHeader();
+        return row;
+    }
+
+    @Override
+    public void set(int row, Car car) {
+        checkRow(row);
+        int oldId = records.getInt(row, ID);
+        if (oldId != car.getId() && rowOf(car.getId()) != NO_ROW) {
+            throw new IllegalArgumentException("A car with ID " + car.getId() + " is already stored.");
+        }
+        write(row, car);
+        if (oldId != car.getId()) {
+            // The number of cars is unchanged, so the index needs no room
+            indexRemove(oldId);
+            insertEntry(car.getId(), row);
+        }
+    }
+
+    // Free the slot; rows never move, so this always returns NO_ROW
+    @Override
+    public int remove(int row) {
+        checkRow(row);
+        indexRemove(records.getInt(row, ID));
+        records.putByte(row, STATE, FREE);
+        records.putInt(row, ID, freeHead);
+        freeHead = row + 1;
+        size--;
+        writeHeader();
+        return NO_ROW;
+    }
+
+    @Override
+    public void addAll(ColumnarCarStore other) {
+        ensureRecords((long) rowLimit + other.size());
+        for (int row = 0; row < other.size(); row++) {
+            add(other.toCar(row));
+        }
+    }
+
+    // Drop every car; the file keeps its size and the slots are reused
+    @Override
+    public void clear() {
+        rowLimit = 0;
+        size = 0;
+        freeHead = 0;
+        writeHeader();
+        rebuildIndex(0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int rowLimit() {
+        return rowLimit;
+    }
+
+    @Override
+    public boolean isLive(int row) {
+        return row >= 0 && row < rowLimit && records.getByte(row, STATE) == LIVE;
+    }
+
+    @Override
+    public boolean indexesIds() {
+        return true;
+    }
+
+    @Override
+    public int rowOf(int carId) {
+        long entry = mix(carId) & indexMask;
+        while (true) {
+            int slot = index.getInt(entry, INDEX_VALUE);
+            if (slot == 0) {
+                return NO_ROW;
+            }
+            if (index.getInt(entry, INDEX_KEY) == carId) {
+                return slot - 1;
+            }
+            entry = (entry + 1) & indexMask;
+        }
+    }
+
+    @Override
+    public int id(int row) {
+        return records.getInt(row, ID);
+    }
+
+    @Override
+    public long price(int row) {
+        return records.getLong(row, PRICE);
+    }
+
+    @Override
+    public int horsepower(int row) {
+        return records.getInt(row, HORSEPOWER);
+    }
+
+    @Override
+    public long productionDate(int row) {
+        return records.getLong(row, PRODUCTION_DATE);
+    }
+
+    @Override
+    public FuelType fuelType(int row) {
+        return FUEL_TYPES[records.getByte(row, FUEL_TYPE)];
+    }
+
+    @Override
+    public String manufacturer(int row) {
+        return manufacturers.decode(records.getInt(row, MANUFACTURER));
+    }
+
+    @Override
+    public String model(int row) {
+        return models.decode(records.getInt(row, MODEL));
+    }
+
+    @Override
+    public Car toCar(int row) {
+        return new Car(id(row), manufacturer(row), model(row), price(row),
+                new Timestamp(productionDate(row)), fuelType(row), horsepower(row));
+    }
+
+    @Override
+    public CarDTO toCarDTO(int row) {
+        return new CarDTO(id(row), manufacturer(row), model(row), price(row));
+    }
+
+    @Override
+    public CarDetailDTO toCarDetailDTO(int row) {
+        return new CarDetailDTO(id(row), manufacturer(row), model(row), price(row),
+                new Timestamp(productionDate(row)), fuelType(row), horsepower(row));
+    }
+
+    @Override
+    public CarManufacturerDTO toCarManufacturerDTO(int row) {
+        return new CarManufacturerDTO(id(row), model(row), price(row));
+    }
+
+    @Override
+    public ColumnarCarStore copy() {
+        ColumnarCarStore copy = new ColumnarCarStore(size);
+        for (int row = 0; row < rowLimit; row++) {
+            if (isLive(row)) {
+                copy.add(id(row), manufacturer(row), model(row), price(row), productionDate(row),
+                        fuelType(row), horsepower(row));
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public void flush() {
+        records.force();
+        header.force();
+    }
+
+    // Flush and release the files. Mappings are unmapped by the garbage collector.
+    @Override
+    public void close() {
+        flush();
+        try {
+            stringLog.close();
+            recordChannel.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(int row, Car car) {
+        records.putInt(row, ID, car.getId());
+        records.putInt(row, MANUFACTURER, encode(manufacturers, MANUFACTURER_NAME, car.getManufacturer()));
+        records.putInt(row, MODEL, encode(models, MODEL_NAME, car.getModel()));
+        records.putInt(row, HORSEPOWER, car.getHorsepower());
+        records.putLong(row, PRICE, car.getPrice());
+        records.putLong(row, PRODUCTION_DATE, car.getProductionDate().getTime());
+        records.putByte(row, FUEL_TYPE, (byte) car.getFuelType().ordinal());
+    }
+
+    // A new name is logged before any record refers to its code
+    private int encode(StringDictionary dictionary, byte tag, String value) {
+        int code = dictionary.codeOf(value);
+        if (code >= 0) {
+            return code;
+        }
+        try {
+            stringLog.writeByte(tag);
+            stringLog.writeUTF(value);
+            stringLog.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dictionary.encode(value);
+    }
+
+    private void readStrings(Path stringsPath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stringsPath)))) {
+            while (true) {
+                byte tag;
+                try {
+                    tag = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                (tag == MANUFACTURER_NAME ? manufacturers : models).encode(in.readUTF());
+            }
+        }
+    }
+
+    private void writeHeader() {
+        header.putLong(HEADER_ROW_LIMIT, rowLimit);
+        header.putLong(HEADER_SIZE_FIELD, size);
+        header.putLong(HEADER_FREE_HEAD, freeHead);
+    }
+
+    private void ensureRecords(long records) {
+        try {
+            this.records.ensureCapacity(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (!isLive(row)) {
+            throw new IndexOutOfBoundsException("Row " + row + " is not a stored car.");
+        }
+    }
+
+    // Recreate the index with room for the given number of cars and fill it from the records
+    private void rebuildIndex(int expectedCars) {
+        long capacity = MIN_INDEX_CAPACITY;
+        while (capacity < expectedCars * 2L) {
+            capacity <<= 1;
+        }
+        try {
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            // A fresh file maps as zeros, i.e. every entry empty
+            Files.deleteIfExists(indexPath);
+            indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = new MappedRegion(indexChannel, 0, INDEX_ENTRY_SIZE,
+                    Math.min(INDEX_SEGMENT_SHIFT, Long.numberOfTrailingZeros(capacity)));
+            index.ensureCapacity(capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indexMask = capacity - 1;
+        for (int row = 0; row < rowLimit; row++) {
+            if (isLive(row)) {
+                insertEntry(records.getInt(row, ID), row);
+            }
+        }
+    }
+
+    private void indexPut(int carId, int row) {
+        if ((size + 1L) * 2 > indexMask + 1) {
+            // The record for this car is already written, so the rebuild picks it up
+            rebuildIndex(size + 1);
+            return;
+        }
+        insertEntry(carId, row);
+    }
+
+    private void insertEntry(int carId, int row) {
+        long entry = mix(carId) & indexMask;
+        while (index.getInt(entry, INDEX_VALUE) != 0 && index.getInt(entry, INDEX_KEY) != carId) {
+            entry = (entry + 1) & indexMask;
+        }
+        index.putInt(entry, INDEX_KEY, carId);
+        index.putInt(entry, INDEX_VALUE, row + 1);
+    }
+
+    // Backward-shift deletion, as in IntIntHashMap, so probe chains need no tombstones
+    private void indexRemove(int carId) {
+        long gap = mix(carId) & indexMask;
+        while (true) {
+            if (index.getInt(gap, INDEX_VALUE) == 0) {
+                return;
+            }
+            if (index.getInt(gap, INDEX_KEY) == carId) {
+                break;
+            }
+            gap = (gap + 1) & indexMask;
+        }
+        long entry = gap;
+        while (true) {
+            entry = (entry + 1) & indexMask;
+            int value = index.getInt(entry, INDEX_VALUE);
+            if (value == 0) {
+                index.putInt(gap, INDEX_VALUE, 0);
+                return;
+            }
+            int key = index.getInt(entry, INDEX_KEY);
+            long home = mix(key) & indexMask;
+            boolean movable = gap <= entry ? (home <= gap || home > entry) : (home <= gap && home > entry);
+            if (movable) {
+                index.putInt(gap, INDEX_KEY, key);
+                index.putInt(gap, INDEX_VALUE, value);
+                gap = entry;
+            }
+        }
+    }
+
+    private static long mix(int key) {
+        int h = key * 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return (h ^ (h >>> 16)) & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,82 @@
+package model.store;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// Fixed-width records of one file, mapped read-write in segments of 2^segmentShift records
+// starting at a base offset, so the region can grow past the 2 GB limit of one mapping.
+// Records never straddle a segment. Addressing by record keeps the hot path to a shift and a mask.
+class MappedRegion {
+    private final FileChannel channel;
+    private final long baseOffset;
+    private final int recordSize;
+    private final int segmentShift;
+    private final long segmentMask;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    MappedRegion(FileChannel channel, long baseOffset, int recordSize, int segmentShift) {
+        this.channel = channel;
+        this.baseOffset = baseOffset;
+        this.recordSize = recordSize;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+    }
+
+    // Number of records the mapped segments can hold
+    long capacity() {
+        return (long) segments.length << segmentShift;
+    }
+
+    // Map further segments, extending the file, until the region holds the given number of records
+    void ensureCapacity(long records) throws IOException {
+        if (records <= capacity()) {
+            return;
+        }
+        int needed = (int) ((records + segmentMask) >>> segmentShift);
+        long segmentBytes = (long) recordSize << segmentShift;
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, needed);
+        for (int segment = segments.length; segment < needed; segment++) {
+            grown[segment] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    baseOffset + segment * segmentBytes, segmentBytes);
+            grown[segment].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        segments = grown;
+    }
+
+    int getInt(long record, int field) {
+        return segments[(int) (record >>> segmentShift)].getInt(offset(record, field));
+    }
+
+    void putInt(long record, int field, int value) {
+        segments[(int) (record >>> segmentShift)].putInt(offset(record, field), value);
+    }
+
+    long getLong(long record, int field) {
+        return segments[(int) (record >>> segmentShift)].getLong(offset(record, field));
+    }
+
+    void putLong(long record, int field, long value) {
+        segments[(int) (record >>> segmentShift)].putLong(offset(record, field), value);
+    }
+
+    byte getByte(long record, int field) {
+        return segments[(int) (record >>> segmentShift)].get(offset(record, field));
+    }
+
+    void putByte(long record, int field, byte value) {
+        segments[(int) (record >>> segmentShift)].put(offset(record, field), value);
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    private int offset(long record, int field) {
+        return (int) (record & segmentMask) * recordSize + field;
+    }
+}
@@ -0,0 +1,49 @@
+package model.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Assigns a dense int code to every distinct string so columns can store codes instead of references.
+// Codes are never reused; a name that is no longer referenced keeps its code.
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    // Code of the string, adding it to the dictionary if necessary
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    // Code of the string, or -1 if it has never been encoded
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public StringDictionary copy() {
+        StringDictionary copy = new StringDictionary();
+        copy.codes.putAll(codes);
+        copy.values = Arrays.copyOf(values, values.length);
+        copy.size = size;
+        return copy;
+    }
+}
@@ -2,12 +2,15 @@ package view;
 
 import exceptions.BusinessException;
 import controller.CarController;
-import model.DTO.CarDTO;
 import model.DTO.CarDetailDTO;
-import model.DTO.CarManufacturerDTO;
+import model.DTO.SearchSuggestionDTO;
 import model.entity.Car;
 import model.entity.FuelType;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -42,7 +45,8 @@ public class CarShopView {
         System.out.println("5. Get cars from a given manufacturer");
         System.out.println("6. Get cars with price lower than a given value");
         System.out.println("7. Get all cars");
-        System.out.println("8. Exit");
+        System.out.println("8. Search cars by manufacturer or model");
+        System.out.println("9. Exit");
     }
 
     public void handleUserInput() throws BusinessException {
@@ -85,11 +89,14 @@ public class CarShopView {
                             carController.getAllCars();
                             break;
                         case 8:
+                            searchCars();
+                            break;
+                        case 9:
                             System.out.println("Exiting...");
                             exitLoop = true;
                             break;
                         default:
-                            System.out.println("Invalid choice. Please enter a number between 1 and 8.");
+                            System.out.println("Invalid choice. Please enter a number between 1 and 9.");
                     }
                 } catch (BusinessException e) {
                     System.out.println(e.getMessage());
@@ -112,7 +119,7 @@ public class CarShopView {
         }
 
         // Check if car with specified ID already exists
-        if (carController.getCarDetailsById(vehicleId) != null) {
+        if (carController.containsCar(vehicleId)) {
             throw new BusinessException("A car with ID " + vehicleId + " already exists. Please choose another index.", "addCar");
         }
 
@@ -226,7 +233,7 @@ public class CarShopView {
                             return;
                         }
 
-                        if (carController.getCarDetailsById(newId) != null) {
+                        if (carController.containsCar(newId)) {
                             throw new BusinessException("A car with ID " + newId + " already exists. Please choose another ID.", "updateCar");
                         }
 
@@ -318,10 +325,7 @@ public class CarShopView {
             throw new BusinessException("Car ID must be a valid int value.", "deleteCar");
         }
 
-        // Retrieve car details by ID
-        CarDetailDTO carToDelete = carController.getCarDetailsById(carIdToDelete);
-
-        if (carToDelete != null) {
+        if (carController.containsCar(carIdToDelete)) {
             // Delete the car if found
             carController.deleteCarByID(carIdToDelete);
             System.out.println("Car with ID " + carIdToDelete + " deleted successfully.");
@@ -363,17 +367,38 @@ public class CarShopView {
         String manufacturer = scanner.nextLine();
         String errorMessage;
 
-        // Retrieve cars by manufacturer
-        List<CarManufacturerDTO> carsByManufacturer = carController.getCarsByManufacturerLogic(manufacturer);
-
-        if (!carsByManufacturer.isEmpty()) {
-            // Display cars if found
-            for (CarManufacturerDTO car : carsByManufacturer) {
-                System.out.println(car.toString());
+        // Stream the cars by manufacturer to the console
+        Writer out = consoleWriter();
+        try {
+            if (carController.writeCarsByManufacturer(manufacturer, out) == 0) {
+                errorMessage = "No cars found for manufacturer " + manufacturer;
+                out.write(errorMessage + System.lineSeparator());
+                // Offer the closest manufacturers, e.g. for a typo
+                Set<String> suggestions = new LinkedHashSet<>();
+                for (SearchSuggestionDTO suggestion : carController.searchCarsLogic(manufacturer, 20)) {
+                    suggestions.add(suggestion.getManufacturer());
+                }
+                if (!suggestions.isEmpty()) {
+                    out.write("Did you mean: " + String.join(", ", suggestions) + "?" + System.lineSeparator());
+                }
             }
-        } else {
-            errorMessage = "No cars found for manufacturer " + manufacturer;
-            System.out.println(errorMessage);
+            out.flush();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Autocomplete and typo-tolerant search over manufacturers and models
+    public void searchCars() {
+        System.out.println("Enter search text: ");
+        String text = scanner.nextLine();
+
+        List<SearchSuggestionDTO> suggestions = carController.searchCarsLogic(text, 10);
+        if (suggestions.isEmpty()) {
+            System.out.println("No manufacturer or model matches " + text);
+        }
+        for (SearchSuggestionDTO suggestion : suggestions) {
+            System.out.println(suggestion);
         }
     }
 
@@ -388,17 +413,21 @@ public class CarShopView {
             throw new BusinessException("Price must be a valid long value.", "getCarsWithPriceLowerThan");
         }
 
-        // Retrieve cars with price lower than the given value
-        List<CarDTO> carsWithPriceLowerThan = carController.getCarsWithPriceLowerThanLogic(maxPrice);
-
-        if (!carsWithPriceLowerThan.isEmpty()) {
-            // Display cars if found
-            for (CarDTO car : carsWithPriceLowerThan) {
-                System.out.println(car.toString());
+        // Stream the cars with price lower than the given value to the console
+        Writer out = consoleWriter();
+        try {
+            if (carController.writeCarsWithPriceLowerThan(maxPrice, out) == 0) {
+                errorMessage = "No cars found with price lower than " + maxPrice;
+                out.write(errorMessage + System.lineSeparator());
             }
-        } else {
-            errorMessage = "No cars found with price lower than " + maxPrice;
-            System.out.println(errorMessage);
+            out.flush();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
         }
     }
+
+    // Buffered console output, flushed once per listing instead of once per line
+    private static Writer consoleWriter() {
+        return new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package view.binary;
+
+import exceptions.BusinessException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+// Length-prefixed binary protocol of the car shop, big-endian throughout. Every frame starts with
+// the number of bytes that follow as an int.
+//   request:  length, byte opcode, int requestId, arguments
+//   response: length, int requestId, byte status, result
+// A client may send any number of requests without waiting; the responses come back in the
+// order of the requests and carry their IDs. Strings are an unsigned short byte count and UTF-8;
+// dates are epoch milliseconds. The arguments and results of each opcode:
+//   GET_CAR            int id                                      -> car
+//   ADD_CAR            car                                         -> nothing, CONFLICT if the ID is taken
+//   UPDATE_CAR         int oldId, car                              -> nothing, NOT_FOUND or CONFLICT
+//   DELETE_CAR         int id                                      -> nothing, NOT_FOUND
+//   ALL_CARS_PAGE      long afterId, int limit                     -> page of (id, manufacturer, model, price)
+//   MANUFACTURER_PAGE  string manufacturer, long afterId, int limit -> page of (id, model, price)
+//   PRICE_PAGE         long price, long afterPrice, long afterId, int limit
+//                                                                  -> page of (id, manufacturer, model, price)
+// A car is int id, string manufacturer, string model, long price, long productionDate, byte
+// fuelType ordinal, int horsepower. A page is byte hasMore, long lastId, long lastPrice, int
+// count and the items. Failed requests answer with a status other than OK and a string message.
+public class BinaryProtocol {
+    public static final byte GET_CAR = 1;
+    public static final byte ADD_CAR = 2;
+    public static final byte UPDATE_CAR = 3;
+    public static final byte DELETE_CAR = 4;
+    public static final byte ALL_CARS_PAGE = 5;
+    public static final byte MANUFACTURER_PAGE = 6;
+    public static final byte PRICE_PAGE = 7;
+
+    public static final byte OK = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte CONFLICT = 2;
+    public static final byte BAD_REQUEST = 3;
+    public static final byte ERROR = 4;
+
+    // Largest request frame, length prefix included; responses are not limited
+    public static final int MAX_REQUEST_BYTES = 1 << 16;
+    // Most items in one page
+    public static final int MAX_PAGE_SIZE = 4096;
+
+    private static final String OPERATION = "readFrame";
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    public static void putCar(FrameWriter out, CarDetailDTO car) {
+        out.putInt(car.getId());
+        out.putString(car.getManufacturer());
+        out.putString(car.getModel());
+        out.putLong(car.getPrice());
+        out.putLong(car.getProductionDate().getTime());
+        out.putByte(car.getFuelType().ordinal());
+        out.putInt(car.getHorsepower());
+    }
+
+    public static void putCar(FrameWriter out, CarDTO car) {
+        out.putInt(car.getId());
+        out.putString(car.getManufacturer());
+        out.putString(car.getModel());
+        out.putLong(car.getPrice());
+    }
+
+    public static void putCar(FrameWriter out, CarManufacturerDTO car) {
+        out.putInt(car.getId());
+        out.putString(car.getModel());
+        out.putLong(car.getPrice());
+    }
+
+    // A car sent to the server, checked like the console and HTTP input: names without commas or
+    // line breaks, which would corrupt cars.csv, and no negative numbers
+    public static Car getCar(ByteBuffer in) throws BusinessException {
+        int id = in.getInt();
+        String manufacturer = getName(in, "manufacturer");
+        String model = getName(in, "model");
+        long price = in.getLong();
+        long productionDate = in.getLong();
+        int fuelType = in.get();
+        int horsepower = in.getInt();
+        if (id < 1) {
+            throw new BusinessException("id must be positive.", OPERATION);
+        }
+        if (price < 0) {
+            throw new BusinessException("price must not be negative.", OPERATION);
+        }
+        if (fuelType < 0 || fuelType >= FUEL_TYPES.length) {
+            throw new BusinessException("fuelType " + fuelType + " is not a known fuel type.", OPERATION);
+        }
+        if (horsepower < 0) {
+            throw new BusinessException("horsepower must not be negative.", OPERATION);
+        }
+        return new Car(id, manufacturer, model, price, new Timestamp(productionDate), FUEL_TYPES[fuelType],
+                horsepower);
+    }
+
+    public static CarDetailDTO getCarDetail(ByteBuffer in) {
+        return new CarDetailDTO(in.getInt(), getString(in), getString(in), in.getLong(), new Timestamp(in.getLong()),
+                FUEL_TYPES[in.get()], in.getInt());
+    }
+
+    public static CarDTO getCarSummary(ByteBuffer in) {
+        return new CarDTO(in.getInt(), getString(in), getString(in), in.getLong());
+    }
+
+    public static CarManufacturerDTO getManufacturerCar(ByteBuffer in) {
+        return new CarManufacturerDTO(in.getInt(), getString(in), in.getLong());
+    }
+
+    public static String getString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // A page limit from a request
+    public static int getLimit(ByteBuffer in) throws BusinessException {
+        int limit = in.getInt();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BusinessException("limit must be from 1 to " + MAX_PAGE_SIZE + ".", OPERATION);
+        }
+        return limit;
+    }
+
+    private static String getName(ByteBuffer in, String name) throws BusinessException {
+        String value = getString(in).trim();
+        if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new BusinessException(name + " must not be empty or contain commas or line breaks.", OPERATION);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,38 @@
+package view.binary;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// Direct buffers of one size, kept for reuse since allocating and freeing direct memory is slow.
+// Not thread-safe: each event loop or client owns its pool.
+public class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+    // Buffers of bufferSize bytes; at most maxPooled released buffers are kept
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollLast();
+        return buffer == null ? ByteBuffer.allocateDirect(bufferSize) : buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (free.size() < maxPooled) {
+            free.addLast(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // Number of buffers waiting for reuse
+    public int getPooled() {
+        return free.size();
+    }
+}
@@ -0,0 +1,320 @@
+package view.binary;
+
+import exceptions.BusinessException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.DTO.PageDTO;
+import model.entity.Car;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Client for CarShopBinaryServer over one connection. The send methods only queue a request and
+// return its Reply; sync() then sends everything queued in as few writes as the socket allows
+// and reads the responses, so a batch of requests costs about one round trip. The other methods
+// send one request and wait for it. Not thread-safe: use one client per thread.
+//
+//   try (CarShopBinaryClient client = CarShopBinaryClient.connect(address)) {
+//       Reply<CarDetailDTO> first = client.sendGetCar(1);
+//       Reply<CarDetailDTO> second = client.sendGetCar(2);
+//       client.sync();
+//       CarDetailDTO car = first.get();
+//   }
+public class CarShopBinaryClient implements AutoCloseable {
+    private static final String OPERATION = "CarShopBinaryClient";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Turns the status and result of a response into the reply's value
+    private interface Decoder<T> {
+        T decode(byte status, ByteBuffer in) throws BusinessException;
+    }
+
+    // Result of a sent request, available once sync() has returned
+    public static final class Reply<T> {
+        private final int requestId;
+        private final Decoder<T> decoder;
+        private boolean done;
+        private T value;
+        private BusinessException error;
+
+        private Reply(int requestId, Decoder<T> decoder) {
+            this.requestId = requestId;
+            this.decoder = decoder;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        // The result, or the error the server answered with
+        public T get() throws BusinessException {
+            if (!done) {
+                throw new IllegalStateException("Request " + requestId + " has not been synced.");
+            }
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
+
+        private void complete(byte status, ByteBuffer in) {
+            done = true;
+            try {
+                if (status == BinaryProtocol.OK || status == BinaryProtocol.NOT_FOUND) {
+                    value = decoder.decode(status, in);
+                } else {
+                    error = new BusinessException(BinaryProtocol.getString(in), OPERATION);
+                }
+            } catch (BusinessException e) {
+                error = e;
+            }
+        }
+    }
+
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, 16);
+    private final FrameWriter out = new FrameWriter(pool);
+    // Grows to hold the largest response seen
+    private ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ArrayDeque<Reply<?>> pending = new ArrayDeque<>();
+    private int nextRequestId;
+
+    private CarShopBinaryClient(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        this.selector = Selector.open();
+        this.key = channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    public static CarShopBinaryClient connect(InetSocketAddress address) throws BusinessException {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open(address);
+            return new CarShopBinaryClient(channel);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw new BusinessException("Cannot connect to " + address + ": " + e.getMessage(), OPERATION);
+        }
+    }
+
+    // The car, or null if there is none with the ID
+    public Reply<CarDetailDTO> sendGetCar(int carId) {
+        Reply<CarDetailDTO> reply = begin(BinaryProtocol.GET_CAR,
+                (status, in) -> status == BinaryProtocol.OK ? BinaryProtocol.getCarDetail(in) : null);
+        out.putInt(carId);
+        out.endFrame();
+        return reply;
+    }
+
+    // Fails if a car with the ID exists
+    public Reply<Void> sendAddCar(Car car) {
+        Reply<Void> reply = begin(BinaryProtocol.ADD_CAR, (status, in) -> null);
+        BinaryProtocol.putCar(out, car.toCarDetailDTO());
+        out.endFrame();
+        return reply;
+    }
+
+    // False if there is no car with oldId; fails if the car's new ID belongs to another car
+    public Reply<Boolean> sendUpdateCar(Car car, int oldId) {
+        Reply<Boolean> reply = begin(BinaryProtocol.UPDATE_CAR, (status, in) -> status == BinaryProtocol.OK);
+        out.putInt(oldId);
+        BinaryProtocol.putCar(out, car.toCarDetailDTO());
+        out.endFrame();
+        return reply;
+    }
+
+    // False if there is no car with the ID
+    public Reply<Boolean> sendDeleteCar(int carId) {
+        Reply<Boolean> reply = begin(BinaryProtocol.DELETE_CAR, (status, in) -> status == BinaryProtocol.OK);
+        out.putInt(carId);
+        out.endFrame();
+        return reply;
+    }
+
+    // Cars with ID > afterId in ID order; start with Long.MIN_VALUE. limit is at most
+    // BinaryProtocol.MAX_PAGE_SIZE.
+    public Reply<PageDTO<CarDTO>> sendGetAllCarsPage(long afterId, int limit) {
+        Reply<PageDTO<CarDTO>> reply = begin(BinaryProtocol.ALL_CARS_PAGE,
+                (status, in) -> getPage(in, BinaryProtocol::getCarSummary));
+        out.putLong(afterId);
+        out.putInt(limit);
+        out.endFrame();
+        return reply;
+    }
+
+    public Reply<PageDTO<CarManufacturerDTO>> sendGetCarsByManufacturerPage(String manufacturer, long afterId,
+                                                                          int limit) {
+        Reply<PageDTO<CarManufacturerDTO>> reply = begin(BinaryProtocol.MANUFACTURER_PAGE,
+                (status, in) -> getPage(in, BinaryProtocol::getManufacturerCar));
+        out.putString(manufacturer);
+        out.putLong(afterId);
+        out.putInt(limit);
+        out.endFrame();
+        return reply;
+    }
+
+    // Cars cheaper than price, cheapest first; start with Long.MIN_VALUE for both cursors
+    public Reply<PageDTO<CarDTO>> sendGetCarsWithPriceLowerThanPage(long price, long afterPrice, long afterId,
+                                                                   int limit) {
+        Reply<PageDTO<CarDTO>> reply = begin(BinaryProtocol.PRICE_PAGE,
+                (status, in) -> getPage(in, BinaryProtocol::getCarSummary));
+        out.putLong(price);
+        out.putLong(afterPrice);
+        out.putLong(afterId);
+        out.putInt(limit);
+        out.endFrame();
+        return reply;
+    }
+
+    public CarDetailDTO getCar(int carId) throws BusinessException {
+        return await(sendGetCar(carId));
+    }
+
+    public void addCar(Car car) throws BusinessException {
+        await(sendAddCar(car));
+    }
+
+    public boolean updateCar(Car car, int oldId) throws BusinessException {
+        return await(sendUpdateCar(car, oldId));
+    }
+
+    public boolean deleteCar(int carId) throws BusinessException {
+        return await(sendDeleteCar(carId));
+    }
+
+    public PageDTO<CarDTO> getAllCarsPage(long afterId, int limit) throws BusinessException {
+        return await(sendGetAllCarsPage(afterId, limit));
+    }
+
+    public PageDTO<CarManufacturerDTO> getCarsByManufacturerPage(String manufacturer, long afterId, int limit)
+            throws BusinessException {
+        return await(sendGetCarsByManufacturerPage(manufacturer, afterId, limit));
+    }
+
+    public PageDTO<CarDTO> getCarsWithPriceLowerThanPage(long price, long afterPrice, long afterId, int limit)
+            throws BusinessException {
+        return await(sendGetCarsWithPriceLowerThanPage(price, afterPrice, afterId, limit));
+    }
+
+    // Number of requests sent or queued whose responses have not arrived
+    public int getPendingRequests() {
+        return pending.size();
+    }
+
+    // Send the queued requests and wait for all their responses. Writing and reading interleave,
+    // so a batch larger than the socket buffers cannot deadlock against the server.
+    public void sync() throws BusinessException {
+        try {
+            while (!pending.isEmpty()) {
+                boolean written = out.writeTo(channel);
+                key.interestOps(written ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                selector.select();
+                selector.selectedKeys().clear();
+                if (key.isReadable()) {
+                    if (channel.read(in) < 0) {
+                        throw new IOException("The server closed the connection");
+                    }
+                    readResponses();
+                }
+            }
+        } catch (IOException e) {
+            close();
+            BusinessException error = new BusinessException("Connection to the server failed: " + e.getMessage(),
+                    OPERATION);
+            // The requests may or may not have run; their replies fail alike
+            for (Reply<?> reply : pending) {
+                reply.done = true;
+                reply.error = error;
+            }
+            pending.clear();
+            throw error;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        out.release();
+    }
+
+    private <T> Reply<T> begin(byte opcode, Decoder<T> decoder) {
+        Reply<T> reply = new Reply<>(nextRequestId++, decoder);
+        pending.addLast(reply);
+        out.beginFrame();
+        out.putByte(opcode);
+        out.putInt(reply.requestId);
+        return reply;
+    }
+
+    private <T> T await(Reply<T> reply) throws BusinessException {
+        sync();
+        return reply.get();
+    }
+
+    // Complete the replies whose responses are in the input buffer
+    private void readResponses() throws IOException {
+        in.flip();
+        while (in.remaining() >= Integer.BYTES) {
+            int length = in.getInt(in.position());
+            if (length < Integer.BYTES + 1) {
+                throw new IOException("Invalid response length " + length);
+            }
+            if (in.remaining() < Integer.BYTES + length) {
+                if (in.capacity() < Integer.BYTES + length) {
+                    // A response larger than the buffer, such as a long page
+                    ByteBuffer larger = ByteBuffer.allocateDirect(Integer.highestOneBit(Integer.BYTES + length) << 1);
+                    in = larger.put(in).flip();
+                }
+                break;
+            }
+            int end = in.position() + Integer.BYTES + length;
+            int limit = in.limit();
+            in.position(in.position() + Integer.BYTES).limit(end);
+            int requestId = in.getInt();
+            byte status = in.get();
+            Reply<?> reply = pending.pollFirst();
+            if (reply == null || reply.requestId != requestId) {
+                throw new IOException("Response to request " + requestId + " arrived out of order");
+            }
+            reply.complete(status, in);
+            in.limit(limit).position(end);
+        }
+        in.compact();
+    }
+
+    private static <T> PageDTO<T> getPage(ByteBuffer in, Function<ByteBuffer, T> itemReader) {
+        boolean hasMore = in.get() != 0;
+        long lastId = in.getLong();
+        long lastPrice = in.getLong();
+        int count = in.getInt();
+        List<T> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(itemReader.apply(in));
+        }
+        return new PageDTO<>(items, hasMore, lastId, lastPrice);
+    }
+}
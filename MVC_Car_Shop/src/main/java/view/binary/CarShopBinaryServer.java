@@ -0,0 +1,453 @@
+package view.binary;
+
+import controller.CarController;
+import exceptions.BusinessException;
+import exceptions.DuplicateCarException;
+import exceptions.StorageException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.DTO.PageDTO;
+import model.entity.Car;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Server for BinaryProtocol on one selector thread. Each read runs every complete request in
+// the input buffer against the controller, in order, and the responses to all of them leave in
+// one gathering write, so a pipelining client pays for system calls per batch rather than per
+// request. Reads run on the selector thread itself: they take microseconds, and handing them to
+// a pool would cost more than it saves. Changes may wait on the disk, so they run on a writer
+// thread instead; their connection serves nothing more until the change is answered on the
+// selector thread, which keeps its responses in request order while other connections go on.
+// Buffers come from a pool of direct buffers owned by the thread. A connection whose responses
+// pile up because its client does not read them is not read from until they drain.
+public class CarShopBinaryServer implements AutoCloseable {
+    private static final String OPERATION = "CarShopBinaryServer";
+    private static final int BUFFER_SIZE = BinaryProtocol.MAX_REQUEST_BYTES;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    // A connection stops being read while it has more response bytes than this waiting
+    private static final int MAX_PENDING_BYTES = 1 << 20;
+    private static final int BACKLOG = 4096;
+    private static final String INTERNAL_ERROR = "Internal error.";
+
+    // A change to the cars, run on the writer thread
+    private interface Change {
+        Outcome run() throws BusinessException;
+    }
+
+    // Status of a change and its message, or no message for OK
+    private static final class Outcome {
+        private static final Outcome OK = new Outcome(BinaryProtocol.OK, null);
+
+        private final byte status;
+        private final String message;
+
+        private Outcome(byte status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    private final CarController carController;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final Thread loop;
+    // One thread is enough: the controller applies changes one at a time anyway
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "car-binary-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Answers to finished changes, run by the loop
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public CarShopBinaryServer(CarController carController, InetSocketAddress address) throws BusinessException {
+        this.carController = carController;
+        try {
+            this.selector = Selector.open();
+            this.serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address, BACKLOG);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new BusinessException("Cannot listen on " + address + ": " + e.getMessage(), OPERATION);
+        }
+        this.loop = new Thread(this::run, "car-binary-loop");
+        loop.setDaemon(true);
+    }
+
+    public void start() {
+        loop.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    // Stop the loop and close every connection
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            if (loop.isAlive()) {
+                loop.join();
+            } else {
+                closeAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A change already running still finishes; nobody is left to answer it
+        writer.shutdown();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable completion;
+                while ((completion = completions.poll()) != null) {
+                    completion.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (IOException e) {
+                            // Out of file descriptors, say; the next connections may still succeed
+                        }
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (IOException e) {
+                        // The client went away or broke the protocol
+                        connection.close();
+                    } catch (RuntimeException e) {
+                        // A bug; it costs this connection, not the loop and every other one
+                        logInternalError("Connection " + connection.channel, e);
+                        connection.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // The selector failed; nothing more can be served
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private static void logInternalError(String what, Exception e) {
+        System.err.println(OPERATION + ": " + what + " failed");
+        e.printStackTrace();
+    }
+
+    // The answer to a request that failed. A bad request learns why; a fault of the server, such
+    // as a failure to store a change, goes to the log and the client learns only that it failed.
+    private static Outcome failure(int requestId, Exception e) {
+        if (e instanceof DuplicateCarException) {
+            return new Outcome(BinaryProtocol.CONFLICT, e.getMessage());
+        }
+        if (e instanceof BusinessException && !(e instanceof StorageException)) {
+            return new Outcome(BinaryProtocol.BAD_REQUEST, e.getMessage());
+        }
+        logInternalError("Request " + requestId, e);
+        return new Outcome(BinaryProtocol.ERROR, INTERNAL_ERROR);
+    }
+
+    // Checked first for a clearer message; addCarLogic still rejects a car added meanwhile
+    private Outcome addCar(Car car) throws BusinessException {
+        if (carController.containsCar(car.getId())) {
+            return new Outcome(BinaryProtocol.CONFLICT, "A car with ID " + car.getId() + " already exists.");
+        }
+        carController.addCarLogic(car);
+        return Outcome.OK;
+    }
+
+    private Outcome updateCar(int oldId, Car car) throws BusinessException {
+        if (!carController.containsCar(oldId)) {
+            return new Outcome(BinaryProtocol.NOT_FOUND, "No car with ID " + oldId);
+        }
+        if (car.getId() != oldId && carController.containsCar(car.getId())) {
+            return new Outcome(BinaryProtocol.CONFLICT, "A car with ID " + car.getId() + " already exists.");
+        }
+        if (!carController.updateCarLogic(car, oldId)) {
+            // Deleted since the check
+            return new Outcome(BinaryProtocol.NOT_FOUND, "No car with ID " + oldId);
+        }
+        return Outcome.OK;
+    }
+
+    private Outcome deleteCar(int carId) throws BusinessException {
+        if (!carController.deleteCarByID(carId)) {
+            return new Outcome(BinaryProtocol.NOT_FOUND, "No car with ID " + carId);
+        }
+        return Outcome.OK;
+    }
+
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            serverChannel.close();
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // Closing anyway
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = pool.acquire();
+        private final FrameWriter out = new FrameWriter(pool);
+        private SelectionKey key;
+        private boolean closed;
+        // A change of this connection is on the writer thread
+        private boolean changing;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            handleFrames();
+            flush();
+        }
+
+        // Write the pending responses; once they are out, serve requests still waiting in the
+        // input buffer. Read again only while the responses are not piling up and no change runs.
+        private void flush() throws IOException {
+            while (out.writeTo(channel) && !changing && hasCompleteFrame()) {
+                handleFrames();
+            }
+            int ops = out.hasPending() ? SelectionKey.OP_WRITE : 0;
+            if (!changing && out.getPendingBytes() < MAX_PENDING_BYTES) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+
+        private boolean hasCompleteFrame() {
+            return in.position() >= Integer.BYTES && in.position() >= Integer.BYTES + in.getInt(0);
+        }
+
+        // Answer the complete requests in the input buffer, stopping early if responses pile up or
+        // a change has to wait for the writer thread
+        private void handleFrames() throws IOException {
+            in.flip();
+            while (!changing && in.remaining() >= Integer.BYTES && out.getPendingBytes() < MAX_PENDING_BYTES) {
+                int length = in.getInt(in.position());
+                if (length < 1 + Integer.BYTES || length > BUFFER_SIZE - Integer.BYTES) {
+                    throw new IOException("Invalid request length " + length);
+                }
+                if (in.remaining() < Integer.BYTES + length) {
+                    break;
+                }
+                int end = in.position() + Integer.BYTES + length;
+                int limit = in.limit();
+                in.position(in.position() + Integer.BYTES).limit(end);
+                handleFrame();
+                in.limit(limit).position(end);
+            }
+            in.compact();
+        }
+
+        private void handleFrame() {
+            byte opcode = in.get();
+            int requestId = in.getInt();
+            try {
+                switch (opcode) {
+                    case BinaryProtocol.GET_CAR:
+                        getCar(requestId, in.getInt());
+                        break;
+                    case BinaryProtocol.ADD_CAR:
+                        Car newCar = BinaryProtocol.getCar(in);
+                        change(requestId, () -> addCar(newCar));
+                        break;
+                    case BinaryProtocol.UPDATE_CAR:
+                        int oldId = in.getInt();
+                        Car updatedCar = BinaryProtocol.getCar(in);
+                        change(requestId, () -> updateCar(oldId, updatedCar));
+                        break;
+                    case BinaryProtocol.DELETE_CAR:
+                        int deletedId = in.getInt();
+                        change(requestId, () -> deleteCar(deletedId));
+                        break;
+                    case BinaryProtocol.ALL_CARS_PAGE:
+                        long afterId = in.getLong();
+                        PageDTO<CarDTO> allCars = carController.getAllCarsPage(afterId,
+                                BinaryProtocol.getLimit(in));
+                        putPage(requestId, allCars);
+                        for (CarDTO car : allCars.getItems()) {
+                            BinaryProtocol.putCar(out, car);
+                        }
+                        out.endFrame();
+                        break;
+                    case BinaryProtocol.MANUFACTURER_PAGE:
+                        String manufacturer = BinaryProtocol.getString(in);
+                        long afterManufacturerId = in.getLong();
+                        PageDTO<CarManufacturerDTO> manufacturerCars = carController.getCarsByManufacturerPage(
+                                manufacturer, afterManufacturerId, BinaryProtocol.getLimit(in));
+                        putPage(requestId, manufacturerCars);
+                        for (CarManufacturerDTO car : manufacturerCars.getItems()) {
+                            BinaryProtocol.putCar(out, car);
+                        }
+                        out.endFrame();
+                        break;
+                    case BinaryProtocol.PRICE_PAGE:
+                        long price = in.getLong();
+                        long afterPrice = in.getLong();
+                        long afterPriceId = in.getLong();
+                        PageDTO<CarDTO> cheaperCars = carController.getCarsWithPriceLowerThanPage(price, afterPrice,
+                                afterPriceId, BinaryProtocol.getLimit(in));
+                        putPage(requestId, cheaperCars);
+                        for (CarDTO car : cheaperCars.getItems()) {
+                            BinaryProtocol.putCar(out, car);
+                        }
+                        out.endFrame();
+                        break;
+                    default:
+                        respond(requestId, BinaryProtocol.BAD_REQUEST, "Unknown opcode " + opcode + ".");
+                        break;
+                }
+            } catch (BufferUnderflowException e) {
+                respond(requestId, BinaryProtocol.BAD_REQUEST, "Request " + requestId + " is truncated.");
+            } catch (BusinessException | RuntimeException e) {
+                // The response may have failed halfway
+                out.abandonFrame();
+                Outcome outcome = failure(requestId, e);
+                respond(requestId, outcome.status, outcome.message);
+            }
+        }
+
+        // Run the change on the writer thread and hold back this connection's later requests
+        // until its response is written
+        private void change(int requestId, Change change) {
+            changing = true;
+            writer.execute(() -> {
+                Outcome outcome;
+                try {
+                    outcome = change.run();
+                } catch (BusinessException | RuntimeException e) {
+                    outcome = failure(requestId, e);
+                }
+                Outcome result = outcome;
+                completions.add(() -> changed(requestId, result));
+                selector.wakeup();
+            });
+        }
+
+        // On the loop: answer the change and serve the requests that waited for it
+        private void changed(int requestId, Outcome outcome) {
+            if (closed) {
+                return;
+            }
+            changing = false;
+            if (outcome.message == null) {
+                beginResponse(requestId, outcome.status);
+                out.endFrame();
+            } else {
+                respond(requestId, outcome.status, outcome.message);
+            }
+            try {
+                handleFrames();
+                flush();
+            } catch (IOException e) {
+                close();
+            } catch (RuntimeException e) {
+                logInternalError("Connection " + channel, e);
+                close();
+            }
+        }
+
+        private void getCar(int requestId, int carId) {
+            CarDetailDTO car = carController.getCarDetailsById(carId);
+            if (car == null) {
+                respond(requestId, BinaryProtocol.NOT_FOUND, "No car with ID " + carId);
+                return;
+            }
+            beginResponse(requestId, BinaryProtocol.OK);
+            BinaryProtocol.putCar(out, car);
+            out.endFrame();
+        }
+
+        // Start an OK response with the page header; the caller writes the items and ends the frame
+        private void putPage(int requestId, PageDTO<?> page) {
+            beginResponse(requestId, BinaryProtocol.OK);
+            out.putByte(page.hasMore() ? 1 : 0);
+            out.putLong(page.getLastId());
+            out.putLong(page.getLastPrice());
+            out.putInt(page.getItems().size());
+        }
+
+        private void beginResponse(int requestId, byte status) {
+            out.beginFrame();
+            out.putInt(requestId);
+            out.putByte(status);
+        }
+
+        private void respond(int requestId, byte status, String message) {
+            beginResponse(requestId, status);
+            out.putString(message);
+            out.endFrame();
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+            out.release();
+            pool.release(in);
+        }
+    }
+}
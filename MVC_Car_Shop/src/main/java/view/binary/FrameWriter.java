@@ -0,0 +1,191 @@
+package view.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+// Encodes length-prefixed frames into a chain of pooled direct buffers and writes them out with
+// gathering writes, so any number of frames leave in one system call. A frame may span buffers;
+// its length prefix is filled in when the frame ends. Not thread-safe.
+public class FrameWriter {
+    // Buffers passed to one gathering write; more are written by the next one
+    private static final int MAX_GATHER = 64;
+
+    private final BufferPool pool;
+    // Filled buffers, flipped for writing, in order
+    private final ArrayDeque<ByteBuffer> ready = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    // Buffer being filled, or null
+    private ByteBuffer current;
+    // Where the length of the open frame goes; frameStart is -1 when no frame is open
+    private ByteBuffer lengthBuffer;
+    private int lengthPosition;
+    private long frameStart = -1;
+    private long encoded;
+    private long written;
+
+    public FrameWriter(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    public void beginFrame() {
+        if (frameStart >= 0) {
+            throw new IllegalStateException("A frame is already open.");
+        }
+        ensure(Integer.BYTES);
+        lengthBuffer = current;
+        lengthPosition = current.position();
+        current.putInt(0);
+        encoded += Integer.BYTES;
+        frameStart = encoded;
+    }
+
+    public void endFrame() {
+        if (frameStart < 0) {
+            throw new IllegalStateException("No frame is open.");
+        }
+        lengthBuffer.putInt(lengthPosition, (int) (encoded - frameStart));
+        lengthBuffer = null;
+        frameStart = -1;
+    }
+
+    // Drop the open frame, if any, as if it had never begun; for a response that failed halfway
+    public void abandonFrame() {
+        if (frameStart < 0) {
+            return;
+        }
+        // Nothing of an open frame has been written, so its buffers are all still here
+        while (current != lengthBuffer) {
+            if (current != null) {
+                pool.release(current);
+            }
+            current = ready.pollLast();
+            if (current != null) {
+                current.position(current.limit()).limit(current.capacity());
+            }
+        }
+        current.position(lengthPosition);
+        encoded = frameStart - Integer.BYTES;
+        lengthBuffer = null;
+        frameStart = -1;
+    }
+
+    public void putByte(int value) {
+        ensure(1);
+        current.put((byte) value);
+        encoded++;
+    }
+
+    public void putInt(int value) {
+        ensure(Integer.BYTES);
+        current.putInt(value);
+        encoded += Integer.BYTES;
+    }
+
+    public void putLong(long value) {
+        ensure(Long.BYTES);
+        current.putLong(value);
+        encoded += Long.BYTES;
+    }
+
+    // An unsigned 16-bit byte count followed by the UTF-8 bytes
+    public void putString(String value) {
+        int length = value.length();
+        boolean ascii = Short.BYTES + length <= pool.getBufferSize();
+        for (int i = 0; ascii && i < length; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            // Names are ASCII almost always, and then need no byte array
+            ensure(Short.BYTES + length);
+            current.putShort((short) length);
+            for (int i = 0; i < length; i++) {
+                current.put((byte) value.charAt(i));
+            }
+            encoded += Short.BYTES + length;
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("A string of " + bytes.length + " bytes does not fit in a frame.");
+        }
+        ensure(Short.BYTES);
+        current.putShort((short) bytes.length);
+        for (int offset = 0; offset < bytes.length; ) {
+            ensure(1);
+            int count = Math.min(current.remaining(), bytes.length - offset);
+            current.put(bytes, offset, count);
+            offset += count;
+        }
+        encoded += Short.BYTES + bytes.length;
+    }
+
+    // Bytes encoded but not written yet
+    public long getPendingBytes() {
+        return encoded - written;
+    }
+
+    public boolean hasPending() {
+        return encoded != written;
+    }
+
+    // Write what the channel takes without blocking; true once everything is written. Must not
+    // be called while a frame is open.
+    public boolean writeTo(GatheringByteChannel channel) throws IOException {
+        if (frameStart >= 0) {
+            throw new IllegalStateException("A frame is still open.");
+        }
+        if (current != null && current.position() > 0) {
+            ready.addLast(current.flip());
+            current = null;
+        }
+        while (!ready.isEmpty()) {
+            int count = 0;
+            long offered = 0;
+            for (Iterator<ByteBuffer> buffers = ready.iterator(); buffers.hasNext() && count < MAX_GATHER; ) {
+                ByteBuffer buffer = buffers.next();
+                offered += buffer.remaining();
+                gather[count++] = buffer;
+            }
+            long writtenNow = channel.write(gather, 0, count);
+            written += writtenNow;
+            while (!ready.isEmpty() && !ready.peekFirst().hasRemaining()) {
+                pool.release(ready.pollFirst());
+            }
+            if (writtenNow < offered) {
+                // The socket buffer is full
+                break;
+            }
+        }
+        return ready.isEmpty();
+    }
+
+    // Drop whatever is pending and give the buffers back to the pool
+    public void release() {
+        for (ByteBuffer buffer : ready) {
+            pool.release(buffer);
+        }
+        ready.clear();
+        if (current != null) {
+            pool.release(current);
+            current = null;
+        }
+        lengthBuffer = null;
+        frameStart = -1;
+        written = encoded;
+    }
+
+    // Make room for size bytes in the current buffer, moving on to a new one if needed
+    private void ensure(int size) {
+        if (current != null && current.remaining() >= size) {
+            return;
+        }
+        if (current != null) {
+            ready.addLast(current.flip());
+        }
+        current = pool.acquire();
+    }
+}
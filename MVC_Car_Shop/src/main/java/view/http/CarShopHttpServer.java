@@ -0,0 +1,440 @@
+package view.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.CarController;
+import exceptions.BusinessException;
+import exceptions.DuplicateCarException;
+import exceptions.StorageException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.DTO.PageDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP/JSON front end for a CarController on the JDK's built-in server:
+//   GET    /cars                    every car, in ID order
+//   GET    /cars?manufacturer=VW    the manufacturer's cars, in ID order
+//   GET    /cars?maxPrice=20000     the cars cheaper than the price, cheapest first
+//   GET    /cars/{id}               one car with all its details
+//   POST   /cars                    add the car in the body
+//   PUT    /cars/{id}               replace the car, possibly under a new ID from the body
+//   DELETE /cars/{id}               delete the car
+// Cars in request bodies use the member names of the details response. An invalid request is
+// answered with 400, an ID that another car has with 409, and a failure to store the change with
+// 500, its details going to the server's log only. Lists are read a page at a time and streamed
+// with chunked encoding, so a response never holds the whole list. Requests run on one virtual
+// thread each where the JDK has them (21 and later), otherwise on a fixed pool.
+public class CarShopHttpServer implements AutoCloseable {
+    private static final String OPERATION = "CarShopHttpServer";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String CARS_PATH = "/cars";
+    private static final int PAGE_SIZE = 1024;
+    private static final int MAX_BODY_BYTES = 1 << 16;
+    private static final int BACKLOG = 4096;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle's algorithm on, every
+        // keep-alive response waits for the client's delayed ACK, about 40 ms. The setting is read
+        // once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final CarController carController;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    // Listen on the address; poolThreads is the pool size used when virtual threads are missing
+    public CarShopHttpServer(CarController carController, InetSocketAddress address, int poolThreads)
+            throws BusinessException {
+        this.carController = carController;
+        try {
+            this.server = HttpServer.create(address, BACKLOG);
+        } catch (IOException e) {
+            throw new BusinessException("Cannot listen on " + address + ": " + e.getMessage(), OPERATION);
+        }
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor != null;
+        if (virtualThreads) {
+            this.executor = virtualThreadExecutor;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(poolThreads, runnable -> {
+                Thread thread = new Thread(runnable, "car-http-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        server.setExecutor(executor);
+        // Every path is handled here, so unknown ones get a JSON 404 that keeps the connection open
+        server.createContext("/", this::handle);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor, looked up at run time since the build targets
+    // JDK 17; null before JDK 21 or when it is a preview API that is not enabled
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Stop accepting requests, let running ones finish for up to a second, then stop the threads
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            route(exchange);
+        } catch (DuplicateCarException e) {
+            // Another request stored the ID between the check and the change
+            sendError(exchange, 409, e.getMessage());
+        } catch (StorageException | RuntimeException e) {
+            // A fault of the server rather than of the request: the details go to the server's
+            // log, not to the client
+            System.err.println("Failed to handle " + exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error.");
+        } catch (BusinessException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            // The client went away; there is nobody to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, BusinessException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals(CARS_PATH) || path.equals(CARS_PATH + "/")) {
+            if (method.equals("GET")) {
+                listCars(exchange);
+            } else if (method.equals("POST")) {
+                addCar(exchange);
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                sendError(exchange, 405, "Method " + method + " is not allowed on " + path);
+            }
+            return;
+        }
+        int carId = carId(path);
+        if (carId < 0) {
+            sendError(exchange, 404, "No resource at " + path);
+            return;
+        }
+        switch (method) {
+            case "GET":
+                getCar(exchange, carId);
+                break;
+            case "PUT":
+                updateCar(exchange, carId);
+                break;
+            case "DELETE":
+                deleteCar(exchange, carId);
+                break;
+            default:
+                exchange.getResponseHeaders().set("Allow", "GET, PUT, DELETE");
+                sendError(exchange, 405, "Method " + method + " is not allowed on " + path);
+                break;
+        }
+    }
+
+    // The ID in a /cars/{id} path, or -1 for any other path
+    private static int carId(String path) {
+        if (!path.startsWith(CARS_PATH + "/")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(path.substring(CARS_PATH.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void getCar(HttpExchange exchange, int carId) throws IOException {
+        CarDetailDTO car = carController.getCarDetailsById(carId);
+        if (car == null) {
+            sendError(exchange, 404, "No car with ID " + carId);
+            return;
+        }
+        CharArrayWriter body = new CharArrayWriter(256);
+        writeCar(new JsonWriter(body), car);
+        send(exchange, 200, body);
+    }
+
+    private void addCar(HttpExchange exchange) throws IOException, BusinessException {
+        Car car = readCar(exchange, null);
+        // Checked first for a clearer status; addCarLogic still rejects a car added meanwhile
+        if (carController.containsCar(car.getId())) {
+            sendError(exchange, 409, "A car with ID " + car.getId() + " already exists.");
+            return;
+        }
+        carController.addCarLogic(car);
+        exchange.getResponseHeaders().set("Location", CARS_PATH + "/" + car.getId());
+        CharArrayWriter body = new CharArrayWriter(256);
+        writeCar(new JsonWriter(body), car.toCarDetailDTO());
+        send(exchange, 201, body);
+    }
+
+    private void updateCar(HttpExchange exchange, int carId) throws IOException, BusinessException {
+        Car car = readCar(exchange, carId);
+        if (!carController.containsCar(carId)) {
+            sendError(exchange, 404, "No car with ID " + carId);
+            return;
+        }
+        if (car.getId() != carId && carController.containsCar(car.getId())) {
+            sendError(exchange, 409, "A car with ID " + car.getId() + " already exists.");
+            return;
+        }
+        if (!carController.updateCarLogic(car, carId)) {
+            // Deleted since the check
+            sendError(exchange, 404, "No car with ID " + carId);
+            return;
+        }
+        CharArrayWriter body = new CharArrayWriter(256);
+        writeCar(new JsonWriter(body), car.toCarDetailDTO());
+        send(exchange, 200, body);
+    }
+
+    private void deleteCar(HttpExchange exchange, int carId) throws IOException, BusinessException {
+        if (!carController.deleteCarByID(carId)) {
+            sendError(exchange, 404, "No car with ID " + carId);
+            return;
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void listCars(HttpExchange exchange) throws IOException, BusinessException {
+        Map<String, String> parameters = queryParameters(exchange.getRequestURI().getRawQuery());
+        String manufacturer = parameters.get("manufacturer");
+        String maxPrice = parameters.get("maxPrice");
+        if (manufacturer != null && maxPrice != null) {
+            throw new BusinessException("Filter by manufacturer or by maxPrice, not both.", "listCars");
+        }
+        if (manufacturer != null) {
+            streamPages(exchange, (afterId, afterPrice) ->
+                    carController.getCarsByManufacturerPage(manufacturer, afterId, PAGE_SIZE),
+                    CarShopHttpServer::writeCar);
+        } else if (maxPrice != null) {
+            long price;
+            try {
+                price = Long.parseLong(maxPrice);
+            } catch (NumberFormatException e) {
+                throw new BusinessException("maxPrice must be a valid long value.", "listCars");
+            }
+            streamPages(exchange, (afterId, afterPrice) ->
+                    carController.getCarsWithPriceLowerThanPage(price, afterPrice, afterId, PAGE_SIZE),
+                    CarShopHttpServer::writeCar);
+        } else {
+            streamPages(exchange, (afterId, afterPrice) -> carController.getAllCarsPage(afterId, PAGE_SIZE),
+                    CarShopHttpServer::writeCar);
+        }
+    }
+
+    // Reads the page following the given cursor
+    private interface PageReader<T> {
+        PageDTO<T> read(long afterId, long afterPrice);
+    }
+
+    private interface ItemWriter<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    // Stream the pages as one JSON array. The first page is read before the headers are sent, so
+    // a failing read can still be answered with an error status.
+    private <T> void streamPages(HttpExchange exchange, PageReader<T> reader, ItemWriter<T> itemWriter)
+            throws IOException {
+        PageDTO<T> page = reader.read(Long.MIN_VALUE, Long.MIN_VALUE);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                1 << 14);
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray();
+        while (true) {
+            for (T item : page.getItems()) {
+                itemWriter.write(json, item);
+            }
+            if (!page.hasMore()) {
+                break;
+            }
+            page = reader.read(page.getLastId(), page.getLastPrice());
+        }
+        json.endArray();
+        out.flush();
+    }
+
+    private static void writeCar(JsonWriter json, CarDetailDTO car) throws IOException {
+        json.beginObject()
+                .name("id").value(car.getId())
+                .name("manufacturer").value(car.getManufacturer())
+                .name("model").value(car.getModel())
+                .name("price").value(car.getPrice())
+                .name("productionDate").dateValue(car.getProductionDate())
+                .name("fuelType").value(car.getFuelType() == null ? null : car.getFuelType().name())
+                .name("horsepower").value(car.getHorsepower())
+                .endObject();
+    }
+
+    private static void writeCar(JsonWriter json, CarDTO car) throws IOException {
+        json.beginObject()
+                .name("id").value(car.getId())
+                .name("manufacturer").value(car.getManufacturer())
+                .name("model").value(car.getModel())
+                .name("price").value(car.getPrice())
+                .endObject();
+    }
+
+    private static void writeCar(JsonWriter json, CarManufacturerDTO car) throws IOException {
+        json.beginObject()
+                .name("id").value(car.getId())
+                .name("model").value(car.getModel())
+                .name("price").value(car.getPrice())
+                .endObject();
+    }
+
+    // The car in the request body; for an update, the ID defaults to the one in the path
+    private static Car readCar(HttpExchange exchange, Integer pathId) throws IOException, BusinessException {
+        Map<String, Object> members = JsonReader.readObject(readBody(exchange));
+        int id = members.containsKey("id") || pathId == null ? (int) integer(members, "id", 1, Integer.MAX_VALUE)
+                : pathId;
+        String manufacturer = name(members, "manufacturer");
+        String model = name(members, "model");
+        long price = integer(members, "price", 0, Long.MAX_VALUE);
+        Timestamp productionDate;
+        try {
+            productionDate = Timestamp.valueOf(LocalDate.parse(text(members, "productionDate"), DATE_FORMAT)
+                    .atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("productionDate must be a valid date in the format dd.MM.yyyy.", "readCar");
+        }
+        FuelType fuelType;
+        try {
+            fuelType = FuelType.valueOf(text(members, "fuelType").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("fuelType must be one of " + Arrays.toString(FuelType.values()) + ".",
+                    "readCar");
+        }
+        int horsepower = (int) integer(members, "horsepower", 0, Integer.MAX_VALUE);
+        return new Car(id, manufacturer, model, price, productionDate, fuelType, horsepower);
+    }
+
+    private static long integer(Map<String, Object> members, String name, long min, long max)
+            throws BusinessException {
+        Object value = members.get(name);
+        if (!(value instanceof Long) || (Long) value < min || (Long) value > max) {
+            throw new BusinessException(name + " must be an integer from " + min + " to " + max + ".", "readCar");
+        }
+        return (Long) value;
+    }
+
+    private static String text(Map<String, Object> members, String name) throws BusinessException {
+        Object value = members.get(name);
+        if (!(value instanceof String)) {
+            throw new BusinessException(name + " must be a string.", "readCar");
+        }
+        return (String) value;
+    }
+
+    // A manufacturer or model name; commas and line breaks would corrupt cars.csv
+    private static String name(Map<String, Object> members, String name) throws BusinessException {
+        String value = text(members, name).trim();
+        if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new BusinessException(name + " must not be empty or contain commas or line breaks.", "readCar");
+        }
+        return value;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException, BusinessException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new BusinessException("Request body is larger than " + MAX_BODY_BYTES + " bytes.", "readCar");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int status, CharArrayWriter body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Answer with {"error": message}, unless a response is already under way
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            CharArrayWriter body = new CharArrayWriter(128);
+            new JsonWriter(body).beginObject().name("error").value(message).endObject();
+            send(exchange, status, body);
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+}
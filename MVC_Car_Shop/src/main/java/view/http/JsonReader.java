@@ -0,0 +1,190 @@
+package view.http;
+
+import exceptions.BusinessException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Parser for the flat JSON objects the HTTP front end accepts as request bodies: one object whose
+// values are strings, integers, booleans or null. Nested objects, arrays and fractions are
+// rejected, since no request needs them.
+public class JsonReader {
+    private static final String OPERATION = "readJson";
+
+    private final String json;
+    private int pos;
+
+    private JsonReader(String json) {
+        this.json = json;
+    }
+
+    // Members of the object in the text, in order; integers are Longs
+    public static Map<String, Object> readObject(String json) throws BusinessException {
+        JsonReader reader = new JsonReader(json);
+        Map<String, Object> members = reader.object();
+        reader.skipWhitespace();
+        if (reader.pos != json.length()) {
+            throw reader.malformed("unexpected text after the object");
+        }
+        return members;
+    }
+
+    private Map<String, Object> object() throws BusinessException {
+        expect('{');
+        Map<String, Object> members = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return members;
+        }
+        while (true) {
+            skipWhitespace();
+            String name = string();
+            expect(':');
+            if (members.put(name, value()) != null) {
+                throw malformed("duplicate member \"" + name + "\"");
+            }
+            skipWhitespace();
+            char next = next();
+            if (next == '}') {
+                return members;
+            }
+            if (next != ',') {
+                throw malformed("expected ',' or '}'");
+            }
+        }
+    }
+
+    private Object value() throws BusinessException {
+        skipWhitespace();
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            return number();
+        }
+        if (json.startsWith("true", pos)) {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+        if (json.startsWith("false", pos)) {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+        if (json.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        throw malformed("expected a string, integer, boolean or null");
+    }
+
+    private Long number() throws BusinessException {
+        int start = pos;
+        if (peek() == '-') {
+            pos++;
+        }
+        while (pos < json.length() && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') {
+            pos++;
+        }
+        if (pos < json.length() && (json.charAt(pos) == '.' || json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+            throw malformed("only integers are accepted");
+        }
+        try {
+            return Long.parseLong(json, start, pos, 10);
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw malformed("number out of range");
+        }
+    }
+
+    private String string() throws BusinessException {
+        expect('"');
+        StringBuilder value = null;
+        int start = pos;
+        while (true) {
+            if (pos >= json.length()) {
+                throw malformed("unterminated string");
+            }
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                // Strings without escapes are a plain substring
+                return value == null ? json.substring(start, pos - 1) : value.append(json, start, pos - 1).toString();
+            }
+            if (c < 0x20) {
+                throw malformed("control character in string");
+            }
+            if (c == '\\') {
+                if (value == null) {
+                    value = new StringBuilder();
+                }
+                value.append(json, start, pos - 1).append(escape());
+                start = pos;
+            }
+        }
+    }
+
+    private char escape() throws BusinessException {
+        char c = next();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (pos + 4 > json.length()) {
+                    throw malformed("incomplete unicode escape");
+                }
+                try {
+                    char decoded = (char) Integer.parseInt(json, pos, pos + 4, 16);
+                    pos += 4;
+                    return decoded;
+                } catch (NumberFormatException e) {
+                    throw malformed("invalid unicode escape");
+                }
+            default:
+                throw malformed("invalid escape \\" + c);
+        }
+    }
+
+    private void expect(char expected) throws BusinessException {
+        skipWhitespace();
+        if (next() != expected) {
+            pos--;
+            throw malformed("expected '" + expected + "'");
+        }
+    }
+
+    private char peek() throws BusinessException {
+        if (pos >= json.length()) {
+            throw malformed("unexpected end of input");
+        }
+        return json.charAt(pos);
+    }
+
+    private char next() throws BusinessException {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void skipWhitespace() {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private BusinessException malformed(String message) {
+        return new BusinessException("Malformed JSON at position " + pos + ": " + message + ".", OPERATION);
+    }
+}
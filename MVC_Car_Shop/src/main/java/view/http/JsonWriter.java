@@ -0,0 +1,179 @@
+package view.http;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Streaming JSON encoder writing straight to a Writer. Nesting is tracked in a bit stack rather
+// than objects, and numbers are formatted into a reused buffer, so writing a value allocates
+// nothing beyond what the Writer does. Callers keep the structure valid; at most 64 levels deep.
+public class JsonWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final char[] digits = new char[20];
+    // Bit i is set once the container at depth i has a member, so the next one needs a comma
+    private long hasMembers;
+    private int depth;
+    // A name was just written, so the next value belongs to it and needs no comma
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            out.write("-9223372036854775808");
+            return this;
+        }
+        int pos = digits.length;
+        long remaining = Math.abs(value);
+        do {
+            digits[--pos] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--pos] = '-';
+        }
+        out.write(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    // The date as "dd.MM.yyyy", the format of cars.csv and the console
+    public JsonWriter dateValue(Timestamp date) throws IOException {
+        separate();
+        if (date == null) {
+            out.write("null");
+            return this;
+        }
+        LocalDateTime dateTime = date.toLocalDateTime();
+        digits[0] = '"';
+        twoDigits(1, dateTime.getDayOfMonth());
+        digits[3] = '.';
+        twoDigits(4, dateTime.getMonthValue());
+        digits[6] = '.';
+        int year = dateTime.getYear();
+        twoDigits(7, year / 100);
+        twoDigits(9, year % 100);
+        digits[11] = '"';
+        out.write(digits, 0, 12);
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        depth++;
+        hasMembers &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        out.write(bracket);
+        depth--;
+        return this;
+    }
+
+    // Write the comma before a member of the current container, unless it is the first
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if (depth > 0 && (hasMembers & bit) != 0) {
+            out.write(',');
+        }
+        hasMembers |= bit;
+    }
+
+    private void twoDigits(int pos, int value) {
+        digits[pos] = (char) ('0' + value / 10 % 10);
+        digits[pos + 1] = (char) ('0' + value % 10);
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            // Copy the plain run before the character, then its escape
+            out.write(value, start, i - start);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                    break;
+            }
+            start = i + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,86 @@
+package controller;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.DTO.BatchResultDTO;
+import model.DTO.RejectedCarDTO;
+import model.entity.Car;
+import model.entity.TestCars;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CarControllerBatchTest {
+    @TempDir
+    Path tempDir;
+
+    private CarController controller(boolean journaled) throws BusinessException {
+        CarController carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), journaled));
+        carController.loadCarsFromCSV();
+        return carController;
+    }
+
+    @Test
+    void testAddBatchReportsRejectedRows() throws BusinessException {
+        CarController carController = controller(false);
+        carController.addCarLogic(TestCars.car(1, "VW", 1000));
+
+        BatchResultDTO result = carController.addCarsLogic(Arrays.asList(
+                TestCars.car(2, "BMW", 2000),
+                TestCars.car(1, "Kia", 3000),
+                TestCars.car(3, "Audi, AG", 4000),
+                null,
+                TestCars.car(2, "BMW", 5000),
+                TestCars.car(4, "Kia", -1),
+                TestCars.car(5, "Kia", 6000)));
+
+        Assertions.assertEquals(2, result.getAppliedCount());
+        List<RejectedCarDTO> rejected = result.getRejectedCars();
+        Assertions.assertEquals(5, rejected.size());
+        Assertions.assertEquals(1, rejected.get(0).getIndex());
+        Assertions.assertTrue(rejected.get(0).getReason().contains("already exists"));
+        Assertions.assertTrue(rejected.get(1).getReason().contains("commas"));
+        Assertions.assertEquals(3, rejected.get(2).getIndex());
+        Assertions.assertTrue(rejected.get(3).getReason().contains("more than once"));
+        Assertions.assertEquals(4, rejected.get(4).getId());
+
+        Assertions.assertEquals(3, carController.getAllCarsLogic().size());
+        Assertions.assertEquals("VW", carController.getCarDetailsById(1).getManufacturer());
+
+        // The batch was persisted
+        Assertions.assertEquals(3, controller(false).getAllCarsLogic().size());
+    }
+
+    @Test
+    void testUpsertAndDeleteBatchesAreJournaledOnce() throws BusinessException {
+        CarController carController = controller(true);
+        List<Car> cars = new ArrayList<>();
+        for (int id = 1; id <= 1000; id++) {
+            cars.add(TestCars.car(id, id % 2 == 0 ? "VW" : "BMW", id));
+        }
+        Assertions.assertTrue(carController.addCarsLogic(cars).isComplete());
+
+        BatchResultDTO upserted = carController.upsertCarsLogic(List.of(TestCars.car(5, "Kia", 99_999), TestCars.car(1001, "Kia", 1)));
+        Assertions.assertTrue(upserted.isComplete());
+        Assertions.assertEquals(99_999, carController.getCarDetailsById(5).getPrice());
+        Assertions.assertEquals(2, carController.getCarsByManufacturerLogic("kia").size());
+
+        BatchResultDTO deleted = carController.deleteCarsByIDLogic(List.of(2, 4, 6, 4242));
+        Assertions.assertEquals(3, deleted.getAppliedCount());
+        Assertions.assertEquals(4242, deleted.getRejectedCars().get(0).getId());
+        carController.close();
+
+        Assertions.assertTrue(new File(tempDir.toFile(), "cars.csv.journal").exists());
+        CarController reloaded = controller(true);
+        Assertions.assertEquals(998, reloaded.getAllCarsLogic().size());
+        Assertions.assertNull(reloaded.getCarDetailsById(4));
+        Assertions.assertEquals("Kia", reloaded.getCarDetailsById(5).getManufacturer());
+        reloaded.close();
+    }
+}
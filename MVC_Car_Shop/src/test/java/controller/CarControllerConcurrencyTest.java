@@ -0,0 +1,146 @@
+package controller;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CarControllerConcurrencyTest {
+    private static final int WRITERS = 4;
+    private static final int CARS_PER_WRITER = 500;
+    private static final int UPDATES_PER_CAR = 3;
+
+    @TempDir
+    Path tempDir;
+
+    // Price encodes the ID and the update round, so readers can check a car is never torn
+    private static Car car(int id, int round) {
+        return new Car(id, "Maker" + (id % 5), "Model" + id, id * 10L + round,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.DIESEL, id);
+    }
+
+    @Test
+    void testConcurrentWritersLoseNoUpdates() throws Exception {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarController carController = new CarController(new CarDAO(csvPath, true, 700));
+        carController.loadCarsFromCSV();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 2);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int firstId = writer * CARS_PER_WRITER + 1;
+            writers.add(executor.submit(() -> {
+                for (int id = firstId; id < firstId + CARS_PER_WRITER; id++) {
+                    carController.addCarLogic(car(id, 0));
+                    for (int round = 1; round <= UPDATES_PER_CAR; round++) {
+                        carController.updateCarLogic(car(id, round), id);
+                    }
+                    // Every fifth car is deleted again
+                    if (id % 5 == 0) {
+                        carController.deleteCarByID(id);
+                    }
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        readers.add(executor.submit(() -> {
+            while (writing.get()) {
+                int id = ThreadLocalRandom.current().nextInt(1, WRITERS * CARS_PER_WRITER + 1);
+                CarDetailDTO details = carController.getCarDetailsById(id);
+                if (details != null) {
+                    Assertions.assertEquals(id, details.getId());
+                    Assertions.assertEquals("Model" + id, details.getModel());
+                    Assertions.assertEquals(id, details.getHorsepower());
+                    Assertions.assertEquals(id, details.getPrice() / 10);
+                }
+            }
+            return null;
+        }));
+        readers.add(executor.submit(() -> {
+            while (writing.get()) {
+                for (CarDTO car : carController.getAllCarsLogic()) {
+                    Assertions.assertEquals("Model" + car.getId(), car.getModel());
+                }
+                carController.getCarsByManufacturerLogic("maker1");
+                carController.getCarsWithPriceLowerThanLogic(5_000);
+            }
+            return null;
+        }));
+
+        try {
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+        }
+        carController.close();
+
+        int expected = WRITERS * CARS_PER_WRITER * 4 / 5;
+        Assertions.assertEquals(expected, carController.getAllCarsLogic().size());
+        for (int id = 1; id <= WRITERS * CARS_PER_WRITER; id++) {
+            CarDetailDTO details = carController.getCarDetailsById(id);
+            if (id % 5 == 0) {
+                Assertions.assertNull(details);
+            } else {
+                Assertions.assertEquals(id * 10L + UPDATES_PER_CAR, details.getPrice());
+            }
+        }
+
+        // The journal and snapshots hold the same state
+        CarController reloaded = new CarController(new CarDAO(csvPath, true));
+        reloaded.loadCarsFromCSV();
+        Assertions.assertEquals(expected, reloaded.getAllCarsLogic().size());
+        Assertions.assertEquals(7 * 10L + UPDATES_PER_CAR, reloaded.getCarDetailsById(7).getPrice());
+        reloaded.close();
+    }
+
+    @Test
+    void testConcurrentAddsOfTheSameIdAcceptOnlyOne() throws Exception {
+        CarController carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < WRITERS * 4; i++) {
+            attempts.add(executor.submit(() -> {
+                try {
+                    carController.addCarLogic(car(42, 0));
+                    return true;
+                } catch (BusinessException e) {
+                    return false;
+                }
+            }));
+        }
+        int accepted = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(60, TimeUnit.SECONDS)) {
+                accepted++;
+            }
+        }
+        executor.shutdown();
+        carController.close();
+
+        Assertions.assertEquals(1, accepted);
+        Assertions.assertEquals(1, carController.getAllCarsLogic().size());
+    }
+}
@@ -0,0 +1,151 @@
+package controller;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import controller.index.BitmapFilter;
+import controller.query.CarQuery;
+import model.DTO.CarDTO;
+import model.DTO.PageDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+import model.entity.TestCars;
+import model.store.ColumnarCarStore;
+import model.store.MappedCarStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CarControllerMappedStoreTest {
+    @TempDir
+    Path tempDir;
+
+    private CarDAO csvDAO() {
+        return new CarDAO(tempDir.resolve("cars.csv").toString());
+    }
+
+    private CarController controller() throws IOException, BusinessException {
+        CarController carController = new CarController(csvDAO(), MappedCarStore.open(tempDir.resolve("cars.db")));
+        carController.loadCarsFromCSV();
+        return carController;
+    }
+
+    @Test
+    void testStoreIsImportedOnceAndThenAuthoritative() throws Exception {
+        ColumnarCarStore seed = new ColumnarCarStore();
+        seed.add(TestCars.car(1, "VW", 1000));
+        seed.add(TestCars.car(2, "BMW", 2000));
+        csvDAO().writeCarStore(seed);
+
+        CarController carController = controller();
+        Assertions.assertEquals(2, carController.getAllCarsLogic().size());
+        carController.addCarLogic(TestCars.car(3, "Kia", 500));
+        carController.deleteCarByID(1);
+        carController.updateCarLogic(TestCars.car(4, "Audi", 4000), 2);
+        carController.addCarsLogic(Arrays.asList(TestCars.car(5, "Kia", 700), TestCars.car(6, "VW", 900)));
+        carController.deleteCarsByIDLogic(Arrays.asList(5, 7));
+        Assertions.assertThrows(IllegalStateException.class, () -> carController.enableGroupCommit(5));
+        carController.close();
+
+        // Changes went to the mapped file only; cars.csv still holds the imported cars
+        Assertions.assertEquals(2, csvDAO().readCarStore().size());
+        Assertions.assertTrue(Files.size(tempDir.resolve("cars.db")) > 0);
+
+        CarController reloaded = controller();
+        Assertions.assertEquals(3, reloaded.getAllCarsLogic().size());
+        Assertions.assertNull(reloaded.getCarDetailsById(1));
+        Assertions.assertEquals("Audi", reloaded.getCarDetailsById(4).getManufacturer());
+        Assertions.assertEquals(1, reloaded.getCarsByManufacturerLogic("kia").size());
+        Assertions.assertEquals(1, reloaded.getCarsByManufacturerLogic("vw").size());
+        Assertions.assertEquals(2, reloaded.getCarsWithPriceLowerThanLogic(1000).size());
+        Assertions.assertEquals(3, reloaded.getAllCarsPage(0, 10).getItems().size());
+
+        // Reusing a freed slot keeps the indexes consistent
+        reloaded.addCarLogic(TestCars.car(8, "Fiat", 100));
+        Assertions.assertEquals(8, reloaded.getCarsWithPriceLowerThanLogic(500).get(0).getId());
+        reloaded.close();
+    }
+
+    @Test
+    void testQueriesWithoutHeapIndexesMatchTheIndexedController() throws Exception {
+        String[] manufacturers = {"VW", "BMW", "Kia", "Audi"};
+        FuelType[] fuelTypes = FuelType.values();
+        List<Car> inventory = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            // Repeated prices exercise the ID tie-break
+            inventory.add(new Car(id, manufacturers[id % manufacturers.length], "Model" + id % 7, (id * 37) % 50 * 100L,
+                    Timestamp.valueOf(LocalDate.of(2015 + id % 10, 1 + id % 12, 1).atStartOfDay()),
+                    fuelTypes[id % fuelTypes.length], 60 + id));
+        }
+        CarController indexed = new CarController(new CarDAO(tempDir.resolve("indexed.csv").toString()));
+        CarController scanned = controller();
+        for (CarController carController : Arrays.asList(indexed, scanned)) {
+            carController.loadCarsFromCSV();
+            carController.addCarsLogic(inventory);
+            carController.deleteCarsByIDLogic(Arrays.asList(5, 50, 150));
+            carController.updateCarLogic(TestCars.car(7, "Kia", 0), 7);
+        }
+
+        assertSame(indexed.getCarsByManufacturerLogic("kia"), scanned.getCarsByManufacturerLogic("KIA"));
+        assertSame(indexed.getCarsWithPriceLowerThanLogic(1500), scanned.getCarsWithPriceLowerThanLogic(1500));
+        assertSame(indexed.getCarsWithPriceBetweenLogic(800, 2500), scanned.getCarsWithPriceBetweenLogic(800, 2500));
+        assertSame(indexed.getCheapestCarsAboveLogic(1200, 9), scanned.getCheapestCarsAboveLogic(1200, 9));
+        Assertions.assertEquals(String.valueOf(indexed.getPriceFloorLogic(2450)),
+                String.valueOf(scanned.getPriceFloorLogic(2450)));
+        Assertions.assertEquals(String.valueOf(indexed.getPriceCeilingLogic(2450)),
+                String.valueOf(scanned.getPriceCeilingLogic(2450)));
+        BitmapFilter filter = BitmapFilter.fuelTypes(FuelType.DIESEL).and(BitmapFilter.productionYears(2017, 2020));
+        Assertions.assertEquals(indexed.countCarsMatching(filter), scanned.countCarsMatching(filter));
+        Assertions.assertEquals(indexed.getCarsMatching(filter).size(), scanned.getCarsMatching(filter).size());
+
+        // Walking every listing page by page visits the same cars in the same order
+        long afterId = Long.MIN_VALUE;
+        long afterPrice = Long.MIN_VALUE;
+        PageDTO<CarDTO> expected;
+        do {
+            expected = indexed.getCarsWithPriceLowerThanPage(3000, afterPrice, afterId, 17);
+            PageDTO<CarDTO> actual = scanned.getCarsWithPriceLowerThanPage(3000, afterPrice, afterId, 17);
+            assertSame(expected.getItems(), actual.getItems());
+            Assertions.assertEquals(expected.hasMore(), actual.hasMore());
+            afterId = expected.getLastId();
+            afterPrice = expected.getLastPrice();
+        } while (expected.hasMore());
+        assertSame(indexed.getAllCarsPage(40, 25).getItems(), scanned.getAllCarsPage(40, 25).getItems());
+        assertSame(indexed.getAllCarsPageAt(100, 25).getItems(), scanned.getAllCarsPageAt(100, 25).getItems());
+        assertSame(indexed.getCarsByManufacturerPage("bmw", 60, 10).getItems(),
+                scanned.getCarsByManufacturerPage("bmw", 60, 10).getItems());
+        assertSame(indexed.getCarsByManufacturerPageAt("audi", 5, 10).getItems(),
+                scanned.getCarsByManufacturerPageAt("audi", 5, 10).getItems());
+        assertSame(indexed.getCarsWithPriceLowerThanPageAt(2000, 30, 10).getItems(),
+                scanned.getCarsWithPriceLowerThanPageAt(2000, 30, 10).getItems());
+        StringWriter indexedListing = new StringWriter();
+        StringWriter scannedListing = new StringWriter();
+        indexed.writeAllCars(indexedListing);
+        scanned.writeAllCars(scannedListing);
+        Assertions.assertEquals(indexedListing.toString(), scannedListing.toString());
+
+        for (CarQuery query : Arrays.asList(
+                new CarQuery().manufacturer("VW").sortBy(CarQuery.SortField.PRICE, false).limit(5),
+                new CarQuery().priceBetween(500, 1500).fuelTypes(FuelType.ELECTRIC),
+                new CarQuery().sortBy(CarQuery.SortField.ID, true).limit(12),
+                new CarQuery().id(42))) {
+            assertSame(indexed.findCarsLogic(query), scanned.findCarsLogic(query));
+        }
+        Assertions.assertEquals(indexed.getInventoryStatsLogic().toString(), scanned.getInventoryStatsLogic().toString());
+        indexed.close();
+        scanned.close();
+    }
+
+    private static void assertSame(List<?> expected, List<?> actual) {
+        Assertions.assertEquals(expected.toString(), actual.toString());
+    }
+}
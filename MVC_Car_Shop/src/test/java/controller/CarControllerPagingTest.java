@@ -0,0 +1,134 @@
+package controller;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.DTO.CarDTO;
+import model.DTO.CarManufacturerDTO;
+import model.DTO.PageDTO;
+import model.entity.Car;
+import model.entity.TestCars;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CarControllerPagingTest {
+    @TempDir
+    Path tempDir;
+
+    private CarController carController;
+
+    @BeforeEach
+    void setUp() throws BusinessException {
+        carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+        List<Car> cars = new ArrayList<>();
+        // IDs are added out of order; prices repeat so the price cursor needs the ID as a tie-breaker
+        for (int i = 0; i < 2500; i++) {
+            int id = (i * 7919) % 2500 + 1;
+            cars.add(TestCars.car(id, id % 3 == 0 ? "VW" : "BMW", 1000 + id % 50));
+        }
+        carController.addCarsLogic(cars);
+    }
+
+    @Test
+    void testKeysetPagesVisitEveryCarOnceInIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+        PageDTO<CarDTO> page = carController.getAllCarsPage(Long.MIN_VALUE, 300);
+        while (true) {
+            for (CarDTO car : page.getItems()) {
+                ids.add(car.getId());
+            }
+            if (!page.hasMore()) {
+                break;
+            }
+            page = carController.getAllCarsPage(page.getLastId(), 300);
+        }
+        Assertions.assertEquals(2500, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Assertions.assertEquals(i + 1, ids.get(i));
+        }
+
+        PageDTO<CarDTO> offsetPage = carController.getAllCarsPageAt(2490, 300);
+        Assertions.assertEquals(10, offsetPage.getItems().size());
+        Assertions.assertEquals(2491, offsetPage.getItems().get(0).getId());
+        Assertions.assertFalse(offsetPage.hasMore());
+    }
+
+    @Test
+    void testKeysetSurvivesDeletesBetweenPages() throws BusinessException {
+        PageDTO<CarManufacturerDTO> first = carController.getCarsByManufacturerPage("vw", Long.MIN_VALUE, 10);
+        Assertions.assertEquals(30, first.getLastId());
+        // Deleting cars already listed does not shift the next page
+        carController.deleteCarByID(3);
+        carController.deleteCarByID(6);
+        PageDTO<CarManufacturerDTO> second = carController.getCarsByManufacturerPage("vw", first.getLastId(), 10);
+        Assertions.assertEquals(33, second.getItems().get(0).getId());
+
+        PageDTO<CarManufacturerDTO> offsetPage = carController.getCarsByManufacturerPageAt("VW", 2, 1);
+        Assertions.assertEquals(15, offsetPage.getItems().get(0).getId());
+    }
+
+    @Test
+    void testPricePagesMatchThePriceQuery() {
+        List<CarDTO> expected = carController.getCarsWithPriceLowerThanLogic(1010);
+        List<CarDTO> paged = new ArrayList<>();
+        long afterPrice = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        PageDTO<CarDTO> page;
+        do {
+            page = carController.getCarsWithPriceLowerThanPage(1010, afterPrice, afterId, 7);
+            paged.addAll(page.getItems());
+            afterPrice = page.getLastPrice();
+            afterId = page.getLastId();
+        } while (page.hasMore());
+
+        Assertions.assertEquals(500, expected.size());
+        Assertions.assertEquals(expected.size(), paged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getId(), paged.get(i).getId());
+        }
+        Assertions.assertEquals(expected.get(14).getId(),
+                carController.getCarsWithPriceLowerThanPageAt(1010, 14, 1).getItems().get(0).getId());
+    }
+
+    @Test
+    void testCachedQueriesFollowMutations() throws BusinessException {
+        Assertions.assertEquals(500, carController.getCarsWithPriceLowerThanLogic(1010).size());
+        Assertions.assertEquals(833, carController.getCarsByManufacturerLogic("VW").size());
+        Assertions.assertEquals(1667, carController.getCarsByManufacturerLogic("BMW").size());
+        Assertions.assertEquals(500, carController.getCarsWithPriceLowerThanLogic(1010).size());
+        Assertions.assertEquals(1, carController.getQueryCacheStats().getHits());
+
+        // A BMW priced 1049 leaves the price entry and the VW entry valid
+        carController.deleteCarByID(49);
+        Assertions.assertEquals(500, carController.getCarsWithPriceLowerThanLogic(1010).size());
+        Assertions.assertEquals(833, carController.getCarsByManufacturerLogic("vw").size());
+        Assertions.assertEquals(1666, carController.getCarsByManufacturerLogic("BMW").size());
+        Assertions.assertEquals(3, carController.getQueryCacheStats().getHits());
+
+        // Moving a car into VW below 1010 invalidates both
+        carController.updateCarLogic(TestCars.car(49, "VW", 5), 50);
+        Assertions.assertEquals(500, carController.getCarsWithPriceLowerThanLogic(1010).size());
+        Assertions.assertEquals(5, carController.getCarsWithPriceLowerThanLogic(1010).get(0).getPrice());
+        Assertions.assertEquals(834, carController.getCarsByManufacturerLogic("VW").size());
+    }
+
+    @Test
+    void testStreamingWritesOneLinePerCar() throws IOException {
+        StringWriter out = new StringWriter();
+        Assertions.assertEquals(2500, carController.writeAllCars(out));
+        String[] lines = out.toString().split(System.lineSeparator());
+        Assertions.assertEquals(2500, lines.length);
+        Assertions.assertEquals(carController.getAllCarsPage(Long.MIN_VALUE, 1).getItems().get(0).toString(), lines[0]);
+
+        Assertions.assertEquals(833, carController.writeCarsByManufacturer("VW", new StringWriter()));
+        Assertions.assertEquals(0, carController.writeCarsWithPriceLowerThan(1000, new StringWriter()));
+    }
+}
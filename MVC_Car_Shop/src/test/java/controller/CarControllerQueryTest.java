@@ -0,0 +1,207 @@
+package controller;
+
+import controller.DAO.CarDAO;
+import controller.query.CarQuery;
+import exceptions.BusinessException;
+import model.DTO.CarDetailDTO;
+import model.DTO.QueryResultDTO;
+import model.DTO.SearchSuggestionDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class CarControllerQueryTest {
+    private static final String[] MANUFACTURERS = {"VW", "BMW", "Kia", "Audi", "Skoda", "Porsche"};
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    @TempDir
+    Path tempDir;
+
+    private static Timestamp date(int year, int dayOfYear) {
+        return Timestamp.valueOf(LocalDate.ofYearDay(year, dayOfYear).atStartOfDay());
+    }
+
+    private CarController controller(List<Car> cars) throws BusinessException {
+        CarController carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+        Random random = new Random(11);
+        List<Car> batch = new ArrayList<>();
+        for (int id = 1; id <= 3000; id++) {
+            batch.add(new Car(id, MANUFACTURERS[random.nextInt(MANUFACTURERS.length)], "Model" + random.nextInt(20),
+                    1000 + random.nextInt(100_000), date(2015 + random.nextInt(10), 1 + random.nextInt(365)),
+                    FUEL_TYPES[random.nextInt(FUEL_TYPES.length)], 60 + random.nextInt(500)));
+        }
+        carController.addCarsLogic(batch);
+        // Deletes move rows around in the store
+        for (int id = 1; id <= 3000; id += 7) {
+            carController.deleteCarByID(id);
+        }
+        for (Car car : batch) {
+            if (car.getId() % 7 != 1) {
+                cars.add(car);
+            }
+        }
+        return carController;
+    }
+
+    private static boolean matches(Car car, int manufacturer, long maxPrice, FuelType fuelType, int fromYear) {
+        return (manufacturer < 0 || car.getManufacturer().equals(MANUFACTURERS[manufacturer]))
+                && car.getPrice() <= maxPrice
+                && (fuelType == null || car.getFuelType() == fuelType)
+                && car.getProductionDate().getTime() >= date(fromYear, 1).getTime();
+    }
+
+    @Test
+    void testRandomQueriesMatchABruteForceScan() throws BusinessException {
+        List<Car> cars = new ArrayList<>();
+        CarController carController = controller(cars);
+        Random random = new Random(5);
+        CarQuery.SortField[] sortFields = CarQuery.SortField.values();
+        for (int i = 0; i < 200; i++) {
+            int manufacturer = random.nextInt(3) == 0 ? random.nextInt(MANUFACTURERS.length) : -1;
+            long maxPrice = random.nextBoolean() ? 1000 + random.nextInt(100_000) : Long.MAX_VALUE;
+            FuelType fuelType = random.nextBoolean() ? FUEL_TYPES[random.nextInt(FUEL_TYPES.length)] : null;
+            int fromYear = 2015 + random.nextInt(12);
+            CarQuery.SortField sortField = sortFields[random.nextInt(sortFields.length)];
+            boolean descending = random.nextBoolean();
+            int limit = random.nextBoolean() ? 1 + random.nextInt(50) : Integer.MAX_VALUE;
+
+            CarQuery query = new CarQuery().producedBetween(date(fromYear, 1), null).sortBy(sortField, descending)
+                    .limit(limit);
+            if (manufacturer >= 0) {
+                query.manufacturer(MANUFACTURERS[manufacturer].toLowerCase());
+            }
+            if (maxPrice != Long.MAX_VALUE) {
+                query.priceBetween(Long.MIN_VALUE, maxPrice);
+            }
+            if (fuelType != null) {
+                query.fuelTypes(fuelType);
+            }
+
+            Comparator<Car> order = switch (sortField) {
+                case PRICE -> Comparator.comparingLong(Car::getPrice);
+                case HORSEPOWER -> Comparator.comparingInt(Car::getHorsepower);
+                case PRODUCTION_DATE -> Comparator.comparingLong(car -> car.getProductionDate().getTime());
+                case ID -> Comparator.comparingInt(Car::getId);
+            };
+            if (descending) {
+                order = order.reversed();
+            }
+            order = order.thenComparing(Comparator.comparingInt(car -> descending && sortField == CarQuery.SortField.ID
+                    ? -car.getId() : car.getId()));
+            List<Integer> expected = cars.stream()
+                    .filter(car -> matches(car, manufacturer, maxPrice, fuelType, fromYear))
+                    .sorted(order).limit(limit).map(Car::getId).collect(Collectors.toList());
+
+            QueryResultDTO result = carController.explainFindCarsLogic(query);
+            List<Integer> actual = result.getCars().stream().map(CarDetailDTO::getId).collect(Collectors.toList());
+            Assertions.assertEquals(expected, actual, query + "\n" + result);
+        }
+    }
+
+    @Test
+    void testExplainShowsThePlanAndTheRowsExamined() throws BusinessException {
+        CarController carController = controller(new ArrayList<>());
+        int size = carController.getAllCarsLogic().size();
+
+        QueryResultDTO byId = carController.explainFindCarsLogic(new CarQuery().id(2).model("nothing"));
+        Assertions.assertTrue(byId.getPlan().contains("ID lookup id = 2"), byId.getPlan());
+        Assertions.assertEquals(1, byId.getRowsExamined());
+        Assertions.assertTrue(byId.getCars().isEmpty());
+        // An empty index is cheaper still
+        QueryResultDTO unknown = carController.explainFindCarsLogic(new CarQuery().id(2).manufacturer("nobody"));
+        Assertions.assertTrue(unknown.getPlan().contains("Manufacturer index scan"), unknown.getPlan());
+        Assertions.assertEquals(0, unknown.getRowsExamined());
+
+        QueryResultDTO cheapest = carController.explainFindCarsLogic(new CarQuery()
+                .priceBetween(0, 20_000).sortBy(CarQuery.SortField.PRICE, false).limit(5));
+        Assertions.assertTrue(cheapest.getPlan().startsWith("Limit 5\n  Price index scan"), cheapest.getPlan());
+        Assertions.assertEquals(5, cheapest.getRowsExamined());
+        Assertions.assertTrue(cheapest.toString().endsWith("Rows examined: 5, Rows returned: 5"));
+
+        QueryResultDTO electric = carController.explainFindCarsLogic(new CarQuery().fuelTypes(FuelType.ELECTRIC)
+                .producedBetween(date(2024, 1), date(2024, 365)).sortBy(CarQuery.SortField.HORSEPOWER, true));
+        Assertions.assertTrue(electric.getPlan().contains("Bitmap index scan"), electric.getPlan());
+        Assertions.assertTrue(electric.getRowsExamined() < size / 10);
+        for (CarDetailDTO car : electric.getCars()) {
+            Assertions.assertEquals(FuelType.ELECTRIC, car.getFuelType());
+        }
+
+        Assertions.assertEquals(0, carController.findCarsLogic(new CarQuery().limit(0)).size());
+        Assertions.assertEquals(3, carController.findCarsLogic(new CarQuery().model("model3").limit(3)).size());
+    }
+
+    @Test
+    void testTopCarsMatchABruteForceSort() throws BusinessException {
+        List<Car> cars = new ArrayList<>();
+        CarController carController = controller(cars);
+        Comparator<Car> byId = Comparator.comparingInt(Car::getId);
+        Comparator<Car> cheapest = Comparator.comparingLong(Car::getPrice).thenComparing(byId);
+        Comparator<Car> mostPowerful = Comparator.comparingInt(Car::getHorsepower).reversed().thenComparing(byId);
+        Comparator<Car> newest = Comparator.comparingLong((Car car) -> car.getProductionDate().getTime()).reversed()
+                .thenComparing(byId);
+        for (int k : new int[]{0, 1, 10, 5000}) {
+            for (String manufacturer : new String[]{null, "porsche"}) {
+                for (FuelType fuelType : new FuelType[]{null, FuelType.ELECTRIC}) {
+                    List<Car> matching = cars.stream()
+                            .filter(car -> manufacturer == null || car.getManufacturer().equalsIgnoreCase(manufacturer))
+                            .filter(car -> fuelType == null || car.getFuelType() == fuelType)
+                            .collect(Collectors.toList());
+                    Assertions.assertEquals(top(matching, cheapest, k),
+                            ids(carController.getCheapestCarsLogic(k, manufacturer, fuelType)));
+                    Assertions.assertEquals(top(matching, mostPowerful, k),
+                            ids(carController.getMostPowerfulCarsLogic(k, manufacturer, fuelType)));
+                    Assertions.assertEquals(top(matching, newest, k),
+                            ids(carController.getNewestCarsLogic(k, manufacturer, fuelType)));
+                }
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carController.getNewestCarsLogic(-1, null, null));
+
+        // Limited queries without an ordered path keep a heap of the limit instead of sorting every match
+        QueryResultDTO dearest = carController.explainFindCarsLogic(new CarQuery()
+                .sortBy(CarQuery.SortField.PRICE, true).limit(3));
+        Assertions.assertTrue(dearest.getPlan().startsWith("Top 3 by PRICE desc"), dearest.getPlan());
+    }
+
+    private static List<Integer> top(List<Car> cars, Comparator<Car> order, int k) {
+        return cars.stream().sorted(order).limit(k).map(Car::getId).collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<CarDetailDTO> cars) {
+        return cars.stream().map(CarDetailDTO::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testSearchFollowsMutations() throws BusinessException {
+        CarController carController = controller(new ArrayList<>());
+        Assertions.assertEquals("Porsche", carController.searchCarsLogic("porshe", 1).get(0).getManufacturer());
+
+        carController.addCarLogic(new Car(5001, "Ferrari", "Roma Spider", 250_000, date(2024, 10),
+                FuelType.GASOLINE, 612));
+        List<SearchSuggestionDTO> roma = carController.searchCarsLogic("fer rom", 5);
+        Assertions.assertEquals(1, roma.size());
+        Assertions.assertEquals("Roma Spider", roma.get(0).getModel());
+        Assertions.assertEquals(1, roma.get(0).getCarCount());
+
+        carController.updateCarLogic(new Car(5001, "Ferrari", "Purosangue", 400_000, date(2024, 10),
+                FuelType.GASOLINE, 715), 5001);
+        Assertions.assertTrue(carController.searchCarsLogic("roma", 5).isEmpty());
+        Assertions.assertEquals("Purosangue", carController.searchCarsLogic("purosangeu", 5).get(0).getModel());
+
+        carController.deleteCarByID(5001);
+        Assertions.assertTrue(carController.searchCarsLogic("ferrari", 5).isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carController.searchCarsLogic("vw", 0));
+    }
+}
@@ -0,0 +1,101 @@
+package controller;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.DTO.GroupStatsDTO;
+import model.DTO.InventoryStatsDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+public class CarControllerStatsTest {
+    private static final String[] MANUFACTURERS = {"VW", "BMW", "Kia", "Audi"};
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    @TempDir
+    Path tempDir;
+
+    private static Car car(int id, Random random) {
+        return new Car(id, MANUFACTURERS[random.nextInt(MANUFACTURERS.length)], "Model" + id,
+                1000 + random.nextInt(50) * 100, Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()),
+                FUEL_TYPES[random.nextInt(FUEL_TYPES.length)], 60 + random.nextInt(300));
+    }
+
+    @Test
+    void testStatsFollowRandomMutations() throws BusinessException {
+        CarController carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+        Random random = new Random(3);
+        Map<Integer, Car> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            int id = 1 + random.nextInt(300);
+            int operation = random.nextInt(3);
+            if (!expected.containsKey(id)) {
+                Car car = car(id, random);
+                carController.addCarLogic(car);
+                expected.put(id, car);
+            } else if (operation == 0) {
+                carController.deleteCarByID(id);
+                expected.remove(id);
+            } else {
+                Car car = car(id, random);
+                carController.updateCarLogic(car, id);
+                expected.put(id, car);
+            }
+            if (i % 100 == 0) {
+                assertStats(expected, carController.getInventoryStatsLogic());
+            }
+        }
+        assertStats(expected, carController.getInventoryStatsLogic());
+        Assertions.assertEquals(List.of(), carController.rebuildAndVerifyInventoryStats());
+
+        // Reloading rebuilds the same figures
+        carController.close();
+        CarController reloaded = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        reloaded.loadCarsFromCSV();
+        assertStats(expected, reloaded.getInventoryStatsLogic());
+    }
+
+    private static void assertStats(Map<Integer, Car> expected, InventoryStatsDTO stats) {
+        int count = 0;
+        for (GroupStatsDTO group : stats.getManufacturers()) {
+            assertGroup(expected, group, car -> car.getManufacturer().equals(group.getGroup()));
+            count += group.getCount();
+        }
+        for (GroupStatsDTO group : stats.getFuelTypes()) {
+            assertGroup(expected, group, car -> car.getFuelType().name().equals(group.getGroup()));
+        }
+        assertGroup(expected, stats.getTotal(), car -> true);
+        Assertions.assertEquals(expected.size(), count);
+    }
+
+    private static void assertGroup(Map<Integer, Car> expected, GroupStatsDTO group,
+                                    Predicate<Car> member) {
+        long[] figures = {0, 0, Long.MAX_VALUE, Long.MIN_VALUE, 0};
+        for (Car car : expected.values()) {
+            if (member.test(car)) {
+                figures[0]++;
+                figures[1] += car.getPrice();
+                figures[2] = Math.min(figures[2], car.getPrice());
+                figures[3] = Math.max(figures[3], car.getPrice());
+                figures[4] += car.getHorsepower();
+            }
+        }
+        Assertions.assertEquals(figures[0], group.getCount(), group.toString());
+        Assertions.assertEquals(figures[1], group.getTotalPrice(), group.toString());
+        Assertions.assertEquals(figures[2], group.getMinPrice(), group.toString());
+        Assertions.assertEquals(figures[3], group.getMaxPrice(), group.toString());
+        Assertions.assertEquals((double) figures[4] / figures[0], group.getAverageHorsepower(), 1e-9);
+    }
+}
@@ -1,6 +1,8 @@
 package controller;
 
+import controller.index.BitmapFilter;
 import exceptions.BusinessException;
+import exceptions.DuplicateCarException;
 import model.DTO.CarDTO;
 import model.DTO.CarDetailDTO;
 import model.entity.Car;
@@ -12,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.text.ParseException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -360,6 +363,21 @@ public class CarControllerTest {
         Assertions.assertEquals(horsepower, addedCarDetails.getHorsepower());
     }
 
+    @Test
+    void testUpdateAndDeleteReportWhetherTheCarExisted() throws BusinessException {
+        CarDetailDTO existing = carController.getCarDetailsById(15);
+        Car car = new Car(999_999, existing.getManufacturer(), existing.getModel(), existing.getPrice(),
+                existing.getProductionDate(), existing.getFuelType(), existing.getHorsepower());
+        Assertions.assertFalse(carController.updateCarLogic(car, 999_998));
+        Assertions.assertFalse(carController.deleteCarByID(999_998));
+        Assertions.assertNull(carController.getCarDetailsById(999_999));
+
+        // An ID another car has is refused with its own exception
+        Car taken = new Car(15, existing.getManufacturer(), existing.getModel(), existing.getPrice(),
+                existing.getProductionDate(), existing.getFuelType(), existing.getHorsepower());
+        Assertions.assertThrows(DuplicateCarException.class, () -> carController.addCarLogic(taken));
+    }
+
     @Test
     void testGetCarDetailsForExistingCar() throws BusinessException {
         // Add a dummy car to the CarController
@@ -419,14 +437,11 @@ public class CarControllerTest {
 
         // Get the final size of the car list after adding the dummy cars
         int finalSize = carController.getAllCarsLogic().size();
+        Assertions.assertEquals(initialSize + 2, finalSize);
 
-        // Calculate the number of dummy cars added during the test
-        int numDummyCarsAdded = finalSize - initialSize;
-
-        // Delete the dummy cars from the end of the list based on the number of dummy cars added during the test
-        for (int i = 0; i < numDummyCarsAdded; i++) {
-            carController.deleteCarByID(finalSize - 1 - i);
-        }
+        // Delete the dummy cars by their IDs
+        carController.deleteCarByID(car1.getId());
+        carController.deleteCarByID(car2.getId());
     }
 
     @Test
@@ -475,4 +490,107 @@ public class CarControllerTest {
         carController.deleteCarByID(1);
         carController.deleteCarByID(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetCarsByManufacturerFollowsMutations() throws BusinessException {
+        Car car = new Car(1, "DummyManufacturer", "DummyModel",
+                9000, new Timestamp(System.currentTimeMillis()), FuelType.GASOLINE, 150);
+        carController.addCarLogic(car);
+
+        // Lookup is case-insensitive
+        Assertions.assertEquals(1, carController.getCarsByManufacturerLogic("dummymanufacturer").size());
+
+        // Changing the manufacturer moves the car to the new manufacturer
+        Car updatedCar = new Car(2, "OtherManufacturer", "DummyModel",
+                9000, car.getProductionDate(), FuelType.GASOLINE, 150);
+        carController.updateCarLogic(updatedCar, 1);
+        Assertions.assertTrue(carController.getCarsByManufacturerLogic("DummyManufacturer").isEmpty());
+        Assertions.assertEquals(1, carController.getCarsByManufacturerLogic("OTHERMANUFACTURER").size());
+
+        carController.deleteCarByID(2);
+        Assertions.assertTrue(carController.getCarsByManufacturerLogic("OtherManufacturer").isEmpty());
+    }
+
+    @Test
+    void testPriceRangeQueries() throws BusinessException {
+        // Prices far below the ones in the CSV file
+        Car car1 = new Car(1, "DummyManufacturer", "DummyModel1",
+                100, new Timestamp(System.currentTimeMillis()), FuelType.GASOLINE, 150);
+        Car car2 = new Car(2, "DummyManufacturer", "DummyModel2",
+                200, new Timestamp(System.currentTimeMillis()), FuelType.GASOLINE, 150);
+        Car car3 = new Car(3, "DummyManufacturer", "DummyModel3",
+                300, new Timestamp(System.currentTimeMillis()), FuelType.GASOLINE, 150);
+        carController.addCarLogic(car3);
+        carController.addCarLogic(car1);
+        carController.addCarLogic(car2);
+
+        List<CarDTO> lowerThan = carController.getCarsWithPriceLowerThanLogic(300);
+        Assertions.assertEquals(2, lowerThan.size());
+        Assertions.assertEquals(1, lowerThan.get(0).getId());
+        Assertions.assertEquals(3, carController.getCarsWithPriceAtMostLogic(300).size());
+        Assertions.assertEquals(2, carController.getCarsWithPriceBetweenLogic(150, 300).size());
+
+        List<CarDTO> cheapestAbove = carController.getCheapestCarsAboveLogic(100, 1);
+        Assertions.assertEquals(1, cheapestAbove.size());
+        Assertions.assertEquals(2, cheapestAbove.get(0).getId());
+        Assertions.assertEquals(2, carController.getPriceFloorLogic(250).getId());
+        Assertions.assertEquals(3, carController.getPriceCeilingLogic(250).getId());
+
+        // A price change moves the car within the index
+        Car updatedCar = new Car(1, "DummyManufacturer", "DummyModel1",
+                400, car1.getProductionDate(), FuelType.GASOLINE, 150);
+        carController.updateCarLogic(updatedCar, 1);
+        Assertions.assertEquals(2, carController.getCarsWithPriceAtMostLogic(300).get(0).getId());
+        Assertions.assertEquals(3, carController.getPriceFloorLogic(399).getId());
+
+        carController.deleteCarByID(1);
+        carController.deleteCarByID(2);
+        carController.deleteCarByID(3);
+    }
+
+    @Test
+    void testBitmapFiltersFollowMutations() throws BusinessException {
+        BitmapFilter recentGreen = BitmapFilter.fuelTypes(FuelType.HYBRID, FuelType.ELECTRIC)
+                .and(BitmapFilter.productionYears(2023, 2024));
+        int initialMatches = carController.countCarsMatching(recentGreen);
+        FuelType[] fuelTypes = FuelType.values();
+        for (int id = 101; id <= 140; id++) {
+            carController.addCarLogic(new Car(id, "DummyManufacturer", "DummyModel" + id, 100 * id,
+                    Timestamp.valueOf(LocalDate.of(2020 + id % 6, 3, 1).atStartOfDay()),
+                    fuelTypes[id % fuelTypes.length], 150));
+        }
+        // Deleting moves other cars between rows
+        for (int id = 101; id <= 140; id += 3) {
+            carController.deleteCarByID(id);
+        }
+        carController.updateCarLogic(new Car(102, "DummyManufacturer", "DummyModel102", 200,
+                Timestamp.valueOf(LocalDate.of(2024, 1, 1).atStartOfDay()), FuelType.ELECTRIC, 150), 102);
+
+        int expected = initialMatches;
+        for (CarDTO car : carController.getAllCarsLogic()) {
+            CarDetailDTO details = carController.getCarDetailsById(car.getId());
+            int year = details.getProductionDate().toLocalDateTime().getYear();
+            boolean green = details.getFuelType() == FuelType.HYBRID || details.getFuelType() == FuelType.ELECTRIC;
+            if ("DummyManufacturer".equals(details.getManufacturer()) && green && year >= 2023 && year <= 2024) {
+                expected++;
+            }
+        }
+        List<CarDTO> matches = carController.getCarsMatching(recentGreen);
+        Assertions.assertEquals(expected, matches.size());
+        Assertions.assertEquals(expected, carController.countCarsMatching(recentGreen));
+        for (CarDTO car : matches) {
+            CarDetailDTO details = carController.getCarDetailsById(car.getId());
+            int year = details.getProductionDate().toLocalDateTime().getYear();
+            Assertions.assertTrue(year >= 2023 && year <= 2024);
+            Assertions.assertNotEquals(FuelType.GASOLINE, details.getFuelType());
+            Assertions.assertNotEquals(FuelType.DIESEL, details.getFuelType());
+        }
+
+        for (int id = 101; id <= 140; id++) {
+            if (carController.containsCar(id)) {
+                carController.deleteCarByID(id);
+            }
+        }
+        Assertions.assertEquals(initialMatches, carController.countCarsMatching(recentGreen));
+    }
+}
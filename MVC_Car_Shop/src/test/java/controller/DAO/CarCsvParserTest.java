@@ -0,0 +1,83 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CarCsvParserTest {
+
+    private static List<Car> parse(String csv) throws IOException, BusinessException {
+        CarCsvParser parser = new CarCsvParser();
+        List<Car> cars = new ArrayList<>();
+        parser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                (id, manufacturer, model, price, productionEpochDay, fuelType, horsepower) ->
+                        cars.add(new Car(id, manufacturer, model, price, parser.toTimestamp(productionEpochDay),
+                                fuelType, horsepower)));
+        return cars;
+    }
+
+    @Test
+    void testParseRows() throws IOException, BusinessException, ParseException {
+        List<Car> cars = parse("15, Porsche, Cayenne, 70000, 11.03.2024, HYBRID, 372\n"
+                + "\n"
+                + "2, BMW, X3, 20000, 14.03.2017, gasoline , 130\r\n"
+                + "3, Škoda, Octavia RS, -1, 29.02.2020, Electric, 245");
+
+        Assertions.assertEquals(3, cars.size());
+        Car porsche = cars.get(0);
+        Assertions.assertEquals(15, porsche.getId());
+        Assertions.assertEquals("Porsche", porsche.getManufacturer());
+        Assertions.assertEquals("Cayenne", porsche.getModel());
+        Assertions.assertEquals(70000, porsche.getPrice());
+        Assertions.assertEquals(FuelType.HYBRID, porsche.getFuelType());
+        Assertions.assertEquals(372, porsche.getHorsepower());
+        // Same instant as the previous SimpleDateFormat based reader
+        Timestamp expected = new Timestamp(new SimpleDateFormat("dd.MM.yyyy").parse("11.03.2024").getTime());
+        Assertions.assertEquals(expected, porsche.getProductionDate());
+
+        Assertions.assertEquals(FuelType.GASOLINE, cars.get(1).getFuelType());
+        Assertions.assertEquals("Škoda", cars.get(2).getManufacturer());
+        Assertions.assertEquals("Octavia RS", cars.get(2).getModel());
+        Assertions.assertEquals(-1, cars.get(2).getPrice());
+        Assertions.assertEquals(FuelType.ELECTRIC, cars.get(2).getFuelType());
+    }
+
+    @Test
+    void testMalformedLineReportsLineNumber() {
+        BusinessException e = Assertions.assertThrows(BusinessException.class, () ->
+                parse("1, VW, Golf VII, 15000, 20.12.2018, diesel, 101\n"
+                        + "2, BMW, X3, 2000O, 14.03.2017, gasoline, 130\n"));
+        Assertions.assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+
+        e = Assertions.assertThrows(BusinessException.class, () ->
+                parse("1, VW, Golf VII, 15000, 31.02.2018, diesel, 101\n"));
+        Assertions.assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+
+        e = Assertions.assertThrows(BusinessException.class, () ->
+                parse("1, VW, Golf VII, 15000, 20.12.2018, steam, 101\n"));
+        Assertions.assertTrue(e.getMessage().contains("steam"), e.getMessage());
+
+        Assertions.assertThrows(BusinessException.class, () ->
+                parse("99999999999, VW, Golf VII, 15000, 20.12.2018, diesel, 101\n"));
+    }
+
+    @Test
+    void testEpochDayMatchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1890, 1, 1); date.getYear() < 2110; date = date.plusDays(7)) {
+            Assertions.assertEquals(date.toEpochDay(),
+                    CarCsvParser.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+}
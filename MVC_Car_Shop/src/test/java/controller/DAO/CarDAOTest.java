@@ -0,0 +1,100 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.TestCars;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CarDAOTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndReadCars() throws BusinessException {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarDAO carDAO = new CarDAO(csvPath);
+        carDAO.writeCars(List.of(TestCars.car(1, "VW", 15000), TestCars.car(2, "BMW", 20000)));
+
+        List<Car> cars = carDAO.readCars();
+        Assertions.assertEquals(2, cars.size());
+        Assertions.assertEquals("BMW", cars.get(1).getManufacturer());
+        Assertions.assertEquals(Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()),
+                cars.get(0).getProductionDate());
+    }
+
+    @Test
+    void testJournalIsReplayedOverSnapshot() throws BusinessException, IOException {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarDAO carDAO = new CarDAO(csvPath, true);
+        carDAO.writeCars(List.of(TestCars.car(1, "VW", 15000), TestCars.car(2, "BMW", 20000)));
+        String snapshot = Files.readString(Path.of(csvPath));
+
+        carDAO.appendAdd(TestCars.car(3, "Kia", 30000));
+        carDAO.appendUpdate(1, TestCars.car(10, "VW", 16000));
+        carDAO.appendDelete(2);
+        carDAO.close();
+
+        // Mutations only touch the journal
+        Assertions.assertEquals(snapshot, Files.readString(Path.of(csvPath)));
+
+        List<Car> cars = new CarDAO(csvPath, true).readCars();
+        Assertions.assertEquals(2, cars.size());
+        Assertions.assertEquals(3, cars.get(0).getId());
+        Assertions.assertEquals(10, cars.get(1).getId());
+        Assertions.assertEquals(16000, cars.get(1).getPrice());
+    }
+
+    @Test
+    void testTornLastRecordIsIgnored() throws BusinessException, IOException {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarDAO carDAO = new CarDAO(csvPath, true);
+        carDAO.appendAdd(TestCars.car(1, "VW", 15000));
+        carDAO.close();
+
+        // Simulate a crash in the middle of writing a record
+        Files.writeString(Path.of(csvPath + ".journal"), "A, 2, BMW, X3, 200", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        List<Car> cars = new CarDAO(csvPath, true).readCars();
+        Assertions.assertEquals(1, cars.size());
+        Assertions.assertEquals(1, cars.get(0).getId());
+    }
+
+    @Test
+    void testCompactionFoldsJournalIntoSnapshot() throws BusinessException {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarDAO carDAO = new CarDAO(csvPath, true, 3);
+        List<Car> state = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            Car car = TestCars.car(id, "VW", 1000L * id);
+            state.add(car);
+            carDAO.appendAdd(car);
+        }
+        Assertions.assertTrue(carDAO.isCompactionDue());
+        carDAO.compactInBackground(new ArrayList<>(state));
+
+        // Records written while the compaction runs land in the new journal
+        Car late = TestCars.car(4, "Kia", 4000);
+        carDAO.appendAdd(late);
+        carDAO.close();
+
+        Assertions.assertFalse(Files.exists(Path.of(csvPath + ".journal.sealed")));
+        List<Car> cars = new CarDAO(csvPath, true).readCars();
+        Assertions.assertEquals(4, cars.size());
+        Assertions.assertEquals(4, cars.get(3).getId());
+        // The snapshot itself holds the compacted state
+        Assertions.assertEquals(3, new CarDAO(csvPath).readCars().size());
+    }
+}
@@ -0,0 +1,94 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import model.store.ColumnarCarStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+public class CarSnapshotFileTest {
+    @TempDir
+    Path tempDir;
+
+    private static Car car(int id, String manufacturer, long price) {
+        return new Car(id, manufacturer, "Model " + id, price,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.values()[id % 4], 150 + id);
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws BusinessException {
+        ColumnarCarStore store = new ColumnarCarStore();
+        for (int id = 1; id <= 1000; id++) {
+            store.add(car(id, id % 3 == 0 ? "Škoda" : "VW", 1000L * id));
+        }
+        File file = tempDir.resolve("cars.bin").toFile();
+        CarSnapshotFile.write(store, file);
+
+        ColumnarCarStore loaded = CarSnapshotFile.read(file);
+        Assertions.assertEquals(1000, loaded.size());
+        for (int row = 0; row < store.size(); row++) {
+            Car expected = store.toCar(row);
+            Car actual = loaded.toCar(row);
+            Assertions.assertEquals(expected.getId(), actual.getId());
+            Assertions.assertEquals(expected.getManufacturer(), actual.getManufacturer());
+            Assertions.assertEquals(expected.getModel(), actual.getModel());
+            Assertions.assertEquals(expected.getPrice(), actual.getPrice());
+            Assertions.assertEquals(expected.getProductionDate(), actual.getProductionDate());
+            Assertions.assertEquals(expected.getFuelType(), actual.getFuelType());
+            Assertions.assertEquals(expected.getHorsepower(), actual.getHorsepower());
+        }
+    }
+
+    @Test
+    void testCorruptSnapshotIsRejected() throws BusinessException, IOException {
+        ColumnarCarStore store = new ColumnarCarStore();
+        store.add(car(1, "VW", 15000));
+        File file = tempDir.resolve("cars.bin").toFile();
+        CarSnapshotFile.write(store, file);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 5);
+            raf.write(0x7f);
+        }
+        BusinessException e = Assertions.assertThrows(BusinessException.class, () -> CarSnapshotFile.read(file));
+        Assertions.assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+    }
+
+    @Test
+    void testDaoPrefersCurrentSnapshotAndFallsBackToNewerCsv() throws BusinessException, IOException {
+        Path csv = tempDir.resolve("cars.csv");
+        CarDAO carDAO = new CarDAO(csv.toString());
+        carDAO.setBinarySnapshots(true);
+        carDAO.writeCars(List.of(car(1, "VW", 15000), car(2, "BMW", 20000)));
+        File binary = tempDir.resolve("cars.bin").toFile();
+        Assertions.assertTrue(binary.exists());
+
+        // A garbage CSV that is older than the snapshot is never parsed
+        Files.writeString(csv, "not a car\n");
+        Assertions.assertTrue(csv.toFile().setLastModified(binary.lastModified() - 10_000));
+        Assertions.assertEquals(2, carDAO.readCars().size());
+
+        // An edited CSV that is newer than the snapshot wins
+        Files.writeString(csv, "7, Kia, CEED, 30000, 01.03.2024, HYBRID, 135\n");
+        Assertions.assertTrue(csv.toFile().setLastModified(binary.lastModified() + 10_000));
+        List<Car> cars = carDAO.readCars();
+        Assertions.assertEquals(1, cars.size());
+        Assertions.assertEquals(7, cars.get(0).getId());
+
+        // A damaged snapshot falls back to the CSV file
+        Files.write(binary.toPath(), new byte[]{1, 2, 3});
+        Assertions.assertTrue(binary.setLastModified(csv.toFile().lastModified() + 10_000));
+        Assertions.assertEquals(1, carDAO.readCars().size());
+    }
+}
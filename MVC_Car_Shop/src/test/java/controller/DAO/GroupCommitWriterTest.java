@@ -0,0 +1,116 @@
+package controller.DAO;
+
+import controller.CarController;
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import model.store.ColumnarCarStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GroupCommitWriterTest {
+    @TempDir
+    Path tempDir;
+
+    private static Car car(int id, long price) {
+        return new Car(id, "VW", "Model" + id, price,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.DIESEL, 150);
+    }
+
+    @Test
+    void testChangesWithinWindowAreWrittenOnce() throws Exception {
+        AtomicInteger snapshots = new AtomicInteger();
+        CarDAO carDAO = new CarDAO(tempDir.resolve("cars.csv").toString()) {
+            @Override
+            public synchronized void writeCarStore(ColumnarCarStore cars) throws BusinessException {
+                snapshots.incrementAndGet();
+                super.writeCarStore(cars);
+            }
+        };
+        CarController carController = new CarController(carDAO);
+        carController.loadCarsFromCSV();
+        carController.enableGroupCommit(200);
+
+        for (int id = 1; id <= 100; id++) {
+            carController.addCarLogic(car(id, id));
+        }
+        carController.deleteCarByID(7);
+        // Mutations returned before anything was written
+        Assertions.assertEquals(0, snapshots.get());
+
+        carController.durability().get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, snapshots.get());
+        Assertions.assertEquals(99, new CarDAO(tempDir.resolve("cars.csv").toString()).readCars().size());
+        carController.close();
+    }
+
+    @Test
+    void testJournaledBatchesAreDurableAfterFutureAndClose() throws Exception {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarController carController = new CarController(new CarDAO(csvPath, true));
+        carController.loadCarsFromCSV();
+        carController.enableGroupCommit(50);
+
+        carController.addCarLogic(car(1, 100));
+        carController.updateCarLogic(car(1, 200), 1);
+        CompletableFuture<Void> durable = carController.durability();
+        durable.get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(200, new CarDAO(csvPath, true).readCars().get(0).getPrice());
+
+        // Changes still inside the window are written by close()
+        carController.addCarLogic(car(2, 300));
+        carController.close();
+        Assertions.assertEquals(2, new CarDAO(csvPath, true).readCars().size());
+    }
+
+    @Test
+    void testFailedBatchFailsLaterChangesUntilRecovered() throws Exception {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        AtomicBoolean failAppends = new AtomicBoolean();
+        CarDAO carDAO = new CarDAO(csvPath, true) {
+            @Override
+            public synchronized void appendAdd(Car car) throws BusinessException {
+                if (failAppends.get()) {
+                    throw new BusinessException("Disk full.", "appendAdd");
+                }
+                super.appendAdd(car);
+            }
+        };
+        CarController carController = new CarController(carDAO);
+        carController.loadCarsFromCSV();
+        carController.enableGroupCommit(10);
+
+        failAppends.set(true);
+        carController.addCarLogic(car(1, 100));
+        CompletableFuture<Void> lost = carController.durability();
+        Assertions.assertThrows(ExecutionException.class, () -> lost.get(10, TimeUnit.SECONDS));
+        // Later changes are not reported durable while the failed batch is missing from disk
+        Assertions.assertThrows(BusinessException.class, () -> carController.addCarLogic(car(2, 200)));
+        Assertions.assertTrue(carController.durability().isCompletedExceptionally());
+
+        failAppends.set(false);
+        carController.recoverPersistence();
+        carController.durability().get(10, TimeUnit.SECONDS);
+        carController.addCarLogic(car(3, 300));
+        carController.close();
+        Assertions.assertEquals(3, new CarDAO(csvPath, true).readCars().size());
+    }
+
+    @Test
+    void testSubmitAfterCloseIsRejected() throws BusinessException {
+        CarDAO carDAO = new CarDAO(tempDir.resolve("cars.csv").toString(), true);
+        GroupCommitWriter writer = new GroupCommitWriter(carDAO, ColumnarCarStore::new, 10);
+        writer.close();
+        Assertions.assertThrows(BusinessException.class, () -> writer.submit(dao -> dao.appendDelete(1)));
+    }
+}
@@ -0,0 +1,61 @@
+package controller.DAO;
+
+import exceptions.BusinessException;
+import model.entity.Car;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ParallelCarLoaderTest {
+    @TempDir
+    Path tempDir;
+
+    // About 3 MiB, so the file is split into several 1 MiB chunks
+    private Path writeCars(int rows, int duplicateAt, int brokenLine) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int line = 1; line <= rows; line++) {
+            int id = line == duplicateAt ? 1 : line;
+            String price = line == brokenLine ? "12x" : String.valueOf(1000 + line);
+            csv.append(id).append(", Manufacturer").append(line % 7).append(", Model").append(line % 13)
+                    .append(", ").append(price).append(", 01.02.2020, DIESEL, ").append(100 + line % 300).append('\n');
+        }
+        Path file = tempDir.resolve("cars.csv");
+        Files.writeString(file, csv);
+        return file;
+    }
+
+    @Test
+    void testParallelLoadKeepsFileOrder() throws IOException, BusinessException {
+        Path file = writeCars(50_000, -1, -1);
+        List<Car> sequential = new ParallelCarLoader(1).load(file.toFile()).asCarList();
+        List<Car> parallel = new ParallelCarLoader(4, 0).load(file.toFile()).asCarList();
+
+        Assertions.assertEquals(50_000, parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            Assertions.assertEquals(sequential.get(i).getId(), parallel.get(i).getId());
+            Assertions.assertEquals(sequential.get(i).getPrice(), parallel.get(i).getPrice());
+            Assertions.assertEquals(sequential.get(i).getModel(), parallel.get(i).getModel());
+        }
+    }
+
+    @Test
+    void testDuplicateAcrossChunksIsRejected() throws IOException {
+        Path file = writeCars(50_000, 49_000, -1);
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> new ParallelCarLoader(4, 0).load(file.toFile()));
+        Assertions.assertTrue(e.getMessage().contains("Duplicate car ID 1"), e.getMessage());
+    }
+
+    @Test
+    void testErrorReportsAbsoluteLineNumber() throws IOException {
+        Path file = writeCars(50_000, -1, 45_678);
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> new ParallelCarLoader(4, 0).load(file.toFile()));
+        Assertions.assertTrue(e.getMessage().contains("line 45678"), e.getMessage());
+    }
+}
@@ -0,0 +1,227 @@
+package controller.DAO;
+
+import controller.CarController;
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import model.store.ColumnarCarStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ShardedCarDAOTest {
+    private static final String[] MANUFACTURERS = {"VW", "BMW", "Kia", "Audi", "Skoda", "Fiat", "Opel", "Ford"};
+
+    @TempDir
+    Path tempDir;
+
+    private static Car car(int id, String manufacturer) {
+        return new Car(id, manufacturer, "Model" + id, id * 100L,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.DIESEL, 150);
+    }
+
+    private ShardedCarDAO dao(int shardCount) {
+        return new ShardedCarDAO(tempDir.resolve("shards").toString(), shardCount);
+    }
+
+    private CarController controller(ShardedCarDAO carDAO) throws BusinessException {
+        CarController carController = new CarController(carDAO);
+        carController.loadCarsFromCSV();
+        for (int id = 1; id <= 80; id++) {
+            carController.addCarLogic(car(id, MANUFACTURERS[id % MANUFACTURERS.length]));
+        }
+        return carController;
+    }
+
+    private int shardSize(ShardedCarDAO carDAO, String manufacturer) {
+        int cars = 0;
+        for (String other : MANUFACTURERS) {
+            if (carDAO.shardOf(other) == carDAO.shardOf(manufacturer)) {
+                cars += 10;
+            }
+        }
+        return cars;
+    }
+
+    @Test
+    void testMutationsRewriteOnlyTheirShards() throws BusinessException {
+        ShardedCarDAO carDAO = dao(8);
+        CarController carController = controller(carDAO);
+        Assertions.assertTrue(carDAO.exists());
+
+        long rowsWritten = carDAO.getMetrics().getRowsWritten();
+        carController.updateCarLogic(car(1, "BMW"), 1);
+        // Car 1 was a BMW already, so only the BMW shard is written
+        Assertions.assertEquals(shardSize(carDAO, "BMW"), carDAO.getMetrics().getRowsWritten() - rowsWritten);
+
+        rowsWritten = carDAO.getMetrics().getRowsWritten();
+        carController.deleteCarByID(8);
+        Assertions.assertEquals(shardSize(carDAO, "VW") - 1, carDAO.getMetrics().getRowsWritten() - rowsWritten);
+
+        // Moving a car to another manufacturer rewrites both shards
+        carController.updateCarLogic(car(3, "Kia"), 3);
+        carController.close();
+
+        ShardedCarDAO reloadedDAO = dao(8);
+        CarController reloaded = new CarController(reloadedDAO);
+        reloaded.loadCarsFromCSV();
+        Assertions.assertEquals(79, reloaded.getAllCarsLogic().size());
+        Assertions.assertNull(reloaded.getCarDetailsById(8));
+        Assertions.assertEquals("Kia", reloaded.getCarDetailsById(3).getManufacturer());
+        Assertions.assertEquals(11, reloaded.getCarsByManufacturerLogic("kia").size());
+        Assertions.assertEquals(9, reloaded.getCarsByManufacturerLogic("audi").size());
+        Assertions.assertEquals(9, reloaded.getCarsByManufacturerLogic("vw").size());
+    }
+
+    @Test
+    void testCarInTwoShardsAfterAnInterruptedMoveKeepsTheNewerCopy() throws Exception {
+        ShardedCarDAO carDAO = dao(8);
+        CarController carController = controller(carDAO);
+        Assertions.assertNotEquals(carDAO.shardOf("Audi"), carDAO.shardOf("Kia"));
+        Path directory = tempDir.resolve("shards");
+        Path sourceShard = shardFile(directory, carDAO.shardOf("Audi"));
+        String sourceCars = Files.readString(sourceShard);
+        Path manifest = directory.resolve("cars.manifest");
+        String oldManifest = Files.readString(manifest);
+
+        // Car 3 moves from the Audi shard to the Kia shard
+        carController.updateCarLogic(car(3, "Kia"), 3);
+        carController.close();
+        // Undo the writes that follow the Kia shard, as if the process had died right after it
+        Files.delete(shardFile(directory, carDAO.shardOf("Audi")));
+        Files.writeString(sourceShard, sourceCars);
+        Files.writeString(manifest, oldManifest);
+
+        CarController reloaded = new CarController(dao(8));
+        reloaded.loadCarsFromCSV();
+        Assertions.assertEquals(80, reloaded.getAllCarsLogic().size());
+        Assertions.assertEquals("Kia", reloaded.getCarDetailsById(3).getManufacturer());
+        Assertions.assertEquals(9, reloaded.getCarsByManufacturerLogic("audi").size());
+
+        // The next write drops the stale copy
+        reloaded.deleteCarByID(1);
+        reloaded.close();
+        Assertions.assertEquals(79, dao(8).readCarStore().size());
+        Assertions.assertTrue(Files.readAllLines(shardFile(directory, carDAO.shardOf("Audi"))).stream()
+                .noneMatch(line -> line.startsWith("3,")));
+    }
+
+    @Test
+    void testWriteStoppedAfterAShardThatGainsAndLosesCarsKeepsEveryCar() throws Exception {
+        controller(dao(8)).close();
+        // A shard written before the one a car moves to, and that also gains a car
+        ShardedCarDAO probe = dao(8);
+        String from = null;
+        String to = null;
+        for (String first : MANUFACTURERS) {
+            for (String second : MANUFACTURERS) {
+                if (probe.shardOf(first) < probe.shardOf(second)) {
+                    from = first;
+                    to = second;
+                }
+            }
+        }
+        Assertions.assertNotNull(from);
+        int movingId = 0;
+        for (int id = 1; id <= 80; id++) {
+            if (MANUFACTURERS[id % MANUFACTURERS.length].equals(from)) {
+                movingId = id;
+            }
+        }
+        ShardedCarDAO crashing = new ShardedCarDAO(tempDir.resolve("shards").toString(), 8) {
+            @Override
+            void afterShardWritten(int shard) throws BusinessException {
+                throw new BusinessException("Stopped after shard " + shard, "test");
+            }
+        };
+        CarController stopped = new CarController(crashing);
+        stopped.loadCarsFromCSV();
+        int movedId = movingId;
+        String gained = from;
+        String lost = to;
+        // One write moves a car out of the shard and adds another to it, and stops after that shard
+        Assertions.assertThrows(BusinessException.class,
+                () -> stopped.upsertCarsLogic(List.of(car(movedId, lost), car(90, gained))));
+        stopped.close();
+
+        CarController reloaded = new CarController(dao(8));
+        reloaded.loadCarsFromCSV();
+        Assertions.assertNotNull(reloaded.getCarDetailsById(movingId));
+        Assertions.assertEquals(from, reloaded.getCarDetailsById(movingId).getManufacturer());
+        Assertions.assertNotNull(reloaded.getCarDetailsById(90));
+
+        // Once both shards are written, the car is only in its new one
+        reloaded.upsertCarsLogic(List.of(car(movingId, to)));
+        reloaded.close();
+        ColumnarCarStore cars = dao(8).readCarStore();
+        Assertions.assertEquals(81, cars.size());
+        Assertions.assertTrue(Files.readAllLines(shardFile(tempDir.resolve("shards"), probe.shardOf(from))).stream()
+                .noneMatch(line -> line.startsWith(movedId + ",")));
+    }
+
+    private static Path shardFile(Path directory, int shard) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(String.format("shard-%03d", shard))
+                    && file.getFileName().toString().endsWith(".csv")).findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void testManufacturerReadsOnlyItsShard() throws BusinessException {
+        controller(dao(4)).close();
+
+        List<Car> cars = dao(4).readCarsByManufacturer("SKODA");
+        Assertions.assertEquals(10, cars.size());
+        for (Car car : cars) {
+            Assertions.assertEquals("Skoda", car.getManufacturer());
+        }
+        Assertions.assertTrue(dao(4).readCarsByManufacturer("Tesla").isEmpty());
+    }
+
+    @Test
+    void testManifestShardCountWinsAndShardsLoadInParallel() throws Exception {
+        ShardedCarDAO writer = dao(4);
+        ColumnarCarStore cars = new ColumnarCarStore();
+        for (int id = 1; id <= 80; id++) {
+            cars.add(car(id, MANUFACTURERS[id % MANUFACTURERS.length]));
+        }
+        writer.writeCarStore(cars);
+        File manifest = tempDir.resolve("shards").resolve("cars.manifest").toFile();
+        Assertions.assertTrue(Files.readString(manifest.toPath()).startsWith("shards=4\n"));
+
+        // Opened with another count, the DAO keeps the layout it finds on disk
+        ShardedCarDAO reader = dao(16);
+        reader.setLoadParallelism(4);
+        Assertions.assertEquals(80, reader.readCarStore().size());
+        Assertions.assertEquals(4, reader.getShardCount());
+
+        Files.writeString(manifest.toPath(), "shards=zero\n");
+        BusinessException exception = Assertions.assertThrows(BusinessException.class, () -> dao(4).readCarStore());
+        Assertions.assertTrue(exception.getMessage().contains("Invalid manifest"));
+    }
+
+    @Test
+    void testGroupCommitWritesDirtyShards() throws Exception {
+        ShardedCarDAO carDAO = dao(8);
+        CarController carController = controller(carDAO);
+        carController.enableGroupCommit(5);
+        carController.addCarLogic(car(81, "Tesla"));
+        carController.deleteCarByID(81 - MANUFACTURERS.length);
+        carController.durability().get();
+        carController.close();
+
+        CarController reloaded = new CarController(dao(8));
+        reloaded.loadCarsFromCSV();
+        Assertions.assertEquals(80, reloaded.getAllCarsLogic().size());
+        Assertions.assertEquals("Tesla", reloaded.getCarDetailsById(81).getManufacturer());
+    }
+}
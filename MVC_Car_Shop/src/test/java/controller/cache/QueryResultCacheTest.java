@@ -0,0 +1,98 @@
+package controller.cache;
+
+import model.DTO.CacheStatsDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class QueryResultCacheTest {
+
+    private static List<Integer> result(int size) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @Test
+    void testInvalidationOnlyDropsAffectedEntries() {
+        QueryResultCache cache = new QueryResultCache(10, 1000);
+        cache.putByManufacturer("VW", result(2), cache.version());
+        cache.putByManufacturer("BMW", result(3), cache.version());
+        cache.putPriceBelow(10_000, result(4), cache.version());
+        cache.putPriceBelow(20_000, result(5), cache.version());
+
+        // A VW at 15000 is in "VW" and "price < 20000", not in "BMW" or "price < 10000"
+        cache.invalidateCar("vw", 15_000);
+        Assertions.assertNull(cache.getByManufacturer("Vw"));
+        Assertions.assertNull(cache.getPriceBelow(20_000));
+        Assertions.assertEquals(3, cache.<Integer>getByManufacturer("bmw").size());
+        Assertions.assertEquals(4, cache.<Integer>getPriceBelow(10_000).size());
+
+        // A car priced exactly at the threshold is not below it
+        cache.invalidateCar("Kia", 10_000);
+        Assertions.assertNotNull(cache.getPriceBelow(10_000));
+
+        CacheStatsDTO stats = cache.getStats();
+        Assertions.assertEquals(2, stats.getInvalidations());
+        Assertions.assertEquals(2, stats.getEntries());
+        Assertions.assertEquals(3, stats.getHits());
+        Assertions.assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void testStaleResultIsNotStored() {
+        QueryResultCache cache = new QueryResultCache(10, 1000);
+        long version = cache.version();
+        // A writer changes a car while the result is being computed
+        cache.invalidateCar("Audi", 1);
+        List<Integer> returned = cache.putByManufacturer("VW", result(2), version);
+        Assertions.assertEquals(2, returned.size());
+        Assertions.assertNull(cache.getByManufacturer("VW"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> returned.add(3));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedBySizeAndCount() {
+        QueryResultCache cache = new QueryResultCache(3, 100);
+        cache.putByManufacturer("A", result(10), cache.version());
+        cache.putByManufacturer("B", result(10), cache.version());
+        cache.putPriceBelow(5, result(10), cache.version());
+        // Touch A so B is the least recently used
+        Assertions.assertNotNull(cache.getByManufacturer("A"));
+        cache.putByManufacturer("C", result(10), cache.version());
+        Assertions.assertNull(cache.getByManufacturer("B"));
+        Assertions.assertNotNull(cache.getPriceBelow(5));
+
+        // 90 cars only fit after evicting everything older
+        cache.putByManufacturer("D", result(89), cache.version());
+        Assertions.assertEquals(1, cache.getStats().getEntries());
+        Assertions.assertEquals(90, cache.getStats().getCachedCars());
+        Assertions.assertEquals(4, cache.getStats().getEvictions());
+
+        // Results larger than the whole cache are returned but not stored
+        cache.putByManufacturer("E", result(500), cache.version());
+        Assertions.assertNull(cache.getByManufacturer("E"));
+        // The evicted price entry no longer matches invalidations
+        cache.invalidateCar("Z", 0);
+        Assertions.assertEquals(0, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void testLookupsDoNotWaitForWriters() throws Exception {
+        QueryResultCache cache = new QueryResultCache(10, 1000);
+        cache.putByManufacturer("VW", result(2), cache.version());
+        long version = cache.version();
+        // Puts and invalidations hold the cache's lock; a lookup meanwhile still answers
+        synchronized (cache) {
+            CompletableFuture<List<Integer>> hit = CompletableFuture.supplyAsync(() -> cache.getByManufacturer("VW"));
+            Assertions.assertEquals(2, hit.get(10, TimeUnit.SECONDS).size());
+            Assertions.assertEquals(version, CompletableFuture.supplyAsync(cache::version).get(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package controller.index;
+
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Random;
+
+public class BitmapIndexTest {
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    private static long date(int year) {
+        return Timestamp.valueOf(LocalDate.of(year, 6, 15).atStartOfDay()).getTime();
+    }
+
+    @Test
+    void testFiltersCombineBitmaps() {
+        BitmapIndex index = new BitmapIndex();
+        index.add(0, FuelType.HYBRID, date(2023));
+        index.add(1, FuelType.ELECTRIC, date(2024));
+        index.add(2, FuelType.ELECTRIC, date(2019));
+        index.add(3, FuelType.DIESEL, date(2023));
+        index.add(5, FuelType.GASOLINE, date(2024));
+
+        BitmapFilter recentGreen = BitmapFilter.fuelTypes(FuelType.HYBRID, FuelType.ELECTRIC)
+                .and(BitmapFilter.productionYears(2023, 2024));
+        Assertions.assertEquals(rows(0, 1), index.evaluate(recentGreen));
+        Assertions.assertEquals(rows(2, 3, 5), index.evaluate(recentGreen.not()));
+        Assertions.assertEquals(rows(0, 1, 2, 3), index.evaluate(BitmapFilter.fuelTypes(FuelType.GASOLINE).not()
+                .or(BitmapFilter.productionYears(2030, 2040))));
+        Assertions.assertEquals(5, index.count(BitmapFilter.all()));
+        Assertions.assertEquals(0, index.count(BitmapFilter.productionYears(2024, 2023)));
+        Assertions.assertEquals("(fuelType in [HYBRID, ELECTRIC] AND year in [2023, 2024])", recentGreen.toString());
+
+        index.move(5, 4, FuelType.GASOLINE, date(2024));
+        index.remove(0, FuelType.HYBRID, date(2023));
+        Assertions.assertEquals(rows(1, 4), index.evaluate(BitmapFilter.productionYears(2024, 2024)));
+        Assertions.assertEquals(rows(2, 3), index.evaluate(BitmapFilter.productionYears(2024, 2024).not()));
+    }
+
+    @Test
+    void testRandomFiltersMatchAScan() {
+        Random random = new Random(7);
+        BitmapIndex index = new BitmapIndex();
+        int rows = 5000;
+        FuelType[] fuelTypes = new FuelType[rows];
+        int[] years = new int[rows];
+        boolean[] live = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            fuelTypes[row] = FUEL_TYPES[random.nextInt(FUEL_TYPES.length)];
+            years[row] = 2000 + random.nextInt(25);
+            live[row] = true;
+            index.add(row, fuelTypes[row], date(years[row]));
+        }
+        for (int i = 0; i < 1000; i++) {
+            int row = random.nextInt(rows);
+            if (live[row]) {
+                index.remove(row, fuelTypes[row], date(years[row]));
+                live[row] = false;
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            FuelType fuelType = FUEL_TYPES[random.nextInt(FUEL_TYPES.length)];
+            int from = 2000 + random.nextInt(25);
+            int to = from + random.nextInt(5);
+            BitmapFilter filter = BitmapFilter.fuelTypes(fuelType).not().and(BitmapFilter.productionYears(from, to))
+                    .or(BitmapFilter.productionYears(2010, 2010));
+            BitSet expected = new BitSet();
+            for (int row = 0; row < rows; row++) {
+                boolean matches = fuelTypes[row] != fuelType && years[row] >= from && years[row] <= to
+                        || years[row] == 2010;
+                if (live[row] && matches) {
+                    expected.set(row);
+                }
+            }
+            Assertions.assertEquals(expected, index.evaluate(filter));
+        }
+    }
+
+    private static BitSet rows(int... rows) {
+        BitSet set = new BitSet();
+        for (int row : rows) {
+            set.set(row);
+        }
+        return set;
+    }
+}
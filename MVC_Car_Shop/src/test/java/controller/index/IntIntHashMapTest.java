@@ -0,0 +1,73 @@
+package controller.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class IntIntHashMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        Assertions.assertEquals(IntIntHashMap.NO_VALUE, map.put(15, 0));
+        Assertions.assertEquals(IntIntHashMap.NO_VALUE, map.put(16, 1));
+        Assertions.assertEquals(0, map.get(15));
+        Assertions.assertEquals(1, map.get(16));
+        Assertions.assertEquals(IntIntHashMap.NO_VALUE, map.get(17));
+
+        // Replacing a value keeps the size unchanged
+        Assertions.assertEquals(0, map.put(15, 5));
+        Assertions.assertEquals(2, map.size());
+
+        Assertions.assertEquals(5, map.remove(15));
+        Assertions.assertFalse(map.containsKey(15));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    void testZeroAndNegativeKeys() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(0, 7);
+        map.put(-3, 8);
+        map.put(Integer.MIN_VALUE, 9);
+
+        Assertions.assertTrue(map.containsKey(0));
+        Assertions.assertEquals(7, map.get(0));
+        Assertions.assertEquals(8, map.get(-3));
+        Assertions.assertEquals(9, map.get(Integer.MIN_VALUE));
+        Assertions.assertEquals(3, map.size());
+
+        Assertions.assertEquals(7, map.remove(0));
+        Assertions.assertFalse(map.containsKey(0));
+        Assertions.assertEquals(2, map.size());
+    }
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range forces long probe chains and many removals
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                Assertions.assertEquals(removed == null ? IntIntHashMap.NO_VALUE : removed, map.remove(key));
+            } else {
+                int value = random.nextInt(1_000_000);
+                Integer previous = expected.put(key, value);
+                Assertions.assertEquals(previous == null ? IntIntHashMap.NO_VALUE : previous, map.put(key, value));
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 4_900; key++) {
+            Integer value = expected.get(key);
+            Assertions.assertEquals(value == null ? IntIntHashMap.NO_VALUE : value, map.get(key));
+        }
+    }
+}
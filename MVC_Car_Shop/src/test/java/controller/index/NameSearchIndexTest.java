@@ -0,0 +1,104 @@
+package controller.index;
+
+import model.DTO.SearchSuggestionDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class NameSearchIndexTest {
+
+    private static List<String> names(List<SearchSuggestionDTO> suggestions) {
+        return suggestions.stream().map(suggestion -> suggestion.getManufacturer() + " " + suggestion.getModel())
+                .collect(Collectors.toList());
+    }
+
+    private static NameSearchIndex index() {
+        NameSearchIndex index = new NameSearchIndex();
+        index.add("Porsche", "Cayenne");
+        index.add("Porsche", "Cayenne");
+        index.add("Porsche", "911 Carrera");
+        index.add("VW", "Golf VII");
+        index.add("VW", "Polo");
+        index.add("Kia", "Ceed");
+        return index;
+    }
+
+    @Test
+    void testPrefixesAutocomplete() {
+        NameSearchIndex index = index();
+        // Most cars first
+        Assertions.assertEquals(List.of("Porsche Cayenne", "Porsche 911 Carrera"), names(index.search("Por", 10)));
+        Assertions.assertEquals(List.of("Porsche Cayenne"), names(index.search("por cay", 10)));
+        Assertions.assertEquals(List.of("Porsche 911 Carrera"), names(index.search("CARR", 10)));
+        Assertions.assertEquals(3, index.search("po", 10).size());
+        Assertions.assertEquals(List.of("Porsche Cayenne", "Porsche 911 Carrera"), names(index.search("po", 2)));
+        Assertions.assertEquals(2, index.search("Porsche", 10).get(0).getCarCount());
+        Assertions.assertTrue(index.search("Audi", 10).isEmpty());
+        Assertions.assertTrue(index.search(" - ", 10).isEmpty());
+    }
+
+    @Test
+    void testTyposWithinTheEditDistance() {
+        NameSearchIndex index = index();
+        List<SearchSuggestionDTO> porshe = index.search("Porshe", 10);
+        Assertions.assertEquals(List.of("Porsche Cayenne", "Porsche 911 Carrera"), names(porshe));
+        Assertions.assertEquals(1, porshe.get(0).getDistance());
+        // A typo in a prefix, and two in a longer word
+        Assertions.assertEquals(List.of("Porsche Cayenne"), names(index.search("Cayan", 10)));
+        List<SearchSuggestionDTO> carrera = index.search("porschhhe car", 10);
+        Assertions.assertEquals(List.of("Porsche 911 Carrera"), names(carrera));
+        Assertions.assertEquals(2, carrera.get(0).getDistance());
+        // Two words with one typo each
+        Assertions.assertEquals(2, index.search("porschee cayene", 10).get(0).getDistance());
+        // Short words must match exactly
+        Assertions.assertTrue(index.search("vx", 10).isEmpty());
+        Assertions.assertTrue(index.search("Ferrari", 10).isEmpty());
+    }
+
+    @Test
+    void testRemovesFollowTheCarCount() {
+        NameSearchIndex index = index();
+        index.add("porsche", "CAYENNE");
+        Assertions.assertEquals(5, index.size());
+        Assertions.assertEquals(3, index.search("cayenne", 10).get(0).getCarCount());
+        index.remove("Porsche", "Cayenne");
+        index.remove("Porsche", "Cayenne");
+        Assertions.assertEquals(1, index.search("cayenne", 10).get(0).getCarCount());
+        index.remove("porsche", "CAYENNE");
+        Assertions.assertTrue(index.search("cayenne", 10).isEmpty());
+        Assertions.assertTrue(index.search("cayene", 10).isEmpty());
+        index.remove("Porsche", "Cayenne");
+        Assertions.assertEquals(4, index.size());
+
+        index.clear();
+        Assertions.assertEquals(0, index.size());
+        Assertions.assertTrue(index.search("por", 10).isEmpty());
+    }
+
+    @Test
+    void testWordsAndSharedPrefixes() {
+        Assertions.assertArrayEquals(new String[]{"golf", "vii"}, NameSearchIndex.words("Golf  VII golf"));
+        Assertions.assertArrayEquals(new String[]{"e", "tron", "gt"}, NameSearchIndex.words("e-tron GT"));
+
+        NameSearchIndex index = new NameSearchIndex();
+        index.add("Audi", "Model1");
+        index.add("Audi", "Model12");
+        index.add("Audi", "Model123");
+        // Each word needs the fewest edits of any of its prefixes
+        List<SearchSuggestionDTO> model = index.search("mdel12", 10);
+        Assertions.assertEquals(List.of("Audi Model12", "Audi Model123"), names(model));
+        Assertions.assertEquals(List.of(1, 1), model.stream().map(SearchSuggestionDTO::getDistance)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(0, index.search("model1", 10).get(2).getDistance());
+        // Removing a word keeps the longer words through its node
+        index.remove("Audi", "Model12");
+        // Model1 is one edit away
+        Assertions.assertEquals(List.of("Audi Model123", "Audi Model1"), names(index.search("model12", 10)));
+        index.remove("Audi", "Model123");
+        Assertions.assertEquals(List.of("Audi Model1"), names(index.search("model", 10)));
+        Assertions.assertEquals(1, index.search("model12", 10).get(0).getDistance());
+        Assertions.assertTrue(index.search("modelxyz", 10).isEmpty());
+    }
+}
@@ -0,0 +1,139 @@
+package controller.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class SortedLongIndexTest {
+
+    // Reference entry ordered the same way as the index
+    private record Entry(long key, int id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = Long.compare(key, other.key);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+
+    @Test
+    void testRangeQueries() {
+        SortedLongIndex index = new SortedLongIndex();
+        index.add(70000, 15);
+        index.add(30000, 16);
+        index.add(30000, 3);
+        index.add(15000, 1);
+
+        Assertions.assertEquals(List.of(1, 3, 16), collectRange(index, Long.MIN_VALUE, 69999));
+        Assertions.assertEquals(List.of(3, 16, 15), collectRange(index, 30000, 70000));
+        Assertions.assertEquals(List.of(), collectRange(index, 30001, 69999));
+
+        List<Integer> ascending = new ArrayList<>();
+        index.forEachAscending(20000, 2, ascending::add);
+        Assertions.assertEquals(List.of(3, 16), ascending);
+
+        List<Integer> descending = new ArrayList<>();
+        index.forEachDescending(30000, 10, descending::add);
+        Assertions.assertEquals(List.of(16, 3, 1), descending);
+
+        Assertions.assertTrue(index.remove(30000, 3));
+        Assertions.assertFalse(index.remove(30000, 3));
+        Assertions.assertEquals(3, index.size());
+    }
+
+    @Test
+    void testKeysetAndRankPagesCoverEveryEntryOnce() {
+        SortedLongIndex index = new SortedLongIndex();
+        TreeSet<Entry> expected = new TreeSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5_000; i++) {
+            Entry entry = new Entry(random.nextInt(300), random.nextInt(1_000_000));
+            if (expected.add(entry)) {
+                index.add(entry.key(), entry.id());
+            }
+        }
+        List<Entry> expectedEntries = new ArrayList<>(expected.headSet(new Entry(200, Integer.MAX_VALUE), true));
+        List<Integer> expectedIds = new ArrayList<>();
+        for (Entry entry : expectedEntries) {
+            expectedIds.add(entry.id());
+        }
+
+        // Keyset pages: continue after the last (key, id) of the previous page
+        List<Integer> keysetIds = new ArrayList<>();
+        List<Integer> page = new ArrayList<>();
+        long lastKey = Long.MIN_VALUE;
+        int lastId = Integer.MIN_VALUE;
+        do {
+            page.clear();
+            index.forEachAfter(lastKey, lastId, 200, 97, page::add);
+            keysetIds.addAll(page);
+            if (!page.isEmpty()) {
+                Entry last = expectedEntries.get(keysetIds.size() - 1);
+                lastKey = last.key();
+                lastId = last.id();
+            }
+        } while (page.size() == 97);
+        Assertions.assertEquals(expectedIds, keysetIds);
+
+        // Rank pages: skip the entries of the previous pages
+        List<Integer> rankIds = new ArrayList<>();
+        for (int rank = 0; rank <= expectedIds.size(); rank += 97) {
+            index.forEachFromRank(rank, 200, 97, rankIds::add);
+        }
+        Assertions.assertEquals(expectedIds, rankIds);
+
+        List<Integer> tail = new ArrayList<>();
+        index.forEachAfter(299, Integer.MAX_VALUE, Long.MAX_VALUE, 10, tail::add);
+        Assertions.assertEquals(List.of(), tail);
+    }
+
+    @Test
+    void testRandomOperationsMatchTreeSet() {
+        SortedLongIndex index = new SortedLongIndex();
+        TreeSet<Entry> expected = new TreeSet<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 50_000; i++) {
+            Entry entry = new Entry(random.nextInt(2_000), random.nextInt(20_000));
+            if (random.nextInt(4) == 0) {
+                Assertions.assertEquals(expected.remove(entry), index.remove(entry.key(), entry.id()));
+            } else if (expected.add(entry)) {
+                index.add(entry.key(), entry.id());
+            }
+        }
+        Assertions.assertEquals(expected.size(), index.size());
+        Assertions.assertEquals(expected.size(), index.countInRange(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        for (int i = 0; i < 200; i++) {
+            long from = random.nextInt(2_100) - 50;
+            long to = from + random.nextInt(300);
+            List<Integer> expectedRange = new ArrayList<>();
+            for (Entry entry : expected.subSet(new Entry(from, Integer.MIN_VALUE), true,
+                    new Entry(to, Integer.MAX_VALUE), true)) {
+                expectedRange.add(entry.id());
+            }
+            Assertions.assertEquals(expectedRange, collectRange(index, from, to));
+            Assertions.assertEquals(expectedRange.size(), index.countInRange(from, to));
+
+            List<Integer> expectedDescending = new ArrayList<>();
+            for (Entry entry : expected.headSet(new Entry(to, Integer.MAX_VALUE), true).descendingSet()) {
+                if (expectedDescending.size() == 25) {
+                    break;
+                }
+                expectedDescending.add(entry.id());
+            }
+            List<Integer> descending = new ArrayList<>();
+            index.forEachDescending(to, 25, descending::add);
+            Assertions.assertEquals(expectedDescending, descending);
+        }
+    }
+
+    private static List<Integer> collectRange(SortedLongIndex index, long from, long to) {
+        List<Integer> result = new ArrayList<>();
+        index.forEachInRange(from, to, result::add);
+        return result;
+    }
+}
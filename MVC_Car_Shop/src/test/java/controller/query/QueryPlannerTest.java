@@ -0,0 +1,94 @@
+package controller.query;
+
+import controller.index.BitmapFilter;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QueryPlannerTest {
+
+    // 100,000 cars: 50 per manufacturer, 1 per price unit and a quarter per fuel type
+    private static final QueryStatistics STATISTICS = new QueryStatistics() {
+        @Override
+        public int size() {
+            return 100_000;
+        }
+
+        @Override
+        public int manufacturerCount(String manufacturer) {
+            return "Rare".equals(manufacturer) ? 5 : 50;
+        }
+
+        @Override
+        public int priceCount(long minPrice, long maxPrice) {
+            return (int) Math.max(0, Math.min(maxPrice, 100_000) - Math.max(minPrice, 0) + 1);
+        }
+
+        @Override
+        public int bitmapCount(BitmapFilter filter) {
+            return filter.toString().contains("ELECTRIC") ? 25_000 : 0;
+        }
+
+        @Override
+        public int yearOf(long productionDate) {
+            return 2024;
+        }
+    };
+
+    private static QueryPlan.AccessPath path(CarQuery query) {
+        return QueryPlanner.plan(query, STATISTICS).getAccessPath();
+    }
+
+    @Test
+    void testMostSelectiveIndexWins() {
+        Assertions.assertEquals(QueryPlan.AccessPath.ID_LOOKUP, path(new CarQuery().id(7).manufacturer("VW")));
+        Assertions.assertEquals(QueryPlan.AccessPath.MANUFACTURER_INDEX,
+                path(new CarQuery().manufacturer("VW").priceBetween(0, 50_000)));
+        Assertions.assertEquals(QueryPlan.AccessPath.PRICE_INDEX,
+                path(new CarQuery().manufacturer("VW").priceBetween(100, 120)));
+        Assertions.assertEquals(QueryPlan.AccessPath.BITMAP_INDEX,
+                path(new CarQuery().fuelTypes(FuelType.ELECTRIC).horsepowerBetween(300, 400)));
+        Assertions.assertEquals(QueryPlan.AccessPath.BITMAP_INDEX,
+                path(new CarQuery().fuelTypes(FuelType.HYBRID).priceBetween(0, 90_000)));
+        Assertions.assertEquals(QueryPlan.AccessPath.FULL_SCAN, path(new CarQuery().model("Golf")));
+    }
+
+    @Test
+    void testOrderedPathsStopAtTheLimit() {
+        // Ten cheapest: the price index yields them in order, so it beats sorting a manufacturer's cars
+        QueryPlan cheapest = QueryPlanner.plan(new CarQuery().priceBetween(0, 100_000)
+                .sortBy(CarQuery.SortField.PRICE, false).limit(10), STATISTICS);
+        Assertions.assertEquals(QueryPlan.AccessPath.PRICE_INDEX, cheapest.getAccessPath());
+        Assertions.assertTrue(cheapest.isOrdered());
+        Assertions.assertTrue(cheapest.getCost() < 100);
+
+        QueryPlan firstIds = QueryPlanner.plan(new CarQuery().limit(5), STATISTICS);
+        Assertions.assertEquals(QueryPlan.AccessPath.FULL_SCAN, firstIds.getAccessPath());
+        Assertions.assertTrue(firstIds.isOrdered());
+
+        QueryPlan rare = QueryPlanner.plan(new CarQuery().manufacturer("Rare")
+                .sortBy(CarQuery.SortField.HORSEPOWER, true).limit(3), STATISTICS);
+        Assertions.assertEquals(QueryPlan.AccessPath.MANUFACTURER_INDEX, rare.getAccessPath());
+        Assertions.assertFalse(rare.isOrdered());
+        Assertions.assertEquals("Top 3 by HORSEPOWER desc\n  Manufacturer index scan manufacturer = 'Rare'"
+                + " (estimated rows=5, matches=5, cost=6.0)", rare.toString());
+    }
+
+    @Test
+    void testTopRowsUseThePriceIndexOrAHeap() {
+        // Without a price range the price index still yields the cheapest cars first
+        QueryPlan cheapest = QueryPlanner.plan(new CarQuery().fuelTypes(FuelType.ELECTRIC)
+                .sortBy(CarQuery.SortField.PRICE, false).limit(10), STATISTICS);
+        Assertions.assertEquals(QueryPlan.AccessPath.PRICE_INDEX, cheapest.getAccessPath());
+        Assertions.assertTrue(cheapest.isOrdered());
+        Assertions.assertTrue(cheapest.toString().contains("Price index scan in price order"), cheapest.toString());
+
+        // Most expensive first has no ordered path, so the heap only holds the limit
+        QueryPlan dearest = QueryPlanner.plan(new CarQuery().sortBy(CarQuery.SortField.PRICE, true).limit(10),
+                STATISTICS);
+        Assertions.assertEquals(QueryPlan.AccessPath.FULL_SCAN, dearest.getAccessPath());
+        Assertions.assertTrue(dearest.toString().startsWith("Top 10 by PRICE desc\n  Full scan"), dearest.toString());
+        QueryPlan all = QueryPlanner.plan(new CarQuery().sortBy(CarQuery.SortField.PRICE, true), STATISTICS);
+        Assertions.assertTrue(dearest.getCost() < all.getCost());
+    }
+}
@@ -0,0 +1,40 @@
+package controller.query;
+
+import model.entity.Car;
+import model.entity.FuelType;
+import model.store.ColumnarCarStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TopRowsTest {
+
+    @Test
+    void testKeepsTheFirstRowsInSortOrder() {
+        ColumnarCarStore cars = new ColumnarCarStore();
+        Random random = new Random(9);
+        for (int id = 1; id <= 500; id++) {
+            cars.add(new Car(id, "VW", "Golf", random.nextInt(50), new Timestamp(0), FuelType.DIESEL, 100));
+        }
+        Integer[] all = new Integer[500];
+        for (int row = 0; row < 500; row++) {
+            all[row] = row;
+        }
+        for (int k : new int[]{0, 1, 7, 500, 1000}) {
+            for (boolean descending : new boolean[]{false, true}) {
+                CarQuery query = new CarQuery().sortBy(CarQuery.SortField.PRICE, descending).limit(k);
+                TopRows topRows = new TopRows(query, cars);
+                for (int row = 0; row < 500; row++) {
+                    topRows.offer(row);
+                }
+                Arrays.sort(all, (row1, row2) -> query.compareRows(cars, row1, row2));
+                int[] expected = Arrays.stream(all).limit(k).mapToInt(Integer::intValue).toArray();
+                Assertions.assertEquals(expected.length, topRows.size());
+                Assertions.assertArrayEquals(expected, topRows.sortedRows(), "k=" + k + " descending=" + descending);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package controller.stats;
+
+import model.DTO.GroupStatsDTO;
+import model.DTO.InventoryStatsDTO;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class InventoryAggregatesTest {
+
+    @Test
+    void testGroupsFollowAddsAndRemoves() {
+        InventoryAggregates aggregates = new InventoryAggregates();
+        aggregates.add("VW", FuelType.DIESEL, 1000, 100);
+        aggregates.add("vw", FuelType.HYBRID, 3000, 200);
+        aggregates.add("Kia", FuelType.DIESEL, 2000, 150);
+
+        InventoryStatsDTO stats = aggregates.toDTO();
+        GroupStatsDTO vw = stats.getManufacturers().get(1);
+        Assertions.assertEquals("VW", vw.getGroup());
+        Assertions.assertEquals(2, vw.getCount());
+        Assertions.assertEquals(4000, vw.getTotalPrice());
+        Assertions.assertEquals(2000, vw.getAveragePrice());
+        Assertions.assertEquals(1000, vw.getMinPrice());
+        Assertions.assertEquals(3000, vw.getMaxPrice());
+        Assertions.assertEquals(150, vw.getAverageHorsepower());
+        Assertions.assertEquals(3, stats.getTotal().getCount());
+        Assertions.assertEquals(3000, stats.getTotal().getMaxPrice());
+        Assertions.assertEquals("DIESEL", stats.getFuelTypes().get(0).getGroup());
+
+        // Removing an inner price keeps the extremes; removing an extreme makes them stale
+        aggregates.add("VW", FuelType.DIESEL, 1500, 100);
+        aggregates.remove("VW", FuelType.DIESEL, 1500, 100);
+        Assertions.assertFalse(aggregates.hasStaleExtremes());
+        aggregates.remove("VW", FuelType.HYBRID, 3000, 200);
+        Assertions.assertEquals(1, aggregates.staleManufacturers().size());
+        Assertions.assertTrue(aggregates.staleFuelTypes().isEmpty());
+        aggregates.manufacturer("vw").setExtremes(1000, 1000);
+        Assertions.assertFalse(aggregates.hasStaleExtremes());
+        // The emptied HYBRID group is dropped
+        Assertions.assertEquals(1, aggregates.toDTO().getFuelTypes().size());
+    }
+
+    @Test
+    void testDifferencesAgainstARebuild() {
+        InventoryAggregates running = new InventoryAggregates();
+        InventoryAggregates rebuilt = new InventoryAggregates();
+        running.add("VW", FuelType.DIESEL, 1000, 100);
+        rebuilt.add("vw", FuelType.DIESEL, 1000, 100);
+        Assertions.assertTrue(running.differences(rebuilt).isEmpty());
+
+        running.add("Kia", FuelType.DIESEL, 500, 90);
+        rebuilt.add("Kia", FuelType.ELECTRIC, 500, 90);
+        // DIESEL has an extra car and ELECTRIC is missing
+        Assertions.assertEquals(2, running.differences(rebuilt).size());
+    }
+}
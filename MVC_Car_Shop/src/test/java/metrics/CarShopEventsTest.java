@@ -0,0 +1,92 @@
+package metrics;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import model.entity.Car;
+import model.entity.FuelType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CarShopEventsTest {
+    @TempDir
+    Path tempDir;
+
+    private static Car car(int id) {
+        return new Car(id, "VW", "Model" + id, id * 100L,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.DIESEL, 150);
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    void testStorageQueryAndMutationEventsAreRecorded() throws Exception {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        Path dump = tempDir.resolve("carshop.jfr");
+        try (Recording recording = new Recording()) {
+            // The thresholds would hide these fast calls, so record everything
+            recording.enable(CarFileReadEvent.class).withoutThreshold();
+            recording.enable(CarFileWriteEvent.class).withoutThreshold();
+            recording.enable(CarQueryEvent.class).withoutThreshold();
+            recording.enable(CarMutationEvent.class).withoutThreshold();
+            recording.start();
+
+            CarController carController = new CarController(new CarDAO(csvPath));
+            carController.loadCarsFromCSV();
+            for (int id = 1; id <= 5; id++) {
+                carController.addCarLogic(car(id));
+            }
+            carController.getCarsByManufacturerLogic("vw");
+            carController.getCarsByManufacturerLogic("vw");
+            carController.getCarsWithPriceBetweenLogic(200, 400);
+            carController.getAllCarsPage(Long.MIN_VALUE, 2);
+
+            CarController reloaded = new CarController(new CarDAO(csvPath));
+            reloaded.loadCarsFromCSV();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> reads = events(events, "carshop.CarFileRead");
+        Assertions.assertEquals(2, reads.size());
+        Assertions.assertEquals("none", reads.get(0).getString("format"));
+        Assertions.assertEquals("csv", reads.get(1).getString("format"));
+        Assertions.assertEquals(5, reads.get(1).getInt("rows"));
+        Assertions.assertTrue(reads.get(1).getLong("fileSize") > 0);
+
+        List<RecordedEvent> writes = events(events, "carshop.CarFileWrite");
+        Assertions.assertEquals(5, writes.size());
+        Assertions.assertEquals("writeCars", writes.get(4).getString("operation"));
+        Assertions.assertEquals(5, writes.get(4).getInt("rows"));
+
+        List<RecordedEvent> mutations = events(events, "carshop.CarMutation");
+        Assertions.assertEquals(5, mutations.size());
+        Assertions.assertEquals("addCarLogic", mutations.get(0).getString("operation"));
+        Assertions.assertEquals(1, mutations.get(0).getInt("carId"));
+
+        List<RecordedEvent> queries = events(events, "carshop.CarQuery");
+        Assertions.assertEquals(4, queries.size());
+        Assertions.assertEquals("manufacturer=vw", queries.get(0).getString("parameters"));
+        Assertions.assertEquals(5, queries.get(0).getInt("rowsScanned"));
+        // The second call was answered by the query cache
+        Assertions.assertEquals(5, queries.get(1).getInt("matches"));
+        Assertions.assertEquals(0, queries.get(1).getInt("rowsScanned"));
+        Assertions.assertEquals(3, queries.get(2).getInt("matches"));
+        Assertions.assertEquals("getAllCarsPage", queries.get(3).getString("query"));
+        Assertions.assertEquals(2, queries.get(3).getInt("matches"));
+        Assertions.assertEquals(3, queries.get(3).getInt("rowsScanned"));
+    }
+}
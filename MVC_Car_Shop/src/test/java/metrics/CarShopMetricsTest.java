@@ -0,0 +1,110 @@
+package metrics;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+public class CarShopMetricsTest {
+    @TempDir
+    Path tempDir;
+
+    private static Car car(int id) {
+        return new Car(id, "VW", "Model" + id, id * 100L,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.DIESEL, 150);
+    }
+
+    private static OperationStats stats(CarShopMetrics metrics, String operation) {
+        return metrics.getOperations().stream()
+                .filter(stats -> stats.getOperation().equals(operation))
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    void testControllerAndDaoOperationsAreRecorded() throws BusinessException {
+        String csvPath = tempDir.resolve("cars.csv").toString();
+        CarController carController = new CarController(new CarDAO(csvPath));
+        carController.loadCarsFromCSV();
+        for (int id = 1; id <= 10; id++) {
+            carController.addCarLogic(car(id));
+        }
+        carController.deleteCarByID(10);
+        carController.getCarsWithPriceBetweenLogic(0, 500);
+
+        CarShopMetrics metrics = carController.getMetrics();
+        Assertions.assertEquals(9, metrics.getInventorySize());
+        Assertions.assertEquals(10, stats(metrics, "CarController.addCarLogic").getCount());
+        Assertions.assertEquals(1, stats(metrics, "CarController.getCarsWithPriceBetweenLogic").getCount());
+        // Every change rewrote the CSV file
+        Assertions.assertEquals(11, stats(metrics, "CarDAO.writeCarStore").getCount());
+        Assertions.assertEquals(1 + 2 + 3 + 4 + 5 + 6 + 7 + 8 + 9 + 10 + 9, metrics.getRowsWritten());
+        Assertions.assertTrue(metrics.getBytesWritten() > new File(csvPath).length());
+
+        CarController reloaded = new CarController(new CarDAO(csvPath));
+        reloaded.loadCarsFromCSV();
+        Assertions.assertEquals(9, reloaded.getMetrics().getRowsRead());
+        Assertions.assertEquals(new File(csvPath).length(), reloaded.getMetrics().getBytesRead());
+        Assertions.assertEquals(1, stats(reloaded.getMetrics(), "CarController.loadCarsFromCSV").getCount());
+
+        String report = metrics.getReport();
+        Assertions.assertTrue(report.contains("inventory=9"));
+        Assertions.assertTrue(report.contains("CarController.addCarLogic"));
+        // Operations that never ran are left out of the report
+        Assertions.assertFalse(report.contains("CarController.upsertCarsLogic"));
+    }
+
+    @Test
+    void testJournalAppendsAreCounted() throws BusinessException {
+        CarController carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+        carController.addCarLogic(car(1));
+        carController.updateCarLogic(car(1), 1);
+        carController.close();
+
+        CarShopMetrics metrics = carController.getMetrics();
+        Assertions.assertEquals(2, stats(metrics, "CarDAO.appendJournal").getCount());
+        Assertions.assertEquals(2, metrics.getRowsWritten());
+        Assertions.assertEquals(tempDir.resolve("cars.csv.journal").toFile().length(), metrics.getBytesWritten());
+    }
+
+    @Test
+    void testMetricsArePublishedOverJmxAndReported() throws Exception {
+        CarController carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString()));
+        carController.loadCarsFromCSV();
+        carController.addCarLogic(car(1));
+
+        ObjectName name = carController.getMetrics().registerMBean("carshop.test:type=CarShopMetrics");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Assertions.assertEquals(1, server.getAttribute(name, "InventorySize"));
+            CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+            Assertions.assertEquals("CarDAO.readCarStore", operations[0].get("operation"));
+            Assertions.assertTrue(((String) server.getAttribute(name, "Report")).contains("inventory=1"));
+
+            server.invoke(name, "reset", null, null);
+            Assertions.assertEquals(0L, server.getAttribute(name, "RowsWritten"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+
+        Path log = tempDir.resolve("metrics.log");
+        MetricsReporter reporter = new MetricsReporter(carController.getMetrics(), log, 60);
+        reporter.report();
+        reporter.close();
+        Assertions.assertTrue(Files.readString(log).contains("inventory=1"));
+    }
+}
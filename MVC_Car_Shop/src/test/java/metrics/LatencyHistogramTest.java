@@ -0,0 +1,76 @@
+package metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverTheirValues() {
+        long previousUpperBound = -1;
+        for (int bucket = 0; bucket < 400; bucket++) {
+            long upperBound = LatencyHistogram.upperBoundOf(bucket);
+            Assertions.assertTrue(upperBound > previousUpperBound);
+            Assertions.assertEquals(bucket, LatencyHistogram.bucketOf(previousUpperBound + 1));
+            Assertions.assertEquals(bucket, LatencyHistogram.bucketOf(upperBound));
+            previousUpperBound = upperBound;
+        }
+        Assertions.assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE),
+                LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))));
+    }
+
+    @Test
+    void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        Assertions.assertEquals(10_000, histogram.getCount());
+        Assertions.assertEquals(10_000_000, histogram.getMaxNanos());
+        assertClose(5_000_000, histogram.getPercentileNanos(0.5));
+        assertClose(9_900_000, histogram.getPercentileNanos(0.99));
+        assertClose(9_990_000, histogram.getPercentileNanos(0.999));
+        assertClose(5_000_500, (long) histogram.getMeanNanos());
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getPercentileNanos(0.5));
+    }
+
+    @Test
+    void testSampledHistogramEstimatesTheCount() {
+        LatencyHistogram histogram = new LatencyHistogram("sampled", 16);
+        for (int i = 0; i < 16_000; i++) {
+            histogram.stop(histogram.start());
+        }
+        // About one call in 16 is timed and counted as 16 calls
+        Assertions.assertEquals(0, histogram.getCount() % 16);
+        Assertions.assertTrue(histogram.getCount() > 8_000 && histogram.getCount() < 32_000);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram("odd", 3));
+    }
+
+    @Test
+    void testConcurrentRecordersKeepTheLargestMaximum() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram("concurrent");
+        Thread[] recorders = new Thread[4];
+        for (int t = 0; t < recorders.length; t++) {
+            int offset = t;
+            recorders[t] = new Thread(() -> {
+                for (long nanos = 1; nanos <= 100_000; nanos++) {
+                    histogram.record(nanos * recorders.length + offset);
+                }
+            });
+            recorders[t].start();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        Assertions.assertEquals(100_000L * recorders.length + recorders.length - 1, histogram.getMaxNanos());
+        Assertions.assertEquals(histogram.getMaxNanos(), histogram.getPercentileNanos(1.0));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assertions.assertTrue(Math.abs(actual - expected) <= expected / 8, expected + " vs " + actual);
+    }
+}
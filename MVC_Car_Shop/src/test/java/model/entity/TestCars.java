@@ -0,0 +1,13 @@
+package model.entity;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+// Cars for tests that only care about the ID, manufacturer and price
+public class TestCars {
+
+    public static Car car(int id, String manufacturer, long price) {
+        return new Car(id, manufacturer, "Model" + id, price,
+                Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()), FuelType.DIESEL, 150);
+    }
+}
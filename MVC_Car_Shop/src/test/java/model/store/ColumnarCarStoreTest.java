@@ -0,0 +1,76 @@
+package model.store;
+
+import model.DTO.CarDetailDTO;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+
+public class ColumnarCarStoreTest {
+
+    private static Car car(int id, String manufacturer, long price) {
+        return new Car(id, manufacturer, "Model" + id, price, new Timestamp(1_700_000_123_456L),
+                FuelType.ELECTRIC, 100 + id);
+    }
+
+    @Test
+    void testRowsRoundTripThroughColumns() {
+        ColumnarCarStore store = new ColumnarCarStore(1);
+        for (int id = 1; id <= 10; id++) {
+            Assertions.assertEquals(id - 1, store.add(car(id, id % 2 == 0 ? "VW" : "BMW", 1000L * id)));
+        }
+
+        CarDetailDTO details = store.toCarDetailDTO(4);
+        Assertions.assertEquals(5, details.getId());
+        Assertions.assertEquals("BMW", details.getManufacturer());
+        Assertions.assertEquals("Model5", details.getModel());
+        Assertions.assertEquals(5000, details.getPrice());
+        Assertions.assertEquals(new Timestamp(1_700_000_123_456L), details.getProductionDate());
+        Assertions.assertEquals(FuelType.ELECTRIC, details.getFuelType());
+        Assertions.assertEquals(105, details.getHorsepower());
+
+        store.set(4, car(50, "Kia", 1));
+        Assertions.assertEquals("Kia", store.manufacturer(4));
+        Assertions.assertEquals(50, store.id(4));
+    }
+
+    @Test
+    void testRemoveMovesLastRow() {
+        ColumnarCarStore store = new ColumnarCarStore();
+        store.add(car(1, "VW", 100));
+        store.add(car(2, "BMW", 200));
+        store.add(car(3, "Kia", 300));
+
+        store.remove(0);
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertEquals(3, store.id(0));
+        Assertions.assertEquals("Kia", store.manufacturer(0));
+
+        store.remove(1);
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals(3, store.asCarList().get(0).getId());
+    }
+
+    @Test
+    void testAddAllTranslatesDictionaryCodes() {
+        ColumnarCarStore first = new ColumnarCarStore();
+        first.add(car(1, "VW", 100));
+        ColumnarCarStore second = new ColumnarCarStore();
+        second.add(car(2, "BMW", 200));
+        second.add(car(3, "VW", 300));
+
+        first.addAll(second);
+        Assertions.assertEquals(3, first.size());
+        Assertions.assertEquals("BMW", first.manufacturer(1));
+        Assertions.assertEquals("VW", first.manufacturer(2));
+        Assertions.assertEquals("Model3", first.model(2));
+
+        // A copy does not see later changes
+        ColumnarCarStore copy = first.copy();
+        first.set(0, car(9, "Audi", 900));
+        Assertions.assertEquals("VW", copy.manufacturer(0));
+        Assertions.assertEquals(1, copy.id(0));
+    }
+}
@@ -0,0 +1,125 @@
+package model.store;
+
+import model.DTO.CarDetailDTO;
+import model.entity.FuelType;
+import model.entity.TestCars;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+public class MappedCarStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordsRoundTripThroughTheMapping() throws IOException {
+        try (MappedCarStore store = MappedCarStore.open(tempDir.resolve("cars.db"))) {
+            for (int id = 1; id <= 10; id++) {
+                Assertions.assertEquals(id - 1, store.add(TestCars.car(id, id % 2 == 0 ? "VW" : "BMW", 1000L * id)));
+            }
+
+            CarDetailDTO details = store.toCarDetailDTO(4);
+            Assertions.assertEquals(5, details.getId());
+            Assertions.assertEquals("BMW", details.getManufacturer());
+            Assertions.assertEquals("Model5", details.getModel());
+            Assertions.assertEquals(5000, details.getPrice());
+            Assertions.assertEquals(Timestamp.valueOf(LocalDate.of(2023, 5, 1).atStartOfDay()),
+                    details.getProductionDate());
+            Assertions.assertEquals(FuelType.DIESEL, details.getFuelType());
+            Assertions.assertEquals(150, details.getHorsepower());
+
+            store.set(4, TestCars.car(50, "Kia", 1));
+            Assertions.assertEquals("Kia", store.manufacturer(4));
+            Assertions.assertEquals(4, store.rowOf(50));
+            Assertions.assertEquals(CarStore.NO_ROW, store.rowOf(5));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.add(TestCars.car(50, "Kia", 1)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.set(3, TestCars.car(50, "Kia", 1)));
+        }
+    }
+
+    @Test
+    void testRemovedSlotsAreReusedWithoutMovingRows() throws IOException {
+        try (MappedCarStore store = MappedCarStore.open(tempDir.resolve("cars.db"))) {
+            store.add(TestCars.car(1, "VW", 100));
+            store.add(TestCars.car(2, "BMW", 200));
+            store.add(TestCars.car(3, "Kia", 300));
+
+            Assertions.assertEquals(CarStore.NO_ROW, store.remove(0));
+            Assertions.assertEquals(2, store.size());
+            Assertions.assertEquals(3, store.rowLimit());
+            Assertions.assertFalse(store.isLive(0));
+            Assertions.assertEquals(3, store.id(2));
+
+            Assertions.assertEquals(0, store.add(TestCars.car(4, "Audi", 400)));
+            Assertions.assertEquals(3, store.add(TestCars.car(5, "Fiat", 500)));
+            Assertions.assertEquals(4, store.size());
+            Assertions.assertEquals(0, store.rowOf(4));
+        }
+    }
+
+    @Test
+    void testCarsSurviveReopening() throws IOException {
+        Path file = tempDir.resolve("cars.db");
+        try (MappedCarStore store = MappedCarStore.open(file, 3)) {
+            // Eight records per segment, so the file grows over several mappings
+            for (int id = 1; id <= 3000; id++) {
+                store.add(TestCars.car(id, "Manufacturer" + id % 7, id));
+            }
+            for (int id = 2; id <= 3000; id += 2) {
+                store.remove(store.rowOf(id));
+            }
+        }
+
+        try (MappedCarStore store = MappedCarStore.open(file, 3)) {
+            Assertions.assertEquals(1500, store.size());
+            Assertions.assertEquals(3000, store.rowLimit());
+            for (int id = 1; id <= 3000; id++) {
+                int row = store.rowOf(id);
+                if (id % 2 == 0) {
+                    Assertions.assertEquals(CarStore.NO_ROW, row);
+                } else {
+                    Assertions.assertEquals("Manufacturer" + id % 7, store.manufacturer(row));
+                    Assertions.assertEquals("Model" + id, store.model(row));
+                    Assertions.assertEquals(id, store.price(row));
+                }
+            }
+            // The free list is persisted too
+            Assertions.assertTrue(store.add(TestCars.car(5000, "Tesla", 1)) < 3000);
+            Assertions.assertEquals(1501, store.size());
+            Assertions.assertEquals(3000, store.rowLimit());
+
+            ColumnarCarStore copy = store.copy();
+            Assertions.assertEquals(1501, copy.size());
+        }
+    }
+
+    @Test
+    void testClearKeepsTheFileUsable() throws IOException {
+        Path file = tempDir.resolve("cars.db");
+        try (MappedCarStore store = MappedCarStore.open(file)) {
+            store.add(TestCars.car(1, "VW", 100));
+            store.clear();
+            Assertions.assertEquals(0, store.size());
+            Assertions.assertEquals(CarStore.NO_ROW, store.rowOf(1));
+            Assertions.assertEquals(0, store.add(TestCars.car(1, "BMW", 100)));
+        }
+        try (MappedCarStore store = MappedCarStore.open(file)) {
+            Assertions.assertEquals(1, store.size());
+            Assertions.assertEquals("BMW", store.manufacturer(store.rowOf(1)));
+        }
+    }
+
+    @Test
+    void testForeignFilesAreRejected() throws IOException {
+        Path file = tempDir.resolve("cars.db");
+        Files.write(file, new byte[8192]);
+        Assertions.assertThrows(IOException.class, () -> MappedCarStore.open(file));
+    }
+}
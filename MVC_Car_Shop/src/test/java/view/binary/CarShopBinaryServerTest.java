@@ -0,0 +1,252 @@
+package view.binary;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.CarManufacturerDTO;
+import model.DTO.PageDTO;
+import model.entity.Car;
+import model.entity.TestCars;
+import model.entity.FuelType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CarShopBinaryServerTest {
+    @TempDir
+    Path tempDir;
+
+    private CarController carController;
+    private CarShopBinaryServer server;
+    private CarShopBinaryClient client;
+
+    @BeforeEach
+    void setUp() throws BusinessException {
+        carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+        List<Car> cars = new ArrayList<>();
+        for (int id = 1; id <= 3000; id++) {
+            cars.add(TestCars.car(id, id % 3 == 0 ? "VW" : "BMW", 100_000 - id));
+        }
+        carController.addCarsLogic(cars);
+        server = new CarShopBinaryServer(carController, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = CarShopBinaryClient.connect(address());
+    }
+
+    @AfterEach
+    void tearDown() throws BusinessException {
+        client.close();
+        server.close();
+        carController.close();
+    }
+
+    private InetSocketAddress address() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+
+    @Test
+    void testCrudRequests() throws BusinessException {
+        Car porsche = new Car(5000, "Porsche", "Cayenne Ü", 90000,
+                Timestamp.valueOf(LocalDate.of(2021, 12, 3).atStartOfDay()), FuelType.HYBRID, 340);
+        client.addCar(porsche);
+        BusinessException conflict = Assertions.assertThrows(BusinessException.class, () -> client.addCar(porsche));
+        Assertions.assertTrue(conflict.getMessage().contains("already exists"), conflict.getMessage());
+
+        CarDetailDTO details = client.getCar(5000);
+        Assertions.assertEquals(porsche.toCarDetailDTO().toString(), details.toString());
+        Assertions.assertEquals(porsche.getProductionDate(), details.getProductionDate());
+        Assertions.assertNull(client.getCar(6000));
+
+        Assertions.assertTrue(client.updateCar(TestCars.car(5001, "Porsche", 85000), 5000));
+        Assertions.assertFalse(carController.containsCar(5000));
+        Assertions.assertEquals(85000, carController.getCarDetailsById(5001).getPrice());
+        Assertions.assertFalse(client.updateCar(TestCars.car(6001, "Porsche", 1), 6000));
+        Assertions.assertThrows(BusinessException.class, () -> client.updateCar(TestCars.car(1, "Porsche", 1), 5001));
+
+        Assertions.assertTrue(client.deleteCar(5001));
+        Assertions.assertFalse(client.deleteCar(5001));
+        Assertions.assertFalse(carController.containsCar(5001));
+    }
+
+    @Test
+    void testPagesMatchTheController() throws BusinessException {
+        List<CarDTO> all = new ArrayList<>();
+        PageDTO<CarDTO> page = client.getAllCarsPage(Long.MIN_VALUE, BinaryProtocol.MAX_PAGE_SIZE);
+        all.addAll(page.getItems());
+        Assertions.assertFalse(page.hasMore());
+        Assertions.assertEquals(3000, all.size());
+        Assertions.assertEquals(carController.getAllCarsPage(Long.MIN_VALUE, 3000).getItems().toString(),
+                all.toString());
+
+        PageDTO<CarManufacturerDTO> vw = client.getCarsByManufacturerPage("vw", 300, 10);
+        Assertions.assertTrue(vw.hasMore());
+        Assertions.assertEquals(carController.getCarsByManufacturerPage("vw", 300, 10).getItems().toString(),
+                vw.getItems().toString());
+        Assertions.assertEquals(330, vw.getLastId());
+
+        PageDTO<CarDTO> cheap = client.getCarsWithPriceLowerThanPage(97010, Long.MIN_VALUE, Long.MIN_VALUE, 4);
+        Assertions.assertEquals(3000, cheap.getItems().get(0).getId());
+        PageDTO<CarDTO> next = client.getCarsWithPriceLowerThanPage(97010, cheap.getLastPrice(), cheap.getLastId(), 10);
+        Assertions.assertEquals(6, next.getItems().size());
+        Assertions.assertFalse(next.hasMore());
+
+        BusinessException tooLarge = Assertions.assertThrows(BusinessException.class,
+                () -> client.getAllCarsPage(Long.MIN_VALUE, BinaryProtocol.MAX_PAGE_SIZE + 1));
+        Assertions.assertTrue(tooLarge.getMessage().contains("limit"), tooLarge.getMessage());
+    }
+
+    @Test
+    void testPipelinedRequestsAnswerInOrder() throws BusinessException {
+        int requests = 20_000;
+        List<CarShopBinaryClient.Reply<CarDetailDTO>> lookups = new ArrayList<>();
+        List<CarShopBinaryClient.Reply<Boolean>> updates = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            int id = 1 + i % 4000;
+            lookups.add(client.sendGetCar(id));
+            if (i % 100 == 0) {
+                updates.add(client.sendUpdateCar(TestCars.car(id, "Audi", i), id));
+            }
+        }
+        Assertions.assertFalse(lookups.get(0).isDone());
+        Assertions.assertThrows(IllegalStateException.class, () -> lookups.get(0).get());
+        client.sync();
+        Assertions.assertEquals(0, client.getPendingRequests());
+        for (int i = 0; i < requests; i++) {
+            int id = 1 + i % 4000;
+            CarDetailDTO car = lookups.get(i).get();
+            if (id > 3000) {
+                Assertions.assertNull(car);
+            } else {
+                Assertions.assertEquals(id, car.getId());
+            }
+        }
+        for (int i = 0; i < updates.size(); i++) {
+            Assertions.assertEquals(1 + i * 100 % 4000 <= 3000, updates.get(i).get());
+        }
+        Assertions.assertEquals("Audi", carController.getCarDetailsById(101).getManufacturer());
+    }
+
+    @Test
+    void testLookupsAfterAChangeSeeIt() throws BusinessException {
+        List<CarShopBinaryClient.Reply<CarDetailDTO>> lookups = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            client.sendUpdateCar(TestCars.car(id, "Audi", id), id);
+            lookups.add(client.sendGetCar(id));
+            client.sendDeleteCar(id + 1000);
+            lookups.add(client.sendGetCar(id + 1000));
+        }
+        client.sync();
+        for (int id = 1; id <= 200; id++) {
+            Assertions.assertEquals("Audi", lookups.get(2 * (id - 1)).get().getManufacturer());
+            Assertions.assertNull(lookups.get(2 * id - 1).get());
+        }
+    }
+
+    @Test
+    void testStorageFailureAnswersAsInternalError() throws BusinessException {
+        String csvPath = tempDir.resolve("failing.csv").toString();
+        CarController failing = new CarController(new CarDAO(csvPath, true) {
+            @Override
+            public synchronized void appendAdd(Car car) throws BusinessException {
+                throw new StorageException("Cannot write " + csvPath + ".journal", "appendRecord");
+            }
+        });
+        failing.loadCarsFromCSV();
+        try (CarShopBinaryServer failingServer = new CarShopBinaryServer(failing,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            failingServer.start();
+            try (CarShopBinaryClient failingClient = CarShopBinaryClient.connect(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), failingServer.getPort()))) {
+                BusinessException error = Assertions.assertThrows(BusinessException.class,
+                        () -> failingClient.addCar(TestCars.car(1, "VW", 1000)));
+                Assertions.assertTrue(error.getMessage().endsWith("Internal error."), error.getMessage());
+                Assertions.assertFalse(error.getMessage().contains(csvPath), error.getMessage());
+            }
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    void testInternalErrorAnswersWithoutDetailsAndKeepsServing() throws BusinessException {
+        CarController failing = new CarController(new CarDAO(tempDir.resolve("failing.csv").toString(), true)) {
+            // Fails while the response is being written
+            @Override
+            public PageDTO<CarDTO> getAllCarsPage(long afterId, int limit) {
+                return new PageDTO<>(Collections.singletonList(null), false, 0, 0);
+            }
+        };
+        failing.loadCarsFromCSV();
+        failing.addCarLogic(TestCars.car(1, "VW", 1000));
+        try (CarShopBinaryServer failingServer = new CarShopBinaryServer(failing,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            failingServer.start();
+            try (CarShopBinaryClient failingClient = CarShopBinaryClient.connect(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), failingServer.getPort()))) {
+                CarShopBinaryClient.Reply<PageDTO<CarDTO>> page = failingClient.sendGetAllCarsPage(Long.MIN_VALUE, 10);
+                CarShopBinaryClient.Reply<CarDetailDTO> car = failingClient.sendGetCar(1);
+                failingClient.sync();
+                BusinessException error = Assertions.assertThrows(BusinessException.class, page::get);
+                Assertions.assertTrue(error.getMessage().endsWith("Internal error."), error.getMessage());
+                Assertions.assertEquals(1, car.get().getId());
+            }
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    void testRejectsBadRequests() throws BusinessException, IOException {
+        BusinessException badName = Assertions.assertThrows(BusinessException.class,
+                () -> client.addCar(TestCars.car(7000, "VW, AG", 1)));
+        Assertions.assertTrue(badName.getMessage().contains("manufacturer"), badName.getMessage());
+        Assertions.assertThrows(BusinessException.class, () -> client.addCar(TestCars.car(7000, "VW", -1)));
+        Assertions.assertFalse(carController.containsCar(7000));
+        // The connection survives rejected requests
+        Assertions.assertEquals(1, client.getCar(1).getId());
+
+        try (SocketChannel channel = SocketChannel.open(address())) {
+            // Unknown opcode, then a truncated GET_CAR
+            ByteBuffer request = ByteBuffer.allocate(64);
+            request.putInt(5).put((byte) 99).putInt(7);
+            request.putInt(5).put(BinaryProtocol.GET_CAR).putInt(8);
+            channel.write(request.flip());
+            ByteBuffer response = ByteBuffer.allocate(256);
+            while (response.position() < 8 || response.position() < 8 + response.getInt(0)
+                    + response.getInt(4 + response.getInt(0))) {
+                channel.read(response);
+            }
+            response.flip();
+            Assertions.assertEquals(7, response.getInt(4));
+            Assertions.assertEquals(BinaryProtocol.BAD_REQUEST, response.get(8));
+            int second = 4 + response.getInt(0);
+            Assertions.assertEquals(8, response.getInt(second + 4));
+            Assertions.assertEquals(BinaryProtocol.BAD_REQUEST, response.get(second + 8));
+
+            // A frame longer than any request closes the connection
+            channel.write(ByteBuffer.allocate(4).putInt(BinaryProtocol.MAX_REQUEST_BYTES).flip());
+            ByteBuffer rest = ByteBuffer.allocate(16);
+            Assertions.assertEquals(-1, channel.read(rest));
+        }
+        // Other connections are unaffected
+        Assertions.assertEquals(2, client.getCar(2).getId());
+    }
+}
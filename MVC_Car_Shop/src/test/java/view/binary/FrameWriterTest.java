@@ -0,0 +1,96 @@
+package view.binary;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class FrameWriterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFramesSpanSmallBuffers() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        FrameWriter out = new FrameWriter(pool);
+        for (int frame = 0; frame < 50; frame++) {
+            out.beginFrame();
+            out.putByte(frame);
+            out.putLong(frame * 1_000_000_007L);
+            out.putString("frame " + frame);
+            out.putString("é".repeat(frame));
+            out.putInt(-frame);
+            out.endFrame();
+        }
+        Assertions.assertTrue(out.hasPending());
+        Path file = tempDir.resolve("frames");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Assertions.assertTrue(out.writeTo(channel));
+        }
+        Assertions.assertFalse(out.hasPending());
+        Assertions.assertEquals(0, out.getPendingBytes());
+        // Written buffers went back to the pool, up to its limit
+        Assertions.assertEquals(4, pool.getPooled());
+
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        for (int frame = 0; frame < 50; frame++) {
+            int length = in.getInt();
+            int end = in.position() + length;
+            Assertions.assertEquals(frame, in.get());
+            Assertions.assertEquals(frame * 1_000_000_007L, in.getLong());
+            Assertions.assertEquals("frame " + frame, BinaryProtocol.getString(in));
+            Assertions.assertEquals("é".repeat(frame), BinaryProtocol.getString(in));
+            Assertions.assertEquals(-frame, in.getInt());
+            Assertions.assertEquals(end, in.position());
+        }
+        Assertions.assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void testRejectsUnbalancedFrames() throws IOException {
+        FrameWriter out = new FrameWriter(new BufferPool(64, 4));
+        Assertions.assertThrows(IllegalStateException.class, out::endFrame);
+        out.beginFrame();
+        Assertions.assertThrows(IllegalStateException.class, out::beginFrame);
+        Assertions.assertThrows(IllegalStateException.class, () -> out.writeTo(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> out.putString("é".repeat(40_000)));
+        out.release();
+        Assertions.assertFalse(out.hasPending());
+    }
+
+    @Test
+    void testAbandonedFrameLeavesNoTrace() throws IOException {
+        BufferPool pool = new BufferPool(16, 8);
+        FrameWriter out = new FrameWriter(pool);
+        out.beginFrame();
+        out.putInt(1);
+        out.endFrame();
+        // A frame spanning several buffers, dropped halfway
+        out.beginFrame();
+        out.putString("a frame that never ends");
+        out.putLong(2);
+        out.abandonFrame();
+        Assertions.assertEquals(8, out.getPendingBytes());
+        out.abandonFrame();
+        out.beginFrame();
+        out.putInt(3);
+        out.endFrame();
+
+        Path file = tempDir.resolve("frames");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Assertions.assertTrue(out.writeTo(channel));
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        Assertions.assertEquals(4, in.getInt());
+        Assertions.assertEquals(1, in.getInt());
+        Assertions.assertEquals(4, in.getInt());
+        Assertions.assertEquals(3, in.getInt());
+        Assertions.assertFalse(in.hasRemaining());
+    }
+}
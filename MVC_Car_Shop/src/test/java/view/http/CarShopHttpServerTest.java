@@ -0,0 +1,166 @@
+package view.http;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import exceptions.StorageException;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CarShopHttpServerTest {
+    @TempDir
+    Path tempDir;
+
+    private CarController carController;
+    private CarShopHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws BusinessException {
+        carController = new CarController(new CarDAO(tempDir.resolve("cars.csv").toString(), true));
+        carController.loadCarsFromCSV();
+        List<Car> cars = new ArrayList<>();
+        for (int id = 1; id <= 3000; id++) {
+            cars.add(new Car(id, id % 3 == 0 ? "VW" : "BMW", "Model " + id, 100_000 - id,
+                    Timestamp.valueOf(LocalDate.of(2020, 1, 1).plusDays(id).atStartOfDay()), FuelType.DIESEL, 100));
+        }
+        carController.addCarsLogic(cars);
+        server = new CarShopHttpServer(carController, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws BusinessException {
+        server.close();
+        carController.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int count(String json, String text) {
+        int count = 0;
+        for (int i = json.indexOf(text); i >= 0; i = json.indexOf(text, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void testCrudEndpoints() throws IOException, InterruptedException {
+        String car = "{\"id\": 5000, \"manufacturer\": \"Porsche\", \"model\": \"Cayenne\", \"price\": 90000,"
+                + " \"productionDate\": \"03.12.2021\", \"fuelType\": \"hybrid\", \"horsepower\": 340}";
+        HttpResponse<String> added = send("POST", "/cars", car);
+        Assertions.assertEquals(201, added.statusCode(), added.body());
+        Assertions.assertEquals("/cars/5000", added.headers().firstValue("Location").orElse(null));
+        Assertions.assertEquals(409, send("POST", "/cars", car).statusCode());
+
+        HttpResponse<String> details = send("GET", "/cars/5000", null);
+        Assertions.assertEquals(200, details.statusCode());
+        Assertions.assertEquals("{\"id\":5000,\"manufacturer\":\"Porsche\",\"model\":\"Cayenne\",\"price\":90000,"
+                + "\"productionDate\":\"03.12.2021\",\"fuelType\":\"HYBRID\",\"horsepower\":340}", details.body());
+        Assertions.assertTrue(details.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+
+        // The ID defaults to the one in the path
+        HttpResponse<String> updated = send("PUT", "/cars/5000", car.replace("\"id\": 5000, ", "")
+                .replace("90000", "85000"));
+        Assertions.assertEquals(200, updated.statusCode(), updated.body());
+        Assertions.assertEquals(85000, carController.getCarDetailsById(5000).getPrice());
+        Assertions.assertEquals(404, send("PUT", "/cars/6000", car).statusCode());
+
+        Assertions.assertEquals(204, send("DELETE", "/cars/5000", null).statusCode());
+        Assertions.assertEquals(404, send("DELETE", "/cars/5000", null).statusCode());
+        Assertions.assertEquals(404, send("GET", "/cars/5000", null).statusCode());
+    }
+
+    @Test
+    void testStreamsLists() throws IOException, InterruptedException {
+        HttpResponse<String> all = send("GET", "/cars", null);
+        Assertions.assertEquals(200, all.statusCode());
+        Assertions.assertTrue(all.body().startsWith("[{\"id\":1,\"manufacturer\":\"BMW\",\"model\":\"Model 1\""),
+                all.body().substring(0, 100));
+        Assertions.assertTrue(all.body().endsWith("\"price\":97000}]"));
+        Assertions.assertEquals(3000, count(all.body(), "\"id\":"));
+
+        HttpResponse<String> vw = send("GET", "/cars?manufacturer=vw", null);
+        Assertions.assertEquals(1000, count(vw.body(), "\"id\":"));
+        Assertions.assertTrue(vw.body().startsWith("[{\"id\":3,\"model\":\"Model 3\",\"price\":99997}"));
+
+        // Cheapest first: the highest IDs
+        HttpResponse<String> cheap = send("GET", "/cars?maxPrice=97010", null);
+        Assertions.assertEquals(10, count(cheap.body(), "\"id\":"));
+        Assertions.assertTrue(cheap.body().startsWith("[{\"id\":3000,"), cheap.body());
+
+        Assertions.assertEquals("[]", send("GET", "/cars?manufacturer=Nobody", null).body());
+    }
+
+    @Test
+    void testStorageFailureAnswers500WithoutDetails() throws Exception {
+        String csvPath = tempDir.resolve("failing.csv").toString();
+        CarController failing = new CarController(new CarDAO(csvPath, true) {
+            @Override
+            public synchronized void appendAdd(Car car) throws BusinessException {
+                throw new StorageException("Cannot write " + csvPath + ".journal", "appendRecord");
+            }
+        });
+        failing.loadCarsFromCSV();
+        try (CarShopHttpServer failingServer = new CarShopHttpServer(failing,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+            failingServer.start();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + failingServer.getPort()
+                            + "/cars")).POST(HttpRequest.BodyPublishers.ofString("{\"id\": 1, \"manufacturer\":"
+                            + " \"VW\", \"model\": \"Golf\", \"price\": 1, \"productionDate\": \"01.02.2021\","
+                            + " \"fuelType\": \"DIESEL\", \"horsepower\": 1}")).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(500, response.statusCode());
+            Assertions.assertFalse(response.body().contains(csvPath), response.body());
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    void testRejectsBadRequests() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, send("GET", "/cars?maxPrice=cheap", null).statusCode());
+        Assertions.assertEquals(400, send("GET", "/cars?maxPrice=1&manufacturer=VW", null).statusCode());
+        Assertions.assertEquals(400, send("POST", "/cars", "{\"id\": 1").statusCode());
+        HttpResponse<String> badDate = send("POST", "/cars", "{\"id\": 9000, \"manufacturer\": \"VW\","
+                + " \"model\": \"Golf\", \"price\": 1, \"productionDate\": \"31.02.2021\", \"fuelType\": \"DIESEL\","
+                + " \"horsepower\": 1}");
+        Assertions.assertEquals(400, badDate.statusCode());
+        Assertions.assertTrue(badDate.body().contains("productionDate"), badDate.body());
+        HttpResponse<String> comma = send("POST", "/cars", "{\"id\": 9000, \"manufacturer\": \"VW, AG\","
+                + " \"model\": \"Golf\", \"price\": 1, \"productionDate\": \"01.02.2021\", \"fuelType\": \"DIESEL\","
+                + " \"horsepower\": 1}");
+        Assertions.assertEquals(400, comma.statusCode());
+        Assertions.assertFalse(carController.containsCar(9000));
+
+        Assertions.assertEquals(404, send("GET", "/cars/abc", null).statusCode());
+        Assertions.assertEquals(404, send("GET", "/trucks", null).statusCode());
+        HttpResponse<String> notAllowed = send("DELETE", "/cars", null);
+        Assertions.assertEquals(405, notAllowed.statusCode());
+        Assertions.assertEquals("GET, POST", notAllowed.headers().firstValue("Allow").orElse(null));
+    }
+}
@@ -0,0 +1,34 @@
+package view.http;
+
+import exceptions.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class JsonReaderTest {
+
+    @Test
+    void testReadsFlatObjects() throws BusinessException {
+        Map<String, Object> members = JsonReader.readObject(
+                " { \"id\" : 7, \"name\":\"Golf \\\"GTI\\\" \\u00e9\", \"price\": -15000, \"new\": false, \"note\": null } ");
+        Assertions.assertEquals(7L, members.get("id"));
+        Assertions.assertEquals("Golf \"GTI\" é", members.get("name"));
+        Assertions.assertEquals(-15000L, members.get("price"));
+        Assertions.assertEquals(false, members.get("new"));
+        Assertions.assertTrue(members.containsKey("note"));
+        Assertions.assertNull(members.get("note"));
+        Assertions.assertTrue(JsonReader.readObject("{}").isEmpty());
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        for (String json : new String[]{"", "[]", "{\"a\":1", "{\"a\":1,}", "{\"a\" 1}", "{\"a\":1.5}",
+                "{\"a\":{}}", "{\"a\":\"b}", "{\"a\":1} x", "{\"a\":1,\"a\":2}", "{\"a\":99999999999999999999}",
+                "{\"a\":tru}", "{\"a\":\"\\x\"}"}) {
+            BusinessException e = Assertions.assertThrows(BusinessException.class, () -> JsonReader.readObject(json),
+                    json);
+            Assertions.assertTrue(e.getMessage().startsWith("readJson Malformed JSON at position"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package view.http;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+public class JsonWriterTest {
+
+    @Test
+    void testWritesNestedValuesWithCommas() throws IOException {
+        StringWriter out = new StringWriter();
+        new JsonWriter(out).beginArray()
+                .beginObject().name("id").value(1).name("name").value("Golf").name("new").value(true).endObject()
+                .beginObject().endObject()
+                .beginArray().value(-42).value(Long.MIN_VALUE).value((String) null).endArray()
+                .endArray();
+        Assertions.assertEquals("[{\"id\":1,\"name\":\"Golf\",\"new\":true},{},[-42,-9223372036854775808,null]]",
+                out.toString());
+    }
+
+    @Test
+    void testEscapesStringsAndFormatsDates() throws IOException {
+        StringWriter out = new StringWriter();
+        new JsonWriter(out).beginObject()
+                .name("text").value("a\"b\\c\nd\u0001é")
+                .name("date").dateValue(Timestamp.valueOf(LocalDate.of(2018, 12, 3).atStartOfDay()))
+                .name("none").dateValue(null)
+                .endObject();
+        Assertions.assertEquals("{\"text\":\"a\\\"b\\\\c\\nd\\u0001é\",\"date\":\"03.12.2018\",\"none\":null}",
+                out.toString());
+    }
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import view.binary.CarShopBinaryClient;
+import view.binary.CarShopBinaryServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Loopback throughput of the binary protocol at increasing pipeline depths: each connection has
+// a thread sending batches of depth requests, 99% lookups by ID and 1% price updates, and waiting
+// for each batch before the next.
+// Run with: java -cp target/benchmarks.jar benchmark.BinaryThroughputBenchmark [connections] [seconds]
+public class BinaryThroughputBenchmark {
+    private static final int CARS = 50_000;
+    private static final int[] DEPTHS = {1, 16, 256};
+
+    public static void main(String[] args) throws IOException, BusinessException, InterruptedException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path directory = Files.createTempDirectory("cars-binary");
+        String csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, CARS);
+        CarController carController = new CarController(new CarDAO(csvPath, true));
+        carController.loadCarsFromCSV();
+
+        try (CarShopBinaryServer server = new CarShopBinaryServer(carController,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            System.out.printf("cars=%d connections=%d cores=%d%n", CARS, connections,
+                    Runtime.getRuntime().availableProcessors());
+            // A short round first, so the measured ones run on compiled code
+            run(address, connections, 64, 2);
+            for (int depth : DEPTHS) {
+                long requests = run(address, connections, depth, seconds);
+                System.out.printf("depth=%3d: %,10.0f requests/s%n", depth, (double) requests / seconds);
+            }
+        } finally {
+            carController.close();
+            File[] files = directory.toFile().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    Files.delete(file.toPath());
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // Requests answered by all connections in the given time
+    private static long run(InetSocketAddress address, int connections, int depth, int seconds)
+            throws InterruptedException {
+        AtomicLong requests = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int connection = 0; connection < connections; connection++) {
+            Random random = new Random(connection);
+            CarGenerator generator = new CarGenerator(connection);
+            Thread thread = new Thread(() -> {
+                try (CarShopBinaryClient client = CarShopBinaryClient.connect(address)) {
+                    long sent = 0;
+                    while (System.nanoTime() < deadline) {
+                        for (int i = 0; i < depth; i++) {
+                            int id = 1 + random.nextInt(CARS);
+                            if (random.nextInt(100) == 0) {
+                                client.sendUpdateCar(generator.next(id), id);
+                            } else {
+                                client.sendGetCar(id);
+                            }
+                        }
+                        client.sync();
+                        sent += depth;
+                    }
+                    requests.addAndGet(sent);
+                } catch (BusinessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "car-binary-client-" + connection);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return requests.get();
+    }
+}
@@ -0,0 +1,91 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.DTO.BatchResultDTO;
+import model.entity.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ingesting a supplier feed into an existing inventory: one add per car versus one batch.
+// Each invocation starts again from the same inventory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarBatchIngestBenchmark {
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private Path directory;
+    private String csvPath;
+    private List<Car> feed;
+    private CarController carController;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        directory = Files.createTempDirectory("car-batch-bench");
+        csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator generator = new CarGenerator(CarGenerator.DEFAULT_SEED + 3);
+        feed = new ArrayList<>(batchSize);
+        for (int i = 1; i <= batchSize; i++) {
+            feed.add(generator.next(rows + i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException, BusinessException {
+        deleteFiles();
+        CarGenerator.writeCsv(csvPath, rows);
+        carController = new CarController(new CarDAO(csvPath, journaled));
+        carController.loadCarsFromCSV();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws BusinessException {
+        carController.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        deleteFiles();
+        Files.deleteIfExists(directory);
+    }
+
+    private void deleteFiles() throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+    }
+
+    @Benchmark
+    public void addOneByOne() throws BusinessException {
+        for (Car car : feed) {
+            carController.addCarLogic(car);
+        }
+    }
+
+    @Benchmark
+    public BatchResultDTO addBatch() throws BusinessException {
+        return carController.addCarsLogic(feed);
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.DTO.CarDetailDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Read throughput with and without a concurrent writer. Run with increasing -t to see
+// point lookups scale with threads, e.g. -t 1, -t 4, -t 8.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarControllerConcurrencyBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    private Path directory;
+    private CarController carController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-concurrency-bench");
+        String csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, rows);
+        carController = new CarController(new CarDAO(csvPath, true));
+        carController.loadCarsFromCSV();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, BusinessException {
+        carController.close();
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public CarDetailDTO getCarDetailsById() {
+        return carController.getCarDetailsById(ThreadLocalRandom.current().nextInt(1, rows + 1));
+    }
+
+    // Three readers against one writer updating random cars
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public CarDetailDTO readWhileWriting() {
+        return carController.getCarDetailsById(ThreadLocalRandom.current().nextInt(1, rows + 1));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writeWhileReading(CarWriter writer) throws BusinessException {
+        int id = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        carController.updateCarLogic(writer.generator.next(id), id);
+    }
+
+    @State(Scope.Thread)
+    public static class CarWriter {
+        final CarGenerator generator = new CarGenerator(CarGenerator.DEFAULT_SEED + 2);
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.entity.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Mixed add/update/delete workload. Each operation is persisted, so with journaled=false
+// every operation rewrites the whole CSV file; keep rows small in that mode unless group commit is on.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarControllerMutationBenchmark {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"true"})
+    public boolean journaled;
+
+    // Group commit window in milliseconds; negative persists every change before returning
+    @Param({"-1", "5"})
+    public long groupCommitMillis;
+
+    // Share of updates; the rest is split evenly between adds and deletes, so the size stays stable
+    @Param({"0.5"})
+    public double updateRatio;
+
+    private Path directory;
+    private CarController carController;
+    private CarGenerator generator;
+    private Random random;
+    // IDs of the live cars, so deletes and updates always hit an existing car
+    private int[] liveIds;
+    private int liveCount;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-mutation-bench");
+        String csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, rows);
+        carController = new CarController(new CarDAO(csvPath, journaled));
+        carController.loadCarsFromCSV();
+        if (groupCommitMillis >= 0) {
+            carController.enableGroupCommit(groupCommitMillis);
+        }
+
+        generator = new CarGenerator(CarGenerator.DEFAULT_SEED + 1);
+        random = new Random(CarGenerator.DEFAULT_SEED);
+        liveIds = new int[rows * 2];
+        for (int id = 1; id <= rows; id++) {
+            liveIds[liveCount++] = id;
+        }
+        nextId = rows + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, BusinessException {
+        carController.close();
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void mixedWorkload() throws BusinessException {
+        double operation = random.nextDouble();
+        if (operation < updateRatio) {
+            int id = liveIds[random.nextInt(liveCount)];
+            carController.updateCarLogic(generator.next(id), id);
+        } else if (operation < updateRatio + (1 - updateRatio) / 2 || liveCount == 0) {
+            Car car = generator.next(nextId++);
+            carController.addCarLogic(car);
+            if (liveCount == liveIds.length) {
+                liveIds = Arrays.copyOf(liveIds, liveIds.length * 2);
+            }
+            liveIds[liveCount++] = car.getId();
+        } else {
+            int slot = random.nextInt(liveCount);
+            carController.deleteCarByID(liveIds[slot]);
+            liveIds[slot] = liveIds[--liveCount];
+        }
+    }
+}
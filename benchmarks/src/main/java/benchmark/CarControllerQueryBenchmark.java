@@ -0,0 +1,183 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import controller.index.BitmapFilter;
+import controller.query.CarQuery;
+import exceptions.BusinessException;
+import model.DTO.CarDTO;
+import model.DTO.CarDetailDTO;
+import model.DTO.InventoryStatsDTO;
+import model.DTO.SearchSuggestionDTO;
+import model.DTO.CarManufacturerDTO;
+import model.DTO.PageDTO;
+import model.entity.FuelType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Read-only controller queries over generated cars
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarControllerQueryBenchmark {
+    // Number of precomputed query arguments cycled through by each benchmark
+    private static final int ARGUMENTS = 1024;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    // Fraction of all cars returned by getCarsWithPriceLowerThanLogic
+    @Param({"0.01"})
+    public double priceSelectivity;
+
+    // With the cache on, repeated manufacturer and price queries are served from it
+    @Param({"false", "true"})
+    public boolean queryCache;
+
+    private Path directory;
+    private CarController carController;
+    private final int[] ids = new int[ARGUMENTS];
+    private final String[] manufacturers = new String[ARGUMENTS];
+    private long priceThreshold;
+    private int next;
+    // HYBRID or ELECTRIC cars built in 2023-2024, about 4% of the generated cars
+    private final BitmapFilter recentGreenFilter = BitmapFilter.fuelTypes(FuelType.HYBRID, FuelType.ELECTRIC)
+            .and(BitmapFilter.productionYears(2023, 2024));
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-query-bench");
+        String csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, rows);
+        carController = new CarController(new CarDAO(csvPath));
+        carController.loadCarsFromCSV();
+        if (!queryCache) {
+            carController.configureQueryCache(0, 0);
+        }
+
+        Random random = new Random(CarGenerator.DEFAULT_SEED);
+        for (int i = 0; i < ARGUMENTS; i++) {
+            ids[i] = 1 + random.nextInt(rows);
+            manufacturers[i] = CarGenerator.MANUFACTURERS[random.nextInt(CarGenerator.MANUFACTURERS.length)];
+        }
+        priceThreshold = CarGenerator.MIN_PRICE
+                + (long) ((CarGenerator.MAX_PRICE - CarGenerator.MIN_PRICE) * priceSelectivity);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, BusinessException {
+        carController.close();
+        Files.deleteIfExists(directory.resolve("cars.csv"));
+        Files.deleteIfExists(directory);
+    }
+
+    private int nextArgument() {
+        next = (next + 1) & (ARGUMENTS - 1);
+        return next;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CarDetailDTO getCarDetailsById() {
+        return carController.getCarDetailsById(ids[nextArgument()]);
+    }
+
+    @Benchmark
+    public List<CarManufacturerDTO> getCarsByManufacturerLogic() {
+        return carController.getCarsByManufacturerLogic(manufacturers[nextArgument()]);
+    }
+
+    @Benchmark
+    public List<CarDTO> getCarsWithPriceLowerThanLogic() {
+        return carController.getCarsWithPriceLowerThanLogic(priceThreshold);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<CarDTO> getAllCarsLogic() {
+        return carController.getAllCarsLogic();
+    }
+
+    // Streams the same listing a page at a time into a buffered sink
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int writeAllCars() throws IOException {
+        Writer out = new BufferedWriter(Writer.nullWriter(), 1 << 16);
+        int written = carController.writeAllCars(out);
+        out.flush();
+        return written;
+    }
+
+    @Benchmark
+    public PageDTO<CarDTO> getAllCarsPage() {
+        return carController.getAllCarsPage(ids[nextArgument()], 100);
+    }
+
+    @Benchmark
+    public int countCarsMatching() {
+        return carController.countCarsMatching(recentGreenFilter);
+    }
+
+    @Benchmark
+    public List<CarDTO> getCarsMatching() {
+        return carController.getCarsMatching(recentGreenFilter);
+    }
+
+    // Ten cheapest hybrid cars of one manufacturer: planned over the manufacturer index
+    @Benchmark
+    public List<CarDetailDTO> findCarsLogic() {
+        return carController.findCarsLogic(new CarQuery().manufacturer(manufacturers[nextArgument()])
+                .fuelTypes(FuelType.HYBRID).sortBy(CarQuery.SortField.PRICE, false).limit(10));
+    }
+
+    // Ten cheapest electric cars: the price index in order until ten electric cars are found
+    @Benchmark
+    public List<CarDetailDTO> getCheapestCarsLogic() {
+        return carController.getCheapestCarsLogic(10, null, FuelType.ELECTRIC);
+    }
+
+    // Five most powerful cars of one manufacturer: a heap of five over the manufacturer index
+    @Benchmark
+    public List<CarDetailDTO> getMostPowerfulCarsLogic() {
+        return carController.getMostPowerfulCarsLogic(5, manufacturers[nextArgument()], null);
+    }
+
+    // Ten newest cars overall: a heap of ten over a full scan
+    @Benchmark
+    public List<CarDetailDTO> getNewestCarsLogic() {
+        return carController.getNewestCarsLogic(10, null, null);
+    }
+
+    // Autocomplete of a manufacturer prefix
+    @Benchmark
+    public List<SearchSuggestionDTO> searchCarsByPrefix() {
+        return carController.searchCarsLogic(prefix(manufacturers[nextArgument()]), 10);
+    }
+
+    private static String prefix(String manufacturer) {
+        return manufacturer.substring(0, Math.min(3, manufacturer.length()));
+    }
+
+    // Every model name starts with "Model", so a typo in it is checked against all of them
+    @Benchmark
+    public List<SearchSuggestionDTO> searchCarsWithTypo() {
+        return carController.searchCarsLogic("Modle", 10);
+    }
+
+    // Served from the running aggregates; nothing is stale since the setup only adds cars
+    @Benchmark
+    public InventoryStatsDTO getInventoryStatsLogic() {
+        return carController.getInventoryStatsLogic();
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import controller.DAO.CarCsvParser;
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The previous split/parseInt/SimpleDateFormat CSV reader against CarCsvParser on one
+// thread, over the same generated cars.csv. Add -prof gc to compare their garbage.
+// java -jar benchmarks/target/benchmarks.jar CarCsvReadBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarCsvReadBenchmark {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private File csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-csv-bench");
+        csvFile = directory.resolve("cars.csv").toFile();
+        CarGenerator.writeCsv(csvFile.getPath(), rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    // The reader CarDAO used before CarCsvParser
+    @Benchmark
+    public List<Car> splitReader() throws IOException, ParseException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy");
+        List<Car> cars = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(", ");
+                cars.add(new Car(Integer.parseInt(parts[0]), parts[1], parts[2], Long.parseLong(parts[3]),
+                        new Timestamp(dateFormat.parse(parts[4]).getTime()), FuelType.valueOf(parts[5].toUpperCase()),
+                        Integer.parseInt(parts[6])));
+            }
+        }
+        return cars;
+    }
+
+    @Benchmark
+    public List<Car> csvParser() throws IOException, BusinessException {
+        CarCsvParser parser = new CarCsvParser();
+        List<Car> cars = new ArrayList<>();
+        try (InputStream in = new FileInputStream(csvFile)) {
+            parser.parse(in, (id, manufacturer, model, price, productionEpochDay, fuelType, horsepower) ->
+                    cars.add(new Car(id, manufacturer, model, price, parser.toTimestamp(productionEpochDay),
+                            fuelType, horsepower)));
+        }
+        return cars;
+    }
+}
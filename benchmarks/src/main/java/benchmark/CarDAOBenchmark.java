@@ -0,0 +1,57 @@
+package benchmark;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.entity.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Full CSV reads and writes. The 10M case needs a large heap:
+// java -Xmx8g -jar benchmarks/target/benchmarks.jar CarDAOBenchmark -p rows=10000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarDAOBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Path directory;
+    private CarDAO readDAO;
+    private CarDAO writeDAO;
+    private List<Car> cars;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-dao-bench");
+        String csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, rows);
+        readDAO = new CarDAO(csvPath);
+        writeDAO = new CarDAO(directory.resolve("written.csv").toString());
+        cars = readDAO.readCars();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("cars.csv"));
+        Files.deleteIfExists(directory.resolve("written.csv"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<Car> readCars() throws BusinessException {
+        return readDAO.readCars();
+    }
+
+    @Benchmark
+    public void writeCars() throws BusinessException {
+        writeDAO.writeCars(cars);
+    }
+}
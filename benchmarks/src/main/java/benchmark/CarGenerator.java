@@ -0,0 +1,63 @@
+package benchmark;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.entity.FuelType;
+import model.store.ColumnarCarStore;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Seeded synthetic cars, so every run and every change benchmarks the same data.
+// IDs are 1..rows; the other fields are drawn from a fixed-seed Random.
+public class CarGenerator {
+    public static final long DEFAULT_SEED = 20240311L;
+
+    static final String[] MANUFACTURERS = {
+            "Audi", "BMW", "Citroen", "Dacia", "Fiat", "Ford", "Honda", "Hyundai", "Kia", "Mazda",
+            "Mercedes", "Nissan", "Opel", "Peugeot", "Porsche", "Renault", "Seat", "Skoda", "Toyota", "VW"
+    };
+    static final long MIN_PRICE = 5_000;
+    static final long MAX_PRICE = 205_000;
+
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+    private static final int MODELS_PER_MANUFACTURER = 25;
+    // Production dates are whole days, as in cars.csv
+    private static final long FIRST_PRODUCTION_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int PRODUCTION_DAYS = 25 * 365;
+
+    private final Random random;
+
+    public CarGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public CarGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Car next(int id) {
+        int manufacturer = random.nextInt(MANUFACTURERS.length);
+        long price = MIN_PRICE + random.nextInt((int) (MAX_PRICE - MIN_PRICE));
+        LocalDate productionDate = LocalDate.ofEpochDay(FIRST_PRODUCTION_DAY + random.nextInt(PRODUCTION_DAYS));
+        return new Car(id, MANUFACTURERS[manufacturer],
+                "Model" + (manufacturer * MODELS_PER_MANUFACTURER + random.nextInt(MODELS_PER_MANUFACTURER)),
+                price, Timestamp.valueOf(productionDate.atStartOfDay()),
+                FUEL_TYPES[random.nextInt(FUEL_TYPES.length)], 60 + random.nextInt(600));
+    }
+
+    public ColumnarCarStore generate(int rows) {
+        ColumnarCarStore cars = new ColumnarCarStore(rows);
+        for (int id = 1; id <= rows; id++) {
+            cars.add(next(id));
+        }
+        return cars;
+    }
+
+    // Write rows generated cars as a CSV file at the given path
+    public static void writeCsv(String csvPath, int rows) throws BusinessException {
+        new CarDAO(csvPath).writeCarStore(new CarGenerator().generate(rows));
+    }
+}
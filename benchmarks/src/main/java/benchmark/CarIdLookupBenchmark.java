@@ -0,0 +1,55 @@
+package benchmark;
+
+import controller.index.IntIntHashMap;
+import model.entity.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// One car lookup by ID through a linear scan of the car list (the old CarController
+// behaviour) and through the IntIntHashMap index the controller keeps now.
+// java -jar benchmarks/target/benchmarks.jar CarIdLookupBenchmark -p rows=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarIdLookupBenchmark {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private List<Car> cars;
+    private IntIntHashMap rowsById;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CarGenerator generator = new CarGenerator();
+        cars = new ArrayList<>(rows);
+        rowsById = new IntIntHashMap(rows);
+        for (int id = 1; id <= rows; id++) {
+            rowsById.put(id, cars.size());
+            cars.add(generator.next(id));
+        }
+    }
+
+    @Benchmark
+    public long scanLookup() {
+        int id = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        for (Car car : cars) {
+            if (car.getId() == id) {
+                return car.getPrice();
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public long indexLookup() {
+        int row = rowsById.get(ThreadLocalRandom.current().nextInt(1, rows + 1));
+        return row == IntIntHashMap.NO_VALUE ? -1 : cars.get(row).getPrice();
+    }
+}
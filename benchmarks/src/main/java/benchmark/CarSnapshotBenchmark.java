@@ -0,0 +1,59 @@
+package benchmark;
+
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.store.ColumnarCarStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// A cold load of the same generated cars from cars.csv and from the binary snapshot cars.bin.
+// java -Xmx4g -jar benchmarks/target/benchmarks.jar CarSnapshotBenchmark -p rows=5000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarSnapshotBenchmark {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private CarDAO csvDAO;
+    private CarDAO snapshotDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-snapshot-bench");
+        String csvPath = directory.resolve("cars.csv").toString();
+        snapshotDAO = new CarDAO(csvPath);
+        snapshotDAO.setBinarySnapshots(true);
+        // Writes cars.csv and then cars.bin next to it
+        snapshotDAO.writeCarStore(new CarGenerator().generate(rows));
+        csvDAO = new CarDAO(csvPath);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public ColumnarCarStore loadCsv() throws BusinessException {
+        return csvDAO.readCarStore();
+    }
+
+    @Benchmark
+    public ColumnarCarStore loadBinarySnapshot() throws BusinessException {
+        return snapshotDAO.readCarStore();
+    }
+}
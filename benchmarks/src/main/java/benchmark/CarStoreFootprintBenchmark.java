@@ -0,0 +1,123 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import model.entity.Car;
+import model.store.MappedCarStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Retained heap of the same generated cars in a List<Car>, a ColumnarCarStore and a
+// MappedCarStore, and of whole controllers loaded from cars.csv over the columns or the mapped
+// store, indexes included. Each invocation builds one holder and reports the heap it retains as
+// the heapBytesPerCar counter; the time includes the collections around the build and means little.
+// java -jar benchmarks/target/benchmarks.jar CarStoreFootprintBenchmark -p rows=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CarStoreFootprintBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"list", "columnar", "mapped", "columnarController", "mappedController"})
+    public String holder;
+
+    private Path directory;
+    private String csvPath;
+    private Path mappedFile;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double heapBytesPerCar;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-store-bench");
+        csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, rows);
+        mappedFile = directory.resolve("cars.db");
+    }
+
+    // Every mapped build starts from an empty store file
+    @TearDown(Level.Invocation)
+    public void deleteMappedStore() throws IOException {
+        for (String suffix : new String[]{"", ".index", ".strings"}) {
+            Files.deleteIfExists(Path.of(mappedFile + suffix));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteMappedStore();
+        Files.deleteIfExists(Path.of(csvPath));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Object build(Footprint footprint) throws IOException, BusinessException {
+        long before = usedHeap();
+        Object built = switch (holder) {
+            case "list" -> list();
+            case "columnar" -> new CarGenerator().generate(rows);
+            case "mapped" -> mapped();
+            case "columnarController" -> controller(new CarController(new CarDAO(csvPath)));
+            case "mappedController" -> controller(new CarController(new CarDAO(csvPath),
+                    MappedCarStore.open(mappedFile)));
+            default -> throw new IllegalArgumentException("Unknown holder " + holder);
+        };
+        footprint.heapBytesPerCar = (double) (usedHeap() - before) / rows;
+        close(built);
+        return built;
+    }
+
+    private List<Car> list() {
+        CarGenerator generator = new CarGenerator();
+        List<Car> cars = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            cars.add(generator.next(id));
+        }
+        return cars;
+    }
+
+    private MappedCarStore mapped() throws IOException {
+        CarGenerator generator = new CarGenerator();
+        MappedCarStore cars = MappedCarStore.open(mappedFile);
+        for (int id = 1; id <= rows; id++) {
+            cars.add(generator.next(id));
+        }
+        return cars;
+    }
+
+    private static CarController controller(CarController controller) throws BusinessException {
+        controller.loadCarsFromCSV();
+        return controller;
+    }
+
+    private static void close(Object built) throws BusinessException {
+        if (built instanceof CarController controller) {
+            controller.close();
+        } else if (built instanceof MappedCarStore store) {
+            store.close();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
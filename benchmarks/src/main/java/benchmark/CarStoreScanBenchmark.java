@@ -0,0 +1,92 @@
+package benchmark;
+
+import model.entity.Car;
+import model.store.ColumnarCarStore;
+import model.store.MappedCarStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A price filter scan over the same generated cars in a List<Car>, a ColumnarCarStore
+// and a MappedCarStore, without the controller around them.
+// java -jar benchmarks/target/benchmarks.jar CarStoreScanBenchmark -p rows=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarStoreScanBenchmark {
+    private static final long PRICE_LIMIT = CarGenerator.MIN_PRICE + 45_000;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private List<Car> list;
+    private ColumnarCarStore columns;
+    private MappedCarStore mapped;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("car-store-scan-bench");
+        columns = new CarGenerator().generate(rows);
+        list = new ArrayList<>(rows);
+        mapped = MappedCarStore.open(directory.resolve("cars.db"));
+        CarGenerator generator = new CarGenerator();
+        for (int id = 1; id <= rows; id++) {
+            Car car = generator.next(id);
+            list.add(car);
+            mapped.add(car);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mapped.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int scanList() {
+        int matches = 0;
+        for (Car car : list) {
+            if (car.getPrice() < PRICE_LIMIT) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int scanColumns() {
+        int matches = 0;
+        for (int row = 0; row < columns.rowLimit(); row++) {
+            if (columns.isLive(row) && columns.price(row) < PRICE_LIMIT) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int scanMapped() {
+        int matches = 0;
+        for (int row = 0; row < mapped.rowLimit(); row++) {
+            if (mapped.isLive(row) && mapped.price(row) < PRICE_LIMIT) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
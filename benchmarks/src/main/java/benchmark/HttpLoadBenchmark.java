@@ -0,0 +1,145 @@
+package benchmark;
+
+import controller.CarController;
+import controller.DAO.CarDAO;
+import exceptions.BusinessException;
+import metrics.LatencyHistogram;
+import view.http.CarShopHttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Serves a generated store over HTTP to many concurrent clients, each with its own connection and
+// sending its requests one after another with a pause between them: mostly lookups by ID, with
+// manufacturer listings and price updates mixed in. Prints throughput and latency percentiles as
+// seen by the clients. A think time of 0 has every client send back to back, which measures
+// throughput at saturation rather than latency.
+// Run with: java -cp target/benchmarks.jar benchmark.HttpLoadBenchmark
+//     [clients] [requestsPerClient] [thinkMillis]
+public class HttpLoadBenchmark {
+    private static final int CARS = 50_000;
+
+    public static void main(String[] args) throws IOException, BusinessException, InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int serverThreads = Integer.getInteger("carshop.httpThreads", 200);
+        // On one core the common pool has no threads, and the HTTP client would start a thread per
+        // completed request; it must be set before the pool is first used
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "2");
+        Path directory = Files.createTempDirectory("cars-http");
+        String csvPath = directory.resolve("cars.csv").toString();
+        CarGenerator.writeCsv(csvPath, CARS);
+        CarController carController = new CarController(new CarDAO(csvPath, true));
+        carController.loadCarsFromCSV();
+
+        try (CarShopHttpServer server = new CarShopHttpServer(carController,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), serverThreads)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(4, runnable -> {
+                Thread thread = new Thread(runnable, "car-http-client");
+                thread.setDaemon(true);
+                return thread;
+            });
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor).build();
+            System.out.printf("cars=%d clients=%d requests/client=%d think=%d ms server=%s cores=%d%n", CARS,
+                    clients, requestsPerClient, thinkMillis, server.usesVirtualThreads() ? "virtual threads"
+                            : serverThreads + " platform threads", Runtime.getRuntime().availableProcessors());
+
+            // A short round first, so the measured one runs on compiled code
+            run(httpClient, base, Math.min(clients, 200), 20, 0, new LatencyHistogram("warmup"), new AtomicLong());
+            LatencyHistogram latency = new LatencyHistogram("http");
+            AtomicLong failures = new AtomicLong();
+            long start = System.nanoTime();
+            run(httpClient, base, clients, requestsPerClient, thinkMillis, latency, failures);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("requests=%d failures=%d time=%,d ms throughput=%,.0f req/s%n", latency.getCount(),
+                    failures.get(), elapsed / 1_000_000, latency.getCount() * 1e9 / elapsed);
+            System.out.printf("latency p50=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms%n",
+                    latency.getPercentileNanos(0.5) / 1e6, latency.getPercentileNanos(0.99) / 1e6,
+                    latency.getPercentileNanos(0.999) / 1e6, latency.getMaxNanos() / 1e6);
+        } finally {
+            carController.close();
+            File[] files = directory.toFile().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    Files.delete(file.toPath());
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // Start the clients spread over one think time and wait until all have sent their requests
+    private static void run(HttpClient httpClient, String base, int clients, int requestsPerClient,
+                            int thinkMillis, LatencyHistogram latency, AtomicLong failures) {
+        CompletableFuture<?>[] done = new CompletableFuture<?>[clients];
+        for (int client = 0; client < clients; client++) {
+            Random random = new Random(client);
+            done[client] = CompletableFuture.runAsync(() -> { }, think(random, thinkMillis))
+                    .thenCompose(ignored -> send(httpClient, base, random, requestsPerClient, thinkMillis,
+                            latency, failures));
+        }
+        CompletableFuture.allOf(done).join();
+    }
+
+    private static CompletableFuture<Void> send(HttpClient httpClient, String base, Random random, int remaining,
+                                                int thinkMillis, LatencyHistogram latency, AtomicLong failures) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = request(base, random);
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    latency.record(System.nanoTime() - start);
+                    if (error != null || response.statusCode() >= 300) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenComposeAsync(ignored -> send(httpClient, base, random, remaining - 1, thinkMillis, latency,
+                        failures), think(random, thinkMillis));
+    }
+
+    // Runs tasks after a pause of up to twice the think time, so clients do not fall into step
+    private static Executor think(Random random, int thinkMillis) {
+        return thinkMillis == 0 ? Runnable::run
+                : CompletableFuture.delayedExecutor(random.nextInt(2 * thinkMillis), TimeUnit.MILLISECONDS);
+    }
+
+    // 90% lookups by ID, 5% manufacturer listings of about 2,500 cars, 5% price updates
+    private static HttpRequest request(String base, Random random) {
+        int kind = random.nextInt(100);
+        int id = 1 + random.nextInt(CARS);
+        String manufacturer = CarGenerator.MANUFACTURERS[random.nextInt(CarGenerator.MANUFACTURERS.length)];
+        if (kind < 90) {
+            return HttpRequest.newBuilder(URI.create(base + "/cars/" + id)).GET().build();
+        }
+        if (kind < 95) {
+            return HttpRequest.newBuilder(URI.create(base + "/cars?manufacturer=" + manufacturer)).GET().build();
+        }
+        String car = "{\"manufacturer\": \"" + manufacturer + "\", \"model\": \"Model1\", \"price\": "
+                + (CarGenerator.MIN_PRICE + random.nextInt((int) (CarGenerator.MAX_PRICE - CarGenerator.MIN_PRICE)))
+                + ", \"productionDate\": \"01.06.2015\", \"fuelType\": \"GASOLINE\", \"horsepower\": 150}";
+        return HttpRequest.newBuilder(URI.create(base + "/cars/" + id))
+                .PUT(HttpRequest.BodyPublishers.ofString(car)).build();
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import controller.DAO.ParallelCarLoader;
+import exceptions.BusinessException;
+import model.store.ColumnarCarStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// ParallelCarLoader over one generated cars.csv at increasing thread counts. Thread
+// counts above the machine's cores only show the cost of splitting the file.
+// java -Xmx4g -jar benchmarks/target/benchmarks.jar ParallelCarLoaderBenchmark -p rows=5000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelCarLoaderBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path directory;
+    private File csvFile;
+    private ParallelCarLoader loader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BusinessException {
+        directory = Files.createTempDirectory("car-loader-bench");
+        csvFile = directory.resolve("cars.csv").toFile();
+        CarGenerator.writeCsv(csvFile.getPath(), rows);
+        // No threshold, so even small files are split across the threads
+        loader = new ParallelCarLoader(threads, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public ColumnarCarStore load() throws BusinessException {
+        return loader.load(csvFile);
+    }
+}